@@ -0,0 +1,94 @@
+package dataaccesslayer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/*******************************************************************************
+ * ConnectionAcquireBenchmark (JMH)
+ * Measures {@link DataSource#getConnection()} followed by close against an
+ * in-process H2 database, next to a bare DriverManager connection to the same
+ * database. The difference is what the data source adds per call: deadline
+ * and circuit breaker checks, listeners and the observing proxy. Against
+ * MySQL the connection handshake dominates both; run the application's
+ * load test for that.
+ *
+ * @see DataSource
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Connection acquisition benchmark on an in-memory database.
+ ******************************************************************************/
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ConnectionAcquireBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:books;DB_CLOSE_DELAY=-1";
+
+    private DataSource dataSource;
+
+    /** Keeps the in-memory database alive between connections. */
+    private Connection keepAlive;
+
+    /**
+     * Creates the database and a data source pointing at it.
+     *
+     * @throws SQLException if the database cannot be opened
+     */
+    @Setup
+    public void setup() throws SQLException {
+        keepAlive = DriverManager.getConnection(URL, "sa", "");
+        Properties props = new Properties();
+        props.setProperty("jdbc.url", URL);
+        props.setProperty("jdbc.username", "sa");
+        props.setProperty("jdbc.password", "");
+        dataSource = new DataSource(props);
+    }
+
+    /**
+     * Closes the database.
+     *
+     * @throws SQLException if closing fails
+     */
+    @TearDown
+    public void tearDown() throws SQLException {
+        keepAlive.close();
+    }
+
+    /**
+     * Opens and closes a connection through the data source.
+     *
+     * @throws SQLException if the connection fails
+     */
+    @Benchmark
+    public void dataSource() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.getAutoCommit();
+        }
+    }
+
+    /**
+     * Opens and closes a connection through DriverManager, as the baseline.
+     *
+     * @throws SQLException if the connection fails
+     */
+    @Benchmark
+    public void driverManager() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "")) {
+            connection.getAutoCommit();
+        }
+    }
+}
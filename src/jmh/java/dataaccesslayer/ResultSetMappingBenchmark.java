@@ -0,0 +1,146 @@
+package dataaccesslayer;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import transferobjects.AuthorDTO;
+import transferobjects.TitleDTO;
+
+/*******************************************************************************
+ * ResultSetMappingBenchmark (JMH)
+ * Measures {@link ResultSetMappers}: turning a result set into a list of
+ * AuthorDTOs or TitleDTOs, as the getAll* DAO methods do. The result set is an
+ * in-memory stand-in that looks columns up by label, like the MySQL driver,
+ * so the numbers cover the mapping and DTO allocation without any network or
+ * driver decoding cost.
+ *
+ * @see ResultSetMappers
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: ResultSet to DTO mapping benchmark.
+ ******************************************************************************/
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class ResultSetMappingBenchmark {
+
+    /** Rows per result set. */
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private Object[][] authorRows;
+    private Object[][] titleRows;
+
+    /**
+     * Creates the row data.
+     */
+    @Setup
+    public void setup() {
+        authorRows = new Object[rows][];
+        titleRows = new Object[rows][];
+        for (int i = 0; i < rows; i++) {
+            authorRows[i] = new Object[] { i + 1, "First" + i, "Last" + i };
+            titleRows[i] = new Object[] { String.format("978%010d", i), "Title number " + i, 1 + i % 5,
+                    Integer.toString(1990 + i % 35) };
+        }
+    }
+
+    /**
+     * Maps a result set of authors.
+     *
+     * @return the authors
+     * @throws SQLException never
+     */
+    @Benchmark
+    public List<AuthorDTO> mapAuthors() throws SQLException {
+        ResultSet resultSet = resultSet(authorRows, "AuthorID", "FirstName", "LastName");
+        List<AuthorDTO> authors = new ArrayList<>();
+        while (resultSet.next()) {
+            authors.add(ResultSetMappers.toAuthor(resultSet));
+        }
+        return authors;
+    }
+
+    /**
+     * Maps a result set of titles.
+     *
+     * @return the titles
+     * @throws SQLException never
+     */
+    @Benchmark
+    public List<TitleDTO> mapTitles() throws SQLException {
+        ResultSet resultSet = resultSet(titleRows, "ISBN", "Title", "EditionNumber", "Copyright");
+        List<TitleDTO> titles = new ArrayList<>();
+        while (resultSet.next()) {
+            titles.add(ResultSetMappers.toTitle(resultSet));
+        }
+        return titles;
+    }
+
+    /**
+     * Creates a forward-only result set over rows held in memory. Supports
+     * next, getInt, getString and close; column labels are case-insensitive.
+     *
+     * @param data    the rows
+     * @param columns the column labels
+     * @return the result set
+     */
+    static ResultSet resultSet(Object[][] data, String... columns) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            index.put(columns[i].toLowerCase(), i);
+        }
+        int[] row = { -1 };
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "next":
+                            return ++row[0] < data.length;
+                        case "getInt":
+                            return ((Number) column(data[row[0]], index, args[0])).intValue();
+                        case "getString":
+                            Object value = column(data[row[0]], index, args[0]);
+                            return value == null ? null : value.toString();
+                        case "close":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    /**
+     * Reads a column by label or 1-based index.
+     *
+     * @param row    the current row
+     * @param index  column positions by lower-case label
+     * @param column the label or index
+     * @return the value
+     * @throws SQLException if there is no such column
+     */
+    private static Object column(Object[] row, Map<String, Integer> index, Object column) throws SQLException {
+        Integer position = column instanceof Integer
+                ? (Integer) column - 1
+                : index.get(((String) column).toLowerCase());
+        if (position == null) {
+            throw new SQLException("Column not found: " + column, "S0022");
+        }
+        return row[position];
+    }
+}
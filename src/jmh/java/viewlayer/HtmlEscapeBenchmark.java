@@ -0,0 +1,96 @@
+package viewlayer;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/*******************************************************************************
+ * HtmlEscapeBenchmark (JMH)
+ * Measures the cost of rendering one escaped table cell, comparing the
+ * original approach (escape into a new String via StringBuilder, concatenate,
+ * println) with {@link HtmlWriter#escape(String)} writing straight into the
+ * encoder. Run with {@code -Djmh.args="-prof gc"} to see the allocation
+ * difference per field.
+ *
+ * @see HtmlWriter
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Per-field HTML escaping benchmark.
+ ******************************************************************************/
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class HtmlEscapeBenchmark {
+
+    /** A typical field with nothing to escape, and one that needs escaping. */
+    @Param({"Java How to Program", "C++ <How> to \"Program\" & Co's / 2nd"})
+    public String text;
+
+    private HtmlWriter writer;
+    private PrintWriter legacyWriter;
+
+    /**
+     * Creates writers that encode into a discarding stream.
+     */
+    @Setup
+    public void setup() {
+        writer = new HtmlWriter(OutputStream.nullOutputStream());
+        legacyWriter = new PrintWriter(new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The rendering code as it was before HtmlWriter.escape.
+     */
+    @Benchmark
+    public void legacyConcatenation() {
+        legacyWriter.println("            <td>" + legacyEscapeHtml(text) + "</td>");
+    }
+
+    /**
+     * The rendering code using HtmlWriter.escape.
+     */
+    @Benchmark
+    public void escapingWriter() {
+        writer.print("            <td>");
+        writer.escape(text);
+        writer.println("</td>");
+    }
+
+    /**
+     * Copy of the former FrontController.escapeHtml, kept as the baseline.
+     *
+     * @param text The text to escape
+     * @return Escaped text safe for HTML rendering
+     */
+    private static String legacyEscapeHtml(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            switch (c) {
+                case '<': sb.append("&lt;"); break;
+                case '>': sb.append("&gt;"); break;
+                case '&': sb.append("&amp;"); break;
+                case '"': sb.append("&quot;"); break;
+                case '\'': sb.append("&#x27;"); break;
+                case '/': sb.append("&#x2F;"); break;
+                default: sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
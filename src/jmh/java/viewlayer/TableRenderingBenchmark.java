@@ -0,0 +1,94 @@
+package viewlayer;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import transferobjects.AuthorDTO;
+import transferobjects.TitleDTO;
+
+/*******************************************************************************
+ * TableRenderingBenchmark (JMH)
+ * Measures rendering the full author and title tables of the front
+ * controller, with their HTML escaping and UTF-8 encoding, into a discarding
+ * stream. Author lookups for the title table are served from memory, so only
+ * the rendering is measured.
+ *
+ * @see FrontController
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Full table rendering benchmark.
+ ******************************************************************************/
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class TableRenderingBenchmark {
+
+    /** Rows per table. */
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private List<AuthorDTO> authors;
+    private List<TitleDTO> titles;
+    private Map<String, List<AuthorDTO>> authorsByIsbn;
+    private HtmlWriter out;
+
+    /**
+     * Creates the table data; every title has two authors and one in ten
+     * fields needs escaping.
+     */
+    @Setup
+    public void setup() {
+        authors = new ArrayList<>(rows);
+        titles = new ArrayList<>(rows);
+        authorsByIsbn = new HashMap<>();
+        for (int i = 0; i < rows; i++) {
+            AuthorDTO author = new AuthorDTO();
+            author.setId(i + 1);
+            author.setFirstName("First" + i);
+            author.setLastName(i % 10 == 0 ? "O'Last" + i : "Last" + i);
+            authors.add(author);
+        }
+        for (int i = 0; i < rows; i++) {
+            TitleDTO title = new TitleDTO();
+            title.setIsbn(String.format("978%010d", i));
+            title.setTitle(i % 10 == 0 ? "C++ <How> to Program " + i : "Java How to Program " + i);
+            title.setEditionNumber(1 + i % 5);
+            title.setCopyright(Integer.toString(1990 + i % 35));
+            titles.add(title);
+            authorsByIsbn.put(title.getIsbn(), List.of(authors.get(i), authors.get((i + 1) % rows)));
+        }
+        out = new HtmlWriter(OutputStream.nullOutputStream());
+    }
+
+    /**
+     * Renders the author table.
+     */
+    @Benchmark
+    public void authorsTable() {
+        FrontController.writeAuthorsTable(out, authors);
+        out.flush();
+    }
+
+    /**
+     * Renders the title table with the authors of each title.
+     */
+    @Benchmark
+    public void titlesTable() {
+        FrontController.writeTitlesTable(out, titles, authorsByIsbn::get);
+        out.flush();
+    }
+}
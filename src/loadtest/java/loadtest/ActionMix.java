@@ -0,0 +1,149 @@
+package loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*******************************************************************************
+ * ActionMix
+ * The weighted mix of front controller actions a load test sends, parsed
+ * from a list such as {@code getTitleByISBN:60,getAllTitles:10,addTitle:5}.
+ * Each action knows how to build its request: reads pick a random seeded
+ * author or title, writes create new, unique rows.
+ *
+ * @see LoadGenerator
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Weighted action mix for the load test.
+ ******************************************************************************/
+
+final class ActionMix {
+
+    /** Actions the mix can contain. */
+    static final String[] ACTIONS = { "getAllTitles", "getAllAuthors", "getTitleByISBN", "getAuthorById",
+        "getAuthorsForTitle", "getTitlesByAuthor", "addTitle", "addAuthor" };
+
+    private final URI frontController;
+    private final int seededTitles;
+    private final int seededAuthors;
+    private final List<String> actions = new ArrayList<>();
+    private final int[] cumulativeWeights;
+
+    /** Source of unique ISBNs for addTitle. */
+    private final AtomicLong nextIsbn = new AtomicLong();
+
+    /**
+     * Parses a mix.
+     *
+     * @param mix             comma-separated action:weight pairs
+     * @param frontController the front controller URL
+     * @param seededTitles    titles in the database when the test starts
+     * @param seededAuthors   authors in the database when the test starts
+     * @throws IllegalArgumentException if the mix names an unknown action or has no positive weight
+     */
+    ActionMix(String mix, URI frontController, int seededTitles, int seededAuthors) {
+        this.frontController = frontController;
+        this.seededTitles = seededTitles;
+        this.seededAuthors = seededAuthors;
+        List<Integer> weights = new ArrayList<>();
+        int total = 0;
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            String action = parts[0].trim();
+            if (!List.of(ACTIONS).contains(action)) {
+                throw new IllegalArgumentException("Unknown action in mix: " + action);
+            }
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+            if (weight > 0) {
+                total += weight;
+                actions.add(action);
+                weights.add(total);
+            }
+        }
+        if (actions.isEmpty()) {
+            throw new IllegalArgumentException("The action mix is empty: " + mix);
+        }
+        cumulativeWeights = weights.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Gets the actions of the mix.
+     *
+     * @return the action names, in the order given
+     */
+    List<String> getActions() {
+        return actions;
+    }
+
+    /**
+     * Picks an action according to the weights.
+     *
+     * @param random the random source
+     * @return the action name
+     */
+    String pick(Random random) {
+        int ticket = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (ticket < cumulativeWeights[i]) {
+                return actions.get(i);
+            }
+        }
+        return actions.get(actions.size() - 1);
+    }
+
+    /**
+     * Builds the request for an action.
+     *
+     * @param action the action name
+     * @param random the random source
+     * @return the POST request
+     */
+    HttpRequest request(String action, Random random) {
+        StringBuilder form = new StringBuilder("action=").append(action);
+        switch (action) {
+            case "getTitleByISBN":
+            case "getAuthorsForTitle":
+                param(form, "titleISBN", LoadTest.seededIsbn(random.nextInt(seededTitles)));
+                break;
+            case "getAuthorById":
+            case "getTitlesByAuthor":
+                param(form, "authorId", Integer.toString(1 + random.nextInt(seededAuthors)));
+                break;
+            case "addTitle":
+                param(form, "newTitleISBN", String.format("979%010d", nextIsbn.getAndIncrement()));
+                param(form, "newTitleName", "Load Test Title " + random.nextInt(1_000_000));
+                param(form, "newEditionNumber", Integer.toString(1 + random.nextInt(5)));
+                param(form, "newCopyright", Integer.toString(2000 + random.nextInt(25)));
+                param(form, "newAuthorIds", (1 + random.nextInt(seededAuthors)) + "," + (1 + random.nextInt(seededAuthors)));
+                break;
+            case "addAuthor":
+                param(form, "firstName", "Load" + random.nextInt(1_000_000));
+                param(form, "lastName", "Tester");
+                break;
+            default:
+                break;
+        }
+        return HttpRequest.newBuilder(frontController)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form.toString()))
+                .build();
+    }
+
+    /**
+     * Appends a form parameter.
+     *
+     * @param form  the form being built
+     * @param name  the parameter name
+     * @param value the value
+     */
+    private static void param(StringBuilder form, String name, String value) {
+        form.append('&').append(name).append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,227 @@
+package loadtest;
+
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import monitoring.Histogram;
+
+/*******************************************************************************
+ * LoadGenerator
+ * An open-loop load generator: requests are scheduled at a fixed rate,
+ * independent of how fast the server answers, and sent asynchronously.
+ *
+ * Latency is measured from the time a request was scheduled to be sent, not
+ * from when it actually was. A closed-loop client that waits for each
+ * response before sending the next one stops sending while the server stalls,
+ * so the stall shows up in one sample instead of in every request that
+ * should have been sent during it ("coordinated omission"); measuring from
+ * the intended send time charges the stall to all of them, as real users
+ * arriving independently would experience it.
+ *
+ * Requests scheduled during the warm-up are sent but not recorded. Latencies
+ * go into one {@link Histogram} per action. A request that is never sent
+ * because too many are in flight, or that is still unanswered when the
+ * final drain gives up, is a timeout: it goes into the histograms at the
+ * time it was given up on, so the percentiles include the stalls the
+ * correction is meant to charge, and it is counted in its own column.
+ * Error responses are counted but not recorded.
+ *
+ * @see LoadTest
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Open-loop, coordinated-omission-corrected load generator.
+ ******************************************************************************/
+
+final class LoadGenerator {
+
+    private final HttpClient client;
+    private final ActionMix mix;
+    private final double rate;
+    private final int maxOutstanding;
+
+    private final Map<String, Histogram> latencies = new LinkedHashMap<>();
+    private final Map<String, LongAdder> succeeded = new LinkedHashMap<>();
+    private final Map<String, LongAdder> errors = new LinkedHashMap<>();
+    private final Map<String, LongAdder> timeouts = new LinkedHashMap<>();
+    private final Histogram allLatencies = new Histogram();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    /** Actions of the measured requests in flight, by sequence number; whoever removes one records it. */
+    private final Map<Long, String> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a generator.
+     *
+     * @param client         the HTTP client, already logged in
+     * @param mix            the actions to send
+     * @param rate           requests per second
+     * @param maxOutstanding requests in flight above which new ones are skipped (and counted as timeouts)
+     */
+    LoadGenerator(HttpClient client, ActionMix mix, double rate, int maxOutstanding) {
+        this.client = client;
+        this.mix = mix;
+        this.rate = rate;
+        this.maxOutstanding = maxOutstanding;
+        for (String action : mix.getActions()) {
+            latencies.put(action, new Histogram());
+            succeeded.put(action, new LongAdder());
+            errors.put(action, new LongAdder());
+            timeouts.put(action, new LongAdder());
+        }
+    }
+
+    /**
+     * Sends requests for the warm-up and the measured period, then waits up
+     * to 60 seconds for the outstanding responses.
+     *
+     * @param warmupSeconds   seconds sent but not recorded
+     * @param durationSeconds seconds recorded
+     * @param random          the random source (seeded for repeatable runs)
+     */
+    void run(long warmupSeconds, long durationSeconds, Random random) {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        for (long i = 0; ; i++) {
+            long intended = start + i * interval;
+            if (intended - end >= 0) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            String action = mix.pick(random);
+            boolean measured = intended - measureFrom >= 0;
+            if (outstanding.get() >= maxOutstanding) {
+                // The server is this far behind; a real client would have timed out long ago
+                if (measured) {
+                    skipped.increment();
+                    timedOut(action, intended);
+                }
+                continue;
+            }
+            long sequence = i;
+            if (measured) {
+                inFlight.put(sequence, action);
+            }
+            outstanding.incrementAndGet();
+            client.sendAsync(mix.request(action, random), HttpResponse.BodyHandlers.discarding())
+                  .whenComplete((response, failure) -> {
+                      outstanding.decrementAndGet();
+                      if (!measured || inFlight.remove(sequence) == null) {
+                          return; // Warm-up, or already given up on by the drain
+                      }
+                      if (failure != null || response.statusCode() != 200) {
+                          errors.get(action).increment();
+                      } else {
+                          succeeded.get(action).increment();
+                          record(action, System.nanoTime() - intended);
+                      }
+                  });
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (outstanding.get() > 0 && System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        for (Long sequence : inFlight.keySet()) {
+            String action = inFlight.remove(sequence);
+            if (action != null) {
+                abandoned.increment();
+                timedOut(action, start + sequence * interval);
+            }
+        }
+    }
+
+    /**
+     * Records a measured request that was given up on, at the time since it was due.
+     *
+     * @param action   the action
+     * @param intended System.nanoTime() when it was scheduled to be sent
+     */
+    private void timedOut(String action, long intended) {
+        timeouts.get(action).increment();
+        record(action, System.nanoTime() - intended);
+    }
+
+    private void record(String action, long latency) {
+        latencies.get(action).record(latency);
+        allLatencies.record(latency);
+    }
+
+    /**
+     * Prints throughput and latency percentiles per action. The percentiles
+     * cover the successful requests and the timeouts.
+     *
+     * @param out             where to print
+     * @param durationSeconds length of the measured period
+     */
+    void report(PrintStream out, long durationSeconds) {
+        out.printf(Locale.ROOT, "%-20s %9s %7s %8s %9s %9s %9s %9s %9s%n",
+                "action", "ok", "errors", "timeouts", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        long allOk = 0;
+        long allErrors = 0;
+        long allTimeouts = 0;
+        for (Map.Entry<String, Histogram> entry : latencies.entrySet()) {
+            long ok = succeeded.get(entry.getKey()).sum();
+            long failed = errors.get(entry.getKey()).sum();
+            long timedOut = timeouts.get(entry.getKey()).sum();
+            allOk += ok;
+            allErrors += failed;
+            allTimeouts += timedOut;
+            line(out, entry.getKey(), entry.getValue(), ok, failed, timedOut, durationSeconds);
+        }
+        line(out, "all", allLatencies, allOk, allErrors, allTimeouts, durationSeconds);
+        if (skipped.sum() > 0) {
+            out.printf(Locale.ROOT, "%d requests were not sent because %d were already in flight (counted as timeouts)%n",
+                    skipped.sum(), maxOutstanding);
+        }
+        if (abandoned.sum() > 0) {
+            out.printf(Locale.ROOT, "%d requests were still unanswered 60 s after the last was sent (counted as timeouts)%n",
+                    abandoned.sum());
+        }
+    }
+
+    /**
+     * Prints one row of the report.
+     *
+     * @param out             where to print
+     * @param name            the row label
+     * @param histogram       the latencies of the successful requests and the timeouts
+     * @param ok              the number of successful requests
+     * @param failed          the error count
+     * @param timedOut        the timeout count
+     * @param durationSeconds length of the measured period
+     */
+    private static void line(PrintStream out, String name, Histogram histogram, long ok, long failed, long timedOut,
+                             long durationSeconds) {
+        out.printf(Locale.ROOT, "%-20s %9d %7d %8d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                name, ok, failed, timedOut, (double) ok / durationSeconds,
+                millis(histogram.getValueAtQuantile(0.50)), millis(histogram.getValueAtQuantile(0.99)),
+                millis(histogram.getValueAtQuantile(0.999)), millis(histogram.getValueAtQuantile(1.0)));
+    }
+
+    /**
+     * Converts nanoseconds to milliseconds.
+     *
+     * @param nanos the duration in nanoseconds
+     * @return the duration in milliseconds
+     */
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
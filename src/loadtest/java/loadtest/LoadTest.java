@@ -0,0 +1,228 @@
+package loadtest;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import dataaccesslayer.DataSource;
+import org.apache.catalina.Context;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.tomcat.util.scan.StandardJarScanner;
+import tools.CatalogGenerator;
+import tools.CatalogSink;
+import tools.JdbcCatalogSink;
+import tools.ShardedCatalogSink;
+
+/*******************************************************************************
+ * LoadTest
+ * End-to-end load test that needs nothing but a JDK: it creates an in-memory
+ * H2 database (MySQL compatibility mode) with a generated catalog, points the
+ * application's DataSource at it, deploys src/main/webapp with its web.xml in
+ * an embedded Tomcat, logs in once and drives a mix of front controller
+ * actions with the open-loop {@link LoadGenerator}. Throughput and
+ * p50/p99/p999 latency per action are printed at the end.
+ *
+ * Run with: mvn -Ploadtest verify
+ *
+ * Settings (system properties, also accepted by the Maven profile):
+ *
+ *   loadtest.rate             requests per second (default 200)
+ *   loadtest.warmupSeconds    sent but not recorded (default 10)
+ *   loadtest.durationSeconds  recorded (default 30)
+ *   loadtest.mix              action:weight list (see {@link #DEFAULT_MIX})
+ *   loadtest.titles           titles in the generated catalog (default 1000)
+ *   loadtest.authors          authors in the generated catalog (default 200)
+ *   loadtest.maxOutstanding   requests in flight before new ones are skipped (default 10000)
+ *   loadtest.seed             random seed, for repeatable request sequences (default 42)
+ *   loadtest.shards           title shards, each a separate H2 database (default 1)
+ *
+ * The application log goes to app.log in the Tomcat base directory unless
+ * log.file is set.
+ *
+ * @see LoadGenerator
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Self-contained end-to-end load test.
+ ******************************************************************************/
+
+public final class LoadTest {
+
+    /** Mostly lookups, some listings and a few writes. */
+    static final String DEFAULT_MIX = "getTitleByISBN:40,getAuthorById:15,getAuthorsForTitle:10,"
+            + "getTitlesByAuthor:10,getAllTitles:10,getAllAuthors:5,addTitle:5,addAuthor:5";
+
+    private static final String JDBC_URL = "jdbc:h2:mem:books;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    /**
+     * Not instantiable.
+     */
+    private LoadTest() {
+    }
+
+    /**
+     * Runs the load test.
+     *
+     * @param args not used
+     * @throws Exception if the server cannot be started or the login fails
+     */
+    public static void main(String[] args) throws Exception {
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "200"));
+        long warmupSeconds = Long.getLong("loadtest.warmupSeconds", 10);
+        long durationSeconds = Long.getLong("loadtest.durationSeconds", 30);
+        String mix = System.getProperty("loadtest.mix", DEFAULT_MIX);
+        int titles = Integer.getInteger("loadtest.titles", 1000);
+        int authors = Integer.getInteger("loadtest.authors", 200);
+        int maxOutstanding = Integer.getInteger("loadtest.maxOutstanding", 10000);
+        long seed = Long.getLong("loadtest.seed", 42);
+        int shardCount = Math.max(1, Integer.getInteger("loadtest.shards", 1));
+        Path baseDir = Files.createTempDirectory("books-loadtest");
+
+        // Must be set before anything loads the DataSource or the Logger
+        System.setProperty("jdbc.url", JDBC_URL);
+        System.setProperty("jdbc.username", "sa");
+        System.setProperty("jdbc.password", "");
+        System.setProperty("shard.count", Integer.toString(shardCount));
+        for (int i = 0; i < shardCount && shardCount > 1; i++) {
+            System.setProperty("shard." + i + ".jdbc.url", shardUrl(i));
+        }
+        if (System.getProperty("log.file") == null) {
+            System.setProperty("log.file", baseDir.resolve("app.log").toString());
+        }
+
+        List<Connection> shards = new ArrayList<>();
+        try (Connection keepAlive = DriverManager.getConnection(JDBC_URL, "sa", "")) {
+            for (int i = 0; i < shardCount && shardCount > 1; i++) {
+                shards.add(DriverManager.getConnection(shardUrl(i), "sa", ""));
+            }
+            createCatalog(keepAlive, shards, titles, authors);
+            System.out.printf("Catalog: %d titles, %d authors, %d shard(s)%n", titles, authors, shardCount);
+
+            Tomcat tomcat = new Tomcat();
+            tomcat.setBaseDir(baseDir.toString());
+            tomcat.setPort(Integer.getInteger("loadtest.port", 0));
+            tomcat.getConnector();
+            tomcat.setAddDefaultWebXmlToWebapp(false); // No JSP or static content needed
+            String webapp = Paths.get(System.getProperty("loadtest.webapp", "src/main/webapp")).toAbsolutePath().toString();
+            Context context = tomcat.addWebapp("", webapp);
+            ((StandardJarScanner) context.getJarScanner()).setScanClassPath(false);
+            tomcat.start();
+            try {
+                URI base = URI.create("http://localhost:" + tomcat.getConnector().getLocalPort() + "/");
+                HttpClient client = HttpClient.newBuilder()
+                        .cookieHandler(new CookieManager())
+                        .followRedirects(HttpClient.Redirect.NEVER)
+                        .connectTimeout(Duration.ofSeconds(5))
+                        .build();
+                login(client, base);
+
+                ActionMix actionMix = new ActionMix(mix, base.resolve("frontController"), titles, authors);
+                LoadGenerator generator = new LoadGenerator(client, actionMix, rate, maxOutstanding);
+                System.out.printf("Sending %.0f requests/s: %ds warm-up, %ds measured%n",
+                        rate, warmupSeconds, durationSeconds);
+                generator.run(warmupSeconds, durationSeconds, new Random(seed));
+                generator.report(System.out, durationSeconds);
+            } finally {
+                tomcat.stop();
+                tomcat.destroy();
+            }
+        }
+        for (Connection shard : shards) {
+            shard.close();
+        }
+        // Do not wait for idle HTTP client connections to time out
+        System.exit(0);
+    }
+
+    /**
+     * Gets the URL of the in-memory H2 database of a title shard.
+     *
+     * @param shard the shard index
+     * @return the JDBC URL
+     */
+    private static String shardUrl(int shard) {
+        return "jdbc:h2:mem:books-shard" + shard + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+    }
+
+    /**
+     * Gets the ISBN of a generated title.
+     *
+     * @param index the title number, from 0
+     * @return the ISBN
+     */
+    static String seededIsbn(int index) {
+        return CatalogGenerator.isbn(index);
+    }
+
+    /**
+     * Creates the tables of books-MySQL.sql and fills them with a catalog from
+     * {@link CatalogGenerator}: titles average two authors, with prolific
+     * authors on many titles. With shards, the main database only holds the
+     * authors, and the shards the tables of books-shard-MySQL.sql.
+     *
+     * @param connection the database
+     * @param shards     the title shards, or none to keep titles in the main database
+     * @param titles     number of titles
+     * @param authors    number of authors
+     * @throws Exception if the catalog cannot be created
+     */
+    private static void createCatalog(Connection connection, List<Connection> shards, int titles, int authors)
+            throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE Authors (AuthorID int NOT NULL AUTO_INCREMENT PRIMARY KEY, "
+                    + "FirstName varchar(30) NOT NULL, LastName varchar(30) NOT NULL)");
+        }
+        for (Connection titleDatabase : shards.isEmpty() ? List.of(connection) : shards) {
+            try (Statement statement = titleDatabase.createStatement()) {
+                statement.execute("CREATE TABLE Titles (ISBN varchar(20) NOT NULL PRIMARY KEY, "
+                        + "Title varchar(100) NOT NULL, EditionNumber int NOT NULL, Copyright varchar(4) NOT NULL)");
+                statement.execute("CREATE TABLE AuthorISBN (AuthorID int NOT NULL, ISBN varchar(20) NOT NULL, "
+                        + (shards.isEmpty() ? "FOREIGN KEY (AuthorID) REFERENCES Authors(AuthorID), " : "")
+                        + "FOREIGN KEY (ISBN) REFERENCES Titles(ISBN))");
+            }
+        }
+        CatalogSink sink = new JdbcCatalogSink(connection, 500);
+        if (!shards.isEmpty()) {
+            List<CatalogSink> shardSinks = new ArrayList<>();
+            for (Connection shard : shards) {
+                shardSinks.add(new JdbcCatalogSink(shard, 500));
+            }
+            sink = new ShardedCatalogSink(sink, shardSinks, isbn -> DataSource.shardIndex(isbn, shards.size()));
+        }
+        new CatalogGenerator(authors, titles, 2, 1.0, 1, false).generate(sink);
+        try (Statement statement = connection.createStatement()) {
+            // The generator supplies the IDs; addAuthor must continue after them
+            statement.execute("ALTER TABLE Authors ALTER COLUMN AuthorID RESTART WITH " + (authors + 1));
+        }
+    }
+
+    /**
+     * Logs in with the LoginServlet form; the session cookie is kept by the client.
+     *
+     * @param client the HTTP client
+     * @param base   the application URL
+     * @throws Exception if the login is refused or fails
+     */
+    private static void login(HttpClient client, URI base) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(base.resolve("login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("username=cst8288&password=cst8288"))
+                .build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 302) {
+            throw new IllegalStateException("Login failed with HTTP status " + response.statusCode());
+        }
+    }
+}
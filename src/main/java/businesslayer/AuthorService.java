@@ -1,10 +1,11 @@
 package businesslayer;
 
 import dataaccesslayer.AuthorDAO;
-import dataaccesslayer.AuthorDAOImpl;
+import dataaccesslayer.DAOFactory;
 import java.util.ArrayList;
 import transferobjects.AuthorDTO;
 import java.util.List;
+import monitoring.Logger;
 import transferobjects.TitleDTO;
 
 /*******************************************************************************
@@ -22,14 +23,15 @@ import transferobjects.TitleDTO;
 
 public class AuthorService {
 
+    private static final Logger LOG = Logger.getLogger(AuthorService.class);
+
     private final AuthorDAO authorDAO;
 
     /**
-     * Constructor. Initializes the AuthorDAO.
+     * Constructor. Initializes the AuthorDAO for the configured backend.
      */
     public AuthorService() {
-        // In a real application, consider dependency injection or a DAOFactory
-        this.authorDAO = new AuthorDAOImpl();
+        this.authorDAO = DAOFactory.createAuthorDAO();
     }
 
     /**
@@ -58,11 +60,13 @@ public class AuthorService {
     public boolean addAuthor(String firstName, String lastName) {
         // Basic validation example
         if (firstName == null || firstName.trim().isEmpty() || lastName == null || lastName.trim().isEmpty()) {
-            System.err.println("Author first name and last name cannot be empty.");
+            LOG.warn("Author first name and last name cannot be empty.");
             return false;
         }
         AuthorDTO newAuthor = new AuthorDTO(firstName, lastName);
-        return authorDAO.addAuthor(newAuthor);
+        boolean success = authorDAO.addAuthor(newAuthor);
+        CatalogVersion.authorsChanged();
+        return success;
     }
 
     /**
@@ -74,17 +78,19 @@ public class AuthorService {
      */
     public boolean updateAuthor(int id, String firstName, String lastName) {
         if (firstName == null || firstName.trim().isEmpty() || lastName == null || lastName.trim().isEmpty()) {
-            System.err.println("Author first name and last name cannot be empty for update.");
+            LOG.warn("Author first name and last name cannot be empty for update.");
             return false;
         }
         AuthorDTO existingAuthor = authorDAO.getAuthorById(id);
         if (existingAuthor == null) {
-            System.err.println("Author with ID " + id + " not found for update.");
+            LOG.warn("Author with ID {} not found for update.", id);
             return false;
         }
         existingAuthor.setFirstName(firstName);
         existingAuthor.setLastName(lastName);
-        return authorDAO.updateAuthor(existingAuthor);
+        boolean success = authorDAO.updateAuthor(existingAuthor);
+        CatalogVersion.authorsChanged();
+        return success;
     }
 
     /**
@@ -95,10 +101,12 @@ public class AuthorService {
     public boolean deleteAuthor(int id) {
         AuthorDTO existingAuthor = authorDAO.getAuthorById(id);
         if (existingAuthor == null) {
-            System.err.println("Author with ID " + id + " not found for deletion.");
+            LOG.warn("Author with ID {} not found for deletion.", id);
             return false;
         }
-        return authorDAO.deleteAuthor(id);
+        boolean success = authorDAO.deleteAuthor(id);
+        CatalogVersion.authorsChanged();
+        return success;
     }
 
 //    public List<TitleDTO> getTitlesByAuthor(int authorId) {
@@ -114,7 +122,7 @@ public class AuthorService {
     public List<TitleDTO> getTitlesByAuthor(int authorId) {
         // Validate ID before calling DAO
          if (authorId <= 0) {
-           System.err.println("Invalid Author ID: " + authorId);
+           LOG.warn("Invalid Author ID: {}", authorId);
            return new ArrayList<>();
         }
         return authorDAO.getTitlesByAuthor(authorId);
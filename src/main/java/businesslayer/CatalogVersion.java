@@ -0,0 +1,87 @@
+package businesslayer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*******************************************************************************
+ * CatalogVersion (Business/Domain Layer)
+ * Tracks monotonically increasing version counters for the catalog tables.
+ * The services bump the counters after every write so that anything derived
+ * from the catalog (e.g. rendered HTML fragments) can tell whether it is stale.
+ *
+ * Two counters are kept:
+ *   - authors: bumped on every write to the Authors table.
+ *   - catalog: bumped on every write to any table (Authors, Titles, AuthorISBN).
+ * A value that only depends on authors compares against {@link #authors()};
+ * anything that also shows titles compares against {@link #catalog()}.
+ * Counters are bumped whether or not the write succeeded, since a failed
+ * call does not prove that nothing was changed. The time of the last bump is
+ * kept too, so data read from a replica can be checked against it.
+ *
+ * @see CatalogVersion
+ * @since Java 21.0.7
+ * @version 1.0
+ * @author Annabel Cheng (041146557)
+ * Course: CST8288 Section 013
+ * Description: Version counters used to invalidate catalog-derived data.
+ ******************************************************************************/
+
+public final class CatalogVersion {
+
+    /** Bumped on every write to the Authors table. */
+    private static final AtomicLong AUTHORS = new AtomicLong();
+
+    /** Bumped on every write to any catalog table. */
+    private static final AtomicLong CATALOG = new AtomicLong();
+
+    /** When the catalog version was last bumped, in epoch milliseconds. */
+    private static volatile long changedAtMillis;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private CatalogVersion() {
+    }
+
+    /**
+     * Returns the current version of the Authors table.
+     * @return the authors version counter.
+     */
+    public static long authors() {
+        return AUTHORS.get();
+    }
+
+    /**
+     * Returns the current version of the whole catalog.
+     * @return the catalog version counter.
+     */
+    public static long catalog() {
+        return CATALOG.get();
+    }
+
+    /**
+     * Returns when the catalog last changed through this node. The write was
+     * committed before then.
+     * @return the time in epoch milliseconds, or 0 if it has not changed.
+     */
+    public static long changedAtMillis() {
+        return changedAtMillis;
+    }
+
+    /**
+     * Records a write to the Authors table.
+     * Author names are shown next to titles, so this also bumps the catalog version.
+     */
+    static void authorsChanged() {
+        AUTHORS.incrementAndGet();
+        CATALOG.incrementAndGet();
+        changedAtMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Records a write to the Titles or AuthorISBN tables.
+     */
+    static void titlesChanged() {
+        CATALOG.incrementAndGet();
+        changedAtMillis = System.currentTimeMillis();
+    }
+}
@@ -1,10 +1,16 @@
 package businesslayer;
 
+import dataaccesslayer.AuthorDAO;
+import dataaccesslayer.AuthorIdIndex;
 import dataaccesslayer.TitleDAO;
-import dataaccesslayer.TitleDAOImpl;
+import dataaccesslayer.DAOFactory;
 import transferobjects.TitleDTO;
 import transferobjects.AuthorDTO; // Needed to display author names with titles
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import monitoring.Logger;
 
 /*******************************************************************************
  * TitleService (Business/Domain Layer)
@@ -22,13 +28,17 @@ import java.util.List;
 
 public class TitleService {
 
+    private static final Logger LOG = Logger.getLogger(TitleService.class);
+
     private final TitleDAO titleDAO;
+    private final AuthorDAO authorDAO; // Resolves the author IDs of a title before it is written
 
     /**
-     * Constructor. Initializes the TitleDAO.
+     * Constructor. Initializes the TitleDAO and AuthorDAO for the configured backend.
      */
     public TitleService() {
-        this.titleDAO = new TitleDAOImpl();
+        this.titleDAO = DAOFactory.createTitleDAO();
+        this.authorDAO = DAOFactory.createAuthorDAO();
     }
 
     /**
@@ -39,6 +49,16 @@ public class TitleService {
         return titleDAO.getAllTitles();
     }
 
+    /**
+     * Retrieves one page of titles in ISBN order.
+     * @param afterIsbn The last ISBN of the previous page, or null for the first page.
+     * @param limit The most titles to return.
+     * @return Up to limit TitleDTO objects, in ISBN order.
+     */
+    public List<TitleDTO> getTitlesPage(String afterIsbn, int limit) {
+        return titleDAO.getTitlesPage(afterIsbn, limit);
+    }
+
     /**
      * Retrieves a title by its ISBN.
      * @param isbn The ISBN of the title to retrieve.
@@ -59,11 +79,17 @@ public class TitleService {
      */
     public boolean addTitle(String isbn, String titleName, int editionNumber, String copyright, List<Integer> authorIds) {
         if (isbn == null || isbn.trim().isEmpty() || titleName == null || titleName.trim().isEmpty() || copyright == null || copyright.trim().isEmpty() || authorIds == null || authorIds.isEmpty()) {
-            System.err.println("Title ISBN, name, copyright, and at least one author are required.");
+            LOG.warn("Title ISBN, name, copyright, and at least one author are required.");
+            return false;
+        }
+        List<Integer> resolvedAuthorIds = resolveAuthorIds(authorIds);
+        if (resolvedAuthorIds == null) {
             return false;
         }
         TitleDTO newTitle = new TitleDTO(isbn, titleName, editionNumber, copyright);
-        return titleDAO.addTitle(newTitle, authorIds);
+        boolean success = titleDAO.addTitle(newTitle, resolvedAuthorIds);
+        CatalogVersion.titlesChanged();
+        return success;
     }
 
     /**
@@ -77,18 +103,64 @@ public class TitleService {
      */
     public boolean updateTitle(String isbn, String newTitleName, int newEditionNumber, String newCopyright, List<Integer> newAuthorIds) {
         if (isbn == null || isbn.trim().isEmpty() || newTitleName == null || newTitleName.trim().isEmpty() || newCopyright == null || newCopyright.trim().isEmpty() || newAuthorIds == null || newAuthorIds.isEmpty()) {
-            System.err.println("Title ISBN, name, copyright, and at least one author are required for update.");
+            LOG.warn("Title ISBN, name, copyright, and at least one author are required for update.");
             return false;
         }
         TitleDTO existingTitle = titleDAO.getTitleByISBN(isbn);
         if (existingTitle == null) {
-            System.err.println("Title with ISBN " + isbn + " not found for update.");
+            LOG.warn("Title with ISBN {} not found for update.", isbn);
+            return false;
+        }
+        List<Integer> resolvedAuthorIds = resolveAuthorIds(newAuthorIds);
+        if (resolvedAuthorIds == null) {
             return false;
         }
         existingTitle.setTitle(newTitleName);
         existingTitle.setEditionNumber(newEditionNumber);
         existingTitle.setCopyright(newCopyright);
-        return titleDAO.updateTitle(existingTitle, newAuthorIds);
+        boolean success = titleDAO.updateTitle(existingTitle, resolvedAuthorIds);
+        CatalogVersion.titlesChanged();
+        return success;
+    }
+
+    /**
+     * Checks that every author ID of a title exists before the title's write
+     * transaction starts, instead of finding a bad ID by a foreign key
+     * violation and rollback. IDs in the author ID index are accepted at
+     * once; the rest are looked up on the primary, as the write will see
+     * them, unless the index is authoritative and they can be rejected right
+     * away. With sharding no foreign key backs the index's answer, and an
+     * author deleted through another node may still be in it, so every ID
+     * is looked up on the primary.
+     * @param authorIds The author IDs given for the title.
+     * @return The distinct IDs in ascending order, or null if any of them was
+     * not found or they could not be checked.
+     */
+    private List<Integer> resolveAuthorIds(List<Integer> authorIds) {
+        int[] ids = authorIds.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+        AuthorIdIndex index = DAOFactory.isSharded() ? null : AuthorIdIndex.getInstance();
+        boolean authoritative = index != null && index.isAuthoritative(); // Asked first: it only turns true
+        int[] unknown = index == null ? ids : index.unknown(ids);
+        if (unknown.length > 0) {
+            int[] found = authoritative ? new int[0] : authorDAO.getExistingAuthorIds(unknown);
+            if (found == null) {
+                LOG.error("Author IDs {} could not be checked; the title was not saved.", Arrays.toString(unknown));
+                return null;
+            }
+            List<Integer> missing = new ArrayList<>();
+            for (int id : unknown) {
+                if (Arrays.binarySearch(found, id) < 0) {
+                    missing.add(id);
+                }
+            }
+            if (!missing.isEmpty()) {
+                LOG.warn("Author IDs {} not found; the title was not saved.", missing);
+                return null;
+            }
+        }
+        List<Integer> resolved = new ArrayList<>(ids.length);
+        Arrays.stream(ids).forEach(resolved::add);
+        return resolved;
     }
 
     /**
@@ -99,10 +171,12 @@ public class TitleService {
     public boolean deleteTitle(String isbn) {
         TitleDTO existingTitle = titleDAO.getTitleByISBN(isbn);
         if (existingTitle == null) {
-            System.err.println("Title with ISBN " + isbn + " not found for deletion.");
+            LOG.warn("Title with ISBN {} not found for deletion.", isbn);
             return false;
         }
-        return titleDAO.deleteTitle(isbn);
+        boolean success = titleDAO.deleteTitle(isbn);
+        CatalogVersion.titlesChanged();
+        return success;
     }
 
     /**
@@ -113,4 +187,13 @@ public class TitleService {
     public List<AuthorDTO> getAuthorsForTitle(String isbn) {
         return titleDAO.getAuthorsForTitle(isbn);
     }
+
+    /**
+     * Retrieves the authors of several titles at once.
+     * @param isbns The ISBNs of the titles.
+     * @return A map from ISBN to the AuthorDTO objects of that title, holding only the titles that have authors.
+     */
+    public Map<String, List<AuthorDTO>> getAuthorsForTitles(List<String> isbns) {
+        return titleDAO.getAuthorsForTitles(isbns);
+    }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package dataaccesslayer;
 import transferobjects.AuthorDTO;
 import transferobjects.TitleDTO; // Added for author-title relationship
 import java.util.List;
+import java.util.Map;
 
 /*******************************************************************************
  * AuthorDAO (Data Access Object) Interface
@@ -30,6 +31,21 @@ public interface AuthorDAO {
      */
     AuthorDTO getAuthorById(int id);
 
+    /**
+     * Retrieves several authors by their unique IDs, in as few queries as possible.
+     * @param ids The IDs of the authors to retrieve; duplicates are ignored.
+     * @return A map from ID to AuthorDTO in ascending ID order, holding only the IDs that were found.
+     */
+    Map<Integer, AuthorDTO> getAuthorsByIds(int[] ids);
+
+    /**
+     * Checks which of several author IDs exist, as the next write would see
+     * them: never from a replica, a snapshot or a last-known-good copy.
+     * @param ids The IDs to check; duplicates are ignored.
+     * @return The IDs that exist, in ascending order, or null if they could not be checked.
+     */
+    int[] getExistingAuthorIds(int[] ids);
+
     /**
      * Adds a new author to the database.
      * @param author The AuthorDTO object containing the new author's data.
@@ -4,14 +4,20 @@ import transferobjects.AuthorDTO;
 import transferobjects.TitleDTO; // Added for author-title relationship
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import monitoring.Logger;
 
 /*******************************************************************************
  * Implementation of the AuthorDAO interface.
  *
  * This class provides CRUD operations for Authors and supports retrieving titles
  * associated with a given author. It uses JDBC for database interactions and
- * depends on a DataSource for connections.
+ * depends on a DataSource for connections; reads are sent to a read replica
+ * when one is configured, and writes to the primary. Each method runs with
+ * the transaction attributes of its kind from {@link TransactionTemplate}.
  * 
  * @see AuthorDAOImpl
  * @since Java 21.0.7
@@ -23,13 +29,19 @@ import java.util.List;
 
 public class AuthorDAOImpl implements AuthorDAO {
 
+    private static final Logger LOG = Logger.getLogger(AuthorDAOImpl.class);
+
     private final DataSource dataSource;
 
+    /** Most IDs bound into one IN-list; longer lookups take several queries. */
+    private final int inListChunkSize;
+
     /**
      * Constructor. Initializes the DataSource.
      */
     public AuthorDAOImpl() {
         dataSource = DataSource.getInstance();
+        inListChunkSize = InList.chunkSize();
     }
 
     /**
@@ -39,24 +51,23 @@ public class AuthorDAOImpl implements AuthorDAO {
      */
     @Override
     public List<AuthorDTO> getAllAuthors() {
-        List<AuthorDTO> authors = new ArrayList<>();
         String sql = "SELECT AuthorID, FirstName, LastName FROM Authors";
 
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql);
-             ResultSet resultSet = statement.executeQuery()) {
-
-            while (resultSet.next()) {
-                AuthorDTO author = new AuthorDTO();
-                author.setId(resultSet.getInt("AuthorID"));
-                author.setFirstName(resultSet.getString("FirstName"));
-                author.setLastName(resultSet.getString("LastName"));
-                authors.add(author);
-            }
+        try {
+            return TransactionTemplate.READ.execute(dataSource, transaction -> {
+                List<AuthorDTO> authors = new ArrayList<>();
+                try (PreparedStatement statement = transaction.prepare(sql);
+                     ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        authors.add(ResultSetMappers.toAuthor(resultSet));
+                    }
+                }
+                return authors;
+            });
         } catch (SQLException e) {
-            System.err.println("Error retrieving all authors: " + e.getMessage());
+            LOG.error("Error retrieving all authors", e);
         }
-        return authors;
+        return new ArrayList<>();
     }
 
     /**
@@ -67,25 +78,110 @@ public class AuthorDAOImpl implements AuthorDAO {
      */
     @Override
     public AuthorDTO getAuthorById(int id) {
-        AuthorDTO author = null;
         String sql = "SELECT AuthorID, FirstName, LastName FROM Authors WHERE AuthorID = ?";
 
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
-
-            statement.setInt(1, id);
-            try (ResultSet resultSet = statement.executeQuery()) {
-                if (resultSet.next()) {
-                    author = new AuthorDTO();
-                    author.setId(resultSet.getInt("AuthorID"));
-                    author.setFirstName(resultSet.getString("FirstName"));
-                    author.setLastName(resultSet.getString("LastName"));
+        try {
+            return TransactionTemplate.READ.execute(dataSource, transaction -> {
+                try (PreparedStatement statement = transaction.prepare(sql)) {
+                    statement.setInt(1, id);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        return resultSet.next() ? ResultSetMappers.toAuthor(resultSet) : null;
+                    }
                 }
-            }
+            });
+        } catch (SQLException e) {
+            LOG.error("Error retrieving author by ID {}", id, e);
+        }
+        return null;
+    }
+
+    /**
+     * Retrieves several authors by their unique IDs. The IDs are sent as
+     * {@link InList} queries of at most {@code dao.inListChunkSize}
+     * parameters, all on one connection.
+     *
+     * @param ids The IDs of the authors to retrieve; duplicates are ignored.
+     * @return A map from ID to AuthorDTO in ascending ID order, holding only the
+     * IDs that were found; empty if the database could not be read.
+     */
+    @Override
+    public Map<Integer, AuthorDTO> getAuthorsByIds(int[] ids) {
+        int[] distinct = Arrays.stream(ids).sorted().distinct().toArray();
+        Map<Integer, AuthorDTO> authors = new LinkedHashMap<>();
+        if (distinct.length == 0) {
+            return authors;
+        }
+
+        try {
+            queryAuthorsByIds(TransactionTemplate.READ, distinct, authors);
         } catch (SQLException e) {
-            System.err.println("Error retrieving author by ID " + id + ": " + e.getMessage());
+            LOG.error("Error retrieving {} authors by ID", distinct.length, e);
+            authors.clear(); // A partial answer would report the remaining IDs as missing
+        }
+        return authors;
+    }
+
+    /**
+     * Checks which of several author IDs exist, with the IN-list queries of
+     * {@link #getAuthorsByIds(int[])} run on the primary, so an author just
+     * added through another node is found even while the replicas lag.
+     *
+     * @param ids The IDs to check; duplicates are ignored.
+     * @return The IDs that exist, in ascending order, or null if the database could not be read.
+     */
+    @Override
+    public int[] getExistingAuthorIds(int[] ids) {
+        int[] distinct = Arrays.stream(ids).sorted().distinct().toArray();
+        if (distinct.length == 0) {
+            return distinct;
         }
-        return author;
+        Map<Integer, AuthorDTO> authors = new LinkedHashMap<>();
+        try {
+            queryAuthorsByIds(TransactionTemplate.PRIMARY_READ, distinct, authors);
+        } catch (SQLException e) {
+            LOG.error("Error checking {} author IDs", distinct.length, e);
+            return null;
+        }
+        return authors.keySet().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Reads authors by ID in IN-lists of at most {@code dao.inListChunkSize}
+     * parameters, all on one connection.
+     *
+     * @param template the transaction attributes of the read
+     * @param distinct the IDs, ascending and without duplicates
+     * @param authors  receives the authors found, in ascending ID order
+     * @throws SQLException if the database could not be read
+     */
+    private void queryAuthorsByIds(TransactionTemplate template, int[] distinct, Map<Integer, AuthorDTO> authors)
+            throws SQLException {
+        template.execute(dataSource, transaction -> {
+            RequestContext.beginChunkedQuery();
+            try {
+                for (int from = 0; from < distinct.length; from += inListChunkSize) {
+                    int count = Math.min(inListChunkSize, distinct.length - from);
+                    int parameters = InList.parameters(count, inListChunkSize);
+                    try (PreparedStatement statement = transaction.prepare(InList.sql(
+                            "SELECT AuthorID, FirstName, LastName FROM Authors WHERE AuthorID IN (", parameters,
+                            " ORDER BY AuthorID"))) {
+                        for (int i = 0; i < parameters; i++) {
+                            statement.setInt(i + 1, distinct[from + Math.min(i, count - 1)]);
+                        }
+                        // Chunks are in ID order and so are their rows, keeping the map sorted
+                        try (ResultSet resultSet = statement.executeQuery()) {
+                            while (resultSet.next()) {
+                                AuthorDTO author = ResultSetMappers.toAuthor(resultSet);
+                                authors.put(author.getId(), author);
+                            }
+                        }
+                    }
+                }
+            } finally {
+                RequestContext.endChunkedQuery();
+            }
+            return authors;
+        });
     }
 
     /**
@@ -97,27 +193,29 @@ public class AuthorDAOImpl implements AuthorDAO {
     @Override
     public boolean addAuthor(AuthorDTO author) {
         String sql = "INSERT INTO Authors (FirstName, LastName) VALUES (?, ?)";
-        boolean success = false;
-
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
-            statement.setString(1, author.getFirstName());
-            statement.setString(2, author.getLastName());
+        try {
+            return TransactionTemplate.WRITE.execute(dataSource, transaction -> {
+                try (PreparedStatement statement = transaction.prepare(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    statement.setString(1, author.getFirstName());
+                    statement.setString(2, author.getLastName());
 
-            int rowsAffected = statement.executeUpdate();
-            if (rowsAffected > 0) {
-                try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        author.setId(generatedKeys.getInt(1));
+                    int rowsAffected = statement.executeUpdate();
+                    if (rowsAffected == 0) {
+                        return false;
+                    }
+                    try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            author.setId(generatedKeys.getInt(1));
+                        }
                     }
+                    return true;
                 }
-                success = true;
-            }
+            });
         } catch (SQLException e) {
-            System.err.println("Error adding author: " + e.getMessage());
+            LOG.error("Error adding author", e);
         }
-        return success;
+        return false;
     }
 
     /**
@@ -129,49 +227,103 @@ public class AuthorDAOImpl implements AuthorDAO {
     @Override
     public boolean updateAuthor(AuthorDTO author) {
         String sql = "UPDATE Authors SET FirstName = ?, LastName = ? WHERE AuthorID = ?";
-        boolean success = false;
-
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
-
-            statement.setString(1, author.getFirstName());
-            statement.setString(2, author.getLastName());
-            statement.setInt(3, author.getId());
 
-            int rowsAffected = statement.executeUpdate();
-            if (rowsAffected > 0) {
-                success = true;
-            }
+        try {
+            return TransactionTemplate.IDEMPOTENT_WRITE.execute(dataSource, transaction -> {
+                try (PreparedStatement statement = transaction.prepare(sql)) {
+                    statement.setString(1, author.getFirstName());
+                    statement.setString(2, author.getLastName());
+                    statement.setInt(3, author.getId());
+                    return statement.executeUpdate() > 0;
+                }
+            });
         } catch (SQLException e) {
-            System.err.println("Error updating author with ID " + author.getId() + ": " + e.getMessage());
+            LOG.error("Error updating author with ID {}", author.getId(), e);
         }
-        return success;
+        return false;
     }
     
     /**
      * Deletes an author from the database by their ID.
+     * <p>
+     * With sharding no foreign key spans the databases, so the shards are
+     * checked for the author's titles before the delete, and again after it
+     * commits: a title linked to the author in between, which its own check
+     * on this database missed, is found then, and the author row is put
+     * back. A title write checks the authors after it commits (see
+     * {@link TitleDAOImpl#addTitle(TitleDTO, List)}), so of two such writes
+     * at least one sees the other.
+     * </p>
      *
      * @param id The ID of the author to delete.
      * @return true if the author was deleted successfully; false otherwise.
      */
     @Override
     public boolean deleteAuthor(int id) {
+        String sqlSelect = "SELECT AuthorID, FirstName, LastName FROM Authors WHERE AuthorID = ? FOR UPDATE";
         String sql = "DELETE FROM Authors WHERE AuthorID = ?";
-        boolean success = false;
+        boolean sharded = DataSource.getShards().size() > 1;
 
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
+        if (sharded && hasShardedTitles(id)) {
+            // The AuthorISBN rows are in other databases, so no foreign key refuses this
+            return false;
+        }
+        AuthorDTO[] deleted = new AuthorDTO[1]; // Kept from the attempt that found the row
+        boolean success = false;
+        try {
+            success = TransactionTemplate.IDEMPOTENT_WRITE.execute(dataSource, transaction -> {
+                if (sharded) {
+                    try (PreparedStatement statement = transaction.prepare(sqlSelect)) {
+                        statement.setInt(1, id);
+                        try (ResultSet resultSet = statement.executeQuery()) {
+                            if (resultSet.next()) {
+                                deleted[0] = ResultSetMappers.toAuthor(resultSet);
+                            }
+                        }
+                    }
+                }
+                try (PreparedStatement statement = transaction.prepare(sql)) {
+                    statement.setInt(1, id);
+                    // Nothing left to delete after a lost commit means that commit went through
+                    return statement.executeUpdate() > 0 || transaction.mayHaveCommitted();
+                }
+            });
+        } catch (SQLException e) {
+            LOG.error("Error deleting author with ID {}", id, e);
+        }
+        if (success && sharded && hasShardedTitles(id)) {
+            restore(id, deleted[0]);
+            return false;
+        }
+        return success;
+    }
 
-            statement.setInt(1, id);
+    /**
+     * Puts back an author whose delete raced with a title linked to it.
+     *
+     * @param id     The ID of the author.
+     * @param author The deleted row, or null if it was not read.
+     */
+    private void restore(int id, AuthorDTO author) {
+        String sql = "INSERT INTO Authors (AuthorID, FirstName, LastName) VALUES (?, ?, ?)";
 
-            int rowsAffected = statement.executeUpdate();
-            if (rowsAffected > 0) {
-                success = true;
-            }
+        if (author == null) {
+            LOG.error("Author ID {} was deleted while a title was linked to it, and could not be put back", id);
+            return;
+        }
+        try {
+            TransactionTemplate.WRITE.execute(dataSource, transaction -> {
+                try (PreparedStatement statement = transaction.prepare(sql)) {
+                    statement.setInt(1, id);
+                    statement.setString(2, author.getFirstName());
+                    statement.setString(3, author.getLastName());
+                    return statement.executeUpdate() > 0;
+                }
+            });
+            LOG.warn("Put back author ID {}: a title was linked to it while it was being deleted", id);
         } catch (SQLException e) {
-            System.err.println("Error deleting author with ID " + id + ": " + e.getMessage());
+            LOG.error("Error putting back author ID {}, deleted while a title was linked to it", id, e);
         }
-        return success;
     }
 
     /**
@@ -182,28 +334,52 @@ public class AuthorDAOImpl implements AuthorDAO {
      */
     @Override
     public List<TitleDTO> getTitlesByAuthor(int authorId) {
-        List<TitleDTO> titles = new ArrayList<>();
         String sql = "SELECT T.ISBN, T.Title, T.EditionNumber, T.Copyright " +
                      "FROM Titles T JOIN AuthorISBN AI ON T.ISBN = AI.ISBN " +
-                     "WHERE AI.AuthorID = ?";
-
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
-
-            statement.setInt(1, authorId);
-            try (ResultSet resultSet = statement.executeQuery()) {
-                while (resultSet.next()) {
-                    TitleDTO title = new TitleDTO();
-                    title.setIsbn(resultSet.getString("ISBN"));
-                    title.setTitle(resultSet.getString("Title"));
-                    title.setEditionNumber(resultSet.getInt("EditionNumber"));
-                    title.setCopyright(resultSet.getString("Copyright"));
-                    titles.add(title);
+                     "WHERE AI.AuthorID = ? ORDER BY T.ISBN";
+
+        try {
+            // The titles of an author can be on every shard
+            return ScatterGather.merge(ScatterGather.scatter(DataSource.getShards(),
+                    shard -> TitleDAOImpl.queryTitles(shard, sql, authorId)), TitleDAOImpl.ISBN_ORDER, Integer.MAX_VALUE);
+        } catch (SQLException e) {
+            LOG.error("Error retrieving titles for author ID {}", authorId, e);
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Checks every shard for AuthorISBN rows of an author, so a delete can
+     * be refused as the foreign key would refuse it in a single database.
+     *
+     * @param authorId The ID of the author.
+     * @return true if the author has titles, or if the shards could not all be checked.
+     */
+    private boolean hasShardedTitles(int authorId) {
+        String sql = "SELECT ISBN FROM AuthorISBN WHERE AuthorID = ? LIMIT 1";
+        try {
+            for (List<String> isbns : ScatterGather.scatter(DataSource.getShards(),
+                    shard -> TransactionTemplate.PRIMARY_READ.execute(shard, transaction -> {
+                        List<String> found = new ArrayList<>();
+                        try (PreparedStatement statement = transaction.prepare(sql)) {
+                            statement.setInt(1, authorId);
+                            try (ResultSet resultSet = statement.executeQuery()) {
+                                if (resultSet.next()) {
+                                    found.add(resultSet.getString(1));
+                                }
+                            }
+                        }
+                        return found;
+                    }))) {
+                if (!isbns.isEmpty()) {
+                    LOG.error("Error deleting author with ID {}: the author still has titles", authorId);
+                    return true;
                 }
             }
         } catch (SQLException e) {
-            System.err.println("Error retrieving titles for author ID " + authorId + ": " + e.getMessage());
+            LOG.error("Error checking the titles of author ID {} before deleting it", authorId, e);
+            return true;
         }
-        return titles;
+        return false;
     }
 }
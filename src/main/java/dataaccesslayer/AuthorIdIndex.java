@@ -0,0 +1,384 @@
+package dataaccesslayer;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+import monitoring.Logger;
+import monitoring.MetricsRegistry;
+
+/*******************************************************************************
+ * AuthorIdIndex
+ * Keeps the set of live AuthorIDs in memory as an {@link IntBitmap}, so the
+ * author IDs of a title can be checked in nanoseconds before its write
+ * transaction is opened. The set is updated by {@link IndexedAuthorDAO} as
+ * authors are added and deleted through this node, and reloaded from the
+ * backend in the background at startup and every
+ * {@code dao.authorIndex.refreshSeconds}.
+ *
+ * With the jdbc backend other nodes can add authors too, so an ID missing
+ * from the set only means "not known here"; {@link #unknown(int[])} leaves
+ * it to the caller to confirm such IDs against the database. With the
+ * memory and wal backends every write goes through this process and the set
+ * is {@linkplain #isAuthoritative() authoritative}.
+ *
+ * @see IntBitmap
+ * @see IndexedAuthorDAO
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: In-memory bitmap of live AuthorIDs.
+ ******************************************************************************/
+
+public final class AuthorIdIndex {
+
+    private static final Logger LOG = Logger.getLogger(AuthorIdIndex.class);
+
+    private static volatile AuthorIdIndex instance;
+    private static volatile boolean configured;
+
+    /**
+     * Reads every live AuthorID from the backend.
+     */
+    @FunctionalInterface
+    interface IdSource {
+
+        /**
+         * Passes each AuthorID to a consumer.
+         *
+         * @param consumer receives the IDs
+         * @throws SQLException if the IDs cannot be read
+         */
+        void forEachId(IntConsumer consumer) throws SQLException;
+    }
+
+    private final IdSource source;
+    /** Whether every write to the backend goes through this process. */
+    private final boolean authoritative;
+    private final ScheduledExecutorService background;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /** The live IDs; guarded by lock. */
+    private IntBitmap ids = new IntBitmap();
+    /** Whether ids has been loaded once; guarded by lock. */
+    private boolean loaded;
+    /**
+     * Changes made while a reload reads the backend, replayed on its result:
+     * the ID shifted left by one, plus one for an add; guarded by lock.
+     */
+    private List<Long> changesDuringReload;
+
+    private final LongAdder known = new LongAdder();
+    private final LongAdder unknown = new LongAdder();
+
+    /**
+     * Creates an index and schedules its loads.
+     *
+     * @param source         where the IDs are read from
+     * @param authoritative  whether every write to the backend goes through this process
+     * @param refreshSeconds seconds between reloads
+     */
+    AuthorIdIndex(IdSource source, boolean authoritative, long refreshSeconds) {
+        this.source = source;
+        this.authoritative = authoritative;
+        this.background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "author-id-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.counter("author_id_index_checks_total", "Author IDs checked against the in-memory index.",
+                known::sum, "result", "known");
+        metrics.counter("author_id_index_checks_total", "Author IDs checked against the in-memory index.",
+                unknown::sum, "result", "unknown");
+        metrics.gauge("author_id_index_ids", "Author IDs in the in-memory index.", this::cardinality);
+        metrics.gauge("author_id_index_bytes", "Memory used by the in-memory author ID index.", () -> {
+            lock.readLock().lock();
+            try {
+                return ids.sizeInBytes();
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+        background.scheduleWithFixedDelay(this::reloadQuietly, 0, Math.max(1, refreshSeconds), TimeUnit.SECONDS);
+    }
+
+    /**
+     * Gets the index for the configured backend, creating it on first use.
+     *
+     * @return the index, or null if dao.authorIndex.refreshSeconds is 0
+     */
+    public static AuthorIdIndex getInstance() {
+        if (!configured) {
+            synchronized (AuthorIdIndex.class) {
+                if (!configured) {
+                    Properties props = DataSource.loadConfiguration();
+                    long refreshSeconds = DataSource.parseLong(props, "dao.authorIndex.refreshSeconds", 600);
+                    if (refreshSeconds > 0) {
+                        boolean jdbc = DAOFactory.getBackend() == DAOFactory.Backend.JDBC;
+                        instance = new AuthorIdIndex(jdbc ? AuthorIdIndex::readDatabase : AuthorIdIndex::readCatalog,
+                                !jdbc, refreshSeconds);
+                    }
+                    configured = true;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Stops the background reloads of the index, if one was created.
+     */
+    public static void shutdown() {
+        if (instance != null) {
+            instance.background.shutdownNow();
+        }
+    }
+
+    /**
+     * Tells whether an ID missing from the index is known not to exist. Once
+     * true, it stays true.
+     *
+     * @return true for the memory and wal backends, whose writes all go
+     * through this process, once the index has been loaded
+     */
+    public boolean isAuthoritative() {
+        lock.readLock().lock();
+        try {
+            return authoritative && loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Checks whether an author exists.
+     *
+     * @param id the AuthorID
+     * @return true if the index holds it; false if it does not, or has not
+     * been loaded yet
+     */
+    public boolean contains(int id) {
+        lock.readLock().lock();
+        try {
+            return loaded && ids.contains(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the IDs the index does not know to exist. Until the first load
+     * completes, that is all of them.
+     *
+     * @param authorIds the AuthorIDs to check
+     * @return the distinct IDs not in the index, ascending
+     */
+    public int[] unknown(int[] authorIds) {
+        int[] distinct = Arrays.stream(authorIds).sorted().distinct().toArray();
+        int count = 0;
+        lock.readLock().lock();
+        try {
+            if (loaded) {
+                for (int id : distinct) {
+                    if (!ids.contains(id)) {
+                        distinct[count++] = id;
+                    }
+                }
+            } else {
+                count = distinct.length;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        known.add(distinct.length - count);
+        unknown.add(count);
+        return Arrays.copyOf(distinct, count);
+    }
+
+    /**
+     * Gets the number of live AuthorIDs.
+     *
+     * @return the count, or -1 before the first load
+     */
+    public long cardinality() {
+        lock.readLock().lock();
+        try {
+            return loaded ? ids.cardinality() : -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the live AuthorIDs in a range.
+     *
+     * @param from the first ID counted
+     * @param to   the last ID counted
+     * @return the count, or -1 before the first load
+     */
+    public long rangeCardinality(int from, int to) {
+        lock.readLock().lock();
+        try {
+            return loaded ? ids.rangeCardinality(from, to) : -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the lowest live AuthorID.
+     *
+     * @return the ID, or -1 if there are none or the index is not loaded
+     */
+    public int first() {
+        lock.readLock().lock();
+        try {
+            return loaded && ids.cardinality() > 0 ? ids.first() : -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the highest live AuthorID.
+     *
+     * @return the ID, or -1 if there are none or the index is not loaded
+     */
+    public int last() {
+        lock.readLock().lock();
+        try {
+            return loaded && ids.cardinality() > 0 ? ids.last() : -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records an author added through this node, after it was committed.
+     *
+     * @param id the new AuthorID
+     */
+    void added(int id) {
+        change(id, true);
+    }
+
+    /**
+     * Records an author deleted through this node, after it was committed.
+     *
+     * @param id the deleted AuthorID
+     */
+    void removed(int id) {
+        change(id, false);
+    }
+
+    private void change(int id, boolean add) {
+        lock.writeLock().lock();
+        try {
+            apply(ids, id, add);
+            if (changesDuringReload != null) {
+                changesDuringReload.add((long) id << 1 | (add ? 1 : 0));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void apply(IntBitmap bitmap, int id, boolean add) {
+        if (add) {
+            bitmap.add(id);
+        } else {
+            bitmap.remove(id);
+        }
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (SQLException | RuntimeException e) {
+            LOG.error("Error reloading the author ID index", e);
+        }
+    }
+
+    /**
+     * Reads the IDs from the backend and swaps them in. A change recorded
+     * after the read started may or may not be in what it read, so each one
+     * is applied again on top; a change recorded before was committed before,
+     * and is in it.
+     *
+     * @throws SQLException if the IDs cannot be read
+     */
+    void reload() throws SQLException {
+        lock.writeLock().lock();
+        try {
+            changesDuringReload = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        long started = System.nanoTime();
+        IntBitmap fresh = new IntBitmap();
+        try {
+            source.forEachId(fresh::add);
+        } catch (SQLException | RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changesDuringReload = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            for (long change : changesDuringReload) {
+                apply(fresh, (int) (change >> 1), (change & 1) != 0);
+            }
+            changesDuringReload = null;
+            ids = fresh;
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOG.info("Loaded {} author IDs into the index in {} ms", fresh.cardinality(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /**
+     * Reads the AuthorIDs from MySQL.
+     *
+     * @param consumer receives the IDs
+     * @throws SQLException if the table cannot be read
+     */
+    private static void readDatabase(IntConsumer consumer) throws SQLException {
+        TransactionTemplate.SNAPSHOT.execute(DataSource.getInstance(), transaction -> {
+            try (PreparedStatement statement = transaction.prepare("SELECT AuthorID FROM Authors");
+                 ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    consumer.accept(rows.getInt(1));
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Reads the AuthorIDs from the in-memory catalog.
+     *
+     * @param consumer receives the IDs
+     */
+    private static void readCatalog(IntConsumer consumer) {
+        for (int id : InMemoryCatalog.getInstance().authors.keySet()) {
+            consumer.accept(id);
+        }
+    }
+}
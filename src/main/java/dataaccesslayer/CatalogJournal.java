@@ -0,0 +1,796 @@
+package dataaccesslayer;
+
+import dataaccesslayer.InMemoryCatalog.AuthorRow;
+import dataaccesslayer.InMemoryCatalog.TitleRow;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+import monitoring.Logger;
+import monitoring.MetricsRegistry;
+
+/*******************************************************************************
+ * CatalogJournal
+ * Makes an {@link InMemoryCatalog} persistent with an append-only write-ahead
+ * log and periodic snapshots, so the wal backend needs no database.
+ *
+ * Every change is appended as one record before it is applied in memory:
+ * a length, a CRC-32C checksum, a log sequence number (LSN), the record type
+ * and the new row (or the key of a removed row). Records hold whole rows, so
+ * replaying one twice gives the same result.
+ *
+ * When the current log segment reaches {@code dao.wal.compactBytes}, a new
+ * segment is started and a background thread writes a snapshot of the
+ * catalog in the same record format, then deletes the older segments and
+ * snapshots. The snapshot is taken while writes continue, so it may already
+ * contain some changes of the new segment; replaying them again is harmless.
+ *
+ * On startup the newest snapshot is memory-mapped and loaded, then the
+ * segments written since it are replayed; the newest segment, which may
+ * have to be truncated, is read instead of mapped. A record cut short or failing
+ * its checksum at the end of the last segment is a write interrupted by a
+ * crash, and the segment is truncated there; anywhere else it is corruption
+ * and startup fails.
+ *
+ * {@code dao.wal.sync} decides when a write is reported as done:
+ *
+ *   always    after its record is forced to disk
+ *   group     after a force that covers it; one thread forces on behalf of
+ *             all writes waiting at that moment (the default)
+ *   interval  at once; the log is forced every dao.wal.syncIntervalMillis,
+ *             so a crash can lose the writes of that interval
+ *
+ * Files, in {@code dao.wal.directory} (relative paths are resolved against
+ * ${catalina.base} or the working directory):
+ *
+ *   catalog-LSN.wal       log segment whose first record has that LSN
+ *   catalog-LSN.snapshot  snapshot from which segments starting at LSN replay
+ *
+ * @see InMemoryCatalog
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Write-ahead log and snapshots for the in-memory catalog.
+ ******************************************************************************/
+
+public final class CatalogJournal implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(CatalogJournal.class);
+
+    /**
+     * When a write counts as durable.
+     */
+    public enum SyncPolicy {
+        ALWAYS, GROUP, INTERVAL
+    }
+
+    private static final byte AUTHOR = 1;
+    private static final byte AUTHOR_REMOVED = 2;
+    private static final byte TITLE = 3;
+    private static final byte TITLE_REMOVED = 4;
+    private static final byte SNAPSHOT_START = 5;
+    private static final byte SNAPSHOT_END = 6;
+
+    /** Length and checksum in front of each record body. */
+    private static final int HEADER_BYTES = 8;
+
+    /** Larger lengths can only come from a damaged file. */
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+
+    private final Path directory;
+    private final InMemoryCatalog catalog;
+    private final SyncPolicy policy;
+    private final long compactBytes;
+    private final ScheduledExecutorService background;
+
+    /** Record encoder of the writing thread. */
+    private final Encoder encoder = new Encoder();
+
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final LongAdder appendedBytes = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+
+    /** Current segment; replaced only by writers, while no force is running. */
+    private volatile FileChannel channel;
+    private long segmentBytes;
+
+    /** LSN of the last record written to the segment. */
+    private volatile long lastLsn;
+
+    /** Guards the fields below. */
+    private final Object syncMonitor = new Object();
+    private long durableLsn;
+    private boolean syncing;
+    private IOException failure;
+
+    /**
+     * Creates a journal; {@link #open} recovers it.
+     */
+    private CatalogJournal(Path directory, InMemoryCatalog catalog, SyncPolicy policy, long compactBytes) {
+        this.directory = directory;
+        this.catalog = catalog;
+        this.policy = policy;
+        this.compactBytes = Math.max(64 * 1024, compactBytes);
+        this.background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.counter("catalog_wal_appended_bytes_total", "Bytes appended to the catalog write-ahead log.",
+                appendedBytes::sum);
+        metrics.counter("catalog_wal_syncs_total", "Forces of the catalog write-ahead log to disk.", syncs::sum);
+        metrics.counter("catalog_wal_compactions_total", "Catalog snapshots written by compaction.",
+                compactions::sum);
+    }
+
+    /**
+     * Opens the journal configured in database.properties and recovers the
+     * catalog from it.
+     *
+     * @param catalog the empty catalog to recover into
+     * @param props   the configuration
+     * @return the journal, ready for writes
+     * @throws IOException if the journal cannot be read or is corrupt
+     */
+    static CatalogJournal open(InMemoryCatalog catalog, Properties props) throws IOException {
+        Path directory = Paths.get(props.getProperty("dao.wal.directory", "catalog-wal").trim());
+        if (!directory.isAbsolute()) {
+            String base = System.getProperty("catalina.base");
+            directory = base != null ? Paths.get(base).resolve(directory) : directory.toAbsolutePath();
+        }
+        SyncPolicy policy = SyncPolicy.GROUP;
+        String sync = props.getProperty("dao.wal.sync", "group").trim();
+        try {
+            policy = SyncPolicy.valueOf(sync.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            LOG.warn("Invalid value for dao.wal.sync in database.properties: {}; using group", sync);
+        }
+        CatalogJournal journal = new CatalogJournal(Files.createDirectories(directory), catalog, policy,
+                DataSource.parseLong(props, "dao.wal.compactBytes", 64L * 1024 * 1024));
+        journal.recover();
+        if (policy == SyncPolicy.INTERVAL) {
+            long interval = Math.max(1, DataSource.parseLong(props, "dao.wal.syncIntervalMillis", 100));
+            journal.background.scheduleWithFixedDelay(journal::syncInBackground, interval, interval,
+                    TimeUnit.MILLISECONDS);
+        }
+        return journal;
+    }
+
+    /**
+     * Gets the LSN of the last record written.
+     *
+     * @return the LSN
+     */
+    long getLastLsn() {
+        return lastLsn;
+    }
+
+    /**
+     * Logs a new or changed author. Caller holds the catalog's write lock.
+     *
+     * @param row the row
+     * @throws IOException if the record cannot be written
+     */
+    void putAuthor(AuthorRow row) throws IOException {
+        append(encoder.start(lastLsn + 1, AUTHOR).putAuthor(row));
+    }
+
+    /**
+     * Logs the removal of an author. Caller holds the catalog's write lock.
+     *
+     * @param id the AuthorID
+     * @throws IOException if the record cannot be written
+     */
+    void removeAuthor(int id) throws IOException {
+        append(encoder.start(lastLsn + 1, AUTHOR_REMOVED).putInt(id));
+    }
+
+    /**
+     * Logs a new or changed title with its links. Caller holds the catalog's write lock.
+     *
+     * @param row the row
+     * @throws IOException if the record cannot be written
+     */
+    void putTitle(TitleRow row) throws IOException {
+        append(encoder.start(lastLsn + 1, TITLE).putTitle(row));
+    }
+
+    /**
+     * Logs the removal of a title. Caller holds the catalog's write lock.
+     *
+     * @param isbn the ISBN
+     * @throws IOException if the record cannot be written
+     */
+    void removeTitle(String isbn) throws IOException {
+        append(encoder.start(lastLsn + 1, TITLE_REMOVED).putString(isbn));
+    }
+
+    /**
+     * Waits until the record with an LSN is durable under the sync policy.
+     *
+     * @param lsn the LSN
+     * @throws IOException if the log could not be forced
+     */
+    void awaitDurable(long lsn) throws IOException {
+        if (policy == SyncPolicy.GROUP) {
+            syncTo(lsn);
+        } else {
+            synchronized (syncMonitor) {
+                if (failure != null) {
+                    throw new IOException("The catalog journal failed earlier", failure);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts a new segment and writes a snapshot synchronously. Caller holds
+     * the catalog's write lock or has not published the catalog yet.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    void checkpoint() throws IOException {
+        long start = rotate();
+        writeSnapshot(start);
+    }
+
+    /**
+     * Stops the background work and forces the log.
+     */
+    @Override
+    public void close() {
+        background.shutdown();
+        try {
+            background.awaitTermination(30, TimeUnit.SECONDS);
+            syncTo(lastLsn);
+            channel.close();
+        } catch (IOException e) {
+            LOG.error("Error closing the catalog journal", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes the record in the encoder. Caller holds the catalog's write lock.
+     *
+     * @param record the encoded record
+     * @throws IOException if it cannot be written; the segment is left as before
+     */
+    private void append(Encoder record) throws IOException {
+        synchronized (syncMonitor) {
+            if (failure != null) {
+                throw new IOException("The catalog journal failed earlier", failure);
+            }
+        }
+        // Compact before writing, never after: every record written so far has been applied
+        if (segmentBytes >= compactBytes && compacting.compareAndSet(false, true)) {
+            long start = rotate();
+            background.execute(() -> {
+                try {
+                    writeSnapshot(start);
+                } catch (IOException e) {
+                    LOG.error("Error compacting the catalog journal", e);
+                } finally {
+                    compacting.set(false);
+                }
+            });
+        }
+        ByteBuffer bytes = record.finish();
+        int length = bytes.remaining();
+        try {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        } catch (IOException e) {
+            try {
+                channel.truncate(segmentBytes); // Do not leave half a record in front of the next one
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+                synchronized (syncMonitor) {
+                    failure = e;
+                }
+            }
+            throw e;
+        }
+        segmentBytes += length;
+        appendedBytes.add(length);
+        lastLsn = record.lsn;
+        if (policy == SyncPolicy.ALWAYS) {
+            syncTo(lastLsn);
+        }
+    }
+
+    /**
+     * Forces the log until the record with an LSN is on disk. The first
+     * waiting thread forces for everyone; the others wait for it.
+     *
+     * @param lsn the LSN
+     * @throws IOException if forcing fails, now or earlier
+     */
+    private void syncTo(long lsn) throws IOException {
+        while (true) {
+            FileChannel target;
+            long upTo;
+            synchronized (syncMonitor) {
+                while (true) {
+                    if (failure != null) {
+                        throw new IOException("The catalog journal failed earlier", failure);
+                    }
+                    if (durableLsn >= lsn) {
+                        return;
+                    }
+                    if (!syncing) {
+                        break;
+                    }
+                    try {
+                        syncMonitor.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted waiting for the catalog journal");
+                    }
+                }
+                syncing = true;
+                target = channel;
+                upTo = lastLsn; // Records up to here are already written to the channel
+            }
+            IOException forceFailure = null;
+            try {
+                target.force(false);
+                syncs.increment();
+            } catch (IOException e) {
+                // After a failed force the page cache cannot be trusted: stop accepting writes
+                forceFailure = e;
+            }
+            synchronized (syncMonitor) {
+                syncing = false;
+                if (forceFailure != null) {
+                    failure = forceFailure;
+                } else {
+                    durableLsn = Math.max(durableLsn, upTo);
+                }
+                syncMonitor.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Interval policy task: forces whatever was written since the last run.
+     */
+    private void syncInBackground() {
+        try {
+            syncTo(lastLsn);
+        } catch (IOException e) {
+            LOG.error("Error forcing the catalog journal", e);
+        }
+    }
+
+    /**
+     * Closes the current segment, forced, and starts a new one.
+     *
+     * @return the LSN the new segment starts at
+     * @throws IOException if the segments cannot be switched
+     */
+    private long rotate() throws IOException {
+        syncTo(lastLsn);
+        synchronized (syncMonitor) {
+            // syncTo returned, but another force may have started since: wait it out
+            while (syncing) {
+                try {
+                    syncMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted switching catalog journal segments");
+                }
+            }
+            channel.close();
+            long start = lastLsn + 1;
+            openSegment(start);
+            return start;
+        }
+    }
+
+    /**
+     * Creates a segment, replacing an empty leftover with the same name.
+     *
+     * @param start the LSN of its first record
+     * @throws IOException if the file cannot be created
+     */
+    private void openSegment(long start) throws IOException {
+        channel = FileChannel.open(file(start, ".wal"), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        segmentBytes = 0;
+        syncDirectory();
+    }
+
+    /**
+     * Writes a snapshot of the catalog, then deletes the files it replaces.
+     *
+     * @param start the LSN of the segment replay continues with
+     * @throws IOException if the snapshot cannot be written
+     */
+    private void writeSnapshot(long start) throws IOException {
+        Path target = file(start, ".snapshot");
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        Encoder snapshot = new Encoder();
+        long records = 0;
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(out, snapshot.start(start, SNAPSHOT_START).putInt(catalog.lastAuthorId.get()).finish());
+            for (AuthorRow row : catalog.authors.values()) {
+                write(out, snapshot.start(0, AUTHOR).putAuthor(row).finish());
+                records++;
+            }
+            for (TitleRow row : catalog.titles.values()) {
+                write(out, snapshot.start(0, TITLE).putTitle(row).finish());
+                records++;
+            }
+            write(out, snapshot.start(0, SNAPSHOT_END).putLong(records).finish());
+            out.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+        compactions.increment();
+        for (Path old : list(".wal").headMap(start).values()) {
+            Files.deleteIfExists(old);
+        }
+        for (Path old : list(".snapshot").headMap(start).values()) {
+            Files.deleteIfExists(old);
+        }
+        LOG.info("Wrote catalog snapshot {} with {} rows", target.getFileName(), records);
+    }
+
+    private static void write(FileChannel out, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Loads the newest snapshot and replays the segments after it.
+     *
+     * @throws IOException if the files cannot be read or are corrupt
+     */
+    private void recover() throws IOException {
+        for (Path leftover : list(".snapshot.tmp").values()) {
+            Files.delete(leftover); // Snapshot interrupted before it was complete
+        }
+        long replayFrom = 0;
+        TreeMap<Long, Path> snapshots = list(".snapshot");
+        if (!snapshots.isEmpty()) {
+            replayFrom = snapshots.lastKey();
+            loadSnapshot(snapshots.lastEntry().getValue());
+            lastLsn = replayFrom - 1;
+        }
+        TreeMap<Long, Path> segments = list(".wal");
+        long replayed = 0;
+        for (var segment : segments.tailMap(replayFrom).entrySet()) {
+            if (segment.getKey() != lastLsn + 1) {
+                throw new IOException("Catalog journal segment " + segment.getValue().getFileName()
+                        + " does not follow LSN " + lastLsn);
+            }
+            replayed += replay(segment.getValue(), segment.getKey().equals(segments.lastKey()));
+        }
+        durableLsn = lastLsn;
+        openSegment(lastLsn + 1);
+        LOG.info("Recovered the catalog journal in {}: {} authors, {} titles, {} log records replayed",
+                directory, catalog.authors.size(), catalog.titles.size(), replayed);
+    }
+
+    /**
+     * Loads a snapshot into the catalog, after checking it is complete: one
+     * pass validates every record, a second applies them.
+     *
+     * @param file the snapshot
+     * @throws IOException if it cannot be read or is damaged
+     */
+    private void loadSnapshot(Path file) throws IOException {
+        MappedByteBuffer map = map(file);
+        long records = 0;
+        long count = -1;
+        ByteBuffer body = next(map);
+        boolean started = body != null && body.get(8) == SNAPSHOT_START;
+        while (body != null) {
+            if (body.get(8) == SNAPSHOT_END) {
+                count = body.getLong(9);
+            } else {
+                records++;
+            }
+            body = next(map);
+        }
+        if (!started || map.hasRemaining() || count != records - 1) {
+            throw new IOException("Catalog snapshot " + file + " is damaged");
+        }
+        map.rewind();
+        while ((body = next(map)) != null) {
+            apply(body);
+        }
+    }
+
+    /**
+     * Replays a log segment into the catalog. The newest segment is read
+     * rather than mapped: Windows refuses to truncate or reopen a file with a
+     * live mapping, and there is no way to unmap one.
+     *
+     * @param file the segment
+     * @param last whether it is the newest segment, whose damaged tail is truncated
+     * @return the number of records replayed
+     * @throws IOException if it cannot be read or is damaged before its end
+     */
+    private long replay(Path file, boolean last) throws IOException {
+        if (!last) {
+            MappedByteBuffer map = map(file);
+            long records = replay(map);
+            if (map.hasRemaining()) {
+                throw new IOException("Catalog journal segment " + file + " is damaged at byte " + map.position());
+            }
+            return records;
+        }
+        try (FileChannel segment = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (segment.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is larger than 2 GB; lower dao.wal.compactBytes");
+            }
+            ByteBuffer bytes = ByteBuffer.allocate((int) segment.size());
+            while (bytes.hasRemaining() && segment.read(bytes) >= 0) {
+                // Read until the buffer is full
+            }
+            bytes.flip();
+            long records = replay(bytes);
+            if (bytes.hasRemaining()) {
+                LOG.warn("Truncating catalog journal segment {} at byte {}: incomplete record from an interrupted write",
+                        file.getFileName(), bytes.position());
+                segment.truncate(bytes.position());
+                segment.force(true);
+            }
+            return records;
+        }
+    }
+
+    /**
+     * Applies the records of a segment newer than the snapshot, stopping at
+     * the first record that is cut short or fails its checksum.
+     *
+     * @param segment the segment's bytes; left positioned after the last good record
+     * @return the number of records applied
+     * @throws IOException if a record cannot be applied
+     */
+    private long replay(ByteBuffer segment) throws IOException {
+        long records = 0;
+        ByteBuffer body;
+        while ((body = next(segment)) != null) {
+            long lsn = body.getLong(0);
+            if (lsn <= lastLsn) {
+                continue; // Already in the snapshot
+            }
+            apply(body);
+            lastLsn = lsn;
+            records++;
+        }
+        return records;
+    }
+
+    /**
+     * Reads the next record, checking its length and checksum.
+     *
+     * @param map the file, positioned at a record
+     * @return the record body, or null at the end or at a damaged record (position left at its start)
+     */
+    private static ByteBuffer next(ByteBuffer map) {
+        int start = map.position();
+        if (map.remaining() < HEADER_BYTES) {
+            return null;
+        }
+        int length = map.getInt();
+        int checksum = map.getInt();
+        if (length < 9 || length > MAX_RECORD_BYTES || length > map.remaining()) {
+            map.position(start);
+            return null;
+        }
+        ByteBuffer body = map.slice(map.position(), length);
+        CRC32C crc = new CRC32C();
+        crc.update(body.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            map.position(start);
+            return null;
+        }
+        map.position(map.position() + length);
+        return body;
+    }
+
+    /**
+     * Applies a record body to the catalog.
+     *
+     * @param body the body: LSN, type, fields
+     * @throws IOException if the record is malformed
+     */
+    private void apply(ByteBuffer body) throws IOException {
+        try {
+            body.position(8);
+            byte type = body.get();
+            switch (type) {
+                case AUTHOR:
+                    catalog.applyAuthor(new AuthorRow(body.getInt(), getString(body), getString(body)));
+                    break;
+                case AUTHOR_REMOVED:
+                    catalog.applyAuthorRemoval(body.getInt());
+                    break;
+                case TITLE: {
+                    String isbn = getString(body);
+                    String title = getString(body);
+                    int edition = body.getInt();
+                    String copyright = getString(body);
+                    int[] authorIds = new int[body.getInt()];
+                    for (int i = 0; i < authorIds.length; i++) {
+                        authorIds[i] = body.getInt();
+                    }
+                    catalog.applyTitle(new TitleRow(isbn, title, edition, copyright, authorIds));
+                    break;
+                }
+                case TITLE_REMOVED:
+                    catalog.applyTitleRemoval(getString(body));
+                    break;
+                case SNAPSHOT_START:
+                    catalog.lastAuthorId.accumulateAndGet(body.getInt(), Math::max);
+                    break;
+                case SNAPSHOT_END:
+                    break;
+                default:
+                    throw new IOException("Unknown catalog journal record type " + type);
+            }
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IOException("Malformed catalog journal record", e);
+        }
+    }
+
+    private static String getString(ByteBuffer body) {
+        byte[] bytes = new byte[Short.toUnsignedInt(body.getShort())];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Maps a file read-only.
+     *
+     * @param file the file
+     * @return the mapping
+     * @throws IOException if it cannot be mapped
+     */
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (in.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is larger than 2 GB; lower dao.wal.compactBytes");
+            }
+            return in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+        }
+    }
+
+    /**
+     * Lists the journal files with a suffix by the LSN in their name.
+     *
+     * @param suffix the suffix, such as ".wal"
+     * @return the files by LSN
+     * @throws IOException if the directory cannot be read
+     */
+    private TreeMap<Long, Path> list(String suffix) throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "catalog-*" + suffix)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                String lsn = name.substring("catalog-".length(), name.length() - suffix.length());
+                if (lsn.chars().allMatch(Character::isDigit) && !lsn.isEmpty()) {
+                    files.put(Long.parseLong(lsn), file);
+                }
+            }
+        }
+        return files;
+    }
+
+    private Path file(long lsn, String suffix) {
+        return directory.resolve(String.format("catalog-%020d%s", lsn, suffix));
+    }
+
+    /**
+     * Forces the directory, so created, renamed and deleted files survive a crash.
+     */
+    private void syncDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Not supported on every platform; the files themselves are forced
+        }
+    }
+
+    /**
+     * Builds one record: header, LSN, type and fields, in a reused buffer.
+     */
+    private static final class Encoder {
+
+        private ByteBuffer buffer = ByteBuffer.allocate(4096);
+        private long lsn;
+
+        Encoder start(long lsn, byte type) {
+            this.lsn = lsn;
+            buffer.clear();
+            buffer.position(HEADER_BYTES);
+            buffer.putLong(lsn).put(type);
+            return this;
+        }
+
+        Encoder putInt(int value) {
+            ensure(4).putInt(value);
+            return this;
+        }
+
+        Encoder putLong(long value) {
+            ensure(8).putLong(value);
+            return this;
+        }
+
+        Encoder putString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) {
+                throw new IllegalArgumentException("String too long for the catalog journal");
+            }
+            ensure(2 + bytes.length).putShort((short) bytes.length).put(bytes);
+            return this;
+        }
+
+        Encoder putAuthor(AuthorRow row) {
+            return putInt(row.id).putString(row.firstName).putString(row.lastName);
+        }
+
+        Encoder putTitle(TitleRow row) {
+            putString(row.isbn).putString(row.title).putInt(row.editionNumber).putString(row.copyright);
+            putInt(row.authorIds.length);
+            for (int id : row.authorIds) {
+                putInt(id);
+            }
+            return this;
+        }
+
+        /**
+         * Fills in the header.
+         *
+         * @return the record, ready to write
+         */
+        ByteBuffer finish() {
+            int length = buffer.position() - HEADER_BYTES;
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.array(), HEADER_BYTES, length);
+            buffer.putInt(0, length).putInt(4, (int) crc.getValue());
+            buffer.flip();
+            return buffer;
+        }
+
+        private ByteBuffer ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+            return buffer;
+        }
+    }
+}
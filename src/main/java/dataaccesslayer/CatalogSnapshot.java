@@ -0,0 +1,601 @@
+package dataaccesslayer;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+import transferobjects.AuthorDTO;
+import transferobjects.TitleDTO;
+
+/*******************************************************************************
+ * CatalogSnapshot
+ * A read-only copy of the Authors, Titles and AuthorISBN tables in a compact
+ * binary file that is memory-mapped and read in place: opening it costs one
+ * checksum pass, not a rebuild, and a lookup decodes only the rows it returns.
+ *
+ * Layout (big-endian), version 1:
+ *
+ *   header   88 bytes: magic "BOOKSNAP", version, flags, creation time,
+ *            author, title and link counts, string table size, the offset
+ *            of each section and a CRC-32C of everything after the header
+ *   authors  20-byte records sorted by AuthorID: id, first and last name
+ *            (string offsets), start and count in the author-titles array
+ *   titles   24-byte records sorted by ISBN bytes: ISBN, title, edition,
+ *            copyright (string offsets), start and count in title-authors
+ *   title-authors, author-titles
+ *            adjacency arrays of record indexes, one int per AuthorISBN row
+ *   strings  length-prefixed UTF-8; repeated values are stored once
+ *
+ * AuthorID and ISBN lookups are binary searches over the fixed-width
+ * records; the ISBN search compares bytes in the string table directly.
+ * Files are written by {@link Builder} to a temporary name and renamed into
+ * place, so a reader never sees a partial file. A mapped file cannot be
+ * replaced or deleted on Windows, so a file is never rewritten while a
+ * snapshot of it is open: each rebuild writes a new file.
+ *
+ * @see CatalogSnapshotStore
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Memory-mapped binary snapshot of the catalog.
+ ******************************************************************************/
+
+public final class CatalogSnapshot {
+
+    private static final byte[] MAGIC = "BOOKSNAP".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 88;
+    private static final int AUTHOR_BYTES = 20;
+    private static final int TITLE_BYTES = 24;
+
+    private final ByteBuffer map;
+    private final long createdMillis;
+    private final int authorCount;
+    private final int titleCount;
+    private final int authorsOffset;
+    private final int titlesOffset;
+    private final int titleAuthorsOffset;
+    private final int authorTitlesOffset;
+    private final int stringsOffset;
+
+    private CatalogSnapshot(ByteBuffer map) throws IOException {
+        this.map = map;
+        byte[] magic = new byte[MAGIC.length];
+        map.get(0, magic);
+        if (map.limit() < HEADER_BYTES || !Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a catalog snapshot");
+        }
+        if (map.getInt(8) != VERSION) {
+            throw new IOException("Unsupported catalog snapshot version " + map.getInt(8));
+        }
+        createdMillis = map.getLong(16);
+        authorCount = map.getInt(24);
+        titleCount = map.getInt(28);
+        int linkCount = map.getInt(32);
+        int stringBytes = map.getInt(36);
+        authorsOffset = (int) map.getLong(40);
+        titlesOffset = (int) map.getLong(48);
+        titleAuthorsOffset = (int) map.getLong(56);
+        authorTitlesOffset = (int) map.getLong(64);
+        stringsOffset = (int) map.getLong(72);
+        if (authorsOffset != HEADER_BYTES
+                || titlesOffset != authorsOffset + (long) authorCount * AUTHOR_BYTES
+                || titleAuthorsOffset != titlesOffset + (long) titleCount * TITLE_BYTES
+                || authorTitlesOffset != titleAuthorsOffset + 4L * linkCount
+                || stringsOffset != authorTitlesOffset + 4L * linkCount
+                || map.limit() != stringsOffset + (long) stringBytes) {
+            throw new IOException("Catalog snapshot sections do not match its size");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(map.slice(HEADER_BYTES, map.limit() - HEADER_BYTES));
+        if ((int) crc.getValue() != map.getInt(80)) {
+            throw new IOException("Catalog snapshot checksum mismatch");
+        }
+    }
+
+    /**
+     * Maps and validates a snapshot file.
+     *
+     * @param file the file
+     * @return the snapshot
+     * @throws IOException if it cannot be read or is not a valid snapshot
+     */
+    public static CatalogSnapshot open(Path file) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (in.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is larger than 2 GB");
+            }
+            return new CatalogSnapshot(in.map(FileChannel.MapMode.READ_ONLY, 0, in.size()));
+        }
+    }
+
+    /**
+     * Gets the time the snapshot was taken.
+     *
+     * @return milliseconds since the epoch
+     */
+    public long getCreatedMillis() {
+        return createdMillis;
+    }
+
+    /**
+     * Gets all authors in AuthorID order.
+     *
+     * @return new DTOs
+     */
+    public List<AuthorDTO> getAllAuthors() {
+        List<AuthorDTO> authors = new ArrayList<>(authorCount);
+        for (int i = 0; i < authorCount; i++) {
+            authors.add(author(i));
+        }
+        return authors;
+    }
+
+    /**
+     * Gets an author.
+     *
+     * @param id the AuthorID
+     * @return a new DTO, or null if there is no such author
+     */
+    public AuthorDTO getAuthorById(int id) {
+        int index = authorIndex(id);
+        return index < 0 ? null : author(index);
+    }
+
+    /**
+     * Gets several authors.
+     *
+     * @param ids the AuthorIDs; duplicates are ignored
+     * @return new DTOs by ID, in AuthorID order, for the IDs that exist
+     */
+    public Map<Integer, AuthorDTO> getAuthorsByIds(int[] ids) {
+        Map<Integer, AuthorDTO> authors = new LinkedHashMap<>();
+        for (int id : Arrays.stream(ids).sorted().distinct().toArray()) {
+            int index = authorIndex(id);
+            if (index >= 0) {
+                authors.put(id, author(index));
+            }
+        }
+        return authors;
+    }
+
+    /**
+     * Gets the titles of an author.
+     *
+     * @param authorId the AuthorID
+     * @return new DTOs, in ISBN order
+     */
+    public List<TitleDTO> getTitlesByAuthor(int authorId) {
+        int index = authorIndex(authorId);
+        if (index < 0) {
+            return new ArrayList<>();
+        }
+        int record = authorsOffset + index * AUTHOR_BYTES;
+        int start = map.getInt(record + 12);
+        int count = map.getInt(record + 16);
+        List<TitleDTO> titles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            titles.add(title(map.getInt(authorTitlesOffset + 4 * (start + i))));
+        }
+        return titles;
+    }
+
+    /**
+     * Gets all titles in ISBN order.
+     *
+     * @return new DTOs
+     */
+    public List<TitleDTO> getAllTitles() {
+        List<TitleDTO> titles = new ArrayList<>(titleCount);
+        for (int i = 0; i < titleCount; i++) {
+            titles.add(title(i));
+        }
+        return titles;
+    }
+
+    /**
+     * Gets a page of titles in ISBN order.
+     *
+     * @param afterIsbn the last ISBN of the previous page, or null for the first page
+     * @param limit     the most titles returned
+     * @return new DTOs of the titles after afterIsbn
+     */
+    public List<TitleDTO> getTitlesPage(String afterIsbn, int limit) {
+        int from = 0;
+        if (afterIsbn != null) {
+            int index = titleIndex(afterIsbn);
+            from = index >= 0 ? index + 1 : -index - 1;
+        }
+        int to = (int) Math.min(titleCount, (long) from + Math.max(0, limit));
+        List<TitleDTO> titles = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            titles.add(title(i));
+        }
+        return titles;
+    }
+
+    /**
+     * Gets a title.
+     *
+     * @param isbn the ISBN
+     * @return a new DTO, or null if there is no such title
+     */
+    public TitleDTO getTitleByISBN(String isbn) {
+        int index = titleIndex(isbn);
+        return index < 0 ? null : title(index);
+    }
+
+    /**
+     * Gets the authors of a title.
+     *
+     * @param isbn the ISBN
+     * @return new DTOs, in AuthorID order
+     */
+    public List<AuthorDTO> getAuthorsForTitle(String isbn) {
+        int index = titleIndex(isbn);
+        if (index < 0) {
+            return new ArrayList<>();
+        }
+        int record = titlesOffset + index * TITLE_BYTES;
+        int start = map.getInt(record + 16);
+        int count = map.getInt(record + 20);
+        List<AuthorDTO> authors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            authors.add(author(map.getInt(titleAuthorsOffset + 4 * (start + i))));
+        }
+        return authors;
+    }
+
+    /**
+     * Gets the authors of several titles.
+     *
+     * @param isbns the ISBNs; duplicates are ignored
+     * @return new DTOs by ISBN, for the titles that have authors
+     */
+    public Map<String, List<AuthorDTO>> getAuthorsForTitles(List<String> isbns) {
+        Map<String, List<AuthorDTO>> authors = new HashMap<>();
+        for (String isbn : isbns) {
+            List<AuthorDTO> authorsForTitle = getAuthorsForTitle(isbn);
+            if (!authorsForTitle.isEmpty()) {
+                authors.put(isbn, authorsForTitle);
+            }
+        }
+        return authors;
+    }
+
+    private int authorIndex(int id) {
+        int low = 0;
+        int high = authorCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int value = map.getInt(authorsOffset + middle * AUTHOR_BYTES);
+            if (value < id) {
+                low = middle + 1;
+            } else if (value > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds a title by binary search.
+     *
+     * @return its record index, or (-(insertion point) - 1) if there is no such title
+     */
+    private int titleIndex(String isbn) {
+        if (isbn == null) {
+            return -1;
+        }
+        byte[] key = isbn.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = titleCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareString(map.getInt(titlesOffset + middle * TITLE_BYTES), key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -low - 1;
+    }
+
+    /**
+     * Compares a string in the table with a key, as unsigned bytes, in place.
+     */
+    private int compareString(int offset, byte[] key) {
+        int position = stringsOffset + offset;
+        int length = Short.toUnsignedInt(map.getShort(position));
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int difference = Byte.toUnsignedInt(map.get(position + 2 + i)) - Byte.toUnsignedInt(key[i]);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - key.length;
+    }
+
+    private AuthorDTO author(int index) {
+        int record = authorsOffset + index * AUTHOR_BYTES;
+        return new AuthorDTO(map.getInt(record), string(map.getInt(record + 4)), string(map.getInt(record + 8)));
+    }
+
+    private TitleDTO title(int index) {
+        int record = titlesOffset + index * TITLE_BYTES;
+        return new TitleDTO(string(map.getInt(record)), string(map.getInt(record + 4)), map.getInt(record + 8),
+                string(map.getInt(record + 12)));
+    }
+
+    private String string(int offset) {
+        int position = stringsOffset + offset;
+        byte[] bytes = new byte[Short.toUnsignedInt(map.getShort(position))];
+        map.get(position + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Collects rows and writes them as a snapshot file.
+     */
+    public static final class Builder {
+
+        private final List<AuthorDTO> authors = new ArrayList<>();
+        private final List<TitleDTO> titles = new ArrayList<>();
+        private int[] linkAuthors = new int[1024];
+        private String[] linkIsbns = new String[1024];
+        private int linkCount;
+
+        /**
+         * Adds an Authors row.
+         *
+         * @param author the author
+         * @return this builder
+         */
+        public Builder addAuthor(AuthorDTO author) {
+            authors.add(author);
+            return this;
+        }
+
+        /**
+         * Adds a Titles row.
+         *
+         * @param title the title
+         * @return this builder
+         */
+        public Builder addTitle(TitleDTO title) {
+            titles.add(title);
+            return this;
+        }
+
+        /**
+         * Adds an AuthorISBN row. Rows naming a missing author or title are
+         * left out of the file.
+         *
+         * @param authorId the AuthorID
+         * @param isbn     the ISBN
+         * @return this builder
+         */
+        public Builder addLink(int authorId, String isbn) {
+            if (linkCount == linkAuthors.length) {
+                linkAuthors = Arrays.copyOf(linkAuthors, linkCount * 2);
+                linkIsbns = Arrays.copyOf(linkIsbns, linkCount * 2);
+            }
+            linkAuthors[linkCount] = authorId;
+            linkIsbns[linkCount++] = isbn;
+            return this;
+        }
+
+        /**
+         * Writes the snapshot, replacing the file atomically. The file must
+         * not be open as a {@link CatalogSnapshot}, which keeps it mapped.
+         *
+         * @param file the file
+         * @throws IOException if it cannot be written, or would exceed 2 GB
+         */
+        public void write(Path file) throws IOException {
+            authors.sort(Comparator.comparingInt(AuthorDTO::getId));
+            int[] authorIds = authors.stream().mapToInt(AuthorDTO::getId).toArray();
+            byte[][] isbns = new byte[titles.size()][];
+            Integer[] order = new Integer[titles.size()];
+            for (int i = 0; i < isbns.length; i++) {
+                isbns[i] = titles.get(i).getIsbn().getBytes(StandardCharsets.UTF_8);
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(isbns[a], isbns[b]));
+            byte[][] sortedIsbns = new byte[isbns.length][];
+            for (int i = 0; i < order.length; i++) {
+                sortedIsbns[i] = isbns[order[i]];
+            }
+
+            // AuthorISBN rows as (author index, title index), then grouped both ways
+            int[] linkAuthor = new int[linkCount];
+            int[] linkTitle = new int[linkCount];
+            int links = 0;
+            for (int i = 0; i < linkCount; i++) {
+                int author = Arrays.binarySearch(authorIds, linkAuthors[i]);
+                int title = Arrays.binarySearch(sortedIsbns, linkIsbns[i].getBytes(StandardCharsets.UTF_8),
+                        Arrays::compareUnsigned);
+                if (author >= 0 && title >= 0) {
+                    linkAuthor[links] = author;
+                    linkTitle[links++] = title;
+                }
+            }
+            // Grouping is stable, so grouping rows already in author order lists each title's
+            // authors by AuthorID, and grouping those in title order lists each author's titles by ISBN
+            int[] authorStarts = new int[authorIds.length + 1];
+            int[] authorTitles = group(linkAuthor, linkTitle, links, authorStarts);
+            ungroup(authorStarts, authorTitles, linkAuthor, linkTitle);
+            int[] titleStarts = new int[order.length + 1];
+            int[] titleAuthors = group(linkTitle, linkAuthor, links, titleStarts);
+            ungroup(titleStarts, titleAuthors, linkTitle, linkAuthor);
+            authorStarts = new int[authorIds.length + 1];
+            authorTitles = group(linkAuthor, linkTitle, links, authorStarts);
+
+            Strings strings = new Strings();
+            int[] authorStrings = new int[2 * authorIds.length];
+            for (int i = 0; i < authorIds.length; i++) {
+                authorStrings[2 * i] = strings.add(authors.get(i).getFirstName());
+                authorStrings[2 * i + 1] = strings.add(authors.get(i).getLastName());
+            }
+            int[] titleStrings = new int[3 * order.length];
+            for (int i = 0; i < order.length; i++) {
+                TitleDTO title = titles.get(order[i]);
+                titleStrings[3 * i] = strings.addUnique(sortedIsbns[i]);
+                titleStrings[3 * i + 1] = strings.add(title.getTitle());
+                titleStrings[3 * i + 2] = strings.add(title.getCopyright());
+            }
+
+            long authorsOffset = HEADER_BYTES;
+            long titlesOffset = authorsOffset + (long) authorIds.length * AUTHOR_BYTES;
+            long titleAuthorsOffset = titlesOffset + (long) order.length * TITLE_BYTES;
+            long authorTitlesOffset = titleAuthorsOffset + 4L * links;
+            long stringsOffset = authorTitlesOffset + 4L * links;
+            if (stringsOffset + strings.size > Integer.MAX_VALUE) {
+                throw new IOException("Catalog snapshot would be larger than 2 GB");
+            }
+
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.position(HEADER_BYTES);
+                CRC32C crc = new CRC32C();
+                DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc));
+                for (int i = 0; i < authorIds.length; i++) {
+                    out.writeInt(authorIds[i]);
+                    out.writeInt(authorStrings[2 * i]);
+                    out.writeInt(authorStrings[2 * i + 1]);
+                    out.writeInt(authorStarts[i]);
+                    out.writeInt(authorStarts[i + 1] - authorStarts[i]);
+                }
+                for (int i = 0; i < order.length; i++) {
+                    out.writeInt(titleStrings[3 * i]);
+                    out.writeInt(titleStrings[3 * i + 1]);
+                    out.writeInt(titles.get(order[i]).getEditionNumber());
+                    out.writeInt(titleStrings[3 * i + 2]);
+                    out.writeInt(titleStarts[i]);
+                    out.writeInt(titleStarts[i + 1] - titleStarts[i]);
+                }
+                for (int i = 0; i < links; i++) {
+                    out.writeInt(titleAuthors[i]);
+                }
+                for (int i = 0; i < links; i++) {
+                    out.writeInt(authorTitles[i]);
+                }
+                out.write(strings.bytes, 0, strings.size);
+                out.flush();
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.put(MAGIC).putInt(VERSION).putInt(0).putLong(System.currentTimeMillis())
+                        .putInt(authorIds.length).putInt(order.length).putInt(links).putInt(strings.size)
+                        .putLong(authorsOffset).putLong(titlesOffset).putLong(titleAuthorsOffset)
+                        .putLong(authorTitlesOffset).putLong(stringsOffset)
+                        .putInt((int) crc.getValue()).putInt(0);
+                header.flip();
+                channel.write(header, 0);
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        /**
+         * Groups pairs by their first element (counting sort), in CSR form.
+         *
+         * @param keys   first elements
+         * @param values second elements
+         * @param count  number of pairs
+         * @param starts receives, for each key, where its values start; one longer than the key range
+         * @return the values, grouped by key
+         */
+        private static int[] group(int[] keys, int[] values, int count, int[] starts) {
+            for (int i = 0; i < count; i++) {
+                starts[keys[i] + 1]++;
+            }
+            for (int i = 1; i < starts.length; i++) {
+                starts[i] += starts[i - 1];
+            }
+            int[] next = Arrays.copyOf(starts, starts.length - 1);
+            int[] grouped = new int[count];
+            for (int i = 0; i < count; i++) {
+                grouped[next[keys[i]]++] = values[i];
+            }
+            return grouped;
+        }
+
+        /**
+         * Lists grouped pairs again, in key order.
+         *
+         * @param starts where the values of each key start, as made by {@link #group}
+         * @param values the grouped values
+         * @param keys   receives the first elements
+         * @param into   receives the second elements
+         */
+        private static void ungroup(int[] starts, int[] values, int[] keys, int[] into) {
+            for (int key = 0; key + 1 < starts.length; key++) {
+                for (int i = starts[key]; i < starts[key + 1]; i++) {
+                    keys[i] = key;
+                    into[i] = values[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * The string table being built.
+     */
+    private static final class Strings {
+
+        private final Map<String, Integer> offsets = new HashMap<>();
+        private byte[] bytes = new byte[1 << 16];
+        private int size;
+
+        /** Adds a string, or finds an equal one already added. */
+        int add(String value) {
+            Integer offset = offsets.get(value);
+            if (offset == null) {
+                offset = addUnique(value.getBytes(StandardCharsets.UTF_8));
+                offsets.put(value, offset);
+            }
+            return offset;
+        }
+
+        /** Adds a string known to be unique, such as an ISBN. */
+        int addUnique(byte[] value) {
+            if (value.length > 0xFFFF) {
+                throw new IllegalArgumentException("String too long for a catalog snapshot");
+            }
+            if (size + 2 + value.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + 2 + value.length));
+            }
+            int offset = size;
+            bytes[size++] = (byte) (value.length >>> 8);
+            bytes[size++] = (byte) value.length;
+            System.arraycopy(value, 0, bytes, size, value.length);
+            size += value.length;
+            return offset;
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package dataaccesslayer;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import monitoring.Logger;
+import monitoring.MetricsRegistry;
+
+/*******************************************************************************
+ * CatalogSnapshotStore
+ * Keeps a {@link CatalogSnapshot} of the database for the jdbc backend, so
+ * reads can be answered from a memory-mapped file instead of MySQL, and a
+ * restarted node answers them at once from the file the previous process
+ * left behind.
+ *
+ * A background thread reconciles the snapshot with the database: right
+ * after startup, every {@code dao.snapshot.refreshSeconds}, and
+ * {@code dao.snapshot.writeDelaySeconds} after a write made through this
+ * node. Each rebuild reads the three tables in one read-only transaction
+ * (one per database when titles are sharded), writes a new file and swaps
+ * it in.
+ *
+ * The file being served stays memory-mapped, and Windows refuses to replace
+ * or delete a mapped file, so each rebuild writes a new generation named
+ * {@code <dao.snapshot.file>.<generation>} and then deletes the older ones.
+ * A generation that cannot be deleted yet (still mapped until its snapshot
+ * is garbage collected) is deleted after a later rebuild. On startup the
+ * newest generation is mapped.
+ *
+ * The snapshot is only served while it can be trusted locally: it must be
+ * younger than {@code dao.snapshot.maxAgeSeconds}, and no write may have
+ * been made through this node since its rebuild started. Writes made
+ * through other nodes show up with the next rebuild.
+ *
+ * @see SnapshotReadAuthorDAO
+ * @see SnapshotReadTitleDAO
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Maintains the memory-mapped catalog snapshot.
+ ******************************************************************************/
+
+public final class CatalogSnapshotStore {
+
+    private static final Logger LOG = Logger.getLogger(CatalogSnapshotStore.class);
+
+    private static volatile CatalogSnapshotStore instance;
+    private static volatile boolean configured;
+
+    /** The configured file; generations are written next to it with a ".<generation>" suffix. */
+    private final Path file;
+    private final Pattern generationName;
+    private final long maxAgeMillis;
+    private final long writeDelaySeconds;
+    private final ScheduledExecutorService background;
+
+    /** The current snapshot, or null. */
+    private volatile Current current;
+
+    /** The newest generation written or found on disk; used by the background thread only. */
+    private long generation;
+
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+
+    private CatalogSnapshotStore(Path file, long maxAgeSeconds, long refreshSeconds, long writeDelaySeconds) {
+        this.file = file;
+        this.generationName = Pattern.compile(Pattern.quote(file.getFileName().toString()) + "\\.(\\d{1,18})");
+        this.maxAgeMillis = TimeUnit.SECONDS.toMillis(maxAgeSeconds);
+        this.writeDelaySeconds = Math.max(0, writeDelaySeconds);
+        this.background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.counter("catalog_snapshot_reads_total", "DAO reads answered from the catalog snapshot.",
+                hits::sum, "result", "hit");
+        metrics.counter("catalog_snapshot_reads_total", "DAO reads answered from the catalog snapshot.",
+                misses::sum, "result", "miss");
+        metrics.counter("catalog_snapshot_rebuilds_total", "Catalog snapshots rebuilt from the database.",
+                rebuilds::sum);
+        metrics.gauge("catalog_snapshot_age_seconds", "Age of the current catalog snapshot.", () -> {
+            Current now = current;
+            return now == null ? -1 : (System.currentTimeMillis() - now.snapshot.getCreatedMillis()) / 1000.0;
+        });
+
+        try {
+            TreeMap<Long, Path> generations = generations();
+            if (!generations.isEmpty()) {
+                generation = generations.lastKey();
+                Path latest = generations.lastEntry().getValue();
+                try {
+                    // Nothing has been written through this process yet
+                    current = new Current(CatalogSnapshot.open(latest), 0);
+                    LOG.info("Mapped catalog snapshot {} taken at {}", latest,
+                            Instant.ofEpochMilli(current.snapshot.getCreatedMillis()));
+                } catch (IOException e) {
+                    LOG.warn("Ignoring catalog snapshot {}: {}", latest, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            LOG.warn("Cannot list catalog snapshots next to {}: {}", file, e.getMessage());
+        }
+        background.scheduleWithFixedDelay(this::rebuildQuietly, 0, Math.max(1, refreshSeconds), TimeUnit.SECONDS);
+    }
+
+    /**
+     * Gets the store configured in database.properties, creating it on first use.
+     *
+     * @return the store, or null if dao.snapshot.file is empty
+     */
+    public static CatalogSnapshotStore getInstance() {
+        if (!configured) {
+            synchronized (CatalogSnapshotStore.class) {
+                if (!configured) {
+                    Properties props = DataSource.loadConfiguration();
+                    String name = props.getProperty("dao.snapshot.file", "").trim();
+                    if (!name.isEmpty()) {
+                        Path path = Paths.get(name);
+                        if (!path.isAbsolute()) {
+                            String base = System.getProperty("catalina.base");
+                            path = base != null ? Paths.get(base).resolve(path) : path.toAbsolutePath();
+                        }
+                        instance = new CatalogSnapshotStore(path,
+                                DataSource.parseLong(props, "dao.snapshot.maxAgeSeconds", 3600),
+                                DataSource.parseLong(props, "dao.snapshot.refreshSeconds", 300),
+                                DataSource.parseLong(props, "dao.snapshot.writeDelaySeconds", 10));
+                    }
+                    configured = true;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Stops the background rebuilds of the store, if one was created.
+     */
+    public static void shutdown() {
+        if (instance != null) {
+            instance.background.shutdownNow();
+        }
+    }
+
+    /**
+     * Gets the snapshot if reads may be served from it, counting the outcome.
+     *
+     * @return the snapshot, or null if reads must go to the database
+     */
+    CatalogSnapshot readable() {
+        Current now = current;
+        if (now != null && now.coveredWrites == writes.get()
+                && System.currentTimeMillis() - now.snapshot.getCreatedMillis() <= maxAgeMillis) {
+            hits.increment();
+            return now.snapshot;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Records a write made through this node, after it completed: the
+     * snapshot is bypassed until a rebuild that starts after it.
+     */
+    void written() {
+        writes.incrementAndGet();
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            background.schedule(this::rebuildQuietly, writeDelaySeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (IOException | SQLException | RuntimeException e) {
+            LOG.error("Error rebuilding the catalog snapshot", e);
+        }
+    }
+
+    /**
+     * Reads the tables, writes a new snapshot generation, swaps it in and
+     * deletes the older generations. The tables of each database are read in
+     * one {@link TransactionTemplate#SNAPSHOT} transaction; with sharded
+     * titles, each shard is read on its own after the authors. Runs on the
+     * background thread only.
+     *
+     * @throws IOException  if the file cannot be written
+     * @throws SQLException if the tables cannot be read
+     */
+    void rebuild() throws IOException, SQLException {
+        rebuildScheduled.set(false);
+        long writesBefore = writes.get();
+        long started = System.nanoTime();
+        CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder();
+        DataSource main = DataSource.getInstance();
+        for (DataSource database : databases(main)) {
+            TransactionTemplate.SNAPSHOT.execute(database, transaction -> {
+                if (database == main) {
+                    try (PreparedStatement statement = transaction.prepare(
+                            "SELECT AuthorID, FirstName, LastName FROM Authors");
+                         ResultSet rows = statement.executeQuery()) {
+                        while (rows.next()) {
+                            builder.addAuthor(ResultSetMappers.toAuthor(rows));
+                        }
+                    }
+                }
+                if (database != main || DataSource.getShards().get(0) == main) {
+                    readTitles(transaction, builder);
+                }
+                return null;
+            });
+        }
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path next = file.resolveSibling(file.getFileName() + "." + ++generation);
+        builder.write(next);
+        current = new Current(CatalogSnapshot.open(next), writesBefore);
+        rebuilds.increment();
+        LOG.info("Rebuilt catalog snapshot {} in {} ms", next, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        deleteOldGenerations(next);
+    }
+
+    /**
+     * Finds the snapshot generations on disk.
+     *
+     * @return the files by generation
+     * @throws IOException if the directory cannot be listed
+     */
+    private TreeMap<Long, Path> generations() throws IOException {
+        TreeMap<Long, Path> generations = new TreeMap<>();
+        Path directory = file.getParent();
+        if (directory == null || !Files.isDirectory(directory)) {
+            return generations;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path candidate : files) {
+                Matcher matcher = generationName.matcher(candidate.getFileName().toString());
+                if (matcher.matches()) {
+                    generations.put(Long.parseLong(matcher.group(1)), candidate);
+                }
+            }
+        }
+        return generations;
+    }
+
+    /**
+     * Deletes every generation but the one being served. Readers may still
+     * hold an older snapshot; on Unix its mapping outlives the file, and on
+     * Windows the delete fails until the mapping is released and is tried
+     * again after the next rebuild.
+     *
+     * @param keep the file of the current snapshot
+     */
+    private void deleteOldGenerations(Path keep) {
+        try {
+            for (Map.Entry<Long, Path> old : generations().entrySet()) {
+                if (!old.getValue().equals(keep)) {
+                    try {
+                        Files.deleteIfExists(old.getValue());
+                    } catch (IOException e) {
+                        LOG.debug("Catalog snapshot {} not deleted yet: {}", old.getValue(), e.getMessage());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOG.warn("Cannot list catalog snapshots next to {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the databases to read: the main one first, then any title shards.
+     *
+     * @param main the main database
+     * @return the databases
+     */
+    private static List<DataSource> databases(DataSource main) {
+        List<DataSource> databases = new ArrayList<>();
+        databases.add(main);
+        for (DataSource shard : DataSource.getShards()) {
+            if (shard != main) {
+                databases.add(shard);
+            }
+        }
+        return databases;
+    }
+
+    /**
+     * Reads the Titles and AuthorISBN rows of one database.
+     *
+     * @param transaction the database's transaction
+     * @param builder     receives the rows
+     * @throws SQLException if the tables cannot be read
+     */
+    private static void readTitles(TransactionTemplate.Transaction transaction, CatalogSnapshot.Builder builder)
+            throws SQLException {
+        try (PreparedStatement statement = transaction.prepare(
+                "SELECT ISBN, Title, EditionNumber, Copyright FROM Titles");
+             ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                builder.addTitle(ResultSetMappers.toTitle(rows));
+            }
+        }
+        try (PreparedStatement statement = transaction.prepare(
+                "SELECT AuthorID, ISBN FROM AuthorISBN");
+             ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                builder.addLink(rows.getInt(1), rows.getString(2));
+            }
+        }
+    }
+
+    /**
+     * A snapshot with the value of {@link #writes} when its rebuild started.
+     */
+    private static final class Current {
+
+        final CatalogSnapshot snapshot;
+        final long coveredWrites;
+
+        Current(CatalogSnapshot snapshot, long coveredWrites) {
+            this.snapshot = snapshot;
+            this.coveredWrites = coveredWrites;
+        }
+    }
+}
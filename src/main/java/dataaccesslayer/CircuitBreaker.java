@@ -0,0 +1,217 @@
+package dataaccesslayer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import monitoring.Logger;
+
+/*******************************************************************************
+ * CircuitBreaker
+ * Stops sending work to the database while it is failing, so an outage costs
+ * each request a fast failure instead of a full connect timeout.
+ *
+ * A "call" is one use of a connection, from acquisition until close. The
+ * outcomes of the last {@code windowSize} calls are kept in a ring buffer:
+ *
+ *   - CLOSED:    calls pass. When at least {@code minimumCalls} outcomes are
+ *                recorded and the failure rate or the slow-call rate reaches
+ *                its threshold, the breaker opens.
+ *   - OPEN:      calls are rejected immediately until {@code openMillis} have
+ *                passed, then the breaker moves to half-open.
+ *   - HALF_OPEN: up to {@code probeCalls} probe calls are let through. If all
+ *                succeed the breaker closes; any failure opens it again.
+ *
+ * @see CircuitBreaker
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Closed/open/half-open circuit breaker for database calls.
+ ******************************************************************************/
+
+public class CircuitBreaker {
+
+    private static final Logger LOG = Logger.getLogger(CircuitBreaker.class);
+
+    /** Breaker states. */
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final byte SUCCESS = 0;
+    private static final byte SLOW = 1;
+    private static final byte FAILURE = 2;
+
+    private final byte[] window;
+    private final int minimumCalls;
+    private final int failureRatePercent;
+    private final int slowCallRatePercent;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int probeCalls;
+
+    // All mutable state below is guarded by this
+    private State state = State.CLOSED;
+    private int recorded;
+    private int next;
+    private int failures;
+    private int slowCalls;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    private final AtomicLong rejectedCalls = new AtomicLong();
+    private final AtomicLong timesOpened = new AtomicLong();
+
+    /**
+     * Creates a circuit breaker.
+     *
+     * @param windowSize          number of recent calls considered
+     * @param minimumCalls        calls needed in the window before the breaker can open
+     * @param failureRatePercent  failure rate (1-100) that opens the breaker; 0 disables
+     * @param slowCallRatePercent slow-call rate (1-100) that opens the breaker; 0 disables
+     * @param slowCallMillis      duration above which a successful call counts as slow
+     * @param openMillis          how long the breaker stays open before probing
+     * @param probeCalls          number of probe calls allowed while half-open
+     */
+    public CircuitBreaker(int windowSize, int minimumCalls, int failureRatePercent, int slowCallRatePercent,
+                          long slowCallMillis, long openMillis, int probeCalls) {
+        this.window = new byte[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+        this.failureRatePercent = failureRatePercent;
+        this.slowCallRatePercent = slowCallRatePercent;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.probeCalls = Math.max(1, probeCalls);
+    }
+
+    /**
+     * Asks whether a call may proceed. Every permitted call must be followed by
+     * exactly one {@link #onSuccess(long)} or {@link #onFailure()}.
+     *
+     * @return true if the call may proceed, false if it must fail fast
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                rejectedCalls.incrementAndGet();
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probesStarted = 0;
+            probesSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesStarted >= probeCalls) {
+                rejectedCalls.incrementAndGet();
+                return false;
+            }
+            probesStarted++;
+        }
+        return true;
+    }
+
+    /**
+     * Records a successful call.
+     *
+     * @param durationNanos how long the call took
+     */
+    public synchronized void onSuccess(long durationNanos) {
+        boolean slow = slowCallNanos > 0 && durationNanos > slowCallNanos;
+        if (state == State.HALF_OPEN) {
+            if (slow) {
+                open();
+            } else if (++probesSucceeded >= probeCalls) {
+                reset();
+            }
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(slow ? SLOW : SUCCESS);
+        }
+    }
+
+    /**
+     * Records a failed call.
+     */
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(FAILURE);
+        }
+    }
+
+    /**
+     * Gets the current state.
+     *
+     * @return the state; an expired OPEN state is reported as HALF_OPEN
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /** @return the number of calls rejected without touching the database. */
+    public long getRejectedCalls() {
+        return rejectedCalls.get();
+    }
+
+    /** @return the number of times the breaker has opened. */
+    public long getTimesOpened() {
+        return timesOpened.get();
+    }
+
+    /**
+     * Adds an outcome to the window and opens the breaker if a threshold is reached.
+     *
+     * @param outcome SUCCESS, SLOW or FAILURE
+     */
+    private void record(byte outcome) {
+        if (recorded == window.length) {
+            byte evicted = window[next];
+            if (evicted == FAILURE) {
+                failures--;
+            } else if (evicted == SLOW) {
+                slowCalls--;
+            }
+        } else {
+            recorded++;
+        }
+        window[next] = outcome;
+        next = (next + 1) % window.length;
+        if (outcome == FAILURE) {
+            failures++;
+        } else if (outcome == SLOW) {
+            slowCalls++;
+        }
+
+        if (recorded >= minimumCalls
+                && ((failureRatePercent > 0 && failures * 100 >= failureRatePercent * recorded)
+                    || (slowCallRatePercent > 0 && slowCalls * 100 >= slowCallRatePercent * recorded))) {
+            open();
+        }
+    }
+
+    /**
+     * Moves to OPEN.
+     */
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        timesOpened.incrementAndGet();
+        LOG.warn("Circuit breaker opened: database calls will fail fast for {} ms",
+                TimeUnit.NANOSECONDS.toMillis(openNanos));
+    }
+
+    /**
+     * Moves to CLOSED with an empty window.
+     */
+    private void reset() {
+        state = State.CLOSED;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+        slowCalls = 0;
+        LOG.info("Circuit breaker closed: database calls resumed");
+    }
+}
@@ -0,0 +1,121 @@
+package dataaccesslayer;
+
+import monitoring.Logger;
+
+/*******************************************************************************
+ * DAOFactory
+ * Creates the DAOs used by the business layer for the backend chosen by
+ * {@code dao.backend} in database.properties (or {@code -Ddao.backend}):
+ *
+ *   jdbc    MySQL through the {@link DataSource} (the default), with metrics
+ *           and last known good reads while the database is down; with
+ *           dao.snapshot.file set, reads are served from a memory-mapped
+ *           {@link CatalogSnapshot} while it is current
+ *   memory  the shared {@link InMemoryCatalog}, with metrics; needs no
+ *           database, optionally seeded from dao.memory.seedDirectory
+ *   wal     the same, persisted by a {@link CatalogJournal} in
+ *           dao.wal.directory, for nodes without a database server
+ *
+ * @see DAOFactory
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Chooses the DAO implementations from configuration.
+ ******************************************************************************/
+
+public final class DAOFactory {
+
+    private static final Logger LOG = Logger.getLogger(DAOFactory.class);
+
+    /** The configured backend, read once. */
+    private static volatile Backend backend;
+
+    /**
+     * The available backends.
+     */
+    public enum Backend {
+        JDBC, MEMORY, WAL
+    }
+
+    private DAOFactory() {
+    }
+
+    /**
+     * Gets the configured backend.
+     *
+     * @return the backend
+     */
+    public static Backend getBackend() {
+        if (backend == null) {
+            String value = DataSource.loadConfiguration().getProperty("dao.backend", "jdbc").trim();
+            try {
+                backend = Backend.valueOf(value.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Invalid value for dao.backend in database.properties: {}; using jdbc", value);
+                backend = Backend.JDBC;
+            }
+        }
+        return backend;
+    }
+
+    /**
+     * Tells whether Titles and AuthorISBN are spread over several databases,
+     * away from Authors, so no foreign key links them.
+     *
+     * @return true for the jdbc backend with {@code shard.count} above 1
+     */
+    public static boolean isSharded() {
+        return getBackend() == Backend.JDBC && DataSource.getShards().size() > 1;
+    }
+
+    /**
+     * Creates an AuthorDAO for the configured backend.
+     *
+     * @return the DAO
+     */
+    public static AuthorDAO createAuthorDAO() {
+        AuthorDAO dao;
+        if (getBackend() != Backend.JDBC) {
+            dao = new InstrumentedAuthorDAO(new InMemoryAuthorDAO(InMemoryCatalog.getInstance()));
+        } else {
+            dao = new StaleReadAuthorDAO(new InstrumentedAuthorDAO(new AuthorDAOImpl()));
+            CatalogSnapshotStore snapshots = CatalogSnapshotStore.getInstance();
+            if (snapshots != null) {
+                dao = new SnapshotReadAuthorDAO(dao, snapshots);
+            }
+        }
+        AuthorIdIndex index = AuthorIdIndex.getInstance();
+        return index == null ? dao : new IndexedAuthorDAO(dao, index);
+    }
+
+    /**
+     * Creates a TitleDAO for the configured backend.
+     *
+     * @return the DAO
+     */
+    public static TitleDAO createTitleDAO() {
+        if (getBackend() != Backend.JDBC) {
+            return new InstrumentedTitleDAO(new InMemoryTitleDAO(InMemoryCatalog.getInstance()));
+        }
+        TitleDAO dao = new StaleReadTitleDAO(new InstrumentedTitleDAO(new TitleDAOImpl()));
+        CatalogSnapshotStore snapshots = CatalogSnapshotStore.getInstance();
+        return snapshots == null ? dao : new SnapshotReadTitleDAO(dao, snapshots);
+    }
+
+    /**
+     * Releases what the backend holds: for wal, forces and closes the
+     * journal; for jdbc, stops the snapshot rebuilds, the shard read
+     * threads and the replica checks. Stops the author ID index reloads for all backends.
+     */
+    public static void shutdown() {
+        AuthorIdIndex.shutdown();
+        if (backend == Backend.JDBC) {
+            CatalogSnapshotStore.shutdown();
+            ScatterGather.shutdown();
+            ReplicaSet.shutdown();
+        } else if (backend != null) {
+            InMemoryCatalog.shutdown();
+        }
+    }
+}
@@ -4,7 +4,19 @@ import java.io.*;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.CRC32;
+import monitoring.ConnectionAcquireEvent;
+import monitoring.DaoCallEvent;
+import monitoring.Logger;
+import monitoring.MetricsRegistry;
 
 /*******************************************************************************
  * DataSource (Singleton Design Pattern):
@@ -17,6 +29,12 @@ import java.util.Properties;
  * This class loads database connection properties from an external configuration file
  * {@code database.properties}, registers the MySQL JDBC driver, and provides a method to obtain
  * a database connection.
+ *
+ * The Titles and AuthorISBN tables can be spread over several databases
+ * ("shards", see {@link #getShards()}); each shard has a DataSource of its
+ * own, with its own circuit breaker, and shares the main one's listeners.
+ * The main database and each shard can also have read replicas, which
+ * reads that may be slightly behind take through {@link #getReadConnection()}.
  * 
  * @see DataSource
  * @since Java 21.0.7
@@ -28,6 +46,8 @@ import java.util.Properties;
 
 public class DataSource {
 
+    private static final Logger LOG = Logger.getLogger(DataSource.class);
+
     /**
      * The single instance of the DataSource (Singleton).
      * Declared {@code volatile} to ensure proper visibility of the instance
@@ -35,6 +55,16 @@ public class DataSource {
      */
     private static volatile DataSource instance;
 
+    /** The title shards, in shard order; null until first used. */
+    private static volatile List<DataSource> shards;
+
+    /** Prefixes of the database.properties settings that system properties can override. */
+    private static final String[] OVERRIDABLE_PREFIXES = { "jdbc.", "breaker.", "slowQuery.", "dao.", "shard.",
+            "replica." };
+
+    /** Isolation value meaning "leave the database's default". */
+    static final int DEFAULT_ISOLATION = -1;
+
     /** The database URL loaded from properties file. */
     private String url;
 
@@ -44,6 +74,21 @@ public class DataSource {
     /** The database password loaded from properties file. */
     private String password;
 
+    /** Upper bound for establishing a connection, in milliseconds (0 = no limit). */
+    private long connectTimeoutMillis;
+
+    /** Upper bound for waiting on a socket read, in milliseconds (0 = no limit). */
+    private long socketTimeoutMillis;
+
+    /** Fails database calls fast while the database is unhealthy. */
+    private CircuitBreaker circuitBreaker;
+
+    /** Observers of connections and statement executions. */
+    private final List<JdbcListener> listeners;
+
+    /** The read replicas of this database; null if it has none. */
+    private final ReplicaSet replicas;
+
     /**
      * Private constructor to prevent external instantiation.
      * Loads the MySQL JDBC driver and reads database connection properties from the classpath.
@@ -51,42 +96,168 @@ public class DataSource {
      * occurs when reading properties.
      */
     private DataSource() {
+        this(loadProperties());
+    }
+
+    /**
+     * Creates a data source from already loaded properties. Used directly only
+     * by benchmarks and tools that point it at another database.
+     *
+     * @param props the properties, in the format of database.properties
+     * @throws RuntimeException if a JDBC property is missing
+     */
+    DataSource(Properties props) {
+        this(props, props, "", null);
+    }
+
+    /**
+     * Creates the data source of the main database, a title shard or a
+     * replica of either.
+     *
+     * @param config the whole configuration, in the format of database.properties
+     * @param props  the settings of the database this one belongs to: config
+     *               for the main database and its shards, the shard's own for
+     *               a shard's replicas
+     * @param prefix "" for the main database, "shard.N." for shard N or
+     *               "replica.N." for replica N, whose settings fall back to
+     *               those in props
+     * @param main   null for the main database; otherwise the main data
+     *               source, whose listeners it shares
+     * @param labels label names and values, alternating, telling this
+     *               database apart in metrics; none for the main database
+     * @throws RuntimeException if a JDBC property is missing
+     */
+    private DataSource(Properties config, Properties props, String prefix, DataSource main, String... labels) {
+        Properties settings = props;
+        if (!prefix.isEmpty()) {
+            // Overlay this database's settings once, so the names below need no prefix
+            settings = new Properties();
+            for (String name : props.stringPropertyNames()) {
+                if (!name.startsWith("shard.") && !name.startsWith("replica.")) {
+                    settings.setProperty(name, props.getProperty(name));
+                }
+            }
+            for (String name : props.stringPropertyNames()) {
+                if (name.startsWith(prefix)) {
+                    settings.setProperty(name.substring(prefix.length()), props.getProperty(name));
+                }
+            }
+        }
+
+        // Retrieve properties
+        url = settings.getProperty("jdbc.url");
+        username = settings.getProperty("jdbc.username");
+        password = settings.getProperty("jdbc.password");
+
+        // Basic validation for properties
+        if (url == null || username == null || password == null) {
+            LOG.error("Missing one or more JDBC properties (jdbc.url, jdbc.username, jdbc.password) in database.properties.");
+            throw new RuntimeException("Failed to load database connection properties",
+                    new IOException("Incomplete JDBC properties in database.properties"));
+        }
+
+        connectTimeoutMillis = parseLong(settings, "jdbc.connectTimeoutMillis", 5000);
+        socketTimeoutMillis = parseLong(settings, "jdbc.socketTimeoutMillis", 30000);
+
+        circuitBreaker = new CircuitBreaker(
+                (int) parseLong(settings, "breaker.windowSize", 20),
+                (int) parseLong(settings, "breaker.minimumCalls", 10),
+                (int) parseLong(settings, "breaker.failureRatePercent", 50),
+                (int) parseLong(settings, "breaker.slowCallRatePercent", 80),
+                parseLong(settings, "breaker.slowCallMillis", 2000),
+                parseLong(settings, "breaker.openMillis", 10000),
+                (int) parseLong(settings, "breaker.probeCalls", 3));
+        if (main != null) {
+            listeners = main.listeners;
+            JdbcMetrics.registerBreaker(MetricsRegistry.getInstance(), circuitBreaker, labels);
+        } else {
+            listeners = new CopyOnWriteArrayList<>();
+            listeners.add(new JdbcMetrics(MetricsRegistry.getInstance(), circuitBreaker));
+            listeners.add(new JdbcListener() {
+                @Override
+                public void queryCompleted(QueryExecution execution) {
+                    // Attribute the statement to the DAO call being recorded, if any
+                    DaoCallEvent call = DaoCallEvent.current();
+                    if (call != null) {
+                        call.addStatement(execution.getSqlId(), execution.getRows());
+                    }
+                }
+            });
+            SlowQueryLog slowQueryLog = SlowQueryLog.fromProperties(config);
+            if (slowQueryLog != null) {
+                listeners.add(slowQueryLog);
+            }
+        }
+
+        // A replica's settings hold no replica.* names, so replicas have no replicas of their own
+        int replicaCount = (int) parseLong(settings, "replica.count", 0);
+        if (replicaCount <= 0) {
+            replicas = null;
+        } else {
+            List<DataSource> list = new ArrayList<>(replicaCount);
+            for (int i = 0; i < replicaCount; i++) {
+                String[] replicaLabels = Arrays.copyOf(labels, labels.length + 2);
+                replicaLabels[labels.length] = "replica";
+                replicaLabels[labels.length + 1] = Integer.toString(i);
+                list.add(new DataSource(config, settings, "replica." + i + ".", main == null ? this : main,
+                        replicaLabels));
+            }
+            replicas = new ReplicaSet(list, config, labels);
+        }
+    }
+
+    /**
+     * Loads the MySQL JDBC driver and the configuration.
+     *
+     * @return the properties
+     * @throws RuntimeException if the JDBC driver is not found or if an error
+     * occurs when reading properties.
+     */
+    private static Properties loadProperties() {
         // Load the JDBC driver
         try {
             Class.forName("com.mysql.cj.jdbc.Driver");
         } catch (ClassNotFoundException e) {
             // Log the error and re-throw as a runtime exception as this is a critical setup failure
-            System.err.println("Error: MySQL JDBC Driver not found. Please ensure the JDBC driver JAR is in your classpath.");
+            LOG.error("MySQL JDBC Driver not found. Please ensure the JDBC driver JAR is in your classpath.", e);
             throw new RuntimeException("Failed to load JDBC driver", e);
         }
+        return loadConfiguration();
+    }
 
+    /**
+     * Reads database.properties from the classpath. System properties with
+     * the same names (e.g. {@code -Djdbc.url=...}) take precedence, so the
+     * application can be pointed at another database without repackaging it.
+     *
+     * @return the properties
+     * @throws RuntimeException if an error occurs when reading properties.
+     */
+    static Properties loadConfiguration() {
         // Load database connection properties from database.properties
         // This path is relative to the classpath (e.g., inside WEB-INF/classes in a WAR)
-        try (InputStream in = getClass().getClassLoader().getResourceAsStream("database.properties")) {
+        try (InputStream in = DataSource.class.getClassLoader().getResourceAsStream("database.properties")) {
             if (in == null) {
                 // This means database.properties was not found on the classpath
-                System.err.println("Error: database.properties file not found on classpath. " +
-                                   "Ensure it's in src/main/resources and packaged correctly.");
+                LOG.error("database.properties file not found on classpath. "
+                        + "Ensure it's in src/main/resources and packaged correctly.");
                 throw new IOException("database.properties not found");
             }
 
             Properties props = new Properties();
             props.load(in); // Load properties from the InputStream
-
-            // Retrieve properties
-            url = props.getProperty("jdbc.url");
-            username = props.getProperty("jdbc.username");
-            password = props.getProperty("jdbc.password");
-
-            // Basic validation for properties
-            if (url == null || username == null || password == null) {
-                System.err.println("Error: Missing one or more JDBC properties (jdbc.url, jdbc.username, jdbc.password) in database.properties.");
-                throw new IOException("Incomplete JDBC properties in database.properties");
+            for (String name : System.getProperties().stringPropertyNames()) {
+                for (String prefix : OVERRIDABLE_PREFIXES) {
+                    if (name.startsWith(prefix)) {
+                        props.setProperty(name, System.getProperty(name));
+                    }
+                }
             }
+            return props;
 
         } catch (IOException e) {
             // Log the error and re-throw as a runtime exception
-            System.err.println("Error reading database.properties: " + e.getMessage());
+            LOG.error("Error reading database.properties", e);
             throw new RuntimeException("Failed to load database connection properties", e);
         }
     }
@@ -111,14 +282,323 @@ public class DataSource {
         return instance;
     }
 
+    /**
+     * Gets the data sources of the databases holding the Titles and
+     * AuthorISBN tables. With {@code shard.count} above 1 in
+     * database.properties these are the {@code shard.N.jdbc.*} databases,
+     * N = 0 to count - 1; settings a shard does not set are taken from the
+     * main database's. Otherwise the tables are in the main database, which
+     * is the only shard. Authors always stay in the main database.
+     *
+     * @return the shards, in shard order
+     */
+    public static List<DataSource> getShards() {
+        if (shards == null) {
+            synchronized (DataSource.class) {
+                if (shards == null) {
+                    DataSource main = getInstance();
+                    Properties props = loadConfiguration();
+                    int count = (int) parseLong(props, "shard.count", 1);
+                    if (count <= 1) {
+                        shards = List.of(main);
+                    } else {
+                        List<DataSource> list = new ArrayList<>(count);
+                        for (int i = 0; i < count; i++) {
+                            list.add(new DataSource(props, props, "shard." + i + ".", main,
+                                    "shard", Integer.toString(i)));
+                        }
+                        shards = List.copyOf(list);
+                        LOG.info("Titles are spread over {} shards", count);
+                    }
+                }
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * Gets the shard holding a title and its AuthorISBN rows.
+     *
+     * @param isbn the ISBN
+     * @return the shard's data source
+     */
+    public static DataSource getShardFor(String isbn) {
+        List<DataSource> all = getShards();
+        return all.size() == 1 ? all.get(0) : all.get(shardIndex(isbn, all.size()));
+    }
+
+    /**
+     * Computes the shard of a title from a CRC32 of its ISBN, which does not
+     * change between JVMs or releases as String.hashCode() might.
+     *
+     * @param isbn       the ISBN
+     * @param shardCount the number of shards
+     * @return the shard index, from 0 to shardCount - 1
+     */
+    public static int shardIndex(String isbn, int shardCount) {
+        CRC32 crc = new CRC32();
+        crc.update(isbn.getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % shardCount);
+    }
+
+    /**
+     * Gets the circuit breaker guarding the database.
+     *
+     * @return the circuit breaker
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Registers a listener for connection and statement events.
+     *
+     * @param listener the listener
+     */
+    public void addListener(JdbcListener listener) {
+        listeners.add(listener);
+    }
+
     /**
      * Provides a new {@link java.sql.Connection} to the database using the configured properties.
+     * The connection is observed: closing it reports the outcome of the call to the circuit breaker.
      *
      * @return a new database connection
+     * @throws SQLTransientConnectionException if the circuit breaker is open
      * @throws SQLException if a database access error occurs
      */
     public Connection getConnection() throws SQLException {
-        // Use the loaded properties to establish a connection
-        return DriverManager.getConnection(url, username, password);
+        return connect(true, false, DEFAULT_ISOLATION);
+    }
+
+    /**
+     * Provides a new connection, as {@link #getConnection()}, whose session
+     * is read-only and/or has a given isolation level.
+     *
+     * @param readOnly  whether the session is read-only
+     * @param isolation a Connection.TRANSACTION_* level, or DEFAULT_ISOLATION
+     * @return a new database connection
+     * @throws SQLTransientConnectionException if the circuit breaker is open
+     * @throws SQLException if a database access error occurs
+     */
+    Connection getConnection(boolean readOnly, int isolation) throws SQLException {
+        return connect(true, readOnly, isolation);
+    }
+
+    /**
+     * Provides a connection for reads that may be slightly behind the
+     * database: one to a healthy replica, taken in turn, if this database
+     * has replicas and the current session has not written recently or the
+     * replica has caught up to its last write; otherwise one to this
+     * database. A replica that cannot be reached is left out until it is
+     * checked again and the read goes to this database.
+     *
+     * @return a new connection to a replica or to this database
+     * @throws SQLTransientConnectionException if the circuit breaker is open
+     * @throws SQLException if a database access error occurs
+     */
+    public Connection getReadConnection() throws SQLException {
+        return getReadConnection(false, DEFAULT_ISOLATION);
+    }
+
+    /**
+     * Provides a connection for reads, as {@link #getReadConnection()}, whose
+     * session is read-only and/or has a given isolation level.
+     *
+     * @param readOnly  whether the session is read-only
+     * @param isolation a Connection.TRANSACTION_* level, or DEFAULT_ISOLATION
+     * @return a new connection to a replica or to this database
+     * @throws SQLTransientConnectionException if the circuit breaker is open
+     * @throws SQLException if a database access error occurs
+     */
+    Connection getReadConnection(boolean readOnly, int isolation) throws SQLException {
+        if (replicas == null) {
+            return connect(true, readOnly, isolation);
+        }
+        ReplicaSet.Replica replica = replicas.choose(RequestContext.lastWriteMillis());
+        if (replica == null) {
+            return connect(true, readOnly, isolation);
+        }
+        Connection connection;
+        try {
+            // Not counted as a failure of the request, which still has this database to read from
+            connection = replica.dataSource.connect(false, readOnly, isolation);
+        } catch (SQLTimeoutException e) {
+            throw e;
+        } catch (SQLException e) {
+            replicas.failed(replica, e);
+            return connect(true, readOnly, isolation);
+        }
+        RequestContext.recordReplicaRead(replica.caughtUpToMillis);
+        return connection;
+    }
+
+    /**
+     * Opens an observed connection.
+     *
+     * @param recordFailure whether a failure to connect counts as a failed
+     *                      database call of the current request
+     * @param readOnly      whether the session is read-only
+     * @param isolation     a Connection.TRANSACTION_* level, or DEFAULT_ISOLATION
+     * @return a new database connection
+     * @throws SQLTransientConnectionException if the circuit breaker is open
+     * @throws SQLException if a database access error occurs
+     */
+    private Connection connect(boolean recordFailure, boolean readOnly, int isolation) throws SQLException {
+        RequestContext.checkDeadline();
+        if (!circuitBreaker.tryAcquirePermission()) {
+            if (recordFailure) {
+                RequestContext.recordDatabaseFailure();
+            }
+            throw new SQLTransientConnectionException("Database unavailable: circuit breaker is open");
+        }
+        long start = System.nanoTime();
+
+        // Use the loaded properties to establish a connection, bounded by the request deadline
+        long remaining = remainingMillis();
+        Properties info = new Properties();
+        info.setProperty("user", username);
+        info.setProperty("password", password);
+        info.setProperty("connectTimeout", Long.toString(capTimeout(connectTimeoutMillis, remaining)));
+        // Leave the statement query timeout a second to cancel the query before the socket gives up
+        info.setProperty("socketTimeout", Long.toString(capTimeout(socketTimeoutMillis,
+                remaining == Long.MAX_VALUE ? remaining : remaining + 1000)));
+        boolean mysql = url.startsWith("jdbc:mysql:");
+        String sessionVariables = mysql ? sessionVariables(readOnly, isolation) : null;
+        if (sessionVariables != null) {
+            // Set with the driver's own session setup instead of a round trip per setting
+            info.setProperty("sessionVariables", sessionVariables);
+        }
+        ConnectionAcquireEvent event = new ConnectionAcquireEvent();
+        event.begin();
+        Connection connection = null;
+        try {
+            connection = DriverManager.getConnection(url, info);
+            if (!mysql) {
+                applySession(connection, readOnly, isolation);
+            }
+        } catch (SQLException e) {
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (SQLException closeFailure) {
+                    e.addSuppressed(closeFailure);
+                }
+            }
+            event.sqlState = e.getSQLState();
+            event.commit();
+            circuitBreaker.onFailure();
+            if (recordFailure) {
+                RequestContext.recordDatabaseFailure();
+            }
+            long elapsed = System.nanoTime() - start;
+            RequestContext.recordDatabaseTime(elapsed);
+            for (JdbcListener listener : listeners) {
+                listener.connectionFailed(elapsed, e);
+            }
+            throw e;
+        }
+        event.success = true;
+        event.commit();
+        RequestContext.recordConnection();
+        long elapsed = System.nanoTime() - start;
+        RequestContext.recordTiming("db-connect", elapsed);
+        for (JdbcListener listener : listeners) {
+            listener.connectionAcquired(elapsed);
+        }
+        return ObservedConnection.wrap(connection, circuitBreaker, listeners, start);
+    }
+
+    /**
+     * Gets the time left for the current request.
+     *
+     * @return the remaining milliseconds, or Long.MAX_VALUE without a deadline
+     */
+    private static long remainingMillis() {
+        RequestContext context = RequestContext.current();
+        return context == null ? Long.MAX_VALUE : context.remainingMillis();
+    }
+
+    /**
+     * Builds the Connector/J sessionVariables setting for a session's
+     * attributes, so the driver sets them in its connection setup.
+     *
+     * @param readOnly  whether the session is read-only
+     * @param isolation a Connection.TRANSACTION_* level, or DEFAULT_ISOLATION
+     * @return the setting, or null if the session keeps the server's defaults
+     */
+    private static String sessionVariables(boolean readOnly, int isolation) {
+        StringBuilder variables = new StringBuilder();
+        String level = null;
+        if (isolation == Connection.TRANSACTION_READ_UNCOMMITTED) {
+            level = "READ-UNCOMMITTED";
+        } else if (isolation == Connection.TRANSACTION_READ_COMMITTED) {
+            level = "READ-COMMITTED";
+        } else if (isolation == Connection.TRANSACTION_REPEATABLE_READ) {
+            level = "REPEATABLE-READ";
+        } else if (isolation == Connection.TRANSACTION_SERIALIZABLE) {
+            level = "SERIALIZABLE";
+        }
+        if (level != null) {
+            variables.append("transaction_isolation='").append(level).append('\'');
+        }
+        if (readOnly) {
+            variables.append(variables.length() > 0 ? "," : "").append("transaction_read_only=1");
+        }
+        return variables.length() > 0 ? variables.toString() : null;
+    }
+
+    /**
+     * Sets a session's attributes through JDBC, for drivers other than
+     * Connector/J, skipping those the connection already has.
+     *
+     * @param connection the new connection
+     * @param readOnly   whether the session is read-only
+     * @param isolation  a Connection.TRANSACTION_* level, or DEFAULT_ISOLATION
+     * @throws SQLException if the driver refuses a setting
+     */
+    private static void applySession(Connection connection, boolean readOnly, int isolation) throws SQLException {
+        if (readOnly && !connection.isReadOnly()) {
+            connection.setReadOnly(true);
+        }
+        if (isolation != DEFAULT_ISOLATION && connection.getTransactionIsolation() != isolation) {
+            connection.setTransactionIsolation(isolation);
+        }
+    }
+
+    /**
+     * Caps a configured timeout by the time left for the request.
+     *
+     * @param configuredMillis the configured timeout (0 = no limit)
+     * @param remainingMillis  the time left, or Long.MAX_VALUE without a deadline
+     * @return the timeout to use, at least 1 ms when a deadline applies
+     */
+    private static long capTimeout(long configuredMillis, long remainingMillis) {
+        if (remainingMillis == Long.MAX_VALUE) {
+            return configuredMillis;
+        }
+        long remaining = Math.max(1, remainingMillis);
+        return configuredMillis <= 0 ? remaining : Math.min(configuredMillis, remaining);
+    }
+
+    /**
+     * Reads an optional numeric property.
+     *
+     * @param props        the properties
+     * @param name         the property name
+     * @param defaultValue the value used when the property is missing or invalid
+     * @return the parsed value
+     */
+    static long parseLong(Properties props, String name, long defaultValue) {
+        String value = props.getProperty(name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Invalid value for {} in database.properties: {}", name, value);
+            return defaultValue;
+        }
     }
 }
@@ -0,0 +1,76 @@
+package dataaccesslayer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*******************************************************************************
+ * InList
+ * Builds the IN-list queries of multi-key lookups. Keys are sent in chunks
+ * of at most {@code dao.inListChunkSize} parameters, and a short chunk is
+ * padded by repeating its last key up to the next power of two, so only a
+ * handful of statement shapes are ever prepared (and show up in the slow
+ * query log) whatever the input size. The chunks of one lookup run between
+ * {@link RequestContext#beginChunkedQuery()} and
+ * {@link RequestContext#endChunkedQuery()}, so full chunks sharing one SQL
+ * text are not taken for an N+1 query by the {@link QueryBudget}.
+ *
+ * @see AuthorDAOImpl#getAuthorsByIds(int[])
+ * @see TitleDAOImpl#getAuthorsForTitles(java.util.List)
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Chunking and SQL text of IN-list lookups.
+ ******************************************************************************/
+
+final class InList {
+
+    /** SQL text per query and number of IN-list parameters. */
+    private static final Map<String, String> SQL = new ConcurrentHashMap<>();
+
+    /**
+     * Not instantiable.
+     */
+    private InList() {
+    }
+
+    /**
+     * Reads the most keys bound into one IN-list from database.properties.
+     *
+     * @return {@code dao.inListChunkSize}, at least 1
+     */
+    static int chunkSize() {
+        return (int) Math.max(1, DataSource.parseLong(DataSource.loadConfiguration(), "dao.inListChunkSize", 100));
+    }
+
+    /**
+     * Gets the number of parameters of the IN-list used for a chunk: the next
+     * power of two, or the chunk size for the largest chunks.
+     *
+     * @param count     the number of keys in the chunk
+     * @param chunkSize the most keys in one chunk
+     * @return the number of parameters
+     */
+    static int parameters(int count, int chunkSize) {
+        return count == 1 ? 1 : Math.min(chunkSize, Integer.highestOneBit(count - 1) << 1);
+    }
+
+    /**
+     * Gets the SQL of an IN-list query with a number of parameters.
+     *
+     * @param prefix     the query up to and including "IN ("
+     * @param parameters the number of parameters
+     * @param suffix     the query after the closing parenthesis of the list
+     * @return the SQL text, built once per query and size
+     */
+    static String sql(String prefix, int parameters, String suffix) {
+        return SQL.computeIfAbsent(prefix + parameters + suffix, key -> {
+            StringBuilder sql = new StringBuilder(prefix.length() + suffix.length() + 3 * parameters + 1)
+                .append(prefix).append('?');
+            for (int i = 1; i < parameters; i++) {
+                sql.append(", ?");
+            }
+            return sql.append(')').append(suffix).toString();
+        });
+    }
+}
@@ -0,0 +1,148 @@
+package dataaccesslayer;
+
+import dataaccesslayer.InMemoryCatalog.AuthorRow;
+import dataaccesslayer.InMemoryCatalog.TitleRow;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import monitoring.Logger;
+import transferobjects.AuthorDTO;
+import transferobjects.TitleDTO;
+
+/*******************************************************************************
+ * InMemoryAuthorDAO
+ * Implements the AuthorDAO interface on an {@link InMemoryCatalog}, with the
+ * results the MySQL implementation would return: authors in AuthorID order,
+ * generated IDs set on added authors, and deletes of authors that still have
+ * titles refused as the foreign key would refuse them. Every call returns
+ * new DTOs, so callers may change them freely.
+ *
+ * @see AuthorDAOImpl
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Implements the AuthorDAO interface in memory.
+ ******************************************************************************/
+
+public class InMemoryAuthorDAO implements AuthorDAO {
+
+    private static final Logger LOG = Logger.getLogger(InMemoryAuthorDAO.class);
+
+    private final InMemoryCatalog catalog;
+
+    /**
+     * Constructor.
+     *
+     * @param catalog the store shared with the in-memory TitleDAO
+     */
+    public InMemoryAuthorDAO(InMemoryCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    @Override
+    public List<AuthorDTO> getAllAuthors() {
+        List<AuthorDTO> authors = new ArrayList<>(catalog.authors.size());
+        for (AuthorRow row : catalog.authors.values()) {
+            authors.add(toDTO(row));
+        }
+        return authors;
+    }
+
+    @Override
+    public AuthorDTO getAuthorById(int id) {
+        AuthorRow row = catalog.authors.get(id);
+        return row == null ? null : toDTO(row);
+    }
+
+    @Override
+    public Map<Integer, AuthorDTO> getAuthorsByIds(int[] ids) {
+        Map<Integer, AuthorDTO> authors = new LinkedHashMap<>();
+        for (int id : Arrays.stream(ids).sorted().distinct().toArray()) {
+            AuthorRow row = catalog.authors.get(id);
+            if (row != null) {
+                authors.put(id, toDTO(row));
+            }
+        }
+        return authors;
+    }
+
+    @Override
+    public int[] getExistingAuthorIds(int[] ids) {
+        return Arrays.stream(ids).sorted().distinct().filter(catalog.authors::containsKey).toArray();
+    }
+
+    @Override
+    public boolean addAuthor(AuthorDTO author) {
+        return catalog.write("adding author", () -> {
+            int id = catalog.nextAuthorId();
+            catalog.putAuthor(new AuthorRow(id, author.getFirstName(), author.getLastName()));
+            author.setId(id);
+            return true;
+        });
+    }
+
+    @Override
+    public boolean updateAuthor(AuthorDTO author) {
+        return catalog.write("updating author", () -> {
+            if (!catalog.authors.containsKey(author.getId())) {
+                return false;
+            }
+            catalog.putAuthor(new AuthorRow(author.getId(), author.getFirstName(), author.getLastName()));
+            return true;
+        });
+    }
+
+    @Override
+    public boolean deleteAuthor(int id) {
+        return catalog.write("deleting author", () -> {
+            if (!titlesOf(id).isEmpty()) {
+                LOG.error("Error deleting author with ID {}: the author still has titles", id);
+                return false;
+            }
+            if (!catalog.authors.containsKey(id)) {
+                return false;
+            }
+            catalog.removeAuthor(id);
+            return true;
+        });
+    }
+
+    @Override
+    public List<TitleDTO> getTitlesByAuthor(int authorId) {
+        List<TitleDTO> titles = new ArrayList<>();
+        for (TitleRow row : titlesOf(authorId)) {
+            titles.add(new TitleDTO(row.isbn, row.title, row.editionNumber, row.copyright));
+        }
+        return titles;
+    }
+
+    /**
+     * Gets the current rows of an author's titles.
+     *
+     * @param authorId the AuthorID
+     * @return the title rows that link to the author
+     */
+    private List<TitleRow> titlesOf(int authorId) {
+        Set<String> isbns = catalog.isbnsByAuthor.get(authorId);
+        if (isbns == null) {
+            return List.of();
+        }
+        List<TitleRow> rows = new ArrayList<>(isbns.size());
+        for (String isbn : isbns) {
+            // The index can run ahead of the title rows during a write
+            TitleRow row = catalog.titles.get(isbn);
+            if (row != null && row.hasAuthor(authorId)) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private static AuthorDTO toDTO(AuthorRow row) {
+        return new AuthorDTO(row.id, row.firstName, row.lastName);
+    }
+}
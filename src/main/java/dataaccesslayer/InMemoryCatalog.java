@@ -0,0 +1,422 @@
+package dataaccesslayer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import monitoring.Logger;
+
+/*******************************************************************************
+ * InMemoryCatalog
+ * The tables of the books schema held in concurrent in-memory structures,
+ * shared by {@link InMemoryAuthorDAO} and {@link InMemoryTitleDAO}.
+ *
+ * Reads take no locks: Authors and Titles are lock-free skip list maps in
+ * primary key order (the order InnoDB returns them in), and each title row
+ * carries its AuthorISBN rows, so a title and its authors are always read
+ * together. An author-to-titles index answers getTitlesByAuthor; it may
+ * briefly list a title being added or removed, so readers check it against
+ * the title row.
+ *
+ * Writes are serialized by one lock, which makes multi-table changes atomic
+ * with respect to each other and lets them enforce the same foreign keys as
+ * books-MySQL.sql: links need existing authors and titles, and an author
+ * with titles cannot be deleted. One writer at a time suits the read-mostly
+ * workload this backend is meant for. Author IDs come from a counter that,
+ * like AUTO_INCREMENT, never reuses a deleted ID.
+ *
+ * With the wal backend every change is first appended to a
+ * {@link CatalogJournal}, and the catalog is rebuilt from it on startup.
+ *
+ * @see DAOFactory
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Shared in-memory store for the in-memory DAOs.
+ ******************************************************************************/
+
+public final class InMemoryCatalog {
+
+    private static final Logger LOG = Logger.getLogger(InMemoryCatalog.class);
+
+    private static volatile InMemoryCatalog instance;
+
+    /** Authors by AuthorID. */
+    final Map<Integer, AuthorRow> authors = new ConcurrentSkipListMap<>();
+
+    /** Titles, with their AuthorISBN rows, by ISBN. */
+    final ConcurrentNavigableMap<String, TitleRow> titles = new ConcurrentSkipListMap<>();
+
+    /** ISBNs by AuthorID; a superset of the links held by the title rows. */
+    final Map<Integer, Set<String>> isbnsByAuthor = new ConcurrentHashMap<>();
+
+    /** Last AuthorID handed out. */
+    final AtomicInteger lastAuthorId = new AtomicInteger();
+
+    /** Held by every write. */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /** Makes changes durable; null for the memory backend. */
+    private CatalogJournal journal;
+
+    /**
+     * Gets the catalog used by the memory and wal backends, creating it on
+     * first use. For wal it is recovered from the journal in
+     * {@code dao.wal.directory}. A catalog that starts out empty is loaded
+     * from the directory named by {@code dao.memory.seedDirectory}, if any.
+     *
+     * @return the shared catalog
+     */
+    public static InMemoryCatalog getInstance() {
+        if (instance == null) {
+            synchronized (InMemoryCatalog.class) {
+                if (instance == null) {
+                    Properties props = DataSource.loadConfiguration();
+                    InMemoryCatalog catalog = new InMemoryCatalog();
+                    String seed = props.getProperty("dao.memory.seedDirectory", "").trim();
+                    try {
+                        if (DAOFactory.getBackend() == DAOFactory.Backend.WAL) {
+                            catalog.journal = CatalogJournal.open(catalog, props);
+                        }
+                        if (!seed.isEmpty() && catalog.authors.isEmpty() && catalog.titles.isEmpty()) {
+                            catalog.load(Path.of(seed));
+                            if (catalog.journal != null) {
+                                catalog.journal.checkpoint();
+                            }
+                        }
+                    } catch (IOException e) {
+                        LOG.error("Error loading the in-memory catalog", e);
+                        throw new RuntimeException("Failed to load the in-memory catalog", e);
+                    }
+                    instance = catalog;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Closes the journal of the shared catalog, if one was opened.
+     */
+    public static synchronized void shutdown() {
+        if (instance != null && instance.journal != null) {
+            instance.journal.close();
+        }
+    }
+
+    /**
+     * Runs a change under the write lock and, with a journal, waits until it
+     * is durable as the sync policy defines it.
+     *
+     * If the log cannot be forced, the change is reported as failed but is
+     * not rolled back: readers may already have seen it, and its record may
+     * have reached the disk anyway, so undoing it in memory could contradict
+     * what a restart replays. The journal refuses every later write, and a
+     * restart settles whether the change survived.
+     *
+     * @param operation what the change does, for the error message
+     * @param change    the change; returns its result
+     * @return the change's result, or false if the journal failed
+     */
+    boolean write(String operation, Change change) {
+        boolean result;
+        long lsn;
+        writeLock.lock();
+        try {
+            result = change.run();
+            lsn = journal == null ? 0 : journal.getLastLsn();
+        } catch (IOException e) {
+            LOG.error("Error {}: the change could not be logged", operation, e);
+            return false;
+        } finally {
+            writeLock.unlock();
+        }
+        if (journal != null) {
+            try {
+                journal.awaitDurable(lsn);
+            } catch (IOException e) {
+                LOG.error("Error {}: the change could not be made durable", operation, e);
+                return false;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets a new AuthorID. Caller holds the write lock.
+     *
+     * @return the ID
+     */
+    int nextAuthorId() {
+        return lastAuthorId.incrementAndGet();
+    }
+
+    /**
+     * Logs and stores an author row. Caller holds the write lock.
+     *
+     * @param row the row
+     * @throws IOException if the change cannot be logged
+     */
+    void putAuthor(AuthorRow row) throws IOException {
+        if (journal != null) {
+            journal.putAuthor(row);
+        }
+        applyAuthor(row);
+    }
+
+    /**
+     * Logs and removes an author row. Caller holds the write lock and has
+     * checked the author has no titles.
+     *
+     * @param id the AuthorID
+     * @throws IOException if the change cannot be logged
+     */
+    void removeAuthor(int id) throws IOException {
+        if (journal != null) {
+            journal.removeAuthor(id);
+        }
+        applyAuthorRemoval(id);
+    }
+
+    /**
+     * Checks the links of a title row, then logs and stores it, replacing any
+     * row with its ISBN. Caller holds the write lock.
+     *
+     * @param row the row
+     * @throws IllegalArgumentException if a linked author does not exist
+     * @throws IOException if the change cannot be logged
+     */
+    void putTitle(TitleRow row) throws IOException {
+        for (int authorId : row.authorIds) {
+            if (!authors.containsKey(authorId)) {
+                throw new IllegalArgumentException("No author " + authorId + " for title " + row.isbn);
+            }
+        }
+        if (journal != null) {
+            journal.putTitle(row);
+        }
+        applyTitle(row);
+    }
+
+    /**
+     * Logs and removes a title row with its links. Caller holds the write lock.
+     *
+     * @param isbn the ISBN
+     * @throws IOException if the change cannot be logged
+     */
+    void removeTitle(String isbn) throws IOException {
+        if (journal != null) {
+            journal.removeTitle(isbn);
+        }
+        applyTitleRemoval(isbn);
+    }
+
+    /**
+     * Stores an author row without logging it.
+     *
+     * @param row the row
+     */
+    void applyAuthor(AuthorRow row) {
+        authors.put(row.id, row);
+        lastAuthorId.accumulateAndGet(row.id, Math::max);
+    }
+
+    /**
+     * Removes an author row without logging it.
+     *
+     * @param id the AuthorID
+     */
+    void applyAuthorRemoval(int id) {
+        isbnsByAuthor.remove(id);
+        authors.remove(id);
+    }
+
+    /**
+     * Stores a title row and indexes its links without checking or logging them.
+     *
+     * @param row the row
+     */
+    void applyTitle(TitleRow row) {
+        for (int authorId : row.authorIds) {
+            // Index first, so a reader that finds the title row also finds it by author
+            isbnsByAuthor.computeIfAbsent(authorId, id -> ConcurrentHashMap.newKeySet()).add(row.isbn);
+        }
+        TitleRow previous = titles.put(row.isbn, row);
+        if (previous != null) {
+            unindex(previous, row);
+        }
+    }
+
+    /**
+     * Removes a title row and its index entries without logging it.
+     *
+     * @param isbn the ISBN
+     */
+    void applyTitleRemoval(String isbn) {
+        TitleRow removed = titles.remove(isbn);
+        if (removed != null) {
+            unindex(removed, null);
+        }
+    }
+
+    /**
+     * Loads rows from the tab-separated files written by the catalog
+     * generator or by {@code SELECT ... INTO OUTFILE}: authors.tsv
+     * (AuthorID, FirstName, LastName), titles.tsv (ISBN, Title,
+     * EditionNumber, Copyright) and authorisbn.tsv (AuthorID, ISBN).
+     * Links to missing rows are rejected as the database would. The rows
+     * are not journaled; {@link #getInstance()} takes a checkpoint after
+     * seeding a wal-backed catalog.
+     *
+     * @param directory the directory holding the files
+     * @throws IOException if a file cannot be read or a row is invalid
+     */
+    public void load(Path directory) throws IOException {
+        writeLock.lock();
+        try {
+            Map<String, List<Integer>> links = new HashMap<>();
+            forEachRow(directory.resolve("authors.tsv"), 3, fields -> {
+                applyAuthor(new AuthorRow(Integer.parseInt(fields[0]), fields[1], fields[2]));
+            });
+            forEachRow(directory.resolve("authorisbn.tsv"), 2, fields -> {
+                links.computeIfAbsent(fields[1], isbn -> new ArrayList<>()).add(Integer.parseInt(fields[0]));
+            });
+            forEachRow(directory.resolve("titles.tsv"), 4, fields -> {
+                int[] ids = links.getOrDefault(fields[0], List.of()).stream().mapToInt(Integer::intValue).toArray();
+                for (int id : ids) {
+                    if (!authors.containsKey(id)) {
+                        throw new IOException("authorisbn.tsv links missing author " + id);
+                    }
+                }
+                applyTitle(new TitleRow(fields[0], fields[1], Integer.parseInt(fields[2]), fields[3], ids));
+            });
+            links.keySet().removeAll(titles.keySet());
+            if (!links.isEmpty()) {
+                throw new IOException("authorisbn.tsv links missing titles, e.g. " + links.keySet().iterator().next());
+            }
+            LOG.info("Loaded {} authors and {} titles into the in-memory catalog", authors.size(), titles.size());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Reads a tab-separated file.
+     *
+     * @param file   the file
+     * @param fields number of fields per row
+     * @param action called with each row's fields
+     * @throws IOException if the file cannot be read or a row is malformed
+     */
+    private static void forEachRow(Path file, int fields, RowAction action) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] values = line.split("\t", -1);
+                if (values.length != fields) {
+                    throw new IOException(file + " line " + number + ": expected " + fields + " fields");
+                }
+                try {
+                    action.accept(values);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(file + " line " + number + ": " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the index entries of an old title row that its replacement no
+     * longer has.
+     *
+     * @param previous    the old row
+     * @param replacement the new row, or null if the title was deleted
+     */
+    private void unindex(TitleRow previous, TitleRow replacement) {
+        for (int authorId : previous.authorIds) {
+            if (replacement == null || !replacement.hasAuthor(authorId)) {
+                Set<String> isbns = isbnsByAuthor.get(authorId);
+                if (isbns != null) {
+                    isbns.remove(previous.isbn);
+                }
+            }
+        }
+    }
+
+    /**
+     * A change made by {@link #write}.
+     */
+    interface Change {
+        boolean run() throws IOException;
+    }
+
+    /**
+     * Callback for {@link #forEachRow}.
+     */
+    private interface RowAction {
+        void accept(String[] fields) throws IOException;
+    }
+
+    /**
+     * An immutable Authors row.
+     */
+    static final class AuthorRow {
+
+        final int id;
+        final String firstName;
+        final String lastName;
+
+        AuthorRow(int id, String firstName, String lastName) {
+            this.id = id;
+            this.firstName = firstName;
+            this.lastName = lastName;
+        }
+    }
+
+    /**
+     * An immutable Titles row with the AuthorIDs of its AuthorISBN rows.
+     */
+    static final class TitleRow {
+
+        final String isbn;
+        final String title;
+        final int editionNumber;
+        final String copyright;
+        final int[] authorIds;
+
+        TitleRow(String isbn, String title, int editionNumber, String copyright, int[] authorIds) {
+            this.isbn = isbn;
+            this.title = title;
+            this.editionNumber = editionNumber;
+            this.copyright = copyright;
+            this.authorIds = authorIds;
+        }
+
+        boolean hasAuthor(int authorId) {
+            for (int id : authorIds) {
+                if (id == authorId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package dataaccesslayer;
+
+import dataaccesslayer.InMemoryCatalog.AuthorRow;
+import dataaccesslayer.InMemoryCatalog.TitleRow;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import monitoring.Logger;
+import transferobjects.AuthorDTO;
+import transferobjects.TitleDTO;
+
+/*******************************************************************************
+ * InMemoryTitleDAO
+ * Implements the TitleDAO interface on an {@link InMemoryCatalog}. Adding or
+ * updating a title together with its author links is one atomic change, and
+ * fails as the MySQL transaction would when the ISBN already exists (add),
+ * does not exist (update) or an AuthorID does not exist. Readers see the
+ * title and its links either before or after the change, never half of it.
+ *
+ * @see TitleDAOImpl
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Implements the TitleDAO interface in memory.
+ ******************************************************************************/
+
+public class InMemoryTitleDAO implements TitleDAO {
+
+    private static final Logger LOG = Logger.getLogger(InMemoryTitleDAO.class);
+
+    private final InMemoryCatalog catalog;
+
+    /**
+     * Constructor.
+     *
+     * @param catalog the store shared with the in-memory AuthorDAO
+     */
+    public InMemoryTitleDAO(InMemoryCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    @Override
+    public List<TitleDTO> getAllTitles() {
+        List<TitleDTO> titles = new ArrayList<>(catalog.titles.size());
+        for (TitleRow row : catalog.titles.values()) {
+            titles.add(toDTO(row));
+        }
+        return titles;
+    }
+
+    @Override
+    public List<TitleDTO> getTitlesPage(String afterIsbn, int limit) {
+        List<TitleDTO> titles = new ArrayList<>();
+        Collection<TitleRow> rows = afterIsbn == null ? catalog.titles.values()
+                : catalog.titles.tailMap(afterIsbn, false).values();
+        for (TitleRow row : rows) {
+            if (titles.size() >= limit) {
+                break;
+            }
+            titles.add(toDTO(row));
+        }
+        return titles;
+    }
+
+    @Override
+    public TitleDTO getTitleByISBN(String isbn) {
+        TitleRow row = isbn == null ? null : catalog.titles.get(isbn);
+        return row == null ? null : toDTO(row);
+    }
+
+    @Override
+    public boolean addTitle(TitleDTO title, List<Integer> authorIds) {
+        return catalog.write("adding title and author associations", () -> {
+            if (catalog.titles.containsKey(title.getIsbn())) {
+                LOG.error("Error adding title and author associations: duplicate ISBN {}", title.getIsbn());
+                return false;
+            }
+            return put(title, authorIds, "adding");
+        });
+    }
+
+    @Override
+    public boolean updateTitle(TitleDTO title, List<Integer> newAuthorIds) {
+        return catalog.write("updating title and author associations", () -> {
+            if (!catalog.titles.containsKey(title.getIsbn())) {
+                return false; // Title not found, as UPDATE affecting no rows
+            }
+            return put(title, newAuthorIds, "updating");
+        });
+    }
+
+    /**
+     * Writes a title row with its links. Caller holds the write lock.
+     *
+     * @param title     the title
+     * @param authorIds the AuthorIDs to link
+     * @param operation "adding" or "updating", for the error message
+     * @return false if an author does not exist
+     * @throws IOException if the change cannot be logged
+     */
+    private boolean put(TitleDTO title, List<Integer> authorIds, String operation) throws IOException {
+        int[] ids = authorIds.stream().mapToInt(Integer::intValue).toArray();
+        try {
+            catalog.putTitle(new TitleRow(title.getIsbn(), title.getTitle(), title.getEditionNumber(),
+                    title.getCopyright(), ids));
+            return true;
+        } catch (IllegalArgumentException e) {
+            LOG.error("Error {} title and author associations: {}", operation, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean deleteTitle(String isbn) {
+        return catalog.write("deleting title", () -> {
+            if (isbn == null || !catalog.titles.containsKey(isbn)) {
+                return false;
+            }
+            catalog.removeTitle(isbn);
+            return true;
+        });
+    }
+
+    @Override
+    public List<AuthorDTO> getAuthorsForTitle(String isbn) {
+        TitleRow row = isbn == null ? null : catalog.titles.get(isbn);
+        if (row == null) {
+            return new ArrayList<>();
+        }
+        List<AuthorDTO> authors = new ArrayList<>(row.authorIds.length);
+        for (int authorId : row.authorIds) {
+            AuthorRow author = catalog.authors.get(authorId);
+            if (author != null) {
+                authors.add(new AuthorDTO(author.id, author.firstName, author.lastName));
+            }
+        }
+        return authors;
+    }
+
+    @Override
+    public Map<String, List<AuthorDTO>> getAuthorsForTitles(List<String> isbns) {
+        Map<String, List<AuthorDTO>> authors = new HashMap<>();
+        for (String isbn : isbns) {
+            List<AuthorDTO> authorsForTitle = getAuthorsForTitle(isbn);
+            if (!authorsForTitle.isEmpty()) {
+                authors.put(isbn, authorsForTitle);
+            }
+        }
+        return authors;
+    }
+
+    private static TitleDTO toDTO(TitleRow row) {
+        return new TitleDTO(row.isbn, row.title, row.editionNumber, row.copyright);
+    }
+}
@@ -0,0 +1,85 @@
+package dataaccesslayer;
+
+import transferobjects.AuthorDTO;
+import transferobjects.TitleDTO;
+import java.util.List;
+import java.util.Map;
+
+/*******************************************************************************
+ * IndexedAuthorDAO
+ * Decorates an AuthorDAO to keep the {@link AuthorIdIndex} up to date:
+ * authors that were added or deleted successfully are added to or removed
+ * from it. Reads are passed through unchanged.
+ *
+ * @see IndexedAuthorDAO
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: AuthorDAO decorator that maintains the author ID index.
+ ******************************************************************************/
+
+public class IndexedAuthorDAO implements AuthorDAO {
+
+    private final AuthorDAO delegate;
+    private final AuthorIdIndex index;
+
+    /**
+     * Constructor.
+     *
+     * @param delegate the DAO that writes the authors
+     * @param index    the index to maintain
+     */
+    public IndexedAuthorDAO(AuthorDAO delegate, AuthorIdIndex index) {
+        this.delegate = delegate;
+        this.index = index;
+    }
+
+    @Override
+    public List<AuthorDTO> getAllAuthors() {
+        return delegate.getAllAuthors();
+    }
+
+    @Override
+    public AuthorDTO getAuthorById(int id) {
+        return delegate.getAuthorById(id);
+    }
+
+    @Override
+    public Map<Integer, AuthorDTO> getAuthorsByIds(int[] ids) {
+        return delegate.getAuthorsByIds(ids);
+    }
+
+    @Override
+    public int[] getExistingAuthorIds(int[] ids) {
+        return delegate.getExistingAuthorIds(ids);
+    }
+
+    @Override
+    public boolean addAuthor(AuthorDTO author) {
+        boolean success = delegate.addAuthor(author);
+        if (success) {
+            index.added(author.getId());
+        }
+        return success;
+    }
+
+    @Override
+    public boolean updateAuthor(AuthorDTO author) {
+        return delegate.updateAuthor(author);
+    }
+
+    @Override
+    public boolean deleteAuthor(int id) {
+        boolean success = delegate.deleteAuthor(id);
+        if (success) {
+            index.removed(id);
+        }
+        return success;
+    }
+
+    @Override
+    public List<TitleDTO> getTitlesByAuthor(int authorId) {
+        return delegate.getTitlesByAuthor(authorId);
+    }
+}
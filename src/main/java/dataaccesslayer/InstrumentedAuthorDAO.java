@@ -0,0 +1,180 @@
+package dataaccesslayer;
+
+import transferobjects.AuthorDTO;
+import transferobjects.TitleDTO;
+import java.util.List;
+import java.util.Map;
+import monitoring.DaoCallEvent;
+import monitoring.Histogram;
+import monitoring.MetricsRegistry;
+
+/*******************************************************************************
+ * InstrumentedAuthorDAO
+ * Decorates an AuthorDAO to record the latency of every method in the
+ * {@code dao_call_duration_seconds} histogram. Histograms are looked up once,
+ * so a call only adds two System.nanoTime() reads and one atomic increment.
+ * Each call is also a {@link DaoCallEvent} for the JDK Flight Recorder, which
+ * costs nothing while that event is disabled.
+ *
+ * @see InstrumentedAuthorDAO
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: AuthorDAO decorator that records call latencies.
+ ******************************************************************************/
+
+public class InstrumentedAuthorDAO implements AuthorDAO {
+
+    /** DAO name used in metrics and flight recorder events. */
+    private static final String DAO = "AuthorDAO";
+
+    private final AuthorDAO delegate;
+
+    private final Histogram getAllAuthors;
+    private final Histogram getAuthorById;
+    private final Histogram getAuthorsByIds;
+    private final Histogram getExistingAuthorIds;
+    private final Histogram addAuthor;
+    private final Histogram updateAuthor;
+    private final Histogram deleteAuthor;
+    private final Histogram getTitlesByAuthor;
+
+    /**
+     * Constructor.
+     *
+     * @param delegate the DAO to measure
+     */
+    public InstrumentedAuthorDAO(AuthorDAO delegate) {
+        this.delegate = delegate;
+        getAllAuthors = histogram("getAllAuthors");
+        getAuthorById = histogram("getAuthorById");
+        getAuthorsByIds = histogram("getAuthorsByIds");
+        getExistingAuthorIds = histogram("getExistingAuthorIds");
+        addAuthor = histogram("addAuthor");
+        updateAuthor = histogram("updateAuthor");
+        deleteAuthor = histogram("deleteAuthor");
+        getTitlesByAuthor = histogram("getTitlesByAuthor");
+    }
+
+    /**
+     * Gets the histogram of one method.
+     *
+     * @param method the method name
+     * @return the histogram
+     */
+    private static Histogram histogram(String method) {
+        return MetricsRegistry.getInstance().latency("dao_call_duration_seconds",
+                "Latency of DAO method calls.", "dao", DAO, "method", method);
+    }
+
+    /**
+     * Records the latency of a call in its histogram and, if the request is
+     * being timed, in the request's {@code Server-Timing} breakdown.
+     *
+     * @param histogram the method's histogram
+     * @param phase     the phase name in the breakdown
+     * @param start     System.nanoTime() when the call started
+     */
+    private static void record(Histogram histogram, String phase, long start) {
+        long elapsed = System.nanoTime() - start;
+        histogram.record(elapsed);
+        RequestContext.recordTiming(phase, elapsed);
+    }
+
+    @Override
+    public List<AuthorDTO> getAllAuthors() {
+        long start = System.nanoTime();
+        DaoCallEvent event = DaoCallEvent.start(DAO, "getAllAuthors");
+        try {
+            return delegate.getAllAuthors();
+        } finally {
+            record(getAllAuthors, "dao.getAllAuthors", start);
+            event.finish();
+        }
+    }
+
+    @Override
+    public AuthorDTO getAuthorById(int id) {
+        long start = System.nanoTime();
+        DaoCallEvent event = DaoCallEvent.start(DAO, "getAuthorById");
+        try {
+            return delegate.getAuthorById(id);
+        } finally {
+            record(getAuthorById, "dao.getAuthorById", start);
+            event.finish();
+        }
+    }
+
+    @Override
+    public Map<Integer, AuthorDTO> getAuthorsByIds(int[] ids) {
+        long start = System.nanoTime();
+        DaoCallEvent event = DaoCallEvent.start(DAO, "getAuthorsByIds");
+        try {
+            return delegate.getAuthorsByIds(ids);
+        } finally {
+            record(getAuthorsByIds, "dao.getAuthorsByIds", start);
+            event.finish();
+        }
+    }
+
+    @Override
+    public int[] getExistingAuthorIds(int[] ids) {
+        long start = System.nanoTime();
+        DaoCallEvent event = DaoCallEvent.start(DAO, "getExistingAuthorIds");
+        try {
+            return delegate.getExistingAuthorIds(ids);
+        } finally {
+            record(getExistingAuthorIds, "dao.getExistingAuthorIds", start);
+            event.finish();
+        }
+    }
+
+    @Override
+    public boolean addAuthor(AuthorDTO author) {
+        long start = System.nanoTime();
+        DaoCallEvent event = DaoCallEvent.start(DAO, "addAuthor");
+        try {
+            return delegate.addAuthor(author);
+        } finally {
+            record(addAuthor, "dao.addAuthor", start);
+            event.finish();
+        }
+    }
+
+    @Override
+    public boolean updateAuthor(AuthorDTO author) {
+        long start = System.nanoTime();
+        DaoCallEvent event = DaoCallEvent.start(DAO, "updateAuthor");
+        try {
+            return delegate.updateAuthor(author);
+        } finally {
+            record(updateAuthor, "dao.updateAuthor", start);
+            event.finish();
+        }
+    }
+
+    @Override
+    public boolean deleteAuthor(int id) {
+        long start = System.nanoTime();
+        DaoCallEvent event = DaoCallEvent.start(DAO, "deleteAuthor");
+        try {
+            return delegate.deleteAuthor(id);
+        } finally {
+            record(deleteAuthor, "dao.deleteAuthor", start);
+            event.finish();
+        }
+    }
+
+    @Override
+    public List<TitleDTO> getTitlesByAuthor(int authorId) {
+        long start = System.nanoTime();
+        DaoCallEvent event = DaoCallEvent.start(DAO, "getTitlesByAuthor");
+        try {
+            return delegate.getTitlesByAuthor(authorId);
+        } finally {
+            record(getTitlesByAuthor, "dao.getTitlesByAuthor", start);
+            event.finish();
+        }
+    }
+}
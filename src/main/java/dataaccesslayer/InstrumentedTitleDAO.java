@@ -0,0 +1,178 @@
+package dataaccesslayer;
+
+import transferobjects.TitleDTO;
+import transferobjects.AuthorDTO;
+import java.util.List;
+import java.util.Map;
+import monitoring.DaoCallEvent;
+import monitoring.Histogram;
+import monitoring.MetricsRegistry;
+
+/*******************************************************************************
+ * InstrumentedTitleDAO
+ * Decorates a TitleDAO to record the latency of every method in the
+ * {@code dao_call_duration_seconds} histogram and to emit a flight recorder
+ * {@link DaoCallEvent}. See {@link InstrumentedAuthorDAO}.
+ *
+ * @see InstrumentedTitleDAO
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: TitleDAO decorator that records call latencies.
+ ******************************************************************************/
+
+public class InstrumentedTitleDAO implements TitleDAO {
+
+    /** DAO name used in metrics and flight recorder events. */
+    private static final String DAO = "TitleDAO";
+
+    private final TitleDAO delegate;
+
+    private final Histogram getAllTitles;
+    private final Histogram getTitlesPage;
+    private final Histogram getTitleByISBN;
+    private final Histogram addTitle;
+    private final Histogram updateTitle;
+    private final Histogram deleteTitle;
+    private final Histogram getAuthorsForTitle;
+    private final Histogram getAuthorsForTitles;
+
+    /**
+     * Constructor.
+     *
+     * @param delegate the DAO to measure
+     */
+    public InstrumentedTitleDAO(TitleDAO delegate) {
+        this.delegate = delegate;
+        getAllTitles = histogram("getAllTitles");
+        getTitlesPage = histogram("getTitlesPage");
+        getTitleByISBN = histogram("getTitleByISBN");
+        addTitle = histogram("addTitle");
+        updateTitle = histogram("updateTitle");
+        deleteTitle = histogram("deleteTitle");
+        getAuthorsForTitle = histogram("getAuthorsForTitle");
+        getAuthorsForTitles = histogram("getAuthorsForTitles");
+    }
+
+    /**
+     * Gets the histogram of one method.
+     *
+     * @param method the method name
+     * @return the histogram
+     */
+    private static Histogram histogram(String method) {
+        return MetricsRegistry.getInstance().latency("dao_call_duration_seconds",
+                "Latency of DAO method calls.", "dao", DAO, "method", method);
+    }
+
+    /**
+     * Records the latency of a call in its histogram and, if the request is
+     * being timed, in the request's {@code Server-Timing} breakdown.
+     *
+     * @param histogram the method's histogram
+     * @param phase     the phase name in the breakdown
+     * @param start     System.nanoTime() when the call started
+     */
+    private static void record(Histogram histogram, String phase, long start) {
+        long elapsed = System.nanoTime() - start;
+        histogram.record(elapsed);
+        RequestContext.recordTiming(phase, elapsed);
+    }
+
+    @Override
+    public List<TitleDTO> getAllTitles() {
+        long start = System.nanoTime();
+        DaoCallEvent event = DaoCallEvent.start(DAO, "getAllTitles");
+        try {
+            return delegate.getAllTitles();
+        } finally {
+            record(getAllTitles, "dao.getAllTitles", start);
+            event.finish();
+        }
+    }
+
+    @Override
+    public List<TitleDTO> getTitlesPage(String afterIsbn, int limit) {
+        long start = System.nanoTime();
+        DaoCallEvent event = DaoCallEvent.start(DAO, "getTitlesPage");
+        try {
+            return delegate.getTitlesPage(afterIsbn, limit);
+        } finally {
+            record(getTitlesPage, "dao.getTitlesPage", start);
+            event.finish();
+        }
+    }
+
+    @Override
+    public TitleDTO getTitleByISBN(String isbn) {
+        long start = System.nanoTime();
+        DaoCallEvent event = DaoCallEvent.start(DAO, "getTitleByISBN");
+        try {
+            return delegate.getTitleByISBN(isbn);
+        } finally {
+            record(getTitleByISBN, "dao.getTitleByISBN", start);
+            event.finish();
+        }
+    }
+
+    @Override
+    public boolean addTitle(TitleDTO title, List<Integer> authorIds) {
+        long start = System.nanoTime();
+        DaoCallEvent event = DaoCallEvent.start(DAO, "addTitle");
+        try {
+            return delegate.addTitle(title, authorIds);
+        } finally {
+            record(addTitle, "dao.addTitle", start);
+            event.finish();
+        }
+    }
+
+    @Override
+    public boolean updateTitle(TitleDTO title, List<Integer> newAuthorIds) {
+        long start = System.nanoTime();
+        DaoCallEvent event = DaoCallEvent.start(DAO, "updateTitle");
+        try {
+            return delegate.updateTitle(title, newAuthorIds);
+        } finally {
+            record(updateTitle, "dao.updateTitle", start);
+            event.finish();
+        }
+    }
+
+    @Override
+    public boolean deleteTitle(String isbn) {
+        long start = System.nanoTime();
+        DaoCallEvent event = DaoCallEvent.start(DAO, "deleteTitle");
+        try {
+            return delegate.deleteTitle(isbn);
+        } finally {
+            record(deleteTitle, "dao.deleteTitle", start);
+            event.finish();
+        }
+    }
+
+    @Override
+    public List<AuthorDTO> getAuthorsForTitle(String isbn) {
+        long start = System.nanoTime();
+        DaoCallEvent event = DaoCallEvent.start(DAO, "getAuthorsForTitle");
+        try {
+            return delegate.getAuthorsForTitle(isbn);
+        } finally {
+            record(getAuthorsForTitle, "dao.getAuthorsForTitle", start);
+            event.finish();
+        }
+    }
+
+    @Override
+    public Map<String, List<AuthorDTO>> getAuthorsForTitles(List<String> isbns) {
+        long start = System.nanoTime();
+        DaoCallEvent event = DaoCallEvent.start(DAO, "getAuthorsForTitles");
+        try {
+            return delegate.getAuthorsForTitles(isbns);
+        } finally {
+            record(getAuthorsForTitles, "dao.getAuthorsForTitles", start);
+            event.finish();
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package dataaccesslayer;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/*******************************************************************************
+ * IntBitmap
+ * A compressed set of int values in the style of a Roaring bitmap. Values
+ * are split by their high 16 bits into chunks of 65536; each chunk that
+ * holds a value has a container for the low 16 bits. A sparse chunk is a
+ * sorted array of up to 4096 chars (2 bytes a value); a denser one is a
+ * plain 8 KB bitmap (1 bit a possible value). AuthorIDs come from an
+ * AUTO_INCREMENT column, so they are mostly dense and cost about a bit each.
+ *
+ * Values are ordered as unsigned ints. Not thread-safe: the owner must lock.
+ *
+ * @see AuthorIdIndex
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Roaring-style compressed bitmap of int values.
+ ******************************************************************************/
+
+final class IntBitmap {
+
+    /** Most values kept in an array container; more use a bitmap container. */
+    static final int ARRAY_MAX = 4096;
+
+    /** High 16 bits of each container's values, ascending. */
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+    private long cardinality;
+
+    /**
+     * Checks whether a value is in the set.
+     *
+     * @param value the value
+     * @return true if it is
+     */
+    boolean contains(int value) {
+        int index = indexOf((char) (value >>> 16));
+        return index >= 0 && containers[index].contains((char) value);
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value the value
+     * @return true if it was not in the set yet
+     */
+    boolean add(int value) {
+        char key = (char) (value >>> 16);
+        int index = indexOf(key);
+        if (index < 0) {
+            index = -index - 1;
+            insert(index, key, new ArrayContainer());
+        }
+        Container container = containers[index];
+        int before = container.cardinality();
+        containers[index] = container.add((char) value);
+        int added = containers[index].cardinality() - before;
+        cardinality += added;
+        return added > 0;
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @param value the value
+     * @return true if it was in the set
+     */
+    boolean remove(int value) {
+        int index = indexOf((char) (value >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        Container container = containers[index];
+        int before = container.cardinality();
+        container = container.remove((char) value);
+        int removed = before - container.cardinality();
+        cardinality -= removed;
+        if (container.cardinality() == 0) {
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+            containers[--size] = null;
+        } else {
+            containers[index] = container;
+        }
+        return removed > 0;
+    }
+
+    /**
+     * Gets the number of values in the set.
+     *
+     * @return the cardinality
+     */
+    long cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Counts the values in a range.
+     *
+     * @param from the first value counted (inclusive)
+     * @param to   the last value counted (inclusive)
+     * @return the number of values v in the set with from &lt;= v &lt;= to, unsigned
+     */
+    long rangeCardinality(int from, int to) {
+        if (Integer.compareUnsigned(from, to) > 0) {
+            return 0;
+        }
+        return rank(to) - (from == 0 ? 0 : rank(from - 1));
+    }
+
+    /**
+     * Counts the values up to and including a value.
+     *
+     * @param value the value
+     * @return the number of values v in the set with v &lt;= value, unsigned
+     */
+    long rank(int value) {
+        char key = (char) (value >>> 16);
+        long rank = 0;
+        for (int i = 0; i < size && keys[i] <= key; i++) {
+            rank += keys[i] < key ? containers[i].cardinality() : containers[i].rank((char) value);
+        }
+        return rank;
+    }
+
+    /**
+     * Gets the smallest value.
+     *
+     * @return the value, unsigned
+     * @throws NoSuchElementException if the set is empty
+     */
+    int first() {
+        if (size == 0) {
+            throw new NoSuchElementException("The bitmap is empty");
+        }
+        return keys[0] << 16 | containers[0].first();
+    }
+
+    /**
+     * Gets the largest value.
+     *
+     * @return the value, unsigned
+     * @throws NoSuchElementException if the set is empty
+     */
+    int last() {
+        if (size == 0) {
+            throw new NoSuchElementException("The bitmap is empty");
+        }
+        return keys[size - 1] << 16 | containers[size - 1].last();
+    }
+
+    /**
+     * Gets the number of containers.
+     *
+     * @return the number of 65536-value chunks holding at least one value
+     */
+    int containerCount() {
+        return size;
+    }
+
+    /**
+     * Estimates the memory used by the containers' values.
+     *
+     * @return the size in bytes
+     */
+    long sizeInBytes() {
+        long bytes = 6L * keys.length;
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private int indexOf(char key) {
+        // Usually a handful of containers; the last is the common target of sequential IDs
+        if (size > 0 && keys[size - 1] == key) {
+            return size - 1;
+        }
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insert(int index, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    /**
+     * The low 16 bits of the values of one chunk. Changes may return a
+     * different container when the representation should switch.
+     */
+    private abstract static class Container {
+
+        abstract int cardinality();
+
+        abstract boolean contains(char low);
+
+        abstract Container add(char low);
+
+        abstract Container remove(char low);
+
+        /** Counts the values &lt;= low. */
+        abstract int rank(char low);
+
+        abstract char first();
+
+        abstract char last();
+
+        abstract long sizeInBytes();
+    }
+
+    /**
+     * A sorted array of values, for chunks with at most {@link #ARRAY_MAX}.
+     */
+    private static final class ArrayContainer extends Container {
+
+        private char[] values = new char[4];
+        private int count;
+
+        @Override
+        int cardinality() {
+            return count;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, count, low) >= 0;
+        }
+
+        @Override
+        Container add(char low) {
+            int index = count > 0 && values[count - 1] < low ? -count - 1 : Arrays.binarySearch(values, 0, count, low);
+            if (index >= 0) {
+                return this;
+            }
+            if (count == ARRAY_MAX) {
+                return new BitmapContainer(this).add(low);
+            }
+            index = -index - 1;
+            if (count == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, count * 2));
+            }
+            System.arraycopy(values, index, values, index + 1, count - index);
+            values[index] = low;
+            count++;
+            return this;
+        }
+
+        @Override
+        Container remove(char low) {
+            int index = Arrays.binarySearch(values, 0, count, low);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, count - index - 1);
+                count--;
+            }
+            return this;
+        }
+
+        @Override
+        int rank(char low) {
+            int index = Arrays.binarySearch(values, 0, count, low);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+
+        @Override
+        char first() {
+            return values[0];
+        }
+
+        @Override
+        char last() {
+            return values[count - 1];
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 2L * values.length;
+        }
+    }
+
+    /**
+     * One bit per possible value, for chunks with more than {@link #ARRAY_MAX}.
+     */
+    private static final class BitmapContainer extends Container {
+
+        private final long[] words = new long[1024];
+        private int count;
+
+        BitmapContainer(ArrayContainer array) {
+            for (int i = 0; i < array.count; i++) {
+                char low = array.values[i];
+                words[low >>> 6] |= 1L << low;
+            }
+            count = array.count;
+        }
+
+        @Override
+        int cardinality() {
+            return count;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return (words[low >>> 6] & 1L << low) != 0;
+        }
+
+        @Override
+        Container add(char low) {
+            long word = words[low >>> 6];
+            long updated = word | 1L << low;
+            if (updated != word) {
+                words[low >>> 6] = updated;
+                count++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char low) {
+            long word = words[low >>> 6];
+            long updated = word & ~(1L << low);
+            if (updated == word) {
+                return this;
+            }
+            words[low >>> 6] = updated;
+            count--;
+            if (count > ARRAY_MAX) {
+                return this;
+            }
+            ArrayContainer array = new ArrayContainer();
+            array.values = new char[ARRAY_MAX];
+            for (int i = 0; i < words.length; i++) {
+                for (long bits = words[i]; bits != 0; bits &= bits - 1) {
+                    array.values[array.count++] = (char) (i << 6 | Long.numberOfTrailingZeros(bits));
+                }
+            }
+            return array;
+        }
+
+        @Override
+        int rank(char low) {
+            int word = low >>> 6;
+            int rank = 0;
+            for (int i = 0; i < word; i++) {
+                rank += Long.bitCount(words[i]);
+            }
+            // (2 << b) - 1 keeps bits 0..b; for b = 63 the shift wraps to 0 and gives all ones
+            return rank + Long.bitCount(words[word] & (2L << low) - 1);
+        }
+
+        @Override
+        char first() {
+            int i = 0;
+            while (words[i] == 0) {
+                i++;
+            }
+            return (char) (i << 6 | Long.numberOfTrailingZeros(words[i]));
+        }
+
+        @Override
+        char last() {
+            int i = words.length - 1;
+            while (words[i] == 0) {
+                i--;
+            }
+            return (char) (i << 6 | 63 - Long.numberOfLeadingZeros(words[i]));
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 8L * words.length;
+        }
+    }
+}
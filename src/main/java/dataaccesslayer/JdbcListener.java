@@ -0,0 +1,54 @@
+package dataaccesslayer;
+
+import java.sql.SQLException;
+
+/*******************************************************************************
+ * JdbcListener
+ * Receives events about the connections handed out by {@link DataSource} and
+ * the statements executed on them. Listeners are called on the thread doing
+ * the database work, so they must be fast and must not throw.
+ *
+ * @see JdbcListener
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Callback interface for observed JDBC activity.
+ ******************************************************************************/
+
+public interface JdbcListener {
+
+    /**
+     * Called when a connection has been acquired.
+     *
+     * @param acquireNanos how long the acquisition took
+     */
+    default void connectionAcquired(long acquireNanos) {
+    }
+
+    /**
+     * Called when acquiring a connection failed.
+     *
+     * @param acquireNanos how long the attempt took
+     * @param failure      the failure
+     */
+    default void connectionFailed(long acquireNanos, SQLException failure) {
+    }
+
+    /**
+     * Called when a connection is closed.
+     *
+     * @param heldNanos how long the connection was in use
+     */
+    default void connectionClosed(long heldNanos) {
+    }
+
+    /**
+     * Called when a statement execution has completed: for a query, when its
+     * result set is exhausted or closed; otherwise when the execute call returns.
+     *
+     * @param execution the execution
+     */
+    default void queryCompleted(QueryExecution execution) {
+    }
+}
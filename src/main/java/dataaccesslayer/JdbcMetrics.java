@@ -0,0 +1,113 @@
+package dataaccesslayer;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
+import monitoring.Histogram;
+import monitoring.MetricsRegistry;
+
+/*******************************************************************************
+ * JdbcMetrics
+ * Records connection and statement activity of the {@link DataSource} in the
+ * {@link MetricsRegistry}:
+ *
+ *   - db_connection_acquire_seconds: time to open a connection;
+ *   - db_connection_held_seconds:    time a connection stays in use;
+ *   - db_connections_open:           connections currently in use. There is
+ *                                    no connection pool, so this is the
+ *                                    number of open MySQL connections;
+ *   - db_query_duration_seconds:     execute until the results are consumed;
+ *   - db_query_rows:                 rows returned or affected per statement;
+ *   - db_errors_total:               failed connects and statements by SQL state.
+ *
+ * @see JdbcMetrics
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: JdbcListener that feeds the metrics registry.
+ ******************************************************************************/
+
+final class JdbcMetrics implements JdbcListener {
+
+    private final MetricsRegistry registry;
+    private final Histogram acquireTime;
+    private final Histogram heldTime;
+    private final Histogram queryTime;
+    private final Histogram queryRows;
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder closed = new LongAdder();
+
+    /**
+     * Registers the JDBC metrics.
+     *
+     * @param registry the registry
+     * @param breaker  the circuit breaker whose state is exported too
+     */
+    JdbcMetrics(MetricsRegistry registry, CircuitBreaker breaker) {
+        this.registry = registry;
+        acquireTime = registry.latency("db_connection_acquire_seconds", "Time to acquire a database connection.");
+        heldTime = registry.latency("db_connection_held_seconds", "Time a database connection was in use.");
+        queryTime = registry.latency("db_query_duration_seconds",
+                "Time from statement execution until its results were consumed.");
+        queryRows = registry.histogram("db_query_rows", "Rows returned or affected per statement.",
+                MetricsRegistry.SIZE_BUCKETS, 1);
+        registry.gauge("db_connections_open", "Database connections currently in use.",
+                () -> opened.sum() - closed.sum());
+        registerBreaker(registry, breaker);
+    }
+
+    /**
+     * Registers the state and counters of a circuit breaker.
+     *
+     * @param registry the registry
+     * @param breaker  the circuit breaker
+     * @param labels   label names and values, alternating, telling breakers apart
+     */
+    static void registerBreaker(MetricsRegistry registry, CircuitBreaker breaker, String... labels) {
+        registry.gauge("db_circuit_breaker_state", "Circuit breaker state: 0 closed, 1 open, 2 half-open.",
+                () -> breaker.getState().ordinal(), labels);
+        registry.counter("db_circuit_breaker_rejected_total", "Database calls rejected by the open circuit breaker.",
+                breaker::getRejectedCalls, labels);
+        registry.counter("db_circuit_breaker_opened_total", "Times the circuit breaker opened.",
+                breaker::getTimesOpened, labels);
+    }
+
+    @Override
+    public void connectionAcquired(long acquireNanos) {
+        acquireTime.record(acquireNanos);
+        opened.increment();
+    }
+
+    @Override
+    public void connectionFailed(long acquireNanos, SQLException failure) {
+        acquireTime.record(acquireNanos);
+        countError(failure);
+    }
+
+    @Override
+    public void connectionClosed(long heldNanos) {
+        heldTime.record(heldNanos);
+        closed.increment();
+    }
+
+    @Override
+    public void queryCompleted(QueryExecution execution) {
+        queryTime.record(execution.getDurationNanos());
+        if (execution.getFailure() != null) {
+            countError(execution.getFailure());
+        } else if (execution.getRows() >= 0) {
+            queryRows.record(execution.getRows());
+        }
+    }
+
+    /**
+     * Counts an error by its SQL state. Errors are rare, so the lookup is not cached.
+     *
+     * @param failure the error
+     */
+    private void countError(SQLException failure) {
+        String state = failure.getSQLState();
+        registry.counter("db_errors_total", "Failed connects and statements by SQL state.",
+                "sql_state", state == null ? "unknown" : state).increment();
+    }
+}
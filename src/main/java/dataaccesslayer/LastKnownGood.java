@@ -0,0 +1,373 @@
+package dataaccesslayer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import transferobjects.AuthorDTO;
+import transferobjects.TitleDTO;
+
+/*******************************************************************************
+ * LastKnownGood
+ * Remembers the most recent successful result of each read, so a read that
+ * fails because the database is down (or the circuit breaker is open) can be
+ * answered with the last data that was seen instead of an empty page.
+ *
+ * A read is considered failed when the DAO recorded a database failure on the
+ * current {@link RequestContext} while it ran; the DAOs themselves swallow
+ * SQLExceptions and return empty results, so the result alone cannot tell.
+ * Serving a stale value marks the request, so the view can say so.
+ *
+ * The store is an LRU map bounded by the estimated bytes it retains
+ * ({@code lastKnownGood.maxBytes}); a result estimated at more than an eighth
+ * of that (a full listing of a large catalog, say) is not kept at all. DTOs
+ * are mutable, so a result is kept as an immutable {@link Snapshot} of its
+ * fields, sharing the strings, and DTOs are only built again when a stale
+ * value is served.
+ *
+ * @see LastKnownGood
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Bounded store of last successful read results.
+ ******************************************************************************/
+
+final class LastKnownGood {
+
+    /** Default estimated bytes retained by a store. */
+    static final long DEFAULT_MAX_BYTES = 8L * 1024 * 1024;
+
+    /** Estimated bytes of an object header, a reference and a String with its array. */
+    private static final long HEADER_BYTES = 16;
+    private static final long REFERENCE_BYTES = 4;
+    private static final long STRING_BYTES = 40;
+
+    /** Snapshots of authors: one int (the ID) and two strings per author. */
+    static final Codec<List<AuthorDTO>> AUTHORS = new Codec<>() {
+        @Override
+        public long estimateBytes(List<AuthorDTO> authors) {
+            return authorBytes(authors);
+        }
+
+        @Override
+        public Snapshot snapshot(List<AuthorDTO> authors) {
+            return authorSnapshot(authors);
+        }
+
+        @Override
+        public List<AuthorDTO> restore(Snapshot snapshot) {
+            return authors(snapshot);
+        }
+    };
+
+    /** Snapshots of one author, or null. */
+    static final Codec<AuthorDTO> AUTHOR = new Codec<>() {
+        @Override
+        public long estimateBytes(AuthorDTO author) {
+            return authorBytes(List.of(author));
+        }
+
+        @Override
+        public Snapshot snapshot(AuthorDTO author) {
+            return authorSnapshot(List.of(author));
+        }
+
+        @Override
+        public AuthorDTO restore(Snapshot snapshot) {
+            return authors(snapshot).get(0);
+        }
+    };
+
+    /** Snapshots of authors by ID, restored in the same order. */
+    static final Codec<Map<Integer, AuthorDTO>> AUTHOR_MAP = new Codec<>() {
+        @Override
+        public long estimateBytes(Map<Integer, AuthorDTO> authors) {
+            return authorBytes(authors.values());
+        }
+
+        @Override
+        public Snapshot snapshot(Map<Integer, AuthorDTO> authors) {
+            return authorSnapshot(authors.values());
+        }
+
+        @Override
+        public Map<Integer, AuthorDTO> restore(Snapshot snapshot) {
+            Map<Integer, AuthorDTO> authors = new LinkedHashMap<>();
+            for (AuthorDTO author : authors(snapshot)) {
+                authors.put(author.getId(), author);
+            }
+            return authors;
+        }
+    };
+
+    /** Snapshots of the authors of titles by ISBN: one row per link, with the ISBN as a third string. */
+    static final Codec<Map<String, List<AuthorDTO>>> AUTHORS_BY_ISBN = new Codec<>() {
+        @Override
+        public long estimateBytes(Map<String, List<AuthorDTO>> authors) {
+            long bytes = 2 * HEADER_BYTES;
+            for (Map.Entry<String, List<AuthorDTO>> entry : authors.entrySet()) {
+                bytes += authorBytes(entry.getValue()) + entry.getValue().size() * stringBytes(entry.getKey());
+            }
+            return bytes;
+        }
+
+        @Override
+        public Snapshot snapshot(Map<String, List<AuthorDTO>> authors) {
+            int rows = 0;
+            for (List<AuthorDTO> authorsForTitle : authors.values()) {
+                rows += authorsForTitle.size();
+            }
+            int[] ints = new int[rows];
+            String[] strings = new String[3 * rows];
+            int row = 0;
+            for (Map.Entry<String, List<AuthorDTO>> entry : authors.entrySet()) {
+                for (AuthorDTO author : entry.getValue()) {
+                    ints[row] = author.getId();
+                    strings[3 * row] = author.getFirstName();
+                    strings[3 * row + 1] = author.getLastName();
+                    strings[3 * row + 2] = entry.getKey();
+                    row++;
+                }
+            }
+            return new Snapshot(ints, strings, estimateBytes(authors));
+        }
+
+        @Override
+        public Map<String, List<AuthorDTO>> restore(Snapshot snapshot) {
+            Map<String, List<AuthorDTO>> authors = new LinkedHashMap<>();
+            for (int row = 0; row < snapshot.ints.length; row++) {
+                authors.computeIfAbsent(snapshot.strings[3 * row + 2], isbn -> new ArrayList<>())
+                        .add(new AuthorDTO(snapshot.ints[row], snapshot.strings[3 * row], snapshot.strings[3 * row + 1]));
+            }
+            return authors;
+        }
+    };
+
+    /** Snapshots of titles: one int (the edition) and three strings per title. */
+    static final Codec<List<TitleDTO>> TITLES = new Codec<>() {
+        @Override
+        public long estimateBytes(List<TitleDTO> titles) {
+            return titleBytes(titles);
+        }
+
+        @Override
+        public Snapshot snapshot(List<TitleDTO> titles) {
+            return titleSnapshot(titles);
+        }
+
+        @Override
+        public List<TitleDTO> restore(Snapshot snapshot) {
+            return titles(snapshot);
+        }
+    };
+
+    /** Snapshots of one title, or null. */
+    static final Codec<TitleDTO> TITLE = new Codec<>() {
+        @Override
+        public long estimateBytes(TitleDTO title) {
+            return titleBytes(List.of(title));
+        }
+
+        @Override
+        public Snapshot snapshot(TitleDTO title) {
+            return titleSnapshot(List.of(title));
+        }
+
+        @Override
+        public TitleDTO restore(Snapshot snapshot) {
+            return titles(snapshot).get(0);
+        }
+    };
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final Map<String, Snapshot> values = new LinkedHashMap<>(16, 0.75f, true);
+    /** Estimated bytes of the snapshots held; guarded by values. */
+    private long currentBytes;
+
+    /**
+     * Converts a read's result to and from an immutable snapshot.
+     *
+     * @param <T> the result type
+     */
+    interface Codec<T> {
+
+        /**
+         * Estimates the bytes a snapshot of a result would retain, without making it.
+         *
+         * @param value the result, not null
+         * @return the estimated bytes
+         */
+        long estimateBytes(T value);
+
+        /**
+         * Makes a snapshot of a result.
+         *
+         * @param value the result, not null
+         * @return the snapshot
+         */
+        Snapshot snapshot(T value);
+
+        /**
+         * Builds a new result from a snapshot.
+         *
+         * @param snapshot the snapshot
+         * @return the result, owned by the caller
+         */
+        T restore(Snapshot snapshot);
+    }
+
+    /**
+     * The fields of a result, row by row: a fixed number of ints and strings
+     * per row. Never modified after it is made.
+     */
+    static final class Snapshot {
+
+        private final int[] ints;
+        private final String[] strings;
+        private final long bytes;
+
+        Snapshot(int[] ints, String[] strings, long bytes) {
+            this.ints = ints;
+            this.strings = strings;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Creates a store.
+     *
+     * @param maxBytes the most bytes, as estimated, the remembered reads may retain
+     */
+    LastKnownGood(long maxBytes) {
+        this.maxBytes = Math.max(0, maxBytes);
+        this.maxEntryBytes = this.maxBytes / 8;
+    }
+
+    /**
+     * Creates a store sized by {@code lastKnownGood.maxBytes} in database.properties.
+     *
+     * @return the store
+     */
+    static LastKnownGood fromConfiguration() {
+        return new LastKnownGood(DataSource.parseLong(DataSource.loadConfiguration(), "lastKnownGood.maxBytes",
+                DEFAULT_MAX_BYTES));
+    }
+
+    /**
+     * Runs a read, remembering its result on success and falling back to the
+     * remembered result on failure.
+     *
+     * @param <T>   the result type
+     * @param key   identifies the read and its arguments
+     * @param read  the read against the database
+     * @param codec converts the result to and from a snapshot
+     * @return the fresh result, or one rebuilt from the last known good result if the read failed
+     */
+    <T> T read(String key, Supplier<T> read, Codec<T> codec) {
+        RequestContext context = RequestContext.current();
+        if (context == null || maxEntryBytes == 0) {
+            // Without a context a failure cannot be told from an empty result
+            return read.get();
+        }
+        int failuresBefore = context.getDatabaseFailures();
+        T result = read.get();
+        if (context.getDatabaseFailures() > failuresBefore) {
+            Snapshot stale;
+            synchronized (values) {
+                stale = values.get(key);
+            }
+            if (stale == null) {
+                return result;
+            }
+            context.markServedStale();
+            return codec.restore(stale);
+        }
+        Snapshot snapshot = result == null || codec.estimateBytes(result) > maxEntryBytes ? null
+                : codec.snapshot(result);
+        synchronized (values) {
+            Snapshot previous = snapshot == null ? values.remove(key) : values.put(key, snapshot);
+            if (previous != null) {
+                currentBytes -= previous.bytes;
+            }
+            if (snapshot != null) {
+                currentBytes += snapshot.bytes;
+                Iterator<Snapshot> eldest = values.values().iterator();
+                while (currentBytes > maxBytes && eldest.hasNext()) {
+                    currentBytes -= eldest.next().bytes;
+                    eldest.remove();
+                }
+            }
+        }
+        return result;
+    }
+
+    private static long stringBytes(String value) {
+        return REFERENCE_BYTES + (value == null ? 0 : STRING_BYTES + value.length());
+    }
+
+    private static long authorBytes(Collection<AuthorDTO> authors) {
+        long bytes = 2 * HEADER_BYTES;
+        for (AuthorDTO author : authors) {
+            bytes += Integer.BYTES + stringBytes(author.getFirstName()) + stringBytes(author.getLastName());
+        }
+        return bytes;
+    }
+
+    private static Snapshot authorSnapshot(Collection<AuthorDTO> authors) {
+        int[] ints = new int[authors.size()];
+        String[] strings = new String[2 * authors.size()];
+        int row = 0;
+        for (AuthorDTO author : authors) {
+            ints[row] = author.getId();
+            strings[2 * row] = author.getFirstName();
+            strings[2 * row + 1] = author.getLastName();
+            row++;
+        }
+        return new Snapshot(ints, strings, authorBytes(authors));
+    }
+
+    private static List<AuthorDTO> authors(Snapshot snapshot) {
+        List<AuthorDTO> authors = new ArrayList<>(snapshot.ints.length);
+        for (int row = 0; row < snapshot.ints.length; row++) {
+            authors.add(new AuthorDTO(snapshot.ints[row], snapshot.strings[2 * row], snapshot.strings[2 * row + 1]));
+        }
+        return authors;
+    }
+
+    private static long titleBytes(Collection<TitleDTO> titles) {
+        long bytes = 2 * HEADER_BYTES;
+        for (TitleDTO title : titles) {
+            bytes += Integer.BYTES + stringBytes(title.getIsbn()) + stringBytes(title.getTitle())
+                    + stringBytes(title.getCopyright());
+        }
+        return bytes;
+    }
+
+    private static Snapshot titleSnapshot(Collection<TitleDTO> titles) {
+        int[] ints = new int[titles.size()];
+        String[] strings = new String[3 * titles.size()];
+        int row = 0;
+        for (TitleDTO title : titles) {
+            ints[row] = title.getEditionNumber();
+            strings[3 * row] = title.getIsbn();
+            strings[3 * row + 1] = title.getTitle();
+            strings[3 * row + 2] = title.getCopyright();
+            row++;
+        }
+        return new Snapshot(ints, strings, titleBytes(titles));
+    }
+
+    private static List<TitleDTO> titles(Snapshot snapshot) {
+        List<TitleDTO> titles = new ArrayList<>(snapshot.ints.length);
+        for (int row = 0; row < snapshot.ints.length; row++) {
+            titles.add(new TitleDTO(snapshot.strings[3 * row], snapshot.strings[3 * row + 1], snapshot.ints[row],
+                    snapshot.strings[3 * row + 2]));
+        }
+        return titles;
+    }
+}
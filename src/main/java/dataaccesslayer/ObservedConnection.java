@@ -0,0 +1,404 @@
+package dataaccesslayer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/*******************************************************************************
+ * ObservedConnection
+ * Wraps a JDBC connection (and the statements it creates) in dynamic proxies
+ * so the DataSource can observe how the database behaves without any change
+ * to the DAO code: every SQLException thrown by the connection or one of its
+ * statements is seen here, and closing the connection reports the outcome of
+ * the whole call to the {@link CircuitBreaker}.
+ *
+ * When {@link JdbcListener}s are registered, statement executions are timed
+ * as well: a query is complete once its result set is exhausted or closed,
+ * so its duration includes fetching the rows, which are counted on the way.
+ * Values bound through the setXxx methods of a PreparedStatement are captured
+ * (long strings truncated) so an execution can be reported with them.
+ *
+ * Errors caused by the request itself (bad data, constraint violations, SQL
+ * syntax) say nothing about the health of the database and are not counted.
+ * Nor is a query timeout that the request's deadline cut below the
+ * operation's configured timeout: a request that waited long for admission
+ * can time out on a healthy database. It still fails the request, and a
+ * slow connection is still reported to the breaker as a slow call.
+ *
+ * A connection that ran anything other than a query records a write on the
+ * request when it is closed, after the transaction has ended, so the
+ * session's later reads from replicas can wait for it.
+ *
+ * @see ObservedConnection
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Proxy that reports connection and statement outcomes.
+ ******************************************************************************/
+
+final class ObservedConnection implements InvocationHandler {
+
+    private final Connection target;
+    private final CircuitBreaker breaker;
+    private final List<JdbcListener> listeners;
+    private final long acquiredAt;
+
+    /** Longest captured string parameter; longer values are truncated. */
+    private static final int MAX_PARAMETER_LENGTH = 200;
+
+    /** Whether a health-relevant failure was seen on this connection. */
+    private volatile boolean failed;
+
+    private boolean closed;
+
+    /** Whether a statement other than a query was executed. */
+    private volatile boolean written;
+
+    /** The proxy handed out, returned by Statement.getConnection(). */
+    private Connection proxy;
+
+    /**
+     * Creates the handler.
+     *
+     * @param target     the real connection
+     * @param breaker    the breaker that gets the call outcome
+     * @param listeners  the listeners to notify
+     * @param acquiredAt System.nanoTime() when acquisition started
+     */
+    private ObservedConnection(Connection target, CircuitBreaker breaker, List<JdbcListener> listeners,
+                               long acquiredAt) {
+        this.target = target;
+        this.breaker = breaker;
+        this.listeners = listeners;
+        this.acquiredAt = acquiredAt;
+    }
+
+    /**
+     * Wraps a connection.
+     *
+     * @param target     the real connection
+     * @param breaker    the breaker that gets the call outcome
+     * @param listeners  the listeners to notify (may be empty, not null)
+     * @param acquiredAt System.nanoTime() when acquisition started
+     * @return a proxy connection
+     */
+    static Connection wrap(Connection target, CircuitBreaker breaker, List<JdbcListener> listeners,
+                           long acquiredAt) {
+        ObservedConnection handler = new ObservedConnection(target, breaker, listeners, acquiredAt);
+        handler.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, handler);
+        return handler.proxy;
+    }
+
+    /**
+     * Decides whether an exception indicates a database problem rather than a bad request.
+     *
+     * @param e the exception
+     * @return false for data (22), integrity constraint (23) and syntax/access rule (42) errors, and
+     * for deadlocks and lock wait timeouts, which come from contention between writers
+     */
+    static boolean isDatabaseFailure(SQLException e) {
+        RetryPolicy.Reason reason = RetryPolicy.classify(e);
+        if (reason == RetryPolicy.Reason.DEADLOCK || reason == RetryPolicy.Reason.LOCK_WAIT) {
+            return false;
+        }
+        if (e instanceof SQLTimeoutException) {
+            return true;
+        }
+        String state = e.getSQLState();
+        return state == null || !(state.startsWith("22") || state.startsWith("23") || state.startsWith("42"));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+            try {
+                return invokeTarget(target, method, args);
+            } finally {
+                finish();
+            }
+        }
+        Object result = invokeTarget(target, method, args);
+        if (result instanceof Statement && method.getReturnType().isInterface()) {
+            // prepareStatement and prepareCall take the SQL text first; createStatement gets it per execute
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+            return Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { method.getReturnType() }, new StatementHandler((Statement) result, sql));
+        }
+        return result;
+    }
+
+    /**
+     * Calls the real object, recording SQL failures and unwrapping reflection exceptions.
+     *
+     * @param targetObject the connection, statement or result set
+     * @param method       the method to call
+     * @param args         the arguments
+     * @return the result of the call
+     * @throws Throwable whatever the real method throws
+     */
+    private Object invokeTarget(Object targetObject, Method method, Object[] args) throws Throwable {
+        return invokeTarget(targetObject, method, args, false);
+    }
+
+    /**
+     * Calls the real object, as {@link #invokeTarget(Object, Method, Object[])}.
+     *
+     * @param targetObject  the connection, statement or result set
+     * @param method        the method to call
+     * @param args          the arguments
+     * @param deadlineBound whether a statement's query timeout was set by the request deadline
+     * @return the result of the call
+     * @throws Throwable whatever the real method throws
+     */
+    private Object invokeTarget(Object targetObject, Method method, Object[] args, boolean deadlineBound)
+            throws Throwable {
+        try {
+            return method.invoke(targetObject, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException && isDatabaseFailure((SQLException) cause)) {
+                // The request ran out of time, not the database: fail the request but not the breaker
+                failed |= !(deadlineBound && cause instanceof SQLTimeoutException);
+                RequestContext.recordDatabaseFailure();
+            }
+            throw cause;
+        }
+    }
+
+    /**
+     * Marks a statement of an observed connection whose query timeout was
+     * set by the request deadline rather than the operation's configured
+     * timeout, so timing out does not count against the database.
+     *
+     * @param statement the statement, as returned by the observed connection
+     */
+    static void timeoutSetByDeadline(Statement statement) {
+        if (Proxy.isProxyClass(statement.getClass())
+                && Proxy.getInvocationHandler(statement) instanceof StatementHandler) {
+            ((StatementHandler) Proxy.getInvocationHandler(statement)).deadlineBound = true;
+        }
+    }
+
+    /**
+     * Reports the outcome of the call once, when the connection is closed.
+     */
+    private synchronized void finish() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (written) {
+            RequestContext.recordWrite();
+        }
+        long heldNanos = System.nanoTime() - acquiredAt;
+        RequestContext.recordDatabaseTime(heldNanos);
+        if (failed) {
+            breaker.onFailure();
+        } else {
+            breaker.onSuccess(heldNanos);
+        }
+        for (JdbcListener listener : listeners) {
+            listener.connectionClosed(heldNanos);
+        }
+    }
+
+    /**
+     * Notifies the listeners of a completed execution.
+     *
+     * @param sql        the SQL text
+     * @param parameters the bound parameters
+     * @param startNanos System.nanoTime() when the execution started
+     * @param rows       rows returned or affected; -1 if unknown
+     * @param failure    the failure, or null
+     */
+    private void completed(String sql, List<Object> parameters, long startNanos, long rows, SQLException failure) {
+        RequestContext.recordRows(rows);
+        RequestContext context = RequestContext.current();
+        QueryExecution execution = new QueryExecution(sql, parameters, context == null ? null : context.getAction(),
+                System.nanoTime() - startNanos, rows, failure);
+        for (JdbcListener listener : listeners) {
+            listener.queryCompleted(execution);
+        }
+    }
+
+    /**
+     * Forwards statement calls to the real statement, recording failures on the
+     * owning connection and timing executions.
+     */
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+        private final String sql;
+
+        /** Whether the query timeout was set by the request deadline. */
+        private boolean deadlineBound;
+
+        /** Values bound so far, by parameter index - 1; only kept while listeners are registered. */
+        private Object[] parameters = new Object[0];
+
+        StatementHandler(Statement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("getConnection".equals(name)) {
+                return ObservedConnection.this.proxy; // Do not leak the unwrapped connection
+            }
+            if (name.startsWith("execute")) {
+                written |= !"executeQuery".equals(name);
+                // Counted before it runs, so a statement over the request's budget is never sent
+                RequestContext.recordStatement(args != null && args.length > 0 && args[0] instanceof String
+                        ? (String) args[0] : sql);
+            }
+            if (listeners.isEmpty()) {
+                return invokeTarget(statement, method, args, deadlineBound);
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                capture((Integer) args[0], name.equals("setNull") ? null : args[1]);
+            } else if ("clearParameters".equals(name)) {
+                parameters = new Object[0];
+            }
+            if (!name.startsWith("execute")) {
+                return invokeTarget(statement, method, args, deadlineBound);
+            }
+
+            String executed = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+            List<Object> bound = parameters.length == 0
+                    ? Collections.emptyList()
+                    : Collections.unmodifiableList(new ArrayList<>(Arrays.asList(parameters)));
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invokeTarget(statement, method, args, deadlineBound);
+            } catch (SQLException e) {
+                completed(executed, bound, start, -1, e);
+                throw e;
+            }
+            if (result instanceof ResultSet) {
+                return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+                        new ResultSetHandler((ResultSet) result, executed, bound, start));
+            }
+            completed(executed, bound, start, rowCount(result), null);
+            return result;
+        }
+
+        /**
+         * Remembers a bound parameter value.
+         *
+         * @param index the 1-based parameter index
+         * @param value the value
+         */
+        private void capture(int index, Object value) {
+            if (index < 1) {
+                return;
+            }
+            if (index > parameters.length) {
+                parameters = Arrays.copyOf(parameters, index);
+            }
+            if (value instanceof String && ((String) value).length() > MAX_PARAMETER_LENGTH) {
+                value = ((String) value).substring(0, MAX_PARAMETER_LENGTH) + "...";
+            } else if (value != null && !(value instanceof Number || value instanceof Boolean
+                    || value instanceof CharSequence || value instanceof java.util.Date
+                    || value instanceof java.time.temporal.Temporal)) {
+                // Streams, LOBs and arrays are not captured
+                value = "<" + value.getClass().getSimpleName() + ">";
+            }
+            parameters[index - 1] = value;
+        }
+
+        /**
+         * Extracts the affected row count from an execute result.
+         *
+         * @param result the result of executeUpdate, executeLargeUpdate, executeBatch or execute
+         * @return the row count, or -1 if unknown
+         */
+        private long rowCount(Object result) {
+            if (result instanceof Number) {
+                return ((Number) result).longValue();
+            }
+            if (result instanceof int[]) {
+                long rows = 0;
+                for (int count : (int[]) result) {
+                    if (count < 0) {
+                        return -1;
+                    }
+                    rows += count;
+                }
+                return rows;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Counts the rows read from a query's result set and completes the
+     * execution when the rows run out or the result set is closed.
+     */
+    private final class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet resultSet;
+        private final String sql;
+        private final List<Object> parameters;
+        private final long startNanos;
+        private long rows;
+        private boolean done;
+
+        ResultSetHandler(ResultSet resultSet, String sql, List<Object> parameters, long startNanos) {
+            this.resultSet = resultSet;
+            this.sql = sql;
+            this.parameters = parameters;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("close".equals(name)) {
+                complete(null);
+                return invokeTarget(resultSet, method, args);
+            }
+            if (!"next".equals(name)) {
+                return invokeTarget(resultSet, method, args);
+            }
+            try {
+                Object hasRow = invokeTarget(resultSet, method, args);
+                if (Boolean.TRUE.equals(hasRow)) {
+                    rows++;
+                } else {
+                    complete(null);
+                }
+                return hasRow;
+            } catch (SQLException e) {
+                complete(e);
+                throw e;
+            }
+        }
+
+        /**
+         * Reports the execution once.
+         *
+         * @param failure the failure, or null
+         */
+        private void complete(SQLException failure) {
+            if (!done) {
+                done = true;
+                completed(sql, parameters, startNanos, failure == null ? rows : -1, failure);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package dataaccesslayer;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import monitoring.Histogram;
+import monitoring.Logger;
+import monitoring.MetricsRegistry;
+
+/*******************************************************************************
+ * QueryBudget
+ * Limits the database work of one HTTP request. {@link RequestContext} counts
+ * the statements (round trips), connections and rows of the request, and how
+ * often each SQL text ran; this class checks them against two limits:
+ *
+ *   maxStatements  statements per request
+ *   maxRepeats     executions of the same SQL text per request; a page that
+ *                  runs one query per row of a listing (N+1 queries, like a
+ *                  per-title author lookup) crosses this as the table grows
+ *
+ * In WARN mode a request over a limit is logged once when it ends. In FAIL
+ * mode, meant for tests, the statement that crosses a limit is not executed
+ * and a {@link QueryBudgetExceededException} fails the request instead.
+ * Either way the per-request counts are recorded as histograms and each
+ * exceeded limit is counted in {@code query_budget_exceeded_total}.
+ *
+ * @see RequestContext
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Per-request statement budget and N+1 query detection.
+ ******************************************************************************/
+
+public final class QueryBudget {
+
+    /** What happens when a request goes over a limit. */
+    public enum Mode { OFF, WARN, FAIL }
+
+    private static final Logger LOG = Logger.getLogger(QueryBudget.class);
+
+    private final int maxStatements;
+    private final int maxRepeats;
+    private final Mode mode;
+
+    private final Histogram statementsPerRequest;
+    private final Histogram connectionsPerRequest;
+    private final Histogram rowsPerRequest;
+    private final LongAdder statementsExceeded;
+    private final LongAdder repeatsExceeded;
+
+    /**
+     * Creates a budget and registers its metrics.
+     *
+     * @param maxStatements statements allowed per request; 0 or less for no limit
+     * @param maxRepeats    executions of the same SQL allowed per request; 0 or less for no limit
+     * @param mode          what to do when a limit is exceeded
+     */
+    public QueryBudget(int maxStatements, int maxRepeats, Mode mode) {
+        this.maxStatements = maxStatements;
+        this.maxRepeats = maxRepeats;
+        this.mode = mode;
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        statementsPerRequest = registry.histogram("http_request_db_statements",
+                "Statements executed per request.", MetricsRegistry.SIZE_BUCKETS, 1);
+        connectionsPerRequest = registry.histogram("http_request_db_connections",
+                "Connections opened per request.", MetricsRegistry.SIZE_BUCKETS, 1);
+        rowsPerRequest = registry.histogram("http_request_db_rows",
+                "Rows fetched or affected per request.", MetricsRegistry.SIZE_BUCKETS, 1);
+        String help = "Requests that exceeded a query budget limit.";
+        statementsExceeded = registry.counter("query_budget_exceeded_total", help, "limit", "statements");
+        repeatsExceeded = registry.counter("query_budget_exceeded_total", help, "limit", "repeats");
+    }
+
+    /**
+     * Parses a mode name.
+     *
+     * @param mode the name (off, warn or fail), or null
+     * @return the mode; WARN if the name is missing or not recognized
+     */
+    public static Mode parseMode(String mode) {
+        if (mode == null || mode.trim().isEmpty()) {
+            return Mode.WARN;
+        }
+        try {
+            return Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            LOG.warn("Invalid query budget mode {}; using WARN", mode);
+            return Mode.WARN;
+        }
+    }
+
+    /**
+     * Called before each statement of a request runs. Fails it in FAIL mode if
+     * it would exceed a limit.
+     *
+     * @param context the request
+     * @param sql     the SQL text (may be null)
+     * @param repeats executions of this SQL text so far in the request, including this one
+     * @throws QueryBudgetExceededException if the statement is over a limit in FAIL mode
+     */
+    void beforeStatement(RequestContext context, String sql, int repeats) {
+        if (mode != Mode.FAIL) {
+            return;
+        }
+        if (maxStatements > 0 && context.getStatements() > maxStatements) {
+            throw new QueryBudgetExceededException("Action " + context.getAction() + " exceeded its budget of "
+                    + maxStatements + " statements");
+        }
+        if (maxRepeats > 0 && repeats > maxRepeats) {
+            throw new QueryBudgetExceededException("Action " + context.getAction() + " ran the same statement more than "
+                    + maxRepeats + " times (likely an N+1 query): " + sql);
+        }
+    }
+
+    /**
+     * Records the counts of a finished request and logs it if it went over a limit.
+     *
+     * @param context the request
+     */
+    public void requestCompleted(RequestContext context) {
+        statementsPerRequest.record(context.getStatements());
+        connectionsPerRequest.record(context.getConnections());
+        rowsPerRequest.record(context.getRows());
+        if (mode == Mode.OFF) {
+            return;
+        }
+        if (maxStatements > 0 && context.getStatements() > maxStatements) {
+            statementsExceeded.increment();
+            LOG.warn("Action {} ran {} statements on {} connections ({} rows), over its budget of {}",
+                    context.getAction(), context.getStatements(), context.getConnections(), context.getRows(),
+                    maxStatements);
+        }
+        if (maxRepeats > 0 && context.getMostRepeatedCount() > maxRepeats) {
+            repeatsExceeded.increment();
+            LOG.warn("Action {} ran the same statement {} times, over the limit of {} (likely an N+1 query): {}",
+                    context.getAction(), context.getMostRepeatedCount(), maxRepeats, context.getMostRepeatedSql());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "QueryBudget[maxStatements=" + maxStatements + ", maxRepeats=" + maxRepeats + ", mode=" + mode + "]";
+    }
+}
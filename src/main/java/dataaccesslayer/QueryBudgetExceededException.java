@@ -0,0 +1,29 @@
+package dataaccesslayer;
+
+/*******************************************************************************
+ * QueryBudgetExceededException
+ * Thrown in place of a statement execution when the request has used up its
+ * {@link QueryBudget} and the budget is in FAIL mode. It is unchecked so it is
+ * not swallowed by the DAOs' SQLException handling and fails the request.
+ *
+ * @see QueryBudget
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Signals a request running more statements than allowed.
+ ******************************************************************************/
+
+public class QueryBudgetExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates the exception.
+     *
+     * @param message what was exceeded
+     */
+    public QueryBudgetExceededException(String message) {
+        super(message);
+    }
+}
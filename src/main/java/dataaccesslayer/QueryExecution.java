@@ -0,0 +1,96 @@
+package dataaccesslayer;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/*******************************************************************************
+ * QueryExecution
+ * Describes one completed statement execution for {@link JdbcListener}s.
+ *
+ * @see QueryExecution
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Immutable record of a statement execution.
+ ******************************************************************************/
+
+public final class QueryExecution {
+
+    private final String sql;
+    private final List<Object> parameters;
+    private final String action;
+    private final long durationNanos;
+    private final long rows;
+    private final SQLException failure;
+
+    /**
+     * Creates an execution record.
+     *
+     * @param sql           the SQL text
+     * @param parameters    the bound parameters, in order
+     * @param action        the front controller action, or null
+     * @param durationNanos time from execute until the results were consumed
+     * @param rows          rows returned or affected; -1 if unknown
+     * @param failure       the failure, or null on success
+     */
+    QueryExecution(String sql, List<Object> parameters, String action, long durationNanos, long rows,
+                   SQLException failure) {
+        this.sql = sql;
+        this.parameters = parameters;
+        this.action = action;
+        this.durationNanos = durationNanos;
+        this.rows = rows;
+        this.failure = failure;
+    }
+
+    /** @return the SQL text. */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Gets a short id for the SQL text, so executions of the same statement
+     * can be grouped and matched across the slow query log and flight recordings.
+     *
+     * @return eight hex digits derived from the SQL text
+     */
+    public String getSqlId() {
+        return sqlId(sql);
+    }
+
+    /**
+     * Computes the id of an SQL text.
+     *
+     * @param sql the SQL text (may be null)
+     * @return eight hex digits
+     */
+    static String sqlId(String sql) {
+        return String.format("%08x", sql == null ? 0 : sql.hashCode());
+    }
+
+    /** @return the bound parameters in order (unset positions are null); empty for plain statements. */
+    public List<Object> getParameters() {
+        return parameters;
+    }
+
+    /** @return the front controller action that ran the statement, or null. */
+    public String getAction() {
+        return action;
+    }
+
+    /** @return the time from execute until the results were consumed, in nanoseconds. */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /** @return rows returned (queries) or affected (updates); -1 if unknown. */
+    public long getRows() {
+        return rows;
+    }
+
+    /** @return the failure, or null if the statement succeeded. */
+    public SQLException getFailure() {
+        return failure;
+    }
+}
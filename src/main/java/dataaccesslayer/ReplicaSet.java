@@ -0,0 +1,301 @@
+package dataaccesslayer;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import monitoring.Logger;
+import monitoring.MetricsRegistry;
+
+/*******************************************************************************
+ * ReplicaSet
+ * The read replicas of a database. Each replica is checked in the background
+ * every {@code replica.checkMillis}: a replica that cannot be reached, whose
+ * replication has stopped or that is more than {@code replica.maxLagSeconds}
+ * behind is taken out of rotation until a later check finds it well again.
+ * Reads take the healthy replicas in turn.
+ *
+ * A check also tells how far the replica has caught up: everything the
+ * primary committed before the check time less the reported lag (rounded up
+ * to the next second) is on it. A session that wrote within the last
+ * {@code replica.pinMillis} only reads from replicas known to have caught up
+ * to its last write, and from the primary while there are none, so a user
+ * sees their own edits. The time of each session's last write is kept on
+ * this node for that long; with token authentication, where the next request
+ * may go to another node, the client also carries it in a signed cookie.
+ *
+ * @see DataSource#getReadConnection()
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Health-checked, load-balanced read replicas of a database.
+ ******************************************************************************/
+
+final class ReplicaSet {
+
+    private static final Logger LOG = Logger.getLogger(ReplicaSet.class);
+
+    /** Every replica set created, for shutdown. */
+    private static final List<ReplicaSet> ALL = new CopyOnWriteArrayList<>();
+
+    /** When each session last wrote, in epoch milliseconds; only kept while replicas exist. */
+    private static final ConcurrentHashMap<String, Long> LAST_WRITES = new ConcurrentHashMap<>();
+
+    /** How long a session's reads must include its last write; set by the first replica set. */
+    private static volatile long pinMillis;
+
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final String lagQuery;
+    private final ScheduledExecutorService checker;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder replicaReads;
+    private final LongAdder primaryReads;
+
+    /**
+     * A replica, with what its last check found.
+     */
+    static final class Replica {
+
+        final DataSource dataSource;
+        final String name;
+        volatile boolean healthy;
+        /** Epoch milliseconds up to which the primary's commits are on the replica. */
+        volatile long caughtUpToMillis;
+        /** Lag reported by the last successful check, in seconds; -1 if unknown. */
+        volatile long lagSeconds = -1;
+
+        Replica(DataSource dataSource, String name) {
+            this.dataSource = dataSource;
+            this.name = name;
+        }
+    }
+
+    /**
+     * Creates the replica set and starts checking the replicas. Until the
+     * first check of a replica completes, it is not used.
+     *
+     * @param replicas the replicas' data sources
+     * @param config   the configuration, for the replica.* settings shared by all databases
+     * @param labels   label names and values, alternating, telling the primary apart from other databases
+     */
+    ReplicaSet(List<DataSource> replicas, Properties config, String... labels) {
+        List<Replica> list = new ArrayList<>(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            list.add(new Replica(replicas.get(i), String.join("/", labels) + (labels.length > 0 ? "/" : "")
+                    + "replica/" + i));
+        }
+        this.replicas = List.copyOf(list);
+        this.maxLagMillis = TimeUnit.SECONDS.toMillis(DataSource.parseLong(config, "replica.maxLagSeconds", 30));
+        String query = config.getProperty("replica.lagQuery", "SHOW REPLICA STATUS").trim();
+        this.lagQuery = query.isEmpty() ? null : query;
+        pinMillis = DataSource.parseLong(config, "replica.pinMillis", 5000);
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        replicaReads = metrics.counter("db_reads_total", "Reads by where they were sent.",
+                withLabels(labels, "target", "replica"));
+        primaryReads = metrics.counter("db_reads_total", "Reads by where they were sent.",
+                withLabels(labels, "target", "primary"));
+        for (int i = 0; i < this.replicas.size(); i++) {
+            Replica replica = this.replicas.get(i);
+            String[] replicaLabels = withLabels(labels, "replica", Integer.toString(i));
+            metrics.gauge("db_replica_healthy", "Whether the replica is in rotation: 1 yes, 0 no.",
+                    () -> replica.healthy ? 1 : 0, replicaLabels);
+            metrics.gauge("db_replica_lag_seconds", "Replication lag found by the last check; -1 if unknown.",
+                    () -> replica.lagSeconds, replicaLabels);
+        }
+
+        checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checker.scheduleWithFixedDelay(this::checkAll, 0,
+                Math.max(100, DataSource.parseLong(config, "replica.checkMillis", 2000)), TimeUnit.MILLISECONDS);
+        ALL.add(this);
+        LOG.info("Reads are spread over {} replicas", this.replicas.size());
+    }
+
+    /**
+     * Picks the next healthy replica that has caught up to a write.
+     *
+     * @param lastWriteMillis when the session last wrote, in epoch milliseconds; 0 if it has not
+     * @return the replica, or null if the read must go to the primary
+     */
+    Replica choose(long lastWriteMillis) {
+        long mustInclude = System.currentTimeMillis() - lastWriteMillis < pinMillis ? lastWriteMillis : 0;
+        int count = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), count);
+        for (int i = 0; i < count; i++) {
+            Replica replica = replicas.get((start + i) % count);
+            if (replica.healthy && replica.caughtUpToMillis >= mustInclude
+                    && replica.dataSource.getCircuitBreaker().getState() != CircuitBreaker.State.OPEN) {
+                replicaReads.increment();
+                return replica;
+            }
+        }
+        primaryReads.increment();
+        return null;
+    }
+
+    /**
+     * Takes a replica out of rotation until its next check, after a
+     * connection to it failed.
+     *
+     * @param replica the replica
+     * @param failure the failure
+     */
+    void failed(Replica replica, SQLException failure) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            LOG.warn("Replica {} failed; reading from the others until it is checked again: {}",
+                    replica.name, failure.getMessage());
+        }
+    }
+
+    /**
+     * Gets when a session last wrote, if it was recently enough to matter.
+     *
+     * @param sessionKey identifies the session
+     * @return the time in epoch milliseconds, or 0
+     */
+    static long lastWrite(String sessionKey) {
+        if (ALL.isEmpty()) {
+            return 0;
+        }
+        Long millis = LAST_WRITES.get(sessionKey);
+        return millis == null ? 0 : millis;
+    }
+
+    /**
+     * Gets how long a session's reads must include its last write.
+     *
+     * @return the milliseconds, or 0 while there are no replicas
+     */
+    static long pinMillis() {
+        return ALL.isEmpty() ? 0 : pinMillis;
+    }
+
+    /**
+     * Remembers when a session wrote, while there are replicas to route around it.
+     *
+     * @param sessionKey identifies the session
+     * @param millis     when the write was committed, in epoch milliseconds
+     */
+    static void recordWrite(String sessionKey, long millis) {
+        if (!ALL.isEmpty()) {
+            LAST_WRITES.merge(sessionKey, millis, Math::max);
+        }
+    }
+
+    /**
+     * Stops the checks of all replica sets.
+     */
+    static void shutdown() {
+        for (ReplicaSet set : ALL) {
+            set.checker.shutdownNow();
+        }
+    }
+
+    private void checkAll() {
+        for (Replica replica : replicas) {
+            check(replica);
+        }
+        long expired = System.currentTimeMillis() - pinMillis;
+        LAST_WRITES.values().removeIf(millis -> millis < expired);
+    }
+
+    /**
+     * Checks that a replica can be reached and measures its lag.
+     *
+     * @param replica the replica
+     */
+    private void check(Replica replica) {
+        long checkedAt = System.currentTimeMillis();
+        String problem;
+        try (Connection connection = replica.dataSource.getConnection()) {
+            long lag = lagSeconds(connection);
+            if (lag == -1) {
+                // Nothing to measure: assume it is as far behind as a session's writes are kept to the primary
+                replica.lagSeconds = -1;
+                replica.caughtUpToMillis = checkedAt - pinMillis;
+                problem = null;
+            } else if (lag < 0) {
+                problem = "replication is not running";
+            } else if (TimeUnit.SECONDS.toMillis(lag) > maxLagMillis) {
+                replica.lagSeconds = lag;
+                problem = "it is " + lag + " s behind";
+            } else {
+                replica.lagSeconds = lag;
+                replica.caughtUpToMillis = checkedAt - TimeUnit.SECONDS.toMillis(lag + 1);
+                problem = null;
+            }
+        } catch (SQLException | RuntimeException e) {
+            problem = e.getMessage();
+        }
+        if (problem == null && !replica.healthy) {
+            replica.healthy = true;
+            LOG.info("Replica {} is in rotation", replica.name);
+        } else if (problem != null && replica.healthy) {
+            replica.healthy = false;
+            LOG.warn("Replica {} is out of rotation: {}", replica.name, problem);
+        }
+    }
+
+    /**
+     * Runs the lag query, if any. MySQL's SHOW REPLICA STATUS (or the older
+     * SHOW SLAVE STATUS) is read by column name; any other query must return
+     * the lag in seconds in its first column.
+     *
+     * @param connection a connection to the replica
+     * @return the lag in seconds; -1 if there is no lag query; -2 if
+     * replication is not running (no row, or a NULL lag)
+     * @throws SQLException if the replica cannot be queried
+     */
+    private long lagSeconds(Connection connection) throws SQLException {
+        if (lagQuery == null) {
+            if (!connection.isValid(5)) {
+                throw new SQLException("the connection is not valid");
+            }
+            return -1;
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(lagQuery)) {
+            if (!rows.next()) {
+                return -2;
+            }
+            long lag = rows.getLong(lagColumn(rows));
+            return rows.wasNull() ? -2 : lag;
+        }
+    }
+
+    private static int lagColumn(ResultSet rows) throws SQLException {
+        for (String name : new String[] { "Seconds_Behind_Source", "Seconds_Behind_Master" }) {
+            try {
+                return rows.findColumn(name);
+            } catch (SQLException e) {
+                // Not this server version's name
+            }
+        }
+        return 1;
+    }
+
+    private static String[] withLabels(String[] labels, String name, String value) {
+        String[] all = Arrays.copyOf(labels, labels.length + 2);
+        all[labels.length] = name;
+        all[labels.length + 1] = value;
+        return all;
+    }
+}
@@ -0,0 +1,655 @@
+package dataaccesslayer;
+
+import java.sql.SQLTimeoutException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import monitoring.Logger;
+
+/*******************************************************************************
+ * RequestContext
+ * Carries request-scoped state from the view layer down to the data access
+ * layer without threading extra parameters through every service and DAO
+ * method. The front controller opens a context at the start of a request and
+ * closes it at the end; in between, code on the same thread can read it
+ * through {@link #current()}.
+ *
+ * The main piece of state is the request deadline. DAO calls derive their
+ * statement query timeout and connection timeouts from the time remaining,
+ * and refuse to start new work once the deadline has passed, so a request's
+ * latency is bounded by its budget rather than by MySQL's worst case.
+ *
+ * The context also records whether any database call failed during the
+ * request (a call refused because the deadline has passed counts as one, so
+ * last known good data can stand in for it and callers can stop early) and
+ * whether the response contains stale (last known good) data,
+ * and carries the request id, which it hands to the {@link Logger} so every
+ * log entry written while the request is handled can be correlated.
+ *
+ * It also counts the statements, connections and rows of the request and
+ * how often each SQL text ran, for the request's {@link QueryBudget} (the
+ * chunks of one IN-list lookup count as one run), and, when
+ * timings are enabled, adds up the time spent in each DAO method and in
+ * acquiring connections for the {@code Server-Timing} response header.
+ *
+ * Finally, for read replicas, it knows the user's session and when that
+ * session last wrote, so its reads can be kept to data that includes its
+ * own writes, and records how far behind the replicas it read from were.
+ *
+ * @see RequestContext
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Thread-scoped request state such as the request deadline.
+ ******************************************************************************/
+
+public final class RequestContext {
+
+    /** The context of the request being handled by the current thread. */
+    private static final ThreadLocal<RequestContext> CURRENT = new ThreadLocal<>();
+
+    /** Identifies the request in log entries. */
+    private final String requestId;
+
+    /** The action being handled, for diagnostics. */
+    private final String action;
+
+    /** Deadline as a System.nanoTime() value; Long.MAX_VALUE if the request has none. */
+    private final long deadlineNanos;
+
+    /** Number of database calls that failed during this request. */
+    private int databaseFailures;
+
+    /** Whether a database call was refused because the deadline had passed. */
+    private boolean deadlineExceeded;
+
+    /** Whether last known good data was served in place of a failed read. */
+    private boolean servedStale;
+
+    /** Limits checked as statements run; null for none. */
+    private QueryBudget queryBudget;
+
+    /** Statements executed (round trips), connections opened and rows fetched or affected. */
+    private int statements;
+    private int connections;
+    private long rows;
+
+    /** Nanoseconds spent connecting to and holding database connections, summed over connections. */
+    private long databaseNanos;
+
+    /** Executions per SQL text; created on the first statement. */
+    private Map<String, int[]> executionsBySql;
+
+    /** SQL texts already counted in the chunked query running on this thread; null outside one. */
+    private Set<String> chunkedSql;
+
+    /** The SQL text run most often, and how often. */
+    private String mostRepeatedSql;
+    private int mostRepeatedCount;
+
+    /** Total nanoseconds and count per phase, in order of first use; null unless timings are enabled. */
+    private Map<String, long[]> timings;
+
+    /** Identifies the user's session for read-your-writes; null if unknown. */
+    private String sessionKey;
+
+    /** When the session last wrote, in epoch milliseconds; 0 if not recently. */
+    private long lastWriteMillis;
+
+    /** When this request last committed a write, in epoch milliseconds; 0 if it has not. */
+    private long writtenMillis;
+
+    /** Epoch milliseconds up to which every replica read of this request was current; Long.MAX_VALUE if none. */
+    private long replicaCaughtUpMillis = Long.MAX_VALUE;
+
+    /**
+     * Creates a context.
+     *
+     * @param requestId     the request id
+     * @param action        the action being handled
+     * @param deadlineNanos the deadline as a System.nanoTime() value
+     */
+    private RequestContext(String requestId, String action, long deadlineNanos) {
+        this.requestId = requestId;
+        this.action = action;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Opens a context for the current thread with a new request id.
+     *
+     * @param action       the action being handled (may be null)
+     * @param budgetMillis the time budget for the request; 0 or less means no deadline
+     * @return the new context
+     */
+    public static RequestContext begin(String action, long budgetMillis) {
+        return begin(newRequestId(), action, budgetMillis);
+    }
+
+    /**
+     * Opens a context for the current thread.
+     *
+     * @param requestId    the request id
+     * @param action       the action being handled (may be null)
+     * @param budgetMillis the time budget for the request; 0 or less means no deadline
+     * @return the new context
+     */
+    public static RequestContext begin(String requestId, String action, long budgetMillis) {
+        long deadline = budgetMillis > 0
+                ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis)
+                : Long.MAX_VALUE;
+        RequestContext context = new RequestContext(requestId, action, deadline);
+        CURRENT.set(context);
+        Logger.setContext(requestId, action);
+        return context;
+    }
+
+    /**
+     * Closes the context of the current thread.
+     */
+    public static void end() {
+        CURRENT.remove();
+        Logger.clearContext();
+    }
+
+    /**
+     * Opens a context on a worker thread doing part of a request handled by
+     * another thread, such as one shard's query of a scatter-gather read. It
+     * has the request's id, action and deadline, and records its own
+     * statements and failures, which {@link #join(RequestContext)} adds to the
+     * request's afterwards. The query budget is not checked on it. Close it
+     * with {@link #end()}.
+     *
+     * @param parent the request's context, or null
+     * @return the new context, or null if parent is null
+     */
+    static RequestContext fork(RequestContext parent) {
+        if (parent == null) {
+            return null;
+        }
+        RequestContext context = new RequestContext(parent.requestId, parent.action, parent.deadlineNanos);
+        if (parent.timings != null) {
+            context.timings = new LinkedHashMap<>();
+        }
+        context.sessionKey = parent.sessionKey;
+        context.lastWriteMillis = parent.lastWriteMillis;
+        CURRENT.set(context);
+        Logger.setContext(parent.requestId, parent.action);
+        return context;
+    }
+
+    /**
+     * Adds what a forked context recorded to this one. Must be called on
+     * this context's thread, after the worker has finished.
+     *
+     * @param child the forked context
+     */
+    void join(RequestContext child) {
+        databaseFailures += child.databaseFailures;
+        deadlineExceeded |= child.deadlineExceeded;
+        servedStale |= child.servedStale;
+        statements += child.statements;
+        connections += child.connections;
+        rows += child.rows;
+        databaseNanos += child.databaseNanos;
+        lastWriteMillis = Math.max(lastWriteMillis, child.lastWriteMillis);
+        writtenMillis = Math.max(writtenMillis, child.writtenMillis);
+        replicaCaughtUpMillis = Math.min(replicaCaughtUpMillis, child.replicaCaughtUpMillis);
+        if (child.executionsBySql != null) {
+            if (executionsBySql == null) {
+                executionsBySql = new HashMap<>();
+            }
+            for (Map.Entry<String, int[]> entry : child.executionsBySql.entrySet()) {
+                int repeats = executionsBySql.computeIfAbsent(entry.getKey(), key -> new int[1])[0] += entry.getValue()[0];
+                if (repeats > mostRepeatedCount) {
+                    mostRepeatedCount = repeats;
+                    mostRepeatedSql = entry.getKey();
+                }
+            }
+        }
+        if (timings != null && child.timings != null) {
+            for (Map.Entry<String, long[]> entry : child.timings.entrySet()) {
+                long[] total = timings.computeIfAbsent(entry.getKey(), key -> new long[2]);
+                total[0] += entry.getValue()[0];
+                total[1] += entry.getValue()[1];
+            }
+        }
+    }
+
+    /**
+     * Generates a request id: 16 random hex digits.
+     *
+     * @return the id
+     */
+    public static String newRequestId() {
+        return String.format("%016x", ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Returns the context of the current thread.
+     *
+     * @return the context, or null if no request is being handled
+     */
+    public static RequestContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Gets the request id.
+     *
+     * @return the request id
+     */
+    public String getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * Gets the action being handled.
+     *
+     * @return the action name, or null
+     */
+    public String getAction() {
+        return action;
+    }
+
+    /**
+     * Checks whether the request has a deadline.
+     *
+     * @return true if a time budget was set
+     */
+    public boolean hasDeadline() {
+        return deadlineNanos != Long.MAX_VALUE;
+    }
+
+    /**
+     * Gets the time left until the deadline.
+     *
+     * @return the remaining milliseconds (negative once passed), or Long.MAX_VALUE without a deadline
+     */
+    public long remainingMillis() {
+        if (!hasDeadline()) {
+            return Long.MAX_VALUE;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+
+    /**
+     * Checks whether the deadline has passed.
+     *
+     * @return true if the request is out of time
+     */
+    public boolean isExpired() {
+        return hasDeadline() && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * Gets the number of database calls that failed during this request.
+     *
+     * @return the failure count
+     */
+    public int getDatabaseFailures() {
+        return databaseFailures;
+    }
+
+    /**
+     * Checks whether a database call of this request was refused because the
+     * deadline had passed, so the DAO returned an empty or missing result for it.
+     *
+     * @return true if the request ran out of time for its database work
+     */
+    public boolean isDeadlineExceeded() {
+        return deadlineExceeded;
+    }
+
+    /**
+     * Checks whether stale data was served during this request.
+     *
+     * @return true if at least one read fell back to last known good data
+     */
+    public boolean isServedStale() {
+        return servedStale;
+    }
+
+    /**
+     * Sets the query budget checked as statements run.
+     *
+     * @param queryBudget the budget, or null for none
+     */
+    public void setQueryBudget(QueryBudget queryBudget) {
+        this.queryBudget = queryBudget;
+    }
+
+    /**
+     * Gets the time this request spent connecting to the database or holding
+     * connections, summed over connections (work on parallel connections
+     * counts once for each).
+     *
+     * @return the nanoseconds; 0 if it did no database work
+     */
+    public long getDatabaseNanos() {
+        return databaseNanos;
+    }
+
+    /**
+     * Gets the number of statements executed during this request.
+     *
+     * @return the statement count
+     */
+    public int getStatements() {
+        return statements;
+    }
+
+    /**
+     * Gets the number of connections opened during this request.
+     *
+     * @return the connection count
+     */
+    public int getConnections() {
+        return connections;
+    }
+
+    /**
+     * Gets the number of rows fetched or affected during this request.
+     *
+     * @return the row count
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets the SQL text executed most often during this request.
+     *
+     * @return the SQL, or null if no statement ran
+     */
+    public String getMostRepeatedSql() {
+        return mostRepeatedSql;
+    }
+
+    /**
+     * Gets how often the most repeated SQL text was executed.
+     *
+     * @return the execution count
+     */
+    public int getMostRepeatedCount() {
+        return mostRepeatedCount;
+    }
+
+    /**
+     * Starts adding up the time spent in each phase of this request.
+     */
+    public void enableTimings() {
+        if (timings == null) {
+            timings = new LinkedHashMap<>();
+        }
+    }
+
+    /**
+     * Gets the time spent in each phase of this request.
+     *
+     * @return total nanoseconds and count by phase name, or null if timings are not enabled
+     */
+    public Map<String, long[]> getTimings() {
+        return timings;
+    }
+
+    /**
+     * Sets the user's session, so reads from replicas can be kept to data
+     * that includes the session's recent writes: those recorded on this node
+     * and the one the client carried from another node.
+     *
+     * @param sessionKey   identifies the session, or null if there is none
+     * @param carriedWrite when the session last wrote, as carried by the
+     *                     client in epoch milliseconds; 0 if it carried none
+     */
+    public void setSessionKey(String sessionKey, long carriedWrite) {
+        this.sessionKey = sessionKey;
+        this.lastWriteMillis = Math.max(carriedWrite, sessionKey == null ? 0 : ReplicaSet.lastWrite(sessionKey));
+    }
+
+    /**
+     * Gets when the session last wrote: through this request, on this node,
+     * or as carried by the client from another node.
+     *
+     * @return the time in epoch milliseconds, or 0 if it has not written recently
+     */
+    public long getLastWriteMillis() {
+        return lastWriteMillis;
+    }
+
+    /**
+     * Gets when this request last committed a write, so the time can go
+     * with the session's next request to whichever node takes it.
+     *
+     * @return the time in epoch milliseconds, or 0 if it did not write
+     */
+    public long getWrittenMillis() {
+        return writtenMillis;
+    }
+
+    /**
+     * Gets how long after a write the session's reads must include it.
+     *
+     * @return the milliseconds, or 0 if there are no replicas to keep reads from
+     */
+    public static long getWritePinMillis() {
+        return ReplicaSet.pinMillis();
+    }
+
+    /**
+     * Gets the time up to which all the replica reads of this request were
+     * current: data committed before it was seen by every read.
+     *
+     * @return the time in epoch milliseconds, or Long.MAX_VALUE if nothing was read from a replica
+     */
+    public long getReplicaCaughtUpMillis() {
+        return replicaCaughtUpMillis;
+    }
+
+    /**
+     * Records that stale data was served.
+     */
+    void markServedStale() {
+        servedStale = true;
+    }
+
+    /**
+     * Records a failed database call on the current request, if any.
+     */
+    static void recordDatabaseFailure() {
+        RequestContext context = CURRENT.get();
+        if (context != null) {
+            context.databaseFailures++;
+        }
+    }
+
+    /**
+     * Records that the current request, if any, committed a write, for the
+     * rest of the request and the session's later requests.
+     */
+    static void recordWrite() {
+        RequestContext context = CURRENT.get();
+        if (context != null) {
+            context.lastWriteMillis = System.currentTimeMillis();
+            context.writtenMillis = context.lastWriteMillis;
+            if (context.sessionKey != null) {
+                ReplicaSet.recordWrite(context.sessionKey, context.lastWriteMillis);
+            }
+        }
+    }
+
+    /**
+     * Gets when the current request's session last wrote.
+     *
+     * @return the time in epoch milliseconds, or 0 if it has not written recently or there is no request
+     */
+    static long lastWriteMillis() {
+        RequestContext context = CURRENT.get();
+        return context == null ? 0 : context.lastWriteMillis;
+    }
+
+    /**
+     * Records a connection to a replica opened by the current request, if any.
+     *
+     * @param caughtUpToMillis epoch milliseconds up to which the replica has the primary's commits
+     */
+    static void recordReplicaRead(long caughtUpToMillis) {
+        RequestContext context = CURRENT.get();
+        if (context != null) {
+            context.replicaCaughtUpMillis = Math.min(context.replicaCaughtUpMillis, caughtUpToMillis);
+        }
+    }
+
+    /**
+     * Records a connection opened by the current request, if any.
+     */
+    static void recordConnection() {
+        RequestContext context = CURRENT.get();
+        if (context != null) {
+            context.connections++;
+        }
+    }
+
+    /**
+     * Records a statement about to run on the current request, if any, and
+     * checks it against the request's query budget.
+     *
+     * @param sql the SQL text, or null if unknown
+     * @throws QueryBudgetExceededException if the budget is exceeded in FAIL mode
+     */
+    static void recordStatement(String sql) {
+        RequestContext context = CURRENT.get();
+        if (context == null) {
+            return;
+        }
+        context.statements++;
+        int repeats = 0;
+        if (sql != null) {
+            if (context.executionsBySql == null) {
+                context.executionsBySql = new HashMap<>();
+            }
+            int[] executions = context.executionsBySql.computeIfAbsent(sql, key -> new int[1]);
+            // A further chunk of the same lookup is not a repeat: its size does not grow with the page
+            repeats = context.chunkedSql == null || context.chunkedSql.add(sql) ? ++executions[0] : executions[0];
+            if (repeats > context.mostRepeatedCount) {
+                context.mostRepeatedCount = repeats;
+                context.mostRepeatedSql = sql;
+            }
+        }
+        if (context.queryBudget != null) {
+            context.queryBudget.beforeStatement(context, sql, repeats);
+        }
+    }
+
+    /**
+     * Marks the statements run on this thread, until
+     * {@link #endChunkedQuery()}, as the chunks of one logical query, such as
+     * the IN-lists of one multi-key lookup: each SQL text among them counts
+     * once toward the query budget's repeat limit, however many chunks share
+     * it. Every chunk still counts as a statement.
+     */
+    static void beginChunkedQuery() {
+        RequestContext context = CURRENT.get();
+        if (context != null) {
+            context.chunkedSql = new HashSet<>();
+        }
+    }
+
+    /**
+     * Ends the logical query started by {@link #beginChunkedQuery()}.
+     */
+    static void endChunkedQuery() {
+        RequestContext context = CURRENT.get();
+        if (context != null) {
+            context.chunkedSql = null;
+        }
+    }
+
+    /**
+     * Records time the current request, if any, spent connecting to the
+     * database or holding a connection.
+     *
+     * @param nanos the time spent
+     */
+    static void recordDatabaseTime(long nanos) {
+        RequestContext context = CURRENT.get();
+        if (context != null) {
+            context.databaseNanos += nanos;
+        }
+    }
+
+    /**
+     * Adds time spent in a phase to the current request, if its timings are enabled.
+     *
+     * @param phase the phase name
+     * @param nanos the time spent
+     */
+    static void recordTiming(String phase, long nanos) {
+        RequestContext context = CURRENT.get();
+        if (context != null && context.timings != null) {
+            long[] total = context.timings.computeIfAbsent(phase, key -> new long[2]);
+            total[0] += nanos;
+            total[1]++;
+        }
+    }
+
+    /**
+     * Records rows fetched or affected by a statement of the current request, if any.
+     *
+     * @param count the row count
+     */
+    static void recordRows(long count) {
+        RequestContext context = CURRENT.get();
+        if (context != null && count > 0) {
+            context.rows += count;
+        }
+    }
+
+    /**
+     * Fails if the current request is out of time, so no new database work is started.
+     *
+     * @throws SQLTimeoutException if the deadline has passed
+     */
+    static void checkDeadline() throws SQLTimeoutException {
+        RequestContext context = CURRENT.get();
+        if (context != null && context.isExpired()) {
+            throw context.deadlineExceeded();
+        }
+    }
+
+    /**
+     * Computes the JDBC query timeout for a statement from the time remaining.
+     *
+     * @return the timeout in whole seconds (at least 1), or 0 (no timeout) without a deadline
+     * @throws SQLTimeoutException if the deadline has already passed
+     */
+    static int queryTimeoutSeconds() throws SQLTimeoutException {
+        RequestContext context = CURRENT.get();
+        if (context == null || !context.hasDeadline()) {
+            return 0;
+        }
+        long remaining = context.remainingMillis();
+        if (remaining <= 0) {
+            throw context.deadlineExceeded();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(1, (remaining + 999) / 1000));
+    }
+
+    /**
+     * Records a database call refused because the deadline has passed as a
+     * failed call: the DAO returns an empty result for it, which must not be
+     * taken for a real one.
+     *
+     * @return the exception to throw in place of the call
+     */
+    private SQLTimeoutException deadlineExceeded() {
+        deadlineExceeded = true;
+        databaseFailures++;
+        return new SQLTimeoutException("Request deadline exceeded (action " + action + ")");
+    }
+}
@@ -0,0 +1,61 @@
+package dataaccesslayer;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import transferobjects.AuthorDTO;
+import transferobjects.TitleDTO;
+
+/*******************************************************************************
+ * ResultSetMappers
+ * Converts the current row of a result set into a transfer object. Shared by
+ * the DAO implementations so every query selecting the same columns maps them
+ * the same way, and so the mapping can be benchmarked on its own.
+ *
+ * @see AuthorDAOImpl
+ * @see TitleDAOImpl
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Row-to-DTO mapping for authors and titles.
+ ******************************************************************************/
+
+final class ResultSetMappers {
+
+    /**
+     * Not instantiable.
+     */
+    private ResultSetMappers() {
+    }
+
+    /**
+     * Maps a row with the AuthorID, FirstName and LastName columns.
+     *
+     * @param resultSet the result set, positioned on a row
+     * @return the author
+     * @throws SQLException if a column cannot be read
+     */
+    static AuthorDTO toAuthor(ResultSet resultSet) throws SQLException {
+        AuthorDTO author = new AuthorDTO();
+        author.setId(resultSet.getInt("AuthorID"));
+        author.setFirstName(resultSet.getString("FirstName"));
+        author.setLastName(resultSet.getString("LastName"));
+        return author;
+    }
+
+    /**
+     * Maps a row with the ISBN, Title, EditionNumber and Copyright columns.
+     *
+     * @param resultSet the result set, positioned on a row
+     * @return the title
+     * @throws SQLException if a column cannot be read
+     */
+    static TitleDTO toTitle(ResultSet resultSet) throws SQLException {
+        TitleDTO title = new TitleDTO();
+        title.setIsbn(resultSet.getString("ISBN"));
+        title.setTitle(resultSet.getString("Title"));
+        title.setEditionNumber(resultSet.getInt("EditionNumber"));
+        title.setCopyright(resultSet.getString("Copyright"));
+        return title;
+    }
+}
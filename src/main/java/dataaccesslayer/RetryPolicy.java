@@ -0,0 +1,241 @@
+package dataaccesslayer;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import monitoring.Logger;
+import monitoring.MetricsRegistry;
+
+/*******************************************************************************
+ * RetryPolicy
+ * Decides whether a failed write transaction is run again. Only failures
+ * that say nothing about the write itself are retried:
+ *
+ *   - deadlock:   InnoDB chose the transaction as a deadlock victim (error
+ *                 1213, SQLSTATE 40001) and rolled it back.
+ *   - lock_wait:  a lock was not granted within innodb_lock_wait_timeout
+ *                 (error 1205); the transaction is rolled back before the
+ *                 retry.
+ *   - connection: the connection could not be opened or was lost (SQLSTATE
+ *                 class 08). The server rolls back an unfinished transaction
+ *                 of a lost connection, but if the commit itself was lost
+ *                 it cannot tell whether the transaction was committed, so
+ *                 such a write is only retried if running it twice does no
+ *                 harm.
+ *
+ * Before each retry the thread sleeps for a random time of up to
+ * {@code dao.retry.baseMillis}, doubled at every retry up to
+ * {@code dao.retry.maxMillis} ("full jitter"), so writers that collided do
+ * not collide again in step; no retry is made if the pause would not leave
+ * time before the deadline. Retries also draw on a budget: each takes one
+ * of up to {@code dao.retry.budgetTokens} tokens and each successful write
+ * returns {@code dao.retry.budgetPercent} percent of one, so when most
+ * writes fail, retries stop instead of adding to the load.
+ *
+ * @see TransactionTemplate
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Retry with jittered exponential backoff for transient SQL errors.
+ ******************************************************************************/
+
+final class RetryPolicy {
+
+    private static final Logger LOG = Logger.getLogger(RetryPolicy.class);
+
+    /** MySQL error codes of a deadlock and a lock wait timeout. */
+    private static final int ER_LOCK_DEADLOCK = 1213;
+    private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+
+    /** Thousandths of a token in one token. */
+    private static final long TOKEN = 1000;
+
+    private static volatile RetryPolicy instance;
+
+    /** Why a failure may be retried. */
+    enum Reason { DEADLOCK, LOCK_WAIT, CONNECTION }
+
+    private final int maxAttempts;
+    private final long baseMillis;
+    private final long maxMillis;
+    private final long capacity;
+    private final long refill;
+    /** The retry budget, in thousandths of a token. */
+    private final AtomicLong tokens;
+
+    private final LongAdder[] retries = new LongAdder[Reason.values().length];
+    private final LongAdder recovered;
+    private final LongAdder exhaustedAttempts;
+    private final LongAdder exhaustedBudget;
+    private final LongAdder exhaustedDeadline;
+    private final LongAdder commitUnknown;
+
+    /**
+     * Creates a policy.
+     *
+     * @param maxAttempts   most runs of one write, the first included
+     * @param baseMillis    longest pause before the first retry
+     * @param maxMillis     longest pause before any retry
+     * @param budgetTokens  most retries made without successful writes in between
+     * @param budgetPercent share of a retry earned by each successful write
+     */
+    RetryPolicy(int maxAttempts, long baseMillis, long maxMillis, long budgetTokens, long budgetPercent) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseMillis = Math.max(1, baseMillis);
+        this.maxMillis = Math.max(this.baseMillis, maxMillis);
+        this.capacity = Math.max(0, budgetTokens) * TOKEN;
+        this.refill = Math.max(0, budgetPercent) * TOKEN / 100;
+        this.tokens = new AtomicLong(capacity);
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        for (Reason reason : Reason.values()) {
+            retries[reason.ordinal()] = metrics.counter("db_retries_total", "Write transactions run again, by cause.",
+                    "reason", reason.name().toLowerCase());
+        }
+        recovered = metrics.counter("db_retry_recovered_total", "Write transactions that succeeded after a retry.");
+        exhaustedAttempts = metrics.counter("db_retries_exhausted_total",
+                "Retryable write failures that were not retried, by why.", "cause", "attempts");
+        exhaustedBudget = metrics.counter("db_retries_exhausted_total",
+                "Retryable write failures that were not retried, by why.", "cause", "budget");
+        exhaustedDeadline = metrics.counter("db_retries_exhausted_total",
+                "Retryable write failures that were not retried, by why.", "cause", "deadline");
+        commitUnknown = metrics.counter("db_retries_exhausted_total",
+                "Retryable write failures that were not retried, by why.", "cause", "commit_unknown");
+        metrics.gauge("db_retry_budget_tokens", "Retries that can be made now.", () -> tokens.get() / TOKEN);
+    }
+
+    /**
+     * Gets the policy configured in database.properties, creating it on first use.
+     *
+     * @return the policy
+     */
+    static RetryPolicy getInstance() {
+        if (instance == null) {
+            synchronized (RetryPolicy.class) {
+                if (instance == null) {
+                    Properties props = DataSource.loadConfiguration();
+                    instance = new RetryPolicy(
+                            (int) DataSource.parseLong(props, "dao.retry.maxAttempts", 4),
+                            DataSource.parseLong(props, "dao.retry.baseMillis", 20),
+                            DataSource.parseLong(props, "dao.retry.maxMillis", 500),
+                            DataSource.parseLong(props, "dao.retry.budgetTokens", 20),
+                            DataSource.parseLong(props, "dao.retry.budgetPercent", 10));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Tells why a failure may be retried.
+     *
+     * @param failure the failure
+     * @return the reason, or null if it must not be retried
+     */
+    static Reason classify(SQLException failure) {
+        // A batch failure can carry the driver's exception as its cause
+        for (Throwable e = failure; e instanceof SQLException; e = e.getCause()) {
+            SQLException sql = (SQLException) e;
+            String state = sql.getSQLState();
+            // Depending on its version and settings, Connector/J reports a lock wait
+            // timeout as a rollback or a timeout exception, so the codes come first
+            if (sql.getErrorCode() == ER_LOCK_WAIT_TIMEOUT) {
+                return Reason.LOCK_WAIT;
+            }
+            if (sql.getErrorCode() == ER_LOCK_DEADLOCK || "40001".equals(state)) {
+                return Reason.DEADLOCK;
+            }
+            if (sql instanceof SQLTimeoutException) {
+                // A query timeout or the deadline: no time for another attempt
+                return null;
+            }
+            if (sql instanceof SQLTransactionRollbackException) {
+                return Reason.DEADLOCK;
+            }
+            if (state != null && state.startsWith("08")) {
+                return Reason.CONNECTION;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decides whether to run a failed write again, and if so waits for the
+     * pause before it.
+     *
+     * @param failure       the failure
+     * @param attempt       the number of the run that failed, from 1
+     * @param inCommit      whether the failure came from the commit
+     * @param idempotent    whether running the write twice does no harm
+     * @param deadlineNanos the operation's deadline as a System.nanoTime() value; Long.MAX_VALUE for none
+     * @return true to run it again
+     */
+    boolean retry(SQLException failure, int attempt, boolean inCommit, boolean idempotent, long deadlineNanos) {
+        Reason reason = classify(failure);
+        if (reason == null) {
+            return false;
+        }
+        if (reason == Reason.CONNECTION && inCommit && !idempotent) {
+            commitUnknown.increment();
+            return false;
+        }
+        if (attempt >= maxAttempts) {
+            exhaustedAttempts.increment();
+            return false;
+        }
+        long ceiling = Math.min(maxMillis, baseMillis << Math.min(attempt - 1, 30));
+        long pauseMillis = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        long remaining = remainingMillis(deadlineNanos);
+        if (pauseMillis >= remaining) {
+            exhaustedDeadline.increment();
+            return false;
+        }
+        if (tokens.getAndUpdate(t -> t >= TOKEN ? t - TOKEN : t) < TOKEN) {
+            exhaustedBudget.increment();
+            return false;
+        }
+        retries[reason.ordinal()].increment();
+        LOG.debug("Retrying a write in {} ms after attempt {} failed ({}): {}", pauseMillis, attempt,
+                reason.name().toLowerCase(), failure.getMessage());
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records a successful write, refilling the retry budget.
+     *
+     * @param attempts how many runs it took
+     */
+    void succeeded(int attempts) {
+        if (attempts > 1) {
+            recovered.increment();
+        }
+        if (refill > 0) {
+            tokens.getAndUpdate(t -> Math.min(capacity, t + refill));
+        }
+    }
+
+    /**
+     * Gets the time left to both the operation and the request.
+     *
+     * @param deadlineNanos the operation's deadline, or Long.MAX_VALUE
+     * @return the milliseconds left, or Long.MAX_VALUE without any deadline
+     */
+    private static long remainingMillis(long deadlineNanos) {
+        long remaining = deadlineNanos == Long.MAX_VALUE ? Long.MAX_VALUE
+                : TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+        RequestContext context = RequestContext.current();
+        return context == null ? remaining : Math.min(remaining, context.remainingMillis());
+    }
+}
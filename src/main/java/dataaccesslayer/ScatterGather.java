@@ -0,0 +1,215 @@
+package dataaccesslayer;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*******************************************************************************
+ * ScatterGather
+ * Runs a read on every title shard in parallel and merges the results. The
+ * first shard is read on the calling thread and the others on a small shared
+ * pool ({@code shard.fanOutThreads} in database.properties), each under a
+ * {@linkplain RequestContext#fork(RequestContext) fork} of the request's
+ * context, so the request's deadline applies to them and their statements
+ * and failures are counted on the request once they have finished.
+ *
+ * With a single shard the read simply runs on the calling thread.
+ *
+ * @see DataSource#getShards()
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Parallel reads over the title shards.
+ ******************************************************************************/
+
+final class ScatterGather {
+
+    private static volatile ExecutorService executor;
+
+    /**
+     * A read of one shard.
+     *
+     * @param <T> the row type
+     */
+    @FunctionalInterface
+    interface ShardRead<T> {
+
+        /**
+         * Reads from a shard.
+         *
+         * @param shard the shard's data source
+         * @return the rows read
+         * @throws SQLException if the read fails
+         */
+        List<T> read(DataSource shard) throws SQLException;
+    }
+
+    /**
+     * Not instantiable.
+     */
+    private ScatterGather() {
+    }
+
+    /**
+     * Runs a read on each shard, all at the same time.
+     *
+     * @param <T>    the row type
+     * @param shards the shards
+     * @param read   the read
+     * @return the rows of each shard, in shard order
+     * @throws SQLException if the read failed on any shard (after all have finished)
+     */
+    static <T> List<List<T>> scatter(List<DataSource> shards, ShardRead<T> read) throws SQLException {
+        if (shards.size() == 1) {
+            return List.of(read.read(shards.get(0)));
+        }
+        RequestContext parent = RequestContext.current();
+        List<Future<Part<T>>> futures = new ArrayList<>(shards.size() - 1);
+        for (DataSource shard : shards.subList(1, shards.size())) {
+            futures.add(executor().submit(() -> {
+                RequestContext context = RequestContext.fork(parent);
+                try {
+                    return new Part<>(read.read(shard), context, null);
+                } catch (SQLException | RuntimeException e) {
+                    return new Part<>(null, context, e);
+                } finally {
+                    if (context != null) {
+                        RequestContext.end();
+                    }
+                }
+            }));
+        }
+
+        List<List<T>> results = new ArrayList<>(shards.size());
+        Exception failure = null;
+        try {
+            results.add(read.read(shards.get(0)));
+        } catch (SQLException | RuntimeException e) {
+            failure = e;
+        }
+        for (Future<Part<T>> future : futures) {
+            Part<T> part;
+            try {
+                part = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = combine(failure, new SQLException("Interrupted while waiting for a shard", e));
+                continue;
+            } catch (ExecutionException e) {
+                failure = combine(failure, new SQLException("Shard read failed", e.getCause()));
+                continue;
+            }
+            if (parent != null && part.context != null) {
+                parent.join(part.context);
+            }
+            if (part.failure != null) {
+                failure = combine(failure, part.failure);
+            } else {
+                results.add(part.rows);
+            }
+        }
+        if (failure instanceof SQLException) {
+            throw (SQLException) failure;
+        } else if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+        return results;
+    }
+
+    /**
+     * Merges rows that each shard returned in order into one ordered list.
+     *
+     * @param <T>   the row type
+     * @param parts the rows of each shard, each sorted by order
+     * @param order the order
+     * @param limit the most rows returned
+     * @return the first limit rows of all shards, in order
+     */
+    static <T> List<T> merge(List<List<T>> parts, Comparator<? super T> order, int limit) {
+        if (parts.size() == 1) {
+            List<T> only = parts.get(0);
+            return only.size() <= limit ? only : new ArrayList<>(only.subList(0, limit));
+        }
+        // Each entry is {part, position}: the next row of a part not yet taken
+        PriorityQueue<int[]> next = new PriorityQueue<>(parts.size(),
+                (a, b) -> order.compare(parts.get(a[0]).get(a[1]), parts.get(b[0]).get(b[1])));
+        int total = 0;
+        for (int i = 0; i < parts.size(); i++) {
+            total += parts.get(i).size();
+            if (!parts.get(i).isEmpty()) {
+                next.add(new int[] { i, 0 });
+            }
+        }
+        List<T> merged = new ArrayList<>(Math.min(total, limit));
+        while (merged.size() < limit && !next.isEmpty()) {
+            int[] head = next.poll();
+            List<T> part = parts.get(head[0]);
+            merged.add(part.get(head[1]));
+            if (++head[1] < part.size()) {
+                next.add(head);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Stops the pool threads, if the pool was created.
+     */
+    static void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Exception combine(Exception first, Exception next) {
+        if (first == null) {
+            return next;
+        }
+        first.addSuppressed(next);
+        return first;
+    }
+
+    private static ExecutorService executor() {
+        if (executor == null) {
+            synchronized (ScatterGather.class) {
+                if (executor == null) {
+                    int threads = (int) Math.max(1, DataSource.parseLong(DataSource.loadConfiguration(),
+                            "shard.fanOutThreads", 16));
+                    AtomicInteger count = new AtomicInteger();
+                    executor = Executors.newFixedThreadPool(threads, runnable -> {
+                        Thread thread = new Thread(runnable, "shard-read-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * What a worker read, with its context.
+     *
+     * @param <T> the row type
+     */
+    private static final class Part<T> {
+
+        final List<T> rows;
+        final RequestContext context;
+        final Exception failure;
+
+        Part(List<T> rows, RequestContext context, Exception failure) {
+            this.rows = rows;
+            this.context = context;
+            this.failure = failure;
+        }
+    }
+}
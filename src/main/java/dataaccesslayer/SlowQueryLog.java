@@ -0,0 +1,171 @@
+package dataaccesslayer;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import monitoring.AsyncFileAppender;
+import monitoring.Logger;
+import monitoring.MetricsRegistry;
+
+/*******************************************************************************
+ * SlowQueryLog
+ * Writes statement executions that take longer than a threshold to a
+ * separate rolling log file, with the SQL text, bound parameters, rows
+ * returned, duration and the front controller action that ran them. A
+ * configurable fraction of the faster executions is logged too, so normal
+ * traffic (such as the per-row author lookups of the title listing) can be
+ * seen as well.
+ *
+ * Lines are written by a background thread ({@link AsyncFileAppender}); if it
+ * falls behind, lines are dropped and counted rather than slowing queries.
+ *
+ * Configured in database.properties:
+ *
+ *   slowQuery.file          log file; relative paths are resolved against
+ *                           ${catalina.base}/logs (or the working directory);
+ *                           empty disables the log
+ *   slowQuery.thresholdMillis  executions at or above this are always logged
+ *   slowQuery.sampleRate    fraction (0-1) of faster executions logged
+ *   slowQuery.maxFileBytes  size at which the file is rolled
+ *   slowQuery.maxFiles      rolled files kept
+ *   slowQuery.queueSize     lines buffered before lines are dropped
+ *
+ * @see SlowQueryLog
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Threshold and sampling based slow query log.
+ ******************************************************************************/
+
+final class SlowQueryLog implements JdbcListener {
+
+    private static final Logger LOG = Logger.getLogger(SlowQueryLog.class);
+
+    private final AsyncFileAppender appender;
+    private final long thresholdNanos;
+    private final double sampleRate;
+
+    /**
+     * Creates a slow query log.
+     *
+     * @param appender        where the lines go
+     * @param thresholdMillis duration at or above which an execution is always logged
+     * @param sampleRate      fraction of faster executions that is logged
+     */
+    SlowQueryLog(AsyncFileAppender appender, long thresholdMillis, double sampleRate) {
+        this.appender = appender;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, thresholdMillis));
+        this.sampleRate = Math.max(0, Math.min(1, sampleRate));
+        MetricsRegistry.getInstance().counter("slow_query_log_dropped_total",
+                "Slow query log lines dropped because the writer fell behind.", appender::getDropped);
+    }
+
+    /**
+     * Creates the slow query log configured in database.properties.
+     *
+     * @param props the loaded properties
+     * @return the log, or null if it is disabled
+     */
+    static SlowQueryLog fromProperties(Properties props) {
+        String file = props.getProperty("slowQuery.file", "").trim();
+        if (file.isEmpty()) {
+            return null;
+        }
+        double sampleRate = 0;
+        String rate = props.getProperty("slowQuery.sampleRate", "").trim();
+        if (!rate.isEmpty()) {
+            try {
+                sampleRate = Double.parseDouble(rate);
+            } catch (NumberFormatException e) {
+                LOG.warn("Invalid value for slowQuery.sampleRate in database.properties: {}", rate);
+            }
+        }
+        AsyncFileAppender appender = new AsyncFileAppender(AsyncFileAppender.resolveLogPath(file),
+                DataSource.parseLong(props, "slowQuery.maxFileBytes", 10L * 1024 * 1024),
+                (int) DataSource.parseLong(props, "slowQuery.maxFiles", 5),
+                (int) DataSource.parseLong(props, "slowQuery.queueSize", 4096));
+        return new SlowQueryLog(appender, DataSource.parseLong(props, "slowQuery.thresholdMillis", 200), sampleRate);
+    }
+
+    @Override
+    public void queryCompleted(QueryExecution execution) {
+        boolean slow = execution.getDurationNanos() >= thresholdNanos;
+        if (!slow && (sampleRate == 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return;
+        }
+        appender.append(format(execution, slow));
+    }
+
+    /**
+     * Formats one log line as key=value pairs.
+     *
+     * @param execution the execution
+     * @param slow      whether it crossed the threshold (otherwise it was sampled)
+     * @return the line
+     */
+    static String format(QueryExecution execution, boolean slow) {
+        StringBuilder line = new StringBuilder(256);
+        line.append(Instant.now())
+            .append(slow ? " slow" : " sampled")
+            .append(" duration_ms=").append(String.format(Locale.ROOT, "%.3f", execution.getDurationNanos() / 1e6))
+            .append(" rows=").append(execution.getRows())
+            .append(" sql_id=").append(execution.getSqlId())
+            .append(" action=").append(execution.getAction() == null ? "-" : execution.getAction());
+        if (execution.getFailure() != null) {
+            line.append(" sql_state=").append(execution.getFailure().getSQLState());
+        }
+        line.append(" sql=");
+        quote(line, execution.getSql());
+        line.append(" params=[");
+        List<Object> parameters = execution.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) {
+                line.append(", ");
+            }
+            Object value = parameters.get(i);
+            if (value instanceof CharSequence) {
+                quote(line, value.toString());
+            } else {
+                line.append(value);
+            }
+        }
+        return line.append(']').toString();
+    }
+
+    /**
+     * Appends a double-quoted string, escaping quotes, backslashes and line breaks
+     * so each entry stays on one line.
+     *
+     * @param line  the line being built
+     * @param value the string (may be null)
+     */
+    private static void quote(StringBuilder line, String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                case '\\':
+                    line.append('\\').append(c);
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                default:
+                    line.append(c);
+            }
+        }
+        line.append('"');
+    }
+}
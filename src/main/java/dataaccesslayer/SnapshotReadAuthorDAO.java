@@ -0,0 +1,95 @@
+package dataaccesslayer;
+
+import transferobjects.AuthorDTO;
+import transferobjects.TitleDTO;
+import java.util.List;
+import java.util.Map;
+
+/*******************************************************************************
+ * SnapshotReadAuthorDAO
+ * Decorates an AuthorDAO so that reads are answered from the memory-mapped
+ * {@link CatalogSnapshot} while the {@link CatalogSnapshotStore} says it is
+ * current, and from the database otherwise. Writes go to the database and
+ * tell the store, which stops serving the snapshot until it is rebuilt; the
+ * author ID checks made before a write always go to the database.
+ *
+ * @see SnapshotReadAuthorDAO
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: AuthorDAO decorator reading from the catalog snapshot.
+ ******************************************************************************/
+
+public class SnapshotReadAuthorDAO implements AuthorDAO {
+
+    private final AuthorDAO delegate;
+    private final CatalogSnapshotStore store;
+
+    /**
+     * Constructor.
+     *
+     * @param delegate the DAO that talks to the database
+     * @param store    the snapshot store
+     */
+    public SnapshotReadAuthorDAO(AuthorDAO delegate, CatalogSnapshotStore store) {
+        this.delegate = delegate;
+        this.store = store;
+    }
+
+    @Override
+    public List<AuthorDTO> getAllAuthors() {
+        CatalogSnapshot snapshot = store.readable();
+        return snapshot != null ? snapshot.getAllAuthors() : delegate.getAllAuthors();
+    }
+
+    @Override
+    public AuthorDTO getAuthorById(int id) {
+        CatalogSnapshot snapshot = store.readable();
+        return snapshot != null ? snapshot.getAuthorById(id) : delegate.getAuthorById(id);
+    }
+
+    @Override
+    public Map<Integer, AuthorDTO> getAuthorsByIds(int[] ids) {
+        CatalogSnapshot snapshot = store.readable();
+        return snapshot != null ? snapshot.getAuthorsByIds(ids) : delegate.getAuthorsByIds(ids);
+    }
+
+    @Override
+    public int[] getExistingAuthorIds(int[] ids) {
+        return delegate.getExistingAuthorIds(ids);
+    }
+
+    @Override
+    public boolean addAuthor(AuthorDTO author) {
+        try {
+            return delegate.addAuthor(author);
+        } finally {
+            store.written();
+        }
+    }
+
+    @Override
+    public boolean updateAuthor(AuthorDTO author) {
+        try {
+            return delegate.updateAuthor(author);
+        } finally {
+            store.written();
+        }
+    }
+
+    @Override
+    public boolean deleteAuthor(int id) {
+        try {
+            return delegate.deleteAuthor(id);
+        } finally {
+            store.written();
+        }
+    }
+
+    @Override
+    public List<TitleDTO> getTitlesByAuthor(int authorId) {
+        CatalogSnapshot snapshot = store.readable();
+        return snapshot != null ? snapshot.getTitlesByAuthor(authorId) : delegate.getTitlesByAuthor(authorId);
+    }
+}
@@ -0,0 +1,95 @@
+package dataaccesslayer;
+
+import transferobjects.AuthorDTO;
+import transferobjects.TitleDTO;
+import java.util.List;
+import java.util.Map;
+
+/*******************************************************************************
+ * SnapshotReadTitleDAO
+ * Decorates a TitleDAO so that reads are answered from the memory-mapped
+ * {@link CatalogSnapshot} while the {@link CatalogSnapshotStore} says it is
+ * current, and from the database otherwise. Writes go to the database and
+ * tell the store, which stops serving the snapshot until it is rebuilt.
+ *
+ * @see SnapshotReadTitleDAO
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: TitleDAO decorator reading from the catalog snapshot.
+ ******************************************************************************/
+
+public class SnapshotReadTitleDAO implements TitleDAO {
+
+    private final TitleDAO delegate;
+    private final CatalogSnapshotStore store;
+
+    /**
+     * Constructor.
+     *
+     * @param delegate the DAO that talks to the database
+     * @param store    the snapshot store
+     */
+    public SnapshotReadTitleDAO(TitleDAO delegate, CatalogSnapshotStore store) {
+        this.delegate = delegate;
+        this.store = store;
+    }
+
+    @Override
+    public List<TitleDTO> getAllTitles() {
+        CatalogSnapshot snapshot = store.readable();
+        return snapshot != null ? snapshot.getAllTitles() : delegate.getAllTitles();
+    }
+
+    @Override
+    public List<TitleDTO> getTitlesPage(String afterIsbn, int limit) {
+        CatalogSnapshot snapshot = store.readable();
+        return snapshot != null ? snapshot.getTitlesPage(afterIsbn, limit) : delegate.getTitlesPage(afterIsbn, limit);
+    }
+
+    @Override
+    public TitleDTO getTitleByISBN(String isbn) {
+        CatalogSnapshot snapshot = store.readable();
+        return snapshot != null ? snapshot.getTitleByISBN(isbn) : delegate.getTitleByISBN(isbn);
+    }
+
+    @Override
+    public boolean addTitle(TitleDTO title, List<Integer> authorIds) {
+        try {
+            return delegate.addTitle(title, authorIds);
+        } finally {
+            store.written();
+        }
+    }
+
+    @Override
+    public boolean updateTitle(TitleDTO title, List<Integer> newAuthorIds) {
+        try {
+            return delegate.updateTitle(title, newAuthorIds);
+        } finally {
+            store.written();
+        }
+    }
+
+    @Override
+    public boolean deleteTitle(String isbn) {
+        try {
+            return delegate.deleteTitle(isbn);
+        } finally {
+            store.written();
+        }
+    }
+
+    @Override
+    public List<AuthorDTO> getAuthorsForTitle(String isbn) {
+        CatalogSnapshot snapshot = store.readable();
+        return snapshot != null ? snapshot.getAuthorsForTitle(isbn) : delegate.getAuthorsForTitle(isbn);
+    }
+
+    @Override
+    public Map<String, List<AuthorDTO>> getAuthorsForTitles(List<String> isbns) {
+        CatalogSnapshot snapshot = store.readable();
+        return snapshot != null ? snapshot.getAuthorsForTitles(isbns) : delegate.getAuthorsForTitles(isbns);
+    }
+}
@@ -0,0 +1,82 @@
+package dataaccesslayer;
+
+import transferobjects.AuthorDTO;
+import transferobjects.TitleDTO;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/*******************************************************************************
+ * StaleReadAuthorDAO
+ * Decorates an AuthorDAO so that reads keep working, with possibly out of
+ * date data, while the database is unavailable. Successful reads are
+ * remembered in a {@link LastKnownGood} store; a read that fails is answered
+ * from it. Writes, and the author ID checks made before them, are passed
+ * through unchanged, since they cannot be served without the database.
+ *
+ * @see StaleReadAuthorDAO
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: AuthorDAO decorator with last known good read fallback.
+ ******************************************************************************/
+
+public class StaleReadAuthorDAO implements AuthorDAO {
+
+    private final AuthorDAO delegate;
+
+    private final LastKnownGood lastKnownGood = LastKnownGood.fromConfiguration();
+
+    /**
+     * Constructor.
+     *
+     * @param delegate the DAO that talks to the database
+     */
+    public StaleReadAuthorDAO(AuthorDAO delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<AuthorDTO> getAllAuthors() {
+        return lastKnownGood.read("getAllAuthors", delegate::getAllAuthors, LastKnownGood.AUTHORS);
+    }
+
+    @Override
+    public AuthorDTO getAuthorById(int id) {
+        return lastKnownGood.read("getAuthorById:" + id, () -> delegate.getAuthorById(id), LastKnownGood.AUTHOR);
+    }
+
+    @Override
+    public Map<Integer, AuthorDTO> getAuthorsByIds(int[] ids) {
+        String key = "getAuthorsByIds:" + Arrays.toString(Arrays.stream(ids).sorted().distinct().toArray());
+        return lastKnownGood.read(key, () -> delegate.getAuthorsByIds(ids), LastKnownGood.AUTHOR_MAP);
+    }
+
+    @Override
+    public int[] getExistingAuthorIds(int[] ids) {
+        // Guards a write, so an outage must not be answered from stale data
+        return delegate.getExistingAuthorIds(ids);
+    }
+
+    @Override
+    public boolean addAuthor(AuthorDTO author) {
+        return delegate.addAuthor(author);
+    }
+
+    @Override
+    public boolean updateAuthor(AuthorDTO author) {
+        return delegate.updateAuthor(author);
+    }
+
+    @Override
+    public boolean deleteAuthor(int id) {
+        return delegate.deleteAuthor(id);
+    }
+
+    @Override
+    public List<TitleDTO> getTitlesByAuthor(int authorId) {
+        return lastKnownGood.read("getTitlesByAuthor:" + authorId,
+                () -> delegate.getTitlesByAuthor(authorId), LastKnownGood.TITLES);
+    }
+}
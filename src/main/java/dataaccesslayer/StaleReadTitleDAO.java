@@ -0,0 +1,78 @@
+package dataaccesslayer;
+
+import transferobjects.TitleDTO;
+import transferobjects.AuthorDTO;
+import java.util.List;
+import java.util.Map;
+
+/*******************************************************************************
+ * StaleReadTitleDAO
+ * Decorates a TitleDAO so that reads keep working, with possibly out of date
+ * data, while the database is unavailable. See {@link StaleReadAuthorDAO}.
+ *
+ * @see StaleReadTitleDAO
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: TitleDAO decorator with last known good read fallback.
+ ******************************************************************************/
+
+public class StaleReadTitleDAO implements TitleDAO {
+
+    private final TitleDAO delegate;
+
+    private final LastKnownGood lastKnownGood = LastKnownGood.fromConfiguration();
+
+    /**
+     * Constructor.
+     *
+     * @param delegate the DAO that talks to the database
+     */
+    public StaleReadTitleDAO(TitleDAO delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<TitleDTO> getAllTitles() {
+        return lastKnownGood.read("getAllTitles", delegate::getAllTitles, LastKnownGood.TITLES);
+    }
+
+    @Override
+    public List<TitleDTO> getTitlesPage(String afterIsbn, int limit) {
+        return lastKnownGood.read("getTitlesPage:" + afterIsbn + ":" + limit,
+                () -> delegate.getTitlesPage(afterIsbn, limit), LastKnownGood.TITLES);
+    }
+
+    @Override
+    public TitleDTO getTitleByISBN(String isbn) {
+        return lastKnownGood.read("getTitleByISBN:" + isbn, () -> delegate.getTitleByISBN(isbn), LastKnownGood.TITLE);
+    }
+
+    @Override
+    public boolean addTitle(TitleDTO title, List<Integer> authorIds) {
+        return delegate.addTitle(title, authorIds);
+    }
+
+    @Override
+    public boolean updateTitle(TitleDTO title, List<Integer> newAuthorIds) {
+        return delegate.updateTitle(title, newAuthorIds);
+    }
+
+    @Override
+    public boolean deleteTitle(String isbn) {
+        return delegate.deleteTitle(isbn);
+    }
+
+    @Override
+    public List<AuthorDTO> getAuthorsForTitle(String isbn) {
+        return lastKnownGood.read("getAuthorsForTitle:" + isbn,
+                () -> delegate.getAuthorsForTitle(isbn), LastKnownGood.AUTHORS);
+    }
+
+    @Override
+    public Map<String, List<AuthorDTO>> getAuthorsForTitles(List<String> isbns) {
+        return lastKnownGood.read("getAuthorsForTitles:" + String.join(",", isbns),
+                () -> delegate.getAuthorsForTitles(isbns), LastKnownGood.AUTHORS_BY_ISBN);
+    }
+}
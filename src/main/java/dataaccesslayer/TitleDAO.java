@@ -3,6 +3,7 @@ package dataaccesslayer;
 import transferobjects.TitleDTO;
 import transferobjects.AuthorDTO; // Added for author-title relationship
 import java.util.List;
+import java.util.Map;
 
 /*******************************************************************************
  * TitleDAO (Data Access Object) Interface
@@ -23,6 +24,14 @@ public interface TitleDAO {
      */
     List<TitleDTO> getAllTitles();
 
+    /**
+     * Retrieves one page of titles in ISBN order.
+     * @param afterIsbn The last ISBN of the previous page, or null for the first page.
+     * @param limit The most titles to return.
+     * @return Up to limit TitleDTO objects with an ISBN after afterIsbn, in ISBN order.
+     */
+    List<TitleDTO> getTitlesPage(String afterIsbn, int limit);
+
     /**
      * Retrieves a title by its unique ISBN.
      * @param isbn The ISBN of the title to retrieve.
@@ -60,4 +69,11 @@ public interface TitleDAO {
      * @return A list of AuthorDTO objects associated with the title.
      */
     List<AuthorDTO> getAuthorsForTitle(String isbn);
+
+    /**
+     * Retrieves the authors of several titles, in as few queries as possible.
+     * @param isbns The ISBNs of the titles; duplicates are ignored.
+     * @return A map from ISBN to the AuthorDTO objects of that title, holding only the titles that have authors.
+     */
+    Map<String, List<AuthorDTO>> getAuthorsForTitles(List<String> isbns);
 }
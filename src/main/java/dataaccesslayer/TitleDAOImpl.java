@@ -4,13 +4,32 @@ import transferobjects.TitleDTO;
 import transferobjects.AuthorDTO; // Added for author-title relationship
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import monitoring.Logger;
 
 /*******************************************************************************
  * TitleDAOImpl (Data Access Object Implementation)
  * Implements the TitleDAO interface for MySQL database operations,
  * specifically handling the `Titles` and `AuthorISBN` tables.
  * Uses the DataSource singleton to get database connections.
+ *
+ * When the tables are sharded, operations on one title go to the shard of
+ * its ISBN, which also holds its AuthorISBN rows, and listings read all
+ * shards in parallel and merge their rows in ISBN order. The authors of
+ * many titles are read with {@link InList} queries: with sharding, one set
+ * per shard for the AuthorIDs, then one author lookup for all of them. Reads run as
+ * {@link TransactionTemplate#READ}, so they go to a replica when the
+ * database has replicas; writes run as {@link TransactionTemplate#WRITE},
+ * on the primary, in one transaction, retried after a deadlock, a lock wait
+ * timeout or a connection lost before the commit. Updates and deletes leave
+ * the same rows if run twice, so they run as
+ * {@link TransactionTemplate#IDEMPOTENT_WRITE} and are also retried after a
+ * connection lost during the commit.
  * 
  * @see TitleDAOImpl
  * @since Java 21.0.7
@@ -22,43 +41,100 @@ import java.util.List;
 
 public class TitleDAOImpl implements TitleDAO {
 
-    private DataSource dataSource;
+    private static final Logger LOG = Logger.getLogger(TitleDAOImpl.class);
+
+    /** The order in which shards return titles and their rows are merged. */
+    static final Comparator<TitleDTO> ISBN_ORDER = Comparator.comparing(TitleDTO::getIsbn);
+
+    /**
+     * Looks up the authors of a title when they are in another database than
+     * its links; built by {@link DAOFactory}, so these lookups are measured,
+     * served from the snapshot and fall back to stale reads like any other.
+     */
+    private final AuthorDAO authorDAO;
+
+    /** Most ISBNs bound into one IN-list; longer lookups take several queries. */
+    private final int inListChunkSize;
 
     /**
      * Constructor.
-     * Initializes the DataSource instance for database connections.
+     * Initializes the DataSource instances for database connections.
      */
     public TitleDAOImpl() {
-        dataSource = DataSource.getInstance();
+        authorDAO = DataSource.getShards().size() > 1 ? DAOFactory.createAuthorDAO() : null;
+        inListChunkSize = InList.chunkSize();
     }
 
     /**
-     * Retrieves all titles from the database.
+     * Retrieves all titles from the database, in ISBN order.
      *
      * @return A list of TitleDTO objects representing all titles.
      *         Returns an empty list if no titles are found.
      */
     @Override
     public List<TitleDTO> getAllTitles() {
-        List<TitleDTO> titles = new ArrayList<>();
-        String sql = "SELECT ISBN, Title, EditionNumber, Copyright FROM Titles";
-
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql);
-             ResultSet resultSet = statement.executeQuery()) {
-
-            while (resultSet.next()) {
-                TitleDTO title = new TitleDTO();
-                title.setIsbn(resultSet.getString("ISBN"));
-                title.setTitle(resultSet.getString("Title"));
-                title.setEditionNumber(resultSet.getInt("EditionNumber"));
-                title.setCopyright(resultSet.getString("Copyright"));
-                titles.add(title);
-            }
+        String sql = "SELECT ISBN, Title, EditionNumber, Copyright FROM Titles ORDER BY ISBN";
+
+        try {
+            return ScatterGather.merge(ScatterGather.scatter(DataSource.getShards(),
+                    shard -> queryTitles(shard, sql)), ISBN_ORDER, Integer.MAX_VALUE);
+        } catch (SQLException e) {
+            LOG.error("Error retrieving all titles", e);
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Retrieves one page of titles in ISBN order. Pages are keyed by the last
+     * ISBN of the previous page rather than an offset, so each shard only
+     * returns its first limit titles after that ISBN, and the merged page is
+     * exact however the titles are spread over the shards.
+     *
+     * @param afterIsbn The last ISBN of the previous page, or null for the first page.
+     * @param limit     The most titles to return.
+     * @return Up to limit TitleDTO objects with an ISBN after afterIsbn, in ISBN order.
+     */
+    @Override
+    public List<TitleDTO> getTitlesPage(String afterIsbn, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT ISBN, Title, EditionNumber, Copyright FROM Titles WHERE ISBN > ? ORDER BY ISBN LIMIT ?";
+        String after = afterIsbn == null ? "" : afterIsbn;
+
+        try {
+            return ScatterGather.merge(ScatterGather.scatter(DataSource.getShards(),
+                    shard -> queryTitles(shard, sql, after, limit)), ISBN_ORDER, limit);
         } catch (SQLException e) {
-            System.err.println("Error retrieving all titles: " + e.getMessage());
+            LOG.error("Error retrieving titles after ISBN {}", afterIsbn, e);
         }
-        return titles;
+        return new ArrayList<>();
+    }
+
+    /**
+     * Runs a query returning titles on one shard.
+     *
+     * @param shard      the shard
+     * @param sql        the query, selecting ISBN, Title, EditionNumber and Copyright
+     * @param parameters the values of its parameters
+     * @return the titles, in the order of the query
+     * @throws SQLException if the query fails
+     */
+    static List<TitleDTO> queryTitles(DataSource shard, String sql, Object... parameters) throws SQLException {
+        return TransactionTemplate.READ.execute(shard, transaction -> {
+            List<TitleDTO> titles = new ArrayList<>();
+            try (PreparedStatement statement = transaction.prepare(sql)) {
+                for (int i = 0; i < parameters.length; i++) {
+                    statement.setObject(i + 1, parameters[i]);
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        titles.add(ResultSetMappers.toTitle(resultSet));
+                    }
+                }
+            }
+            return titles;
+        });
     }
 
     /**
@@ -69,32 +145,29 @@ public class TitleDAOImpl implements TitleDAO {
      */
     @Override
     public TitleDTO getTitleByISBN(String isbn) {
-        TitleDTO title = null;
         String sql = "SELECT ISBN, Title, EditionNumber, Copyright FROM Titles WHERE ISBN = ?";
 
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
-
-            statement.setString(1, isbn);
-            try (ResultSet resultSet = statement.executeQuery()) {
-                if (resultSet.next()) {
-                    title = new TitleDTO();
-                    title.setIsbn(resultSet.getString("ISBN"));
-                    title.setTitle(resultSet.getString("Title"));
-                    title.setEditionNumber(resultSet.getInt("EditionNumber"));
-                    title.setCopyright(resultSet.getString("Copyright"));
+        try {
+            return TransactionTemplate.READ.execute(DataSource.getShardFor(isbn), transaction -> {
+                try (PreparedStatement statement = transaction.prepare(sql)) {
+                    statement.setString(1, isbn);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        return resultSet.next() ? ResultSetMappers.toTitle(resultSet) : null;
+                    }
                 }
-            }
+            });
         } catch (SQLException e) {
-            System.err.println("Error retrieving title by ISBN " + isbn + ": " + e.getMessage());
+            LOG.error("Error retrieving title by ISBN {}", isbn, e);
         }
-        return title;
+        return null;
     }
 
     /**
      * Adds a new title and its associations with authors.
      * <p>
      * Uses a transaction to ensure both the title and its author relationships are inserted together.
+     * With sharding the authors are confirmed on the main database after the
+     * commit, and the title is removed again if one was deleted meanwhile.
      * </p>
      *
      * @param title     The TitleDTO object representing the title to add.
@@ -105,72 +178,55 @@ public class TitleDAOImpl implements TitleDAO {
     public boolean addTitle(TitleDTO title, List<Integer> authorIds) {
         String sqlInsertTitle = "INSERT INTO Titles (ISBN, Title, EditionNumber, Copyright) VALUES (?, ?, ?, ?)";
         String sqlInsertAuthorISBN = "INSERT INTO AuthorISBN (AuthorID, ISBN) VALUES (?, ?)";
-        boolean success = false;
-        Connection connection = null;
 
+        boolean added;
         try {
-            connection = dataSource.getConnection();
-            connection.setAutoCommit(false); // Start transaction
-
-            // 1. Insert into Titles table
-            try (PreparedStatement statement = connection.prepareStatement(sqlInsertTitle)) {
-                statement.setString(1, title.getIsbn());
-                statement.setString(2, title.getTitle());
-                statement.setInt(3, title.getEditionNumber());
-                statement.setString(4, title.getCopyright());
-                int rowsAffected = statement.executeUpdate();
-                if (rowsAffected == 0) {
-                    connection.rollback();
-                    return false; // Title not added
+            added = TransactionTemplate.WRITE.execute(DataSource.getShardFor(title.getIsbn()), transaction -> {
+                // 1. Insert into Titles table
+                try (PreparedStatement statement = transaction.prepare(sqlInsertTitle)) {
+                    statement.setString(1, title.getIsbn());
+                    statement.setString(2, title.getTitle());
+                    statement.setInt(3, title.getEditionNumber());
+                    statement.setString(4, title.getCopyright());
+                    int rowsAffected = statement.executeUpdate();
+                    if (rowsAffected == 0) {
+                        transaction.setRollbackOnly();
+                        return false; // Title not added
+                    }
                 }
-            }
 
-            // 2. Insert into AuthorISBN table for each author
-            try (PreparedStatement statement = connection.prepareStatement(sqlInsertAuthorISBN)) {
-                for (Integer authorId : authorIds) {
-                    statement.setInt(1, authorId);
-                    statement.setString(2, title.getIsbn());
-                    statement.addBatch(); // Add to batch for efficiency
-                }
-                int[] batchResults = statement.executeBatch(); // Execute all batch statements
-                // Check if all batch operations were successful (optional, but good for robust error checking)
-                for (int result : batchResults) {
-                    if (result == Statement.EXECUTE_FAILED) {
-                        connection.rollback();
-                        return false;
+                // 2. Insert into AuthorISBN table for each author
+                try (PreparedStatement statement = transaction.prepare(sqlInsertAuthorISBN)) {
+                    for (Integer authorId : authorIds) {
+                        statement.setInt(1, authorId);
+                        statement.setString(2, title.getIsbn());
+                        statement.addBatch(); // Add to batch for efficiency
+                    }
+                    int[] batchResults = statement.executeBatch(); // Execute all batch statements
+                    // Check if all batch operations were successful (optional, but good for robust error checking)
+                    for (int result : batchResults) {
+                        if (result == Statement.EXECUTE_FAILED) {
+                            transaction.setRollbackOnly();
+                            return false;
+                        }
                     }
                 }
-            }
-
-            connection.commit(); // Commit transaction
-            success = true;
-
+                return true;
+            });
         } catch (SQLException e) {
-            System.err.println("Error adding title and author associations: " + e.getMessage());
-            if (connection != null) {
-                try {
-                    connection.rollback(); // Rollback on error
-                } catch (SQLException rollbackEx) {
-                    System.err.println("Rollback failed: " + rollbackEx.getMessage());
-                }
-            }
-        } finally {
-            if (connection != null) {
-                try {
-                    connection.setAutoCommit(true); // Reset auto-commit
-                    connection.close();
-                } catch (SQLException closeEx) {
-                    System.err.println("Error closing connection: " + closeEx.getMessage());
-                }
-            }
+            LOG.error("Error adding title and author associations", e);
+            return false;
         }
-        return success;
+        return added && (authorDAO == null || confirmAuthors(title.getIsbn(), authorIds, true));
     }
 
     /**
      * Updates an existing title and its associated authors.
      * <p>
      * First updates the title details, then replaces all author associations for the title.
+     * With sharding the authors it was not linked to before are confirmed on
+     * the main database after the commit, and links to any deleted meanwhile
+     * are removed again.
      * </p>
      *
      * @param title        The updated TitleDTO object.
@@ -180,67 +236,127 @@ public class TitleDAOImpl implements TitleDAO {
     @Override
     public boolean updateTitle(TitleDTO title, List<Integer> newAuthorIds) {
         String sqlUpdateTitle = "UPDATE Titles SET Title = ?, EditionNumber = ?, Copyright = ? WHERE ISBN = ?";
+        String sqlSelectAuthorISBN = "SELECT AuthorID FROM AuthorISBN WHERE ISBN = ?";
         String sqlDeleteAuthorISBN = "DELETE FROM AuthorISBN WHERE ISBN = ?";
         String sqlInsertAuthorISBN = "INSERT INTO AuthorISBN (AuthorID, ISBN) VALUES (?, ?)";
-        boolean success = false;
-        Connection connection = null;
 
+        List<Integer> linked = new ArrayList<>(newAuthorIds); // Less the authors already linked, with sharding
+        boolean updated;
         try {
-            connection = dataSource.getConnection();
-            connection.setAutoCommit(false); // Start transaction
-
-            // 1. Update Titles table
-            try (PreparedStatement statement = connection.prepareStatement(sqlUpdateTitle)) {
-                statement.setString(1, title.getTitle());
-                statement.setInt(2, title.getEditionNumber());
-                statement.setString(3, title.getCopyright());
-                statement.setString(4, title.getIsbn());
-                int rowsAffected = statement.executeUpdate();
-                if (rowsAffected == 0) {
-                    connection.rollback();
-                    return false; // Title not found or not updated
+            updated = TransactionTemplate.IDEMPOTENT_WRITE.execute(DataSource.getShardFor(title.getIsbn()), transaction -> {
+                // 1. Update Titles table
+                try (PreparedStatement statement = transaction.prepare(sqlUpdateTitle)) {
+                    statement.setString(1, title.getTitle());
+                    statement.setInt(2, title.getEditionNumber());
+                    statement.setString(3, title.getCopyright());
+                    statement.setString(4, title.getIsbn());
+                    int rowsAffected = statement.executeUpdate();
+                    if (rowsAffected == 0) {
+                        transaction.setRollbackOnly();
+                        return false; // Title not found or not updated
+                    }
                 }
-            }
 
-            // 2. Delete existing AuthorISBN associations for this title
-            try (PreparedStatement statement = connection.prepareStatement(sqlDeleteAuthorISBN)) {
-                statement.setString(1, title.getIsbn());
-                statement.executeUpdate();
-            }
-
-            // 3. Insert new AuthorISBN associations
-            try (PreparedStatement statement = connection.prepareStatement(sqlInsertAuthorISBN)) {
-                for (Integer authorId : newAuthorIds) {
-                    statement.setInt(1, authorId);
-                    statement.setString(2, title.getIsbn());
-                    statement.addBatch();
+                if (authorDAO != null) {
+                    linked.clear();
+                    linked.addAll(newAuthorIds);
+                    try (PreparedStatement statement = transaction.prepare(sqlSelectAuthorISBN)) {
+                        statement.setString(1, title.getIsbn());
+                        try (ResultSet resultSet = statement.executeQuery()) {
+                            while (resultSet.next()) {
+                                linked.remove(Integer.valueOf(resultSet.getInt(1)));
+                            }
+                        }
+                    }
                 }
-                statement.executeBatch();
-            }
 
-            connection.commit(); // Commit transaction
-            success = true;
+                // 2. Delete existing AuthorISBN associations for this title
+                try (PreparedStatement statement = transaction.prepare(sqlDeleteAuthorISBN)) {
+                    statement.setString(1, title.getIsbn());
+                    statement.executeUpdate();
+                }
 
-        } catch (SQLException e) {
-            System.err.println("Error updating title and author associations: " + e.getMessage());
-            if (connection != null) {
-                try {
-                    connection.rollback(); // Rollback on error
-                } catch (SQLException rollbackEx) {
-                    System.err.println("Rollback failed: " + rollbackEx.getMessage());
+                // 3. Insert new AuthorISBN associations
+                try (PreparedStatement statement = transaction.prepare(sqlInsertAuthorISBN)) {
+                    for (Integer authorId : newAuthorIds) {
+                        statement.setInt(1, authorId);
+                        statement.setString(2, title.getIsbn());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
                 }
+                return true;
+            });
+        } catch (SQLException e) {
+            LOG.error("Error updating title and author associations", e);
+            return false;
+        }
+        return updated && (authorDAO == null || confirmAuthors(title.getIsbn(), linked, false));
+    }
+
+    /**
+     * Confirms on the main database, with sharding, that the authors a title
+     * was just linked to still exist. No foreign key spans the databases, and
+     * an author deleted after the service checked it but before this write
+     * committed would otherwise leave AuthorISBN rows without an author. The
+     * delete checks the shards again after it commits, so if this check
+     * misses the delete, the delete sees these links and puts the author back.
+     * An author that could not be checked counts as deleted.
+     *
+     * @param isbn   The ISBN of the title.
+     * @param linked The authors linked by the write.
+     * @param added  Whether the write added the title, which is then removed; otherwise only the links are.
+     * @return true if all the authors exist.
+     */
+    private boolean confirmAuthors(String isbn, List<Integer> linked, boolean added) {
+        if (linked.isEmpty()) {
+            return true;
+        }
+        int[] found = authorDAO.getExistingAuthorIds(linked.stream().mapToInt(Integer::intValue).toArray());
+        List<Integer> missing = new ArrayList<>();
+        for (int id : linked) {
+            if (found == null || Arrays.binarySearch(found, id) < 0) {
+                missing.add(id);
             }
-        } finally {
-            if (connection != null) {
-                try {
-                    connection.setAutoCommit(true); // Reset auto-commit
-                    connection.close();
-                } catch (SQLException closeEx) {
-                    System.err.println("Error closing connection: " + closeEx.getMessage());
+        }
+        if (missing.isEmpty()) {
+            return true;
+        }
+        LOG.warn("Authors {} of title ISBN {} were deleted during the write or could not be checked; undoing it",
+                missing, isbn);
+        boolean undone = added ? deleteTitle(isbn) : removeLinks(isbn, missing);
+        if (!undone) {
+            LOG.error("Title ISBN {} may still be linked to deleted authors {}", isbn, missing);
+        }
+        return false;
+    }
+
+    /**
+     * Removes the links of a title to some authors.
+     *
+     * @param isbn      The ISBN of the title.
+     * @param authorIds The authors to unlink.
+     * @return true if the links are gone.
+     */
+    private boolean removeLinks(String isbn, List<Integer> authorIds) {
+        String sql = "DELETE FROM AuthorISBN WHERE ISBN = ? AND AuthorID = ?";
+
+        try {
+            return TransactionTemplate.IDEMPOTENT_WRITE.execute(DataSource.getShardFor(isbn), transaction -> {
+                try (PreparedStatement statement = transaction.prepare(sql)) {
+                    for (int authorId : authorIds) {
+                        statement.setString(1, isbn);
+                        statement.setInt(2, authorId);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
                 }
-            }
+                return true;
+            });
+        } catch (SQLException e) {
+            LOG.error("Error unlinking authors {} from title ISBN {}", authorIds, isbn, e);
         }
-        return success;
+        return false;
     }
 
     /**
@@ -260,34 +376,25 @@ public class TitleDAOImpl implements TitleDAO {
         // thus deleteing data from AuthorISBN first, then from Titles. 
         String deleteAuthorISBN = "DELETE FROM AuthorISBN WHERE ISBN = ?";
         String deleteTitle = "DELETE FROM Titles WHERE ISBN = ?";
-        boolean success = false;
-        try (Connection connection = dataSource.getConnection()) {
-                connection.setAutoCommit(false); // Start transaction
-
-            try (PreparedStatement stmt1 = connection.prepareStatement(deleteAuthorISBN);
-                 PreparedStatement stmt2 = connection.prepareStatement(deleteTitle)) {
 
-                stmt1.setString(1, isbn);
-                stmt1.executeUpdate();
+        try {
+            return TransactionTemplate.IDEMPOTENT_WRITE.execute(DataSource.getShardFor(isbn), transaction -> {
+                try (PreparedStatement stmt1 = transaction.prepare(deleteAuthorISBN);
+                     PreparedStatement stmt2 = transaction.prepare(deleteTitle)) {
 
-                stmt2.setString(1, isbn);
-                int rowsAffected = stmt2.executeUpdate();
+                    stmt1.setString(1, isbn);
+                    stmt1.executeUpdate();
 
-                if (rowsAffected > 0) {
-                    success = true;
+                    stmt2.setString(1, isbn);
+                    // Nothing left to delete after a lost commit means that commit went through
+                    return stmt2.executeUpdate() > 0 || transaction.mayHaveCommitted();
                 }
-
-                connection.commit();
-            } catch (SQLException e) {
-                connection.rollback();
-                System.err.println("Error deleting title with ISBN " + isbn + ": " + e.getMessage());
-            }
-            
+            });
         } catch (SQLException e) {
-            System.err.println("Error handling delete transaction: " + e.getMessage());
+            LOG.error("Error deleting title with ISBN {}", isbn, e);
+        }
+        return false;
     }
-    return success;
-}
     
     /**
      * Retrieves all authors associated with a given title.
@@ -297,27 +404,181 @@ public class TitleDAOImpl implements TitleDAO {
      */
     @Override
     public List<AuthorDTO> getAuthorsForTitle(String isbn) {
-        List<AuthorDTO> authors = new ArrayList<>();
+        if (authorDAO != null) {
+            return getShardedAuthorsForTitle(isbn);
+        }
         String sql = "SELECT A.AuthorID, A.FirstName, A.LastName " +
                      "FROM Authors A JOIN AuthorISBN AI ON A.AuthorID = AI.AuthorID " +
                      "WHERE AI.ISBN = ?";
 
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
-
-            statement.setString(1, isbn);
-            try (ResultSet resultSet = statement.executeQuery()) {
-                while (resultSet.next()) {
-                    AuthorDTO author = new AuthorDTO();
-                    author.setId(resultSet.getInt("AuthorID"));
-                    author.setFirstName(resultSet.getString("FirstName"));
-                    author.setLastName(resultSet.getString("LastName"));
-                    authors.add(author);
+        try {
+            return TransactionTemplate.READ.execute(DataSource.getShardFor(isbn), transaction -> {
+                List<AuthorDTO> authors = new ArrayList<>();
+                try (PreparedStatement statement = transaction.prepare(sql)) {
+                    statement.setString(1, isbn);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            authors.add(ResultSetMappers.toAuthor(resultSet));
+                        }
+                    }
+                }
+                return authors;
+            });
+        } catch (SQLException e) {
+            LOG.error("Error retrieving authors for title ISBN {}", isbn, e);
+        }
+        return new ArrayList<>();
+    }
+    /**
+     * Retrieves the authors of a title when the tables are sharded: the
+     * AuthorIDs come from the title's shard, and the authors from the main
+     * database in one lookup.
+     *
+     * @param isbn The ISBN of the title.
+     * @return A list of AuthorDTO objects in AuthorID order.
+     */
+    private List<AuthorDTO> getShardedAuthorsForTitle(String isbn) {
+        String sql = "SELECT AuthorID FROM AuthorISBN WHERE ISBN = ?";
+        List<Integer> authorIds;
+
+        try {
+            authorIds = TransactionTemplate.READ.execute(DataSource.getShardFor(isbn), transaction -> {
+                List<Integer> ids = new ArrayList<>();
+                try (PreparedStatement statement = transaction.prepare(sql)) {
+                    statement.setString(1, isbn);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            ids.add(resultSet.getInt(1));
+                        }
+                    }
+                }
+                return ids;
+            });
+        } catch (SQLException e) {
+            LOG.error("Error retrieving authors for title ISBN {}", isbn, e);
+            return new ArrayList<>();
+        }
+        if (authorIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        int[] ids = authorIds.stream().mapToInt(Integer::intValue).toArray();
+        return new ArrayList<>(authorDAO.getAuthorsByIds(ids).values());
+    }
+
+    /**
+     * Retrieves the authors of several titles. The ISBNs are sent as
+     * IN-lists of at most {@code dao.inListChunkSize} parameters, each
+     * shard's on one connection. Without sharding each IN-list joins
+     * AuthorISBN to Authors; with sharding, the shards holding the titles are
+     * read in parallel for their AuthorIDs, and the authors come from the
+     * main database in one {@link AuthorDAO#getAuthorsByIds(int[])} lookup.
+     *
+     * @param isbns The ISBNs of the titles; duplicates are ignored.
+     * @return A map from ISBN to the authors of that title in AuthorID order,
+     * holding only the titles that have authors; empty if the database could not be read.
+     */
+    @Override
+    public Map<String, List<AuthorDTO>> getAuthorsForTitles(List<String> isbns) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(isbns));
+        Map<String, List<AuthorDTO>> authors = new HashMap<>();
+        if (distinct.isEmpty()) {
+            return authors;
+        }
+
+        try {
+            if (authorDAO == null) {
+                String sql = "SELECT AI.ISBN, A.AuthorID, A.FirstName, A.LastName "
+                        + "FROM Authors A JOIN AuthorISBN AI ON A.AuthorID = AI.AuthorID WHERE AI.ISBN IN (";
+                List<Map.Entry<String, AuthorDTO>> rows = queryByIsbns(DataSource.getShards().get(0), distinct, sql,
+                        " ORDER BY AI.ISBN, A.AuthorID",
+                        resultSet -> Map.entry(resultSet.getString("ISBN"), ResultSetMappers.toAuthor(resultSet)));
+                for (Map.Entry<String, AuthorDTO> row : rows) {
+                    authors.computeIfAbsent(row.getKey(), isbn -> new ArrayList<>()).add(row.getValue());
+                }
+                return authors;
+            }
+
+            String sql = "SELECT ISBN, AuthorID FROM AuthorISBN WHERE ISBN IN (";
+            List<List<Map.Entry<String, Integer>>> links = ScatterGather.scatter(DataSource.getShards(), shard -> {
+                List<String> onShard = new ArrayList<>();
+                for (String isbn : distinct) {
+                    if (DataSource.getShardFor(isbn) == shard) {
+                        onShard.add(isbn);
+                    }
+                }
+                return queryByIsbns(shard, onShard, sql, " ORDER BY ISBN, AuthorID",
+                        resultSet -> Map.entry(resultSet.getString("ISBN"), resultSet.getInt("AuthorID")));
+            });
+            int[] ids = links.stream().flatMap(List::stream).mapToInt(Map.Entry::getValue).toArray();
+            if (ids.length == 0) {
+                return authors;
+            }
+            Map<Integer, AuthorDTO> byId = authorDAO.getAuthorsByIds(ids);
+            for (List<Map.Entry<String, Integer>> shardLinks : links) {
+                for (Map.Entry<String, Integer> link : shardLinks) {
+                    AuthorDTO author = byId.get(link.getValue());
+                    if (author != null) {
+                        authors.computeIfAbsent(link.getKey(), isbn -> new ArrayList<>()).add(author);
+                    }
                 }
             }
         } catch (SQLException e) {
-            System.err.println("Error retrieving authors for title ISBN " + isbn + ": " + e.getMessage());
+            LOG.error("Error retrieving authors for {} titles", distinct.size(), e);
+            authors.clear(); // A partial answer would show the remaining titles without authors
         }
         return authors;
     }
+
+    /**
+     * Maps one row of a query.
+     *
+     * @param <T> the row type
+     */
+    @FunctionalInterface
+    private interface RowMapper<T> {
+        T map(ResultSet resultSet) throws SQLException;
+    }
+
+    /**
+     * Runs a query keyed by ISBN in IN-lists of at most
+     * {@code dao.inListChunkSize} parameters, all on one connection.
+     *
+     * @param <T>    the row type
+     * @param shard  the database to query
+     * @param isbns  the ISBNs, without duplicates
+     * @param prefix the query up to and including "IN ("
+     * @param suffix the query after the IN-list
+     * @param mapper maps a row
+     * @return the rows of all chunks, in chunk order
+     * @throws SQLException if the query fails
+     */
+    private <T> List<T> queryByIsbns(DataSource shard, List<String> isbns, String prefix, String suffix,
+                                     RowMapper<T> mapper) throws SQLException {
+        if (isbns.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return TransactionTemplate.READ.execute(shard, transaction -> {
+            List<T> rows = new ArrayList<>();
+            RequestContext.beginChunkedQuery();
+            try {
+                for (int from = 0; from < isbns.size(); from += inListChunkSize) {
+                    int count = Math.min(inListChunkSize, isbns.size() - from);
+                    int parameters = InList.parameters(count, inListChunkSize);
+                    try (PreparedStatement statement = transaction.prepare(InList.sql(prefix, parameters, suffix))) {
+                        for (int i = 0; i < parameters; i++) {
+                            statement.setString(i + 1, isbns.get(from + Math.min(i, count - 1)));
+                        }
+                        try (ResultSet resultSet = statement.executeQuery()) {
+                            while (resultSet.next()) {
+                                rows.add(mapper.map(resultSet));
+                            }
+                        }
+                    }
+                }
+            } finally {
+                RequestContext.endChunkedQuery();
+            }
+            return rows;
+        });
+    }
 }
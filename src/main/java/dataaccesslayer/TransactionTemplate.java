@@ -0,0 +1,315 @@
+package dataaccesslayer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+/*******************************************************************************
+ * TransactionTemplate
+ * Runs the database work of one DAO operation with the transaction
+ * attributes of its kind, so DAO methods do not hand-roll autocommit, commit,
+ * rollback and cleanup:
+ *
+ *   - READ:         read-only, READ COMMITTED, on a replica if there is one.
+ *                   Statements autocommit, each as its own read-only
+ *                   transaction: InnoDB gives it no transaction ID, and under
+ *                   READ COMMITTED an explicit transaction would not make the
+ *                   statements see the same state anyway.
+ *   - PRIMARY_READ: as READ, but always on the primary, for checks that must
+ *                   see the latest writes.
+ *   - SNAPSHOT:     read-only, REPEATABLE READ, on the primary, all statements
+ *                   in one transaction, so they see the same state.
+ *   - WRITE:        the database's default isolation, on the primary, all
+ *                   statements in one transaction: committed if the work
+ *                   returns, rolled back if it throws or asks to. A
+ *                   transaction that fails with a deadlock, a lock wait
+ *                   timeout or a lost connection is run again as
+ *                   {@link RetryPolicy} allows, unless the connection was
+ *                   lost during the commit, when it may have been committed.
+ *   - IDEMPOTENT_WRITE: as WRITE, for work that leaves the same state if it
+ *                   runs twice, such as an update or delete by key; it is
+ *                   also run again after a connection lost during the commit.
+ *                   The work can then find its own earlier changes, and
+ *                   {@link Transaction#mayHaveCommitted()} tells it so.
+ *
+ * Statements prepared through the {@link Transaction} get a query timeout
+ * bounded by both the request deadline and the operation's own timeout
+ * ({@code dao.tx.readTimeoutSeconds} or {@code dao.tx.writeTimeoutSeconds}).
+ * The read-only flag and isolation level are session attributes of the new
+ * connection, set by the driver as it connects (Connector/J's
+ * sessionVariables) rather than by a round trip each; the template closes
+ * the connection afterwards, so they are never restored.
+ *
+ * @see Transaction
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Transaction attributes per DAO operation.
+ ******************************************************************************/
+
+final class TransactionTemplate {
+
+    /** Isolation value meaning "leave the database's default". */
+    private static final int DEFAULT_ISOLATION = DataSource.DEFAULT_ISOLATION;
+
+    static final TransactionTemplate READ = new TransactionTemplate(true, true,
+            Connection.TRANSACTION_READ_COMMITTED, false, "dao.tx.readTimeoutSeconds", Retry.NONE);
+    static final TransactionTemplate PRIMARY_READ = new TransactionTemplate(false, true,
+            Connection.TRANSACTION_READ_COMMITTED, false, "dao.tx.readTimeoutSeconds", Retry.NONE);
+    static final TransactionTemplate SNAPSHOT = new TransactionTemplate(false, true,
+            Connection.TRANSACTION_REPEATABLE_READ, true, null, Retry.NONE);
+    static final TransactionTemplate WRITE = new TransactionTemplate(false, false,
+            DEFAULT_ISOLATION, true, "dao.tx.writeTimeoutSeconds", Retry.ROLLED_BACK);
+    static final TransactionTemplate IDEMPOTENT_WRITE = new TransactionTemplate(false, false,
+            DEFAULT_ISOLATION, true, "dao.tx.writeTimeoutSeconds", Retry.ALWAYS);
+
+    /** Which transient failures are retried. */
+    private enum Retry { NONE, ROLLED_BACK, ALWAYS }
+
+    private final boolean replica;
+    private final boolean readOnly;
+    private final int isolation;
+    private final boolean transactional;
+    private final Retry retry;
+    /** The setting holding the timeout; null for none. */
+    private final String timeoutProperty;
+    /** The timeout in milliseconds (0 = none); -1 until read from the configuration. */
+    private volatile long timeoutMillis = -1;
+
+    /**
+     * The work of an operation.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    interface Work<T> {
+
+        /**
+         * Does the work.
+         *
+         * @param transaction the transaction to work in
+         * @return the result
+         * @throws SQLException if a statement fails
+         */
+        T run(Transaction transaction) throws SQLException;
+    }
+
+    /**
+     * Creates a template.
+     *
+     * @param replica         whether a replica may serve it
+     * @param readOnly        whether it only reads
+     * @param isolation       the isolation level, or DEFAULT_ISOLATION
+     * @param transactional   whether all statements run in one transaction
+     * @param timeoutProperty the setting holding the timeout in seconds, or null
+     * @param retry           which transient failures are retried
+     */
+    private TransactionTemplate(boolean replica, boolean readOnly, int isolation, boolean transactional,
+                                String timeoutProperty, Retry retry) {
+        this.replica = replica;
+        this.readOnly = readOnly;
+        this.isolation = isolation;
+        this.transactional = transactional;
+        this.timeoutProperty = timeoutProperty;
+        this.retry = retry;
+    }
+
+    /**
+     * Runs work on a database.
+     *
+     * @param <T>        the result type
+     * @param dataSource the database
+     * @param work       the work
+     * @return what the work returned
+     * @throws SQLException if the work, or the commit, fails, on its last
+     * attempt; the transaction has been rolled back
+     */
+    <T> T execute(DataSource dataSource, Work<T> work) throws SQLException {
+        long timeout = timeoutMillis();
+        // One deadline for all attempts
+        long deadlineNanos = timeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : Long.MAX_VALUE;
+        if (retry == Retry.NONE) {
+            return attempt(dataSource, work, deadlineNanos, null, false);
+        }
+        RetryPolicy policy = RetryPolicy.getInstance();
+        boolean[] inCommit = new boolean[1];
+        boolean mayHaveCommitted = false;
+        for (int attempt = 1; ; attempt++) {
+            inCommit[0] = false;
+            try {
+                T result = attempt(dataSource, work, deadlineNanos, inCommit, mayHaveCommitted);
+                policy.succeeded(attempt);
+                return result;
+            } catch (SQLException e) {
+                if (!policy.retry(e, attempt, inCommit[0], retry == Retry.ALWAYS, deadlineNanos)) {
+                    throw e;
+                }
+                mayHaveCommitted |= inCommit[0] && RetryPolicy.classify(e) == RetryPolicy.Reason.CONNECTION;
+            }
+        }
+    }
+
+    /**
+     * Runs work once, in its own connection.
+     *
+     * @param <T>           the result type
+     * @param dataSource    the database
+     * @param work          the work
+     * @param deadlineNanos the operation's deadline, or Long.MAX_VALUE
+     * @param inCommit         set to true once the commit starts; may be null
+     * @param mayHaveCommitted whether an earlier attempt lost its connection during the commit
+     * @return what the work returned
+     * @throws SQLException if the work, or the commit, fails; the transaction has been rolled back
+     */
+    private <T> T attempt(DataSource dataSource, Work<T> work, long deadlineNanos, boolean[] inCommit,
+                          boolean mayHaveCommitted) throws SQLException {
+        // The session attributes are set as the connection is opened, not by a round trip each
+        try (Connection connection = replica ? dataSource.getReadConnection(readOnly, isolation)
+                : dataSource.getConnection(readOnly, isolation)) {
+            Transaction transaction = new Transaction(connection, deadlineNanos, mayHaveCommitted);
+            if (!transactional) {
+                return work.run(transaction);
+            }
+            connection.setAutoCommit(false);
+            T result;
+            try {
+                result = work.run(transaction);
+            } catch (SQLException | RuntimeException e) {
+                rollback(connection, e);
+                throw e;
+            }
+            if (transaction.rollbackOnly) {
+                connection.rollback();
+            } else {
+                if (inCommit != null) {
+                    inCommit[0] = true;
+                }
+                connection.commit();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Rolls back after a failure, keeping a failed rollback with the failure.
+     *
+     * @param connection the connection
+     * @param failure    what made the work fail
+     */
+    private static void rollback(Connection connection, Exception failure) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    private long timeoutMillis() {
+        long timeout = timeoutMillis;
+        if (timeout < 0) {
+            timeout = timeoutProperty == null ? 0 : TimeUnit.SECONDS.toMillis(Math.max(0,
+                    DataSource.parseLong(DataSource.loadConfiguration(), timeoutProperty, 10)));
+            timeoutMillis = timeout;
+        }
+        return timeout;
+    }
+
+    /**
+     * The connection of a running operation.
+     */
+    static final class Transaction {
+
+        private final Connection connection;
+        private final long deadlineNanos;
+        private final boolean mayHaveCommitted;
+        private boolean rollbackOnly;
+
+        Transaction(Connection connection, long deadlineNanos, boolean mayHaveCommitted) {
+            this.connection = connection;
+            this.deadlineNanos = deadlineNanos;
+            this.mayHaveCommitted = mayHaveCommitted;
+        }
+
+        /**
+         * Gets the connection, for statements prepared some other way.
+         *
+         * @return the connection
+         */
+        Connection connection() {
+            return connection;
+        }
+
+        /**
+         * Prepares a statement with a query timeout from the time left to the
+         * request and to the operation.
+         *
+         * @param sql the SQL text
+         * @return the statement
+         * @throws SQLTimeoutException if either has run out of time
+         * @throws SQLException if the statement cannot be prepared
+         */
+        PreparedStatement prepare(String sql) throws SQLException {
+            return withTimeout(connection.prepareStatement(sql));
+        }
+
+        /**
+         * Prepares a statement that can return generated keys, with a query
+         * timeout as {@link #prepare(String)}.
+         *
+         * @param sql               the SQL text
+         * @param autoGeneratedKeys a Statement.RETURN_GENERATED_KEYS or NO_GENERATED_KEYS
+         * @return the statement
+         * @throws SQLTimeoutException if either has run out of time
+         * @throws SQLException if the statement cannot be prepared
+         */
+        PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+            return withTimeout(connection.prepareStatement(sql, autoGeneratedKeys));
+        }
+
+        /**
+         * Tells whether an earlier run of the same work lost its connection
+         * during the commit, so its changes may already be in the database:
+         * a delete that finds nothing to delete, for one, may have done so then.
+         *
+         * @return true if an earlier attempt may have committed
+         */
+        boolean mayHaveCommitted() {
+            return mayHaveCommitted;
+        }
+
+        /**
+         * Makes the transaction roll back instead of committing when the work returns.
+         */
+        void setRollbackOnly() {
+            rollbackOnly = true;
+        }
+
+        private PreparedStatement withTimeout(PreparedStatement statement) throws SQLException {
+            try {
+                int seconds = RequestContext.queryTimeoutSeconds();
+                boolean setByDeadline = seconds != 0;
+                if (deadlineNanos != Long.MAX_VALUE) {
+                    long remaining = deadlineNanos - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new SQLTimeoutException("Operation timeout exceeded");
+                    }
+                    int operationSeconds = (int) Math.min(Integer.MAX_VALUE,
+                            Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remaining + 999_999_999)));
+                    setByDeadline = seconds != 0 && seconds < operationSeconds;
+                    seconds = setByDeadline ? seconds : operationSeconds;
+                }
+                statement.setQueryTimeout(seconds);
+                if (setByDeadline) {
+                    ObservedConnection.timeoutSetByDeadline(statement); // Timing out says nothing about the database
+                }
+                return statement;
+            } catch (SQLException e) {
+                statement.close();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package monitoring;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/*******************************************************************************
+ * AsyncFileAppender
+ * Appends lines to a size-rolled log file from a background thread, so the
+ * threads producing the lines never wait on disk I/O.
+ *
+ * Lines go into a lock-free {@link RingBuffer}; when it is full the line is
+ * dropped and counted instead of blocking the caller. The writer thread
+ * drains the buffer in batches, flushes after each batch, and parks briefly
+ * when there is nothing to write, so producers never have to wake it. When
+ * the file would grow past its size limit it is rolled: {@code name.1}
+ * becomes {@code name.2} and so on, the current file becomes {@code name.1},
+ * and the oldest file is deleted.
+ *
+ * Without a file ({@link #toStandardError(int)}) lines go to standard error,
+ * still written by the background thread.
+ *
+ * @see AsyncFileAppender
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Non-blocking appender for a rolling log file.
+ ******************************************************************************/
+
+public final class AsyncFileAppender implements AutoCloseable {
+
+    /** Longest time the writer thread sleeps when there is nothing to write. */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final int BATCH_SIZE = 256;
+
+    private final Path file;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final RingBuffer<String> queue;
+    private final Thread writerThread;
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile boolean closed;
+
+    /** Owned by the writer thread. */
+    private Writer writer;
+    private long fileBytes;
+
+    /**
+     * Creates an appender and starts its writer thread.
+     *
+     * @param file          the log file, or null for standard error
+     * @param maxFileBytes  size at which the file is rolled
+     * @param maxFiles      number of rolled files kept besides the current one
+     * @param queueCapacity lines buffered before new lines are dropped (rounded up to a power of two)
+     */
+    public AsyncFileAppender(Path file, long maxFileBytes, int maxFiles, int queueCapacity) {
+        this.file = file;
+        this.maxFileBytes = Math.max(1024, maxFileBytes);
+        this.maxFiles = Math.max(0, maxFiles);
+        this.queue = new RingBuffer<>(queueCapacity);
+        this.writerThread = new Thread(this::drain,
+                "log-writer-" + (file == null ? "stderr" : file.getFileName()));
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Creates an appender that writes to standard error.
+     *
+     * @param queueCapacity lines buffered before new lines are dropped
+     * @return the appender
+     */
+    public static AsyncFileAppender toStandardError(int queueCapacity) {
+        return new AsyncFileAppender(null, Long.MAX_VALUE, 0, queueCapacity);
+    }
+
+    /**
+     * Resolves a configured log file name: relative names go under
+     * ${catalina.base}/logs, or the working directory outside Tomcat.
+     *
+     * @param file the configured name
+     * @return the absolute path
+     */
+    public static Path resolveLogPath(String file) {
+        Path path = Paths.get(file);
+        if (!path.isAbsolute()) {
+            String base = System.getProperty("catalina.base");
+            path = base != null ? Paths.get(base, "logs").resolve(path) : path.toAbsolutePath();
+        }
+        return path;
+    }
+
+    /**
+     * Queues a line without blocking.
+     *
+     * @param line the line, without a line terminator
+     * @return false if the queue was full and the line was dropped
+     */
+    public boolean append(String line) {
+        if (closed || !queue.offer(line)) {
+            dropped.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of dropped lines.
+     *
+     * @return the drop count
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stops accepting lines, writes the queued ones and closes the file.
+     */
+    @Override
+    public void close() {
+        // No interrupt: it would close the file channel under a write in progress
+        closed = true;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writer thread: takes batches of lines off the queue and writes them.
+     */
+    private void drain() {
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        while (true) {
+            boolean closing = closed;
+            if (queue.drainTo(batch, BATCH_SIZE) > 0) {
+                write(batch);
+                batch.clear();
+            } else if (closing) {
+                break; // closed and nothing left
+            } else {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+        closeWriter();
+    }
+
+    /**
+     * Writes a batch, rolling the file when it grows past its limit.
+     *
+     * @param batch the lines
+     */
+    private void write(List<String> batch) {
+        try {
+            for (String line : batch) {
+                long length = line.length() + 1L;
+                if (writer == null && file == null) {
+                    writer = new OutputStreamWriter(System.err, StandardCharsets.UTF_8);
+                } else if (writer == null) {
+                    open(false);
+                } else if (fileBytes + length > maxFileBytes && fileBytes > 0) {
+                    open(true);
+                }
+                writer.write(line);
+                writer.write('\n');
+                fileBytes += length;
+            }
+            writer.flush();
+        } catch (IOException e) {
+            dropped.add(batch.size());
+            System.err.println("Error writing log file " + file + ": " + e.getMessage());
+            closeWriter();
+        }
+    }
+
+    /**
+     * Opens the file, first rolling it if it is full.
+     *
+     * @param full true if the current file reached its limit; otherwise it is
+     *             rolled only if it already exceeds the limit on disk
+     * @throws IOException if the file cannot be rolled or opened
+     */
+    private void open(boolean full) throws IOException {
+        closeWriter();
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        if (Files.exists(file) && (full || Files.size(file) >= maxFileBytes)) {
+            if (maxFiles == 0) {
+                Files.delete(file);
+            } else {
+                Files.deleteIfExists(rolled(maxFiles));
+                for (int i = maxFiles - 1; i >= 1; i--) {
+                    if (Files.exists(rolled(i))) {
+                        Files.move(rolled(i), rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+                Files.move(file, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        fileBytes = Files.exists(file) ? Files.size(file) : 0;
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Gets the path of a rolled file.
+     *
+     * @param index the roll index, 1 for the most recent
+     * @return the path
+     */
+    private Path rolled(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    /**
+     * Closes the current file, if open.
+     */
+    private void closeWriter() {
+        if (writer != null) {
+            try {
+                if (file == null) {
+                    writer.flush(); // never close standard error
+                } else {
+                    writer.close();
+                }
+            } catch (IOException e) {
+                System.err.println("Error closing log file " + file + ": " + e.getMessage());
+            }
+            writer = null;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/*******************************************************************************
+ * ConnectionAcquireEvent
+ * JDK Flight Recorder event for opening a database connection in the
+ * DataSource. Disabled by default; see {@link RequestEvent}.
+ *
+ * @see ConnectionAcquireEvent
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: JFR event for acquiring a database connection.
+ ******************************************************************************/
+
+@Name("booksdbms.ConnectionAcquire")
+@Label("Connection Acquire")
+@Description("Opening a database connection")
+@Category({ "Books DBMS", "Database" })
+@Enabled(false)
+public class ConnectionAcquireEvent extends Event {
+
+    @Label("Success")
+    public boolean success;
+
+    @Label("SQL State")
+    @Description("SQL state of the failure, if the connection could not be opened")
+    public String sqlState;
+}
@@ -0,0 +1,122 @@
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*******************************************************************************
+ * DaoCallEvent
+ * JDK Flight Recorder event for one DAO method call. While an enabled event
+ * is in progress it is the thread's current DAO call, so the statements the
+ * call executes can add their rows and SQL id to it (see {@link #current()}).
+ * Disabled by default; see {@link RequestEvent}.
+ *
+ * @see DaoCallEvent
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: JFR event for a DAO method call.
+ ******************************************************************************/
+
+@Name("booksdbms.DaoCall")
+@Label("DAO Call")
+@Description("A call to an AuthorDAO or TitleDAO method")
+@Category({ "Books DBMS", "Database" })
+@Enabled(false)
+@StackTrace(false)
+public class DaoCallEvent extends Event {
+
+    /** The enabled DAO call in progress on each thread. */
+    private static final ThreadLocal<DaoCallEvent> CURRENT = new ThreadLocal<>();
+
+    @Label("DAO")
+    public String dao;
+
+    @Label("Method")
+    public String method;
+
+    @Label("SQL Id")
+    @Description("Id of the first statement executed by the call")
+    public String sqlId;
+
+    @Label("Statements")
+    public int statements;
+
+    @Label("Rows")
+    @Description("Rows returned or affected by the call's statements")
+    public long rows;
+
+    /** The call this one is nested in; transient fields are not recorded. */
+    private transient DaoCallEvent outer;
+
+    /** Whether this event was started while enabled. */
+    private transient boolean started;
+
+    /**
+     * Starts a DAO call event and, if the event type is enabled, makes it the
+     * thread's current call.
+     *
+     * @param dao    the DAO interface name
+     * @param method the method name
+     * @return the started event
+     */
+    public static DaoCallEvent start(String dao, String method) {
+        DaoCallEvent event = new DaoCallEvent();
+        if (event.isEnabled()) {
+            event.dao = dao;
+            event.method = method;
+            event.outer = CURRENT.get();
+            event.started = true;
+            event.begin();
+            CURRENT.set(event);
+        }
+        return event;
+    }
+
+    /**
+     * Gets the enabled DAO call in progress on this thread.
+     *
+     * @return the event, or null
+     */
+    public static DaoCallEvent current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Adds a statement execution to this call.
+     *
+     * @param id   the statement's SQL id
+     * @param rows rows returned or affected; negative if unknown
+     */
+    public void addStatement(String id, long rows) {
+        if (sqlId == null) {
+            sqlId = id;
+        }
+        statements++;
+        if (rows > 0) {
+            this.rows += rows;
+        }
+    }
+
+    /**
+     * Ends the call and commits the event if it passes the recording's settings.
+     */
+    public void finish() {
+        if (started) {
+            if (outer != null) {
+                CURRENT.set(outer);
+            } else {
+                CURRENT.remove();
+            }
+            end();
+            if (shouldCommit()) {
+                commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package monitoring;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/*******************************************************************************
+ * Histogram
+ * A lock-free histogram of non-negative long values (latencies in nanoseconds,
+ * row counts) with log-linear buckets in the style of HdrHistogram: each
+ * power of two is split into 16 equal sub-buckets, so any recorded value is
+ * known to within 1/16 (about 6%) while the whole range of a long fits in
+ * fewer than 1000 counters.
+ *
+ * Recording is one bucket-index computation (a few shifts) and one atomic
+ * increment, with no locks and no allocation, so it can sit on every request
+ * and query. Reading walks the counters without stopping writers; a snapshot
+ * taken while values are being recorded may be off by those in-flight values.
+ *
+ * @see Histogram
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Lock-free log-linear histogram.
+ ******************************************************************************/
+
+public final class Histogram {
+
+    /** log2 of the number of sub-buckets per power of two. */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** Values below SUB_BUCKETS each have their own bucket; above, 16 per power of two. */
+    private static final int BUCKET_COUNT = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Records a value.
+     *
+     * @param value the value; negative values are recorded as 0
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(bucketIndex(v));
+        sum.add(v);
+    }
+
+    /**
+     * Records the time elapsed since a start time.
+     *
+     * @param startNanos a System.nanoTime() value
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Gets the sum of recorded values.
+     *
+     * @return the sum
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Counts the recorded values at or below each of the given bounds.
+     *
+     * @param bounds ascending upper bounds
+     * @return cumulative counts, one per bound, followed by the total count
+     */
+    public long[] cumulativeCounts(long[] bounds) {
+        long[] result = new long[bounds.length + 1];
+        int b = 0;
+        long running = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = counts.get(i);
+            if (count == 0) {
+                continue;
+            }
+            // A bucket is attributed to the first bound that covers its lowest value
+            long low = lowestValue(i);
+            while (b < bounds.length && low > bounds[b]) {
+                result[b++] = running;
+            }
+            running += count;
+        }
+        while (b < bounds.length) {
+            result[b++] = running;
+        }
+        result[bounds.length] = running;
+        return result;
+    }
+
+    /**
+     * Estimates a quantile.
+     *
+     * @param quantile the quantile, between 0 and 1
+     * @return the highest value of the bucket holding the quantile, or 0 if empty
+     */
+    public long getValueAtQuantile(double quantile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return highestValue(i);
+            }
+        }
+        return highestValue(BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Maps a value to its bucket.
+     *
+     * @param value a non-negative value
+     * @return the bucket index
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Gets the lowest value that maps to a bucket.
+     *
+     * @param index the bucket index
+     * @return the lowest value
+     */
+    static long lowestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + subBucket) << shift;
+    }
+
+    /**
+     * Gets the highest value that maps to a bucket.
+     *
+     * @param index the bucket index
+     * @return the highest value
+     */
+    static long highestValue(int index) {
+        return index == BUCKET_COUNT - 1 ? Long.MAX_VALUE : lowestValue(index + 1) - 1;
+    }
+}
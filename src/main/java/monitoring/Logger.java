@@ -0,0 +1,565 @@
+package monitoring;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Properties;
+
+/*******************************************************************************
+ * Logger
+ * The application's logging facade. Each call below the configured level
+ * returns after one int comparison; the message is only formatted, and its
+ * argument array only allocated, for calls that are enabled.
+ *
+ * Enabled entries are formatted as one JSON object per line, with the time,
+ * level, logger name, thread, the request id and action of the current
+ * request, the message, and the exception (with its SQL state) if the last
+ * argument is a Throwable. Messages use {@code {}} placeholders:
+ *
+ *   LOG.error("Error retrieving title by ISBN {}", isbn, e);
+ *
+ * Lines are handed to a lock-free ring buffer and written by a background
+ * thread (see {@link AsyncFileAppender}), so logging threads never wait on
+ * a lock or on I/O. If the buffer is full the line is dropped and counted in
+ * {@code log_dropped_total}.
+ *
+ * Configured by app-logging.properties on the classpath (system properties of
+ * the same names take precedence):
+ *
+ *   log.level            DEBUG, INFO, WARN, ERROR or OFF
+ *   log.level.PREFIX     level for loggers whose name starts with PREFIX
+ *   log.file             log file (relative paths go under ${catalina.base}/logs);
+ *                        empty writes to standard error
+ *   log.maxFileBytes     size at which the file is rolled
+ *   log.maxFiles         rolled files kept
+ *   log.bufferSize       ring buffer capacity in lines
+ *
+ * @see Logger
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Asynchronous structured (JSON lines) logging facade.
+ ******************************************************************************/
+
+public final class Logger {
+
+    /** Log levels, in increasing order of severity. */
+    public enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
+    private static final int DEBUG = 0;
+    private static final int INFO = 1;
+    private static final int WARN = 2;
+    private static final int ERROR = 3;
+
+    /** Frames of a stack trace kept in an entry. */
+    private static final int MAX_STACK_FRAMES = 20;
+
+    private static final Properties CONFIG = loadConfig();
+
+    private static final AsyncFileAppender APPENDER = createAppender();
+
+    /** Request id and action of the request handled by the current thread. */
+    private static final ThreadLocal<String[]> CONTEXT = new ThreadLocal<>();
+
+    static {
+        MetricsRegistry.getInstance().counter("log_dropped_total",
+                "Log entries dropped because the log buffer was full.", APPENDER::getDropped);
+    }
+
+    private final String name;
+
+    /** Lowest enabled level, as a Level ordinal. */
+    private final int threshold;
+
+    /**
+     * Creates a logger.
+     *
+     * @param name      the logger name
+     * @param threshold the lowest enabled level
+     */
+    private Logger(String name, int threshold) {
+        this.name = name;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Gets a logger named after a class.
+     *
+     * @param type the class
+     * @return the logger
+     */
+    public static Logger getLogger(Class<?> type) {
+        return getLogger(type.getName());
+    }
+
+    /**
+     * Gets a logger. Its level is fixed when it is created.
+     *
+     * @param name the logger name
+     * @return the logger
+     */
+    public static Logger getLogger(String name) {
+        // The longest matching log.level.PREFIX wins, then log.level
+        String level = null;
+        int matched = -1;
+        for (String key : CONFIG.stringPropertyNames()) {
+            if (key.startsWith("log.level.")) {
+                String prefix = key.substring("log.level.".length());
+                if (name.startsWith(prefix) && prefix.length() > matched) {
+                    level = CONFIG.getProperty(key);
+                    matched = prefix.length();
+                }
+            }
+        }
+        if (level == null) {
+            level = CONFIG.getProperty("log.level", "INFO");
+        }
+        return new Logger(name, parseLevel(level).ordinal());
+    }
+
+    /**
+     * Sets the request id and action included in entries logged by this thread.
+     *
+     * @param requestId the request id
+     * @param action    the action, or null
+     */
+    public static void setContext(String requestId, String action) {
+        CONTEXT.set(new String[] { requestId, action });
+    }
+
+    /**
+     * Clears the request context of this thread.
+     */
+    public static void clearContext() {
+        CONTEXT.remove();
+    }
+
+    /**
+     * Writes out buffered entries and stops the writer thread.
+     */
+    public static void shutdown() {
+        APPENDER.close();
+    }
+
+    /** @return true if DEBUG entries are logged. */
+    public boolean isDebugEnabled() {
+        return threshold <= DEBUG;
+    }
+
+    /** @return true if INFO entries are logged. */
+    public boolean isInfoEnabled() {
+        return threshold <= INFO;
+    }
+
+    /**
+     * Logs at DEBUG.
+     *
+     * @param message the message
+     */
+    public void debug(String message) {
+        if (threshold <= DEBUG) {
+            log(Level.DEBUG, message, null);
+        }
+    }
+
+    /**
+     * Logs at DEBUG.
+     *
+     * @param message the message pattern
+     * @param arg     the argument
+     */
+    public void debug(String message, Object arg) {
+        if (threshold <= DEBUG) {
+            log(Level.DEBUG, message, new Object[] { arg });
+        }
+    }
+
+    /**
+     * Logs at DEBUG.
+     *
+     * @param message the message pattern
+     * @param arg1    the first argument
+     * @param arg2    the second argument
+     */
+    public void debug(String message, Object arg1, Object arg2) {
+        if (threshold <= DEBUG) {
+            log(Level.DEBUG, message, new Object[] { arg1, arg2 });
+        }
+    }
+
+    /**
+     * Logs at DEBUG.
+     *
+     * @param message the message pattern
+     * @param args    the arguments; a trailing Throwable is logged as the exception
+     */
+    public void debug(String message, Object... args) {
+        if (threshold <= DEBUG) {
+            log(Level.DEBUG, message, args);
+        }
+    }
+
+    /**
+     * Logs at INFO.
+     *
+     * @param message the message
+     */
+    public void info(String message) {
+        if (threshold <= INFO) {
+            log(Level.INFO, message, null);
+        }
+    }
+
+    /**
+     * Logs at INFO.
+     *
+     * @param message the message pattern
+     * @param arg     the argument
+     */
+    public void info(String message, Object arg) {
+        if (threshold <= INFO) {
+            log(Level.INFO, message, new Object[] { arg });
+        }
+    }
+
+    /**
+     * Logs at INFO.
+     *
+     * @param message the message pattern
+     * @param arg1    the first argument
+     * @param arg2    the second argument
+     */
+    public void info(String message, Object arg1, Object arg2) {
+        if (threshold <= INFO) {
+            log(Level.INFO, message, new Object[] { arg1, arg2 });
+        }
+    }
+
+    /**
+     * Logs at INFO.
+     *
+     * @param message the message pattern
+     * @param args    the arguments; a trailing Throwable is logged as the exception
+     */
+    public void info(String message, Object... args) {
+        if (threshold <= INFO) {
+            log(Level.INFO, message, args);
+        }
+    }
+
+    /**
+     * Logs at WARN.
+     *
+     * @param message the message
+     */
+    public void warn(String message) {
+        if (threshold <= WARN) {
+            log(Level.WARN, message, null);
+        }
+    }
+
+    /**
+     * Logs at WARN.
+     *
+     * @param message the message pattern
+     * @param arg     the argument
+     */
+    public void warn(String message, Object arg) {
+        if (threshold <= WARN) {
+            log(Level.WARN, message, new Object[] { arg });
+        }
+    }
+
+    /**
+     * Logs at WARN.
+     *
+     * @param message the message pattern
+     * @param arg1    the first argument
+     * @param arg2    the second argument
+     */
+    public void warn(String message, Object arg1, Object arg2) {
+        if (threshold <= WARN) {
+            log(Level.WARN, message, new Object[] { arg1, arg2 });
+        }
+    }
+
+    /**
+     * Logs at WARN.
+     *
+     * @param message the message pattern
+     * @param args    the arguments; a trailing Throwable is logged as the exception
+     */
+    public void warn(String message, Object... args) {
+        if (threshold <= WARN) {
+            log(Level.WARN, message, args);
+        }
+    }
+
+    /**
+     * Logs at ERROR.
+     *
+     * @param message the message
+     */
+    public void error(String message) {
+        if (threshold <= ERROR) {
+            log(Level.ERROR, message, null);
+        }
+    }
+
+    /**
+     * Logs at ERROR.
+     *
+     * @param message the message pattern
+     * @param arg     the argument
+     */
+    public void error(String message, Object arg) {
+        if (threshold <= ERROR) {
+            log(Level.ERROR, message, new Object[] { arg });
+        }
+    }
+
+    /**
+     * Logs at ERROR.
+     *
+     * @param message the message pattern
+     * @param arg1    the first argument
+     * @param arg2    the second argument
+     */
+    public void error(String message, Object arg1, Object arg2) {
+        if (threshold <= ERROR) {
+            log(Level.ERROR, message, new Object[] { arg1, arg2 });
+        }
+    }
+
+    /**
+     * Logs at ERROR.
+     *
+     * @param message the message pattern
+     * @param args    the arguments; a trailing Throwable is logged as the exception
+     */
+    public void error(String message, Object... args) {
+        if (threshold <= ERROR) {
+            log(Level.ERROR, message, args);
+        }
+    }
+
+    /**
+     * Formats an enabled entry and queues it.
+     *
+     * @param level   the level
+     * @param message the message pattern
+     * @param args    the arguments, or null
+     */
+    private void log(Level level, String message, Object[] args) {
+        queue(format(Instant.now(), level, name, Thread.currentThread().getName(), CONTEXT.get(), message, args));
+    }
+
+    /**
+     * Queues a formatted line.
+     *
+     * @param line the JSON line
+     */
+    private static void queue(String line) {
+        APPENDER.append(line);
+    }
+
+    /**
+     * Formats an entry as a JSON object.
+     *
+     * @param time    the time of the entry
+     * @param level   the level
+     * @param logger  the logger name
+     * @param thread  the thread name
+     * @param context the request id and action, or null
+     * @param message the message pattern
+     * @param args    the arguments, or null
+     * @return the JSON line
+     */
+    static String format(Instant time, Level level, String logger, String thread, String[] context,
+                         String message, Object[] args) {
+        Throwable thrown = null;
+        int argCount = args == null ? 0 : args.length;
+        if (argCount > 0 && args[argCount - 1] instanceof Throwable
+                && countPlaceholders(message) < argCount) {
+            thrown = (Throwable) args[argCount - 1];
+            argCount--;
+        }
+
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"ts\":\"").append(time).append('"');
+        json.append(",\"level\":\"").append(level).append('"');
+        field(json, "logger", logger);
+        field(json, "thread", thread);
+        if (context != null) {
+            field(json, "requestId", context[0]);
+            if (context[1] != null) {
+                field(json, "action", context[1]);
+            }
+        }
+        field(json, "msg", substitute(message, args, argCount));
+        if (thrown != null) {
+            field(json, "exception", thrown.toString());
+            if (thrown instanceof SQLException && ((SQLException) thrown).getSQLState() != null) {
+                field(json, "sqlState", ((SQLException) thrown).getSQLState());
+            }
+            StringBuilder stack = new StringBuilder();
+            StackTraceElement[] frames = thrown.getStackTrace();
+            for (int i = 0; i < frames.length && i < MAX_STACK_FRAMES; i++) {
+                stack.append(i == 0 ? "" : "\n").append(frames[i]);
+            }
+            field(json, "stack", stack.toString());
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Replaces the {@code {}} placeholders of a message with its arguments.
+     *
+     * @param message  the message pattern
+     * @param args     the arguments, or null
+     * @param argCount how many arguments to use
+     * @return the message
+     */
+    private static String substitute(String message, Object[] args, int argCount) {
+        if (message == null || argCount == 0) {
+            return message;
+        }
+        StringBuilder result = new StringBuilder(message.length() + 16 * argCount);
+        int arg = 0;
+        int start = 0;
+        int placeholder;
+        while (arg < argCount && (placeholder = message.indexOf("{}", start)) >= 0) {
+            result.append(message, start, placeholder).append(args[arg++]);
+            start = placeholder + 2;
+        }
+        return result.append(message, start, message.length()).toString();
+    }
+
+    /**
+     * Counts the {@code {}} placeholders of a message.
+     *
+     * @param message the message pattern
+     * @return the count
+     */
+    private static int countPlaceholders(String message) {
+        int count = 0;
+        int index = message == null ? -1 : message.indexOf("{}");
+        while (index >= 0) {
+            count++;
+            index = message.indexOf("{}", index + 2);
+        }
+        return count;
+    }
+
+    /**
+     * Appends a string field with JSON escaping.
+     *
+     * @param json  the object being built
+     * @param key   the field name
+     * @param value the value (null is written as JSON null)
+     */
+    private static void field(StringBuilder json, String key, String value) {
+        json.append(",\"").append(key).append("\":");
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Parses a level name.
+     *
+     * @param level the name
+     * @return the level, INFO if the name is not recognized
+     */
+    private static Level parseLevel(String level) {
+        try {
+            return Level.valueOf(level.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+
+    /**
+     * Loads app-logging.properties and applies system property overrides.
+     *
+     * @return the configuration
+     */
+    private static Properties loadConfig() {
+        Properties props = new Properties();
+        try (InputStream in = Logger.class.getClassLoader().getResourceAsStream("app-logging.properties")) {
+            if (in != null) {
+                props.load(in);
+            }
+        } catch (IOException e) {
+            // The logger cannot log its own configuration problems; fall back to defaults
+            System.err.println("Error reading app-logging.properties: " + e.getMessage());
+        }
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("log.")) {
+                props.setProperty(key, System.getProperty(key));
+            }
+        }
+        return props;
+    }
+
+    /**
+     * Creates the appender described by the configuration.
+     *
+     * @return the appender
+     */
+    private static AsyncFileAppender createAppender() {
+        int bufferSize = (int) longConfig("log.bufferSize", 8192);
+        String file = CONFIG.getProperty("log.file", "").trim();
+        if (file.isEmpty()) {
+            return AsyncFileAppender.toStandardError(bufferSize);
+        }
+        return new AsyncFileAppender(AsyncFileAppender.resolveLogPath(file),
+                longConfig("log.maxFileBytes", 10L * 1024 * 1024), (int) longConfig("log.maxFiles", 5), bufferSize);
+    }
+
+    /**
+     * Reads a numeric setting.
+     *
+     * @param key          the setting
+     * @param defaultValue the value used when the setting is missing or invalid
+     * @return the value
+     */
+    private static long longConfig(String key, long defaultValue) {
+        try {
+            return Long.parseLong(CONFIG.getProperty(key, Long.toString(defaultValue)).trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package monitoring;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/*******************************************************************************
+ * MetricsRegistry
+ * Holds the application's metrics and writes them in the Prometheus text
+ * exposition format (version 0.0.4).
+ *
+ * Three kinds of metric are supported:
+ *
+ *   - counters:   {@link LongAdder}s, cheap to increment from many threads;
+ *   - gauges:     values read from a supplier when the metrics are scraped,
+ *                 so components expose their existing statistics as-is;
+ *   - histograms: {@link Histogram}s, exported with fixed {@code le} buckets.
+ *
+ * Each metric has a name and optional labels given as name/value pairs.
+ * Looking a metric up builds its label string, so hot paths should look it up
+ * once and keep the returned object.
+ *
+ * @see MetricsRegistry
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Registry of counters, gauges and histograms with Prometheus export.
+ ******************************************************************************/
+
+public final class MetricsRegistry {
+
+    /** Bucket bounds for latency histograms, in seconds. */
+    public static final double[] LATENCY_BUCKETS = {
+        0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    /** Bucket bounds for size histograms (e.g. rows per query). */
+    public static final double[] SIZE_BUCKETS = { 0, 1, 10, 100, 1000, 10000, 100000 };
+
+    /** Scale of latency histograms: they record nanoseconds and export seconds. */
+    public static final double NANOS = 1e-9;
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    /** Metric families by name, sorted for a stable export order. */
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    /**
+     * Returns the registry shared by the whole application.
+     *
+     * @return the registry
+     */
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets or creates a counter.
+     *
+     * @param name   the metric name (should end in _total)
+     * @param help   the help text
+     * @param labels label names and values, alternating
+     * @return the counter
+     */
+    public LongAdder counter(String name, String help, String... labels) {
+        return (LongAdder) family(name, help, "counter", null, 1).metrics
+                .computeIfAbsent(labelString(labels), k -> new LongAdder());
+    }
+
+    /**
+     * Registers a counter whose value is read from a supplier, replacing any
+     * metric with the same name and labels. The supplier must never decrease.
+     *
+     * @param name   the metric name (should end in _total)
+     * @param help   the help text
+     * @param value  supplies the current count
+     * @param labels label names and values, alternating
+     */
+    public void counter(String name, String help, Supplier<? extends Number> value, String... labels) {
+        family(name, help, "counter", null, 1).metrics.put(labelString(labels), value);
+    }
+
+    /**
+     * Registers a gauge, replacing any gauge with the same name and labels.
+     *
+     * @param name   the metric name
+     * @param help   the help text
+     * @param value  supplies the current value
+     * @param labels label names and values, alternating
+     */
+    public void gauge(String name, String help, Supplier<? extends Number> value, String... labels) {
+        family(name, help, "gauge", null, 1).metrics.put(labelString(labels), value);
+    }
+
+    /**
+     * Gets or creates a latency histogram recording nanoseconds.
+     *
+     * @param name   the metric name (should end in _seconds)
+     * @param help   the help text
+     * @param labels label names and values, alternating
+     * @return the histogram
+     */
+    public Histogram latency(String name, String help, String... labels) {
+        return histogram(name, help, LATENCY_BUCKETS, NANOS, labels);
+    }
+
+    /**
+     * Gets or creates a histogram.
+     *
+     * @param name    the metric name
+     * @param help    the help text
+     * @param buckets the exported bucket bounds, in exported units
+     * @param scale   factor from recorded values to exported units
+     * @param labels  label names and values, alternating
+     * @return the histogram
+     */
+    public Histogram histogram(String name, String help, double[] buckets, double scale, String... labels) {
+        return (Histogram) family(name, help, "histogram", buckets, scale).metrics
+                .computeIfAbsent(labelString(labels), k -> new Histogram());
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text format.
+     *
+     * @param out the writer
+     * @throws IOException if writing fails
+     */
+    @SuppressWarnings("unchecked")
+    public void writePrometheus(Writer out) throws IOException {
+        StringBuilder line = new StringBuilder(128);
+        for (Family family : families.values()) {
+            out.write("# HELP " + family.name + " " + family.help + "\n");
+            out.write("# TYPE " + family.name + " " + family.type + "\n");
+            for (Map.Entry<String, Object> entry : family.metrics.entrySet()) {
+                String labels = entry.getKey();
+                Object metric = entry.getValue();
+                if (metric instanceof Histogram) {
+                    writeHistogram(out, line, family, labels, (Histogram) metric);
+                    continue;
+                }
+                double value;
+                if (metric instanceof LongAdder) {
+                    value = ((LongAdder) metric).sum();
+                } else {
+                    Number number = ((Supplier<? extends Number>) metric).get();
+                    if (number == null) {
+                        continue;
+                    }
+                    value = number.doubleValue();
+                }
+                line.setLength(0);
+                line.append(family.name);
+                if (!labels.isEmpty()) {
+                    line.append('{').append(labels).append('}');
+                }
+                line.append(' ').append(format(value)).append('\n');
+                out.write(line.toString());
+            }
+        }
+    }
+
+    /**
+     * Writes the bucket, sum and count series of one histogram.
+     *
+     * @param out       the writer
+     * @param line      a reusable buffer
+     * @param family    the histogram's family
+     * @param labels    the histogram's label string
+     * @param histogram the histogram
+     * @throws IOException if writing fails
+     */
+    private static void writeHistogram(Writer out, StringBuilder line, Family family, String labels,
+                                       Histogram histogram) throws IOException {
+        long[] cumulative = histogram.cumulativeCounts(family.rawBounds);
+        String separator = labels.isEmpty() ? "" : labels + ",";
+        for (int i = 0; i <= family.buckets.length; i++) {
+            line.setLength(0);
+            line.append(family.name).append("_bucket{").append(separator).append("le=\"")
+                .append(i < family.buckets.length ? format(family.buckets[i]) : "+Inf")
+                .append("\"} ").append(cumulative[i]).append('\n');
+            out.write(line.toString());
+        }
+        String suffix = labels.isEmpty() ? " " : "{" + labels + "} ";
+        out.write(family.name + "_sum" + suffix + format(histogram.getSum() * family.scale) + "\n");
+        out.write(family.name + "_count" + suffix + cumulative[family.buckets.length] + "\n");
+    }
+
+    /**
+     * Gets or creates a metric family.
+     *
+     * @param name    the metric name
+     * @param help    the help text
+     * @param type    counter, gauge or histogram
+     * @param buckets histogram bucket bounds, or null
+     * @param scale   histogram scale
+     * @return the family
+     */
+    private Family family(String name, String help, String type, double[] buckets, double scale) {
+        Family family = families.computeIfAbsent(name, n -> new Family(n, help, type, buckets, scale));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type);
+        }
+        return family;
+    }
+
+    /**
+     * Builds the Prometheus label string for name/value pairs.
+     *
+     * @param labels label names and values, alternating
+     * @return e.g. {@code method="getAllAuthors",dao="AuthorDAO"}
+     */
+    private static String labelString(String... labels) {
+        if (labels.length == 0) {
+            return "";
+        }
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i + 1 < labels.length; i += 2) {
+            if (result.length() > 0) {
+                result.append(',');
+            }
+            result.append(labels[i]).append("=\"");
+            String value = labels[i + 1] == null ? "" : labels[i + 1];
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                if (c == '\\' || c == '"') {
+                    result.append('\\').append(c);
+                } else if (c == '\n') {
+                    result.append("\\n");
+                } else {
+                    result.append(c);
+                }
+            }
+            result.append('"');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Formats a sample value.
+     *
+     * @param value the value
+     * @return the value without a trailing ".0" for whole numbers
+     */
+    private static String format(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    /**
+     * All series of one metric name.
+     */
+    private static final class Family {
+        final String name;
+        final String help;
+        final String type;
+        final double[] buckets;
+        final long[] rawBounds;
+        final double scale;
+
+        /** Metrics by label string, sorted for a stable export order. */
+        final Map<String, Object> metrics = new ConcurrentSkipListMap<>();
+
+        Family(String name, String help, String type, double[] buckets, double scale) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.buckets = buckets == null ? new double[0] : buckets.clone();
+            this.scale = scale;
+            this.rawBounds = new long[this.buckets.length];
+            for (int i = 0; i < this.buckets.length; i++) {
+                this.rawBounds[i] = Math.round(this.buckets[i] / scale);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*******************************************************************************
+ * RequestEvent
+ * JDK Flight Recorder event for one front controller action, from admission
+ * until the page has been written.
+ *
+ * Like the other events of this application it is disabled by default and
+ * costs nothing until a recording enables it, for example with the settings
+ * file src/main/jfr/books-dbms.jfc:
+ *
+ *   -XX:StartFlightRecording:settings=default,settings=books-dbms.jfc
+ *
+ * @see RequestEvent
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: JFR event for a front controller request.
+ ******************************************************************************/
+
+@Name("booksdbms.Request")
+@Label("Request")
+@Description("A front controller action")
+@Category({ "Books DBMS", "Web" })
+@Enabled(false)
+@StackTrace(false)
+public class RequestEvent extends Event {
+
+    @Label("Action")
+    public String action;
+
+    @Label("Status")
+    public int status;
+
+    @Label("Bytes Written")
+    @DataAmount
+    public long bytesWritten;
+}
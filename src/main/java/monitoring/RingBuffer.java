@@ -0,0 +1,131 @@
+package monitoring;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*******************************************************************************
+ * RingBuffer
+ * A bounded, lock-free, multi-producer single-consumer queue backed by a
+ * power-of-two array (after Dmitry Vyukov's bounded MPMC queue, with the
+ * consumer side simplified to one thread).
+ *
+ * Each slot has a sequence number telling whose turn it is. A producer claims
+ * a slot with one CAS on the tail, stores the element and publishes it by
+ * advancing the slot's sequence; the consumer reads slots in order and hands
+ * them back the same way. A full buffer makes {@link #offer(Object)} return
+ * false at once, so producers never block and memory stays bounded.
+ *
+ * @param <E> the element type
+ * @see RingBuffer
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Bounded lock-free MPSC queue.
+ ******************************************************************************/
+
+public final class RingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+
+    /** Only touched by the consumer thread. */
+    private long head;
+
+    /**
+     * Creates a ring buffer.
+     *
+     * @param capacity the minimum capacity; rounded up to a power of two
+     */
+    public RingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Gets the capacity.
+     *
+     * @return the number of slots
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Adds an element if there is room. Safe to call from any thread.
+     *
+     * @param element the element (not null)
+     * @return false if the buffer is full
+     */
+    public boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    sequences.set(index, position + 1); // publish
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false; // the consumer has not freed this slot yet: full
+            } else {
+                position = tail.get(); // another producer took it; retry
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest element. Must only be called by the consumer thread.
+     *
+     * @return the element, or null if the buffer is empty
+     */
+    public E poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return null; // not yet published
+        }
+        E element = elements.get(index);
+        elements.lazySet(index, null);
+        sequences.set(index, head + mask + 1); // hand the slot back to producers
+        head++;
+        return element;
+    }
+
+    /**
+     * Moves up to {@code max} elements into a collection. Consumer thread only.
+     *
+     * @param target the collection to add to
+     * @param max    the maximum number of elements
+     * @return the number of elements moved
+     */
+    public int drainTo(Collection<? super E> target, int max) {
+        int count = 0;
+        E element;
+        while (count < max && (element = poll()) != null) {
+            target.add(element);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether the buffer is empty. Exact only on the consumer thread.
+     *
+     * @return true if no published element is waiting
+     */
+    public boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+}
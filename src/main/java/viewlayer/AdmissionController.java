@@ -0,0 +1,322 @@
+package viewlayer;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*******************************************************************************
+ * AdmissionController (View Layer)
+ * Limits how many requests may work against the database at once, so that a
+ * slow MySQL makes excess requests fail fast with HTTP 503 instead of piling
+ * up on DataSource.getConnection() until the container runs out of threads.
+ *
+ * Read actions (getAll*, get*) and write actions (add*, update*, delete*) have
+ * separate limiters, so a burst of slow writes cannot starve reads and vice
+ * versa. Each known action also has a limiter of its own, so one expensive
+ * action (a full listing, say) cannot take every slot of its class: a request
+ * needs a slot of its action and of its class. Each limiter admits up to its
+ * current limit, lets a bounded number of requests wait for a short time, and
+ * rejects the rest.
+ *
+ * The limits adapt to observed database latency (AIMD): the time a request
+ * spent connecting to and holding a database connection, averaged over the
+ * connections it opened, is compared with the target. Averaging keeps an
+ * action that opens many connections (a listing that looks up the authors
+ * of each title, or a scatter-gather read) from looking slow on a healthy
+ * database just because it does more work, which would otherwise cut the
+ * limit of its whole class. Every request under the target raises the
+ * limit by 1/limit (about +1 per window), and a request over the target
+ * cuts it by 10% (at most once per 100 ms), so concurrency shrinks while
+ * the database struggles and grows back when it recovers, always staying
+ * between the configured minimum and maximum. Writing the page to the
+ * client is not counted, so slow clients do not shrink the limits, and
+ * requests that did no database work (a cached page, say) leave them as
+ * they are.
+ *
+ * @see AdmissionController
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Adaptive concurrency limits and load shedding for actions.
+ ******************************************************************************/
+
+final class AdmissionController {
+
+    /** Action classes with separate limits. */
+    enum ActionClass { READ, WRITE }
+
+    private final Limiter reads;
+    private final Limiter writes;
+    /** Limiters of the known actions, by action name. */
+    private final Map<String, Limiter> actions;
+    private final long queueTimeoutMillis;
+
+    /**
+     * Creates an admission controller.
+     *
+     * @param readLimit           maximum concurrent read actions
+     * @param writeLimit          maximum concurrent write actions
+     * @param actionLimits        maximum concurrent requests of each known action; an
+     *                            action missing from it, or mapped to 0, gets the limit of its class
+     * @param actionNames         the known actions; others only have the limit of their class
+     * @param queueSize           maximum requests waiting per limiter
+     * @param queueTimeoutMillis  maximum time a request waits for admission
+     * @param targetLatencyMillis database latency above which limits shrink; 0 keeps limits fixed
+     */
+    AdmissionController(int readLimit, int writeLimit, Map<String, Integer> actionLimits, String[] actionNames,
+                        int queueSize, long queueTimeoutMillis, long targetLatencyMillis) {
+        this.reads = new Limiter("read", readLimit, queueSize, targetLatencyMillis);
+        this.writes = new Limiter("write", writeLimit, queueSize, targetLatencyMillis);
+        Map<String, Limiter> byAction = new LinkedHashMap<>();
+        for (String name : actionNames) {
+            int limit = actionLimits.getOrDefault(name, 0);
+            if (limit <= 0) {
+                limit = classify(name) == ActionClass.WRITE ? writeLimit : readLimit;
+            }
+            byAction.put(name, new Limiter(name, limit, queueSize, targetLatencyMillis));
+        }
+        this.actions = Collections.unmodifiableMap(byAction);
+        this.queueTimeoutMillis = queueTimeoutMillis;
+    }
+
+    /**
+     * Parses per-action limits written as comma-separated {@code action=limit} pairs.
+     *
+     * @param spec the pairs, e.g. "getAllTitles=8, getAllAuthors=8"; null or blank for none
+     * @return the limits by action name; malformed pairs are skipped
+     */
+    static Map<String, Integer> parseActionLimits(String spec) {
+        Map<String, Integer> limits = new LinkedHashMap<>();
+        if (spec == null) {
+            return limits;
+        }
+        for (String pair : spec.split(",")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                try {
+                    limits.put(pair.substring(0, equals).trim(), Integer.parseInt(pair.substring(equals + 1).trim()));
+                } catch (NumberFormatException e) {
+                    // Skip it; the action keeps the limit of its class
+                }
+            }
+        }
+        return limits;
+    }
+
+    /**
+     * Classifies an action by its name.
+     *
+     * @param action the action parameter (null for the default page, which reads)
+     * @return WRITE for add*, update* and delete* actions, READ otherwise
+     */
+    static ActionClass classify(String action) {
+        if (action != null && (action.startsWith("add") || action.startsWith("update") || action.startsWith("delete"))) {
+            return ActionClass.WRITE;
+        }
+        return ActionClass.READ;
+    }
+
+    /**
+     * Returns the limiter for an action class.
+     *
+     * @param actionClass the action class
+     * @return its limiter
+     */
+    Limiter limiter(ActionClass actionClass) {
+        return actionClass == ActionClass.WRITE ? writes : reads;
+    }
+
+    /**
+     * Returns the limiters of the known actions.
+     *
+     * @return the limiters, in the order the actions were given
+     */
+    Collection<Limiter> actionLimiters() {
+        return actions.values();
+    }
+
+    /**
+     * Tries to admit an action, waiting up to the queue timeout (or less) in
+     * all: first for a slot of the action, then for one of its class.
+     *
+     * @param action        the action parameter
+     * @param maxWaitMillis an additional upper bound on the wait (e.g. the time left for the request)
+     * @return the admission to release when done, or null if the request must be rejected
+     */
+    Admission admit(String action, long maxWaitMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.min(queueTimeoutMillis, maxWaitMillis));
+        Limiter actionLimiter = action == null ? null : actions.get(action);
+        if (actionLimiter != null && !actionLimiter.acquire(remainingMillis(deadline))) {
+            return null;
+        }
+        Limiter classLimiter = limiter(classify(action));
+        if (!classLimiter.acquire(remainingMillis(deadline))) {
+            if (actionLimiter != null) {
+                actionLimiter.release(-1);
+            }
+            return null;
+        }
+        return new Admission(actionLimiter, classLimiter);
+    }
+
+    private static long remainingMillis(long deadlineNanos) {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    /**
+     * The slots held by an admitted request.
+     */
+    static final class Admission {
+
+        private final Limiter action;
+        private final Limiter actionClass;
+
+        Admission(Limiter action, Limiter actionClass) {
+            this.action = action;
+            this.actionClass = actionClass;
+        }
+
+        /**
+         * Releases the slots and adapts the limits to the request's database latency.
+         *
+         * @param databaseNanos the time the request spent connecting to and
+         *                      holding database connections, summed over connections;
+         *                      0 if it did no database work
+         * @param connections   the number of connections the request opened
+         */
+        void release(long databaseNanos, int connections) {
+            long latency = databaseNanos > 0 ? databaseNanos / Math.max(1, connections) : -1;
+            actionClass.release(latency);
+            if (action != null) {
+                action.release(latency);
+            }
+        }
+    }
+
+    /**
+     * A concurrency limiter with a bounded wait queue and an AIMD-adapted limit.
+     */
+    static final class Limiter {
+
+        /** Minimum time between two multiplicative decreases. */
+        private static final long DECREASE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+        private final String name;
+        private final int maxLimit;
+        private final int maxQueue;
+        private final long targetLatencyNanos;
+
+        /** Current (fractional) limit; guarded by {@code this}. */
+        private double limit;
+        private int inFlight;
+        private int waiting;
+        private long lastDecrease;
+
+        private final AtomicLong admitted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+
+        Limiter(String name, int maxLimit, int maxQueue, long targetLatencyMillis) {
+            this.name = name;
+            this.maxLimit = Math.max(1, maxLimit);
+            this.maxQueue = Math.max(0, maxQueue);
+            this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, targetLatencyMillis));
+            this.limit = this.maxLimit;
+            this.lastDecrease = System.nanoTime() - DECREASE_INTERVAL_NANOS; // nanoTime may start anywhere, even below 0
+        }
+
+        /**
+         * Acquires a slot, waiting in the bounded queue if necessary.
+         *
+         * @param timeoutMillis the maximum time to wait
+         * @return true if admitted, false if the queue is full or the wait timed out
+         */
+        synchronized boolean acquire(long timeoutMillis) {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                admitted.incrementAndGet();
+                return true;
+            }
+            if (waiting >= maxQueue || timeoutMillis <= 0) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            waiting++;
+            try {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+                while (inFlight >= (int) limit) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        rejected.incrementAndGet();
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+                inFlight++;
+                admitted.incrementAndGet();
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rejected.incrementAndGet();
+                return false;
+            } finally {
+                waiting--;
+            }
+        }
+
+        /**
+         * Releases a slot and adapts the limit to the observed latency.
+         *
+         * @param latencyNanos how long the admitted action's database work took;
+         *                     negative to leave the limit as it is
+         */
+        synchronized void release(long latencyNanos) {
+            inFlight--;
+            if (targetLatencyNanos > 0 && latencyNanos >= 0) {
+                long now = System.nanoTime();
+                if (latencyNanos > targetLatencyNanos) {
+                    if (now - lastDecrease >= DECREASE_INTERVAL_NANOS) {
+                        limit = Math.max(1.0, limit * 0.9);
+                        lastDecrease = now;
+                    }
+                } else {
+                    limit = Math.min(maxLimit, limit + 1.0 / limit);
+                }
+            }
+            notifyAll();
+        }
+
+        /** @return the name of the action or action class. */
+        String getName() {
+            return name;
+        }
+
+        /** @return the current concurrency limit. */
+        synchronized int getLimit() {
+            return (int) limit;
+        }
+
+        /** @return the number of actions currently admitted. */
+        synchronized int getInFlight() {
+            return inFlight;
+        }
+
+        /** @return the number of requests currently waiting for admission. */
+        synchronized int getWaiting() {
+            return waiting;
+        }
+
+        /** @return the total number of admitted requests. */
+        long getAdmitted() {
+            return admitted.get();
+        }
+
+        /** @return the total number of rejected requests. */
+        long getRejected() {
+            return rejected.get();
+        }
+    }
+}
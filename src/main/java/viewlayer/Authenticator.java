@@ -0,0 +1,417 @@
+package viewlayer;
+
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import monitoring.Logger;
+
+/*******************************************************************************
+ * Authenticator (View Layer)
+ * Decides whether a request is authenticated and records logins and logouts.
+ * Two modes are supported, selected by the {@code authMode} context parameter
+ * in web.xml:
+ *
+ *   - session: the login is stored as an attribute of the HttpSession
+ *              (the original behavior; needs sticky sessions when scaled out).
+ *   - token:   no server-side state. Login issues an HMAC-SHA256 signed cookie
+ *              holding the user name and an expiry time; every request verifies
+ *              the signature in constant time and checks the expiry. Any node
+ *              configured with the same {@code authTokenSecret} accepts it.
+ *              After a write, a second short-lived signed cookie carries its
+ *              time, so whichever node takes the user's next requests keeps
+ *              their reads to replicas that have the write.
+ *
+ * One instance is shared by all servlets through a ServletContext attribute,
+ * so a generated secret (used when none is configured) is the same for the
+ * login and front controller servlets.
+ *
+ * @see Authenticator
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Session or stateless signed-token authentication.
+ ******************************************************************************/
+
+final class Authenticator {
+
+    private static final Logger LOG = Logger.getLogger(Authenticator.class);
+
+    /** Session attribute marking an authenticated session (session mode). */
+    static final String SESSION_ATTRIBUTE = "authenticated";
+
+    /** Name of the cookie carrying the signed token (token mode). */
+    static final String COOKIE_NAME = "dbms_auth";
+
+    /** Name of the cookie carrying the time of the user's last write (token mode). */
+    static final String WRITE_COOKIE_NAME = "dbms_last_write";
+
+    /**
+     * Signed ahead of a write-time payload, which Base64 never starts with, so
+     * a write time cannot pass for a login token or the reverse.
+     */
+    private static final String WRITE_PREFIX = "write|";
+
+    /** ServletContext attribute holding the shared instance. */
+    private static final String CONTEXT_ATTRIBUTE = Authenticator.class.getName();
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    /** Authentication modes. */
+    enum Mode { SESSION, TOKEN }
+
+    private final Mode mode;
+
+    private final SecretKeySpec key;
+
+    private final long ttlSeconds;
+
+    /** Mac instances are not thread-safe; keep one per thread. */
+    private final ThreadLocal<Mac> macs;
+
+    /**
+     * Creates an authenticator.
+     *
+     * @param mode       the authentication mode
+     * @param secret     the HMAC key (only used in token mode)
+     * @param ttlSeconds lifetime of an issued token in seconds
+     */
+    Authenticator(Mode mode, byte[] secret, long ttlSeconds) {
+        this.mode = mode;
+        this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        this.ttlSeconds = ttlSeconds;
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * Returns the authenticator shared by all servlets of the web application,
+     * creating it from the context parameters on first use.
+     *
+     * @param context the servlet context
+     * @return the shared authenticator
+     */
+    static Authenticator getInstance(ServletContext context) {
+        synchronized (context) {
+            Authenticator instance = (Authenticator) context.getAttribute(CONTEXT_ATTRIBUTE);
+            if (instance == null) {
+                instance = fromContext(context);
+                context.setAttribute(CONTEXT_ATTRIBUTE, instance);
+            }
+            return instance;
+        }
+    }
+
+    /**
+     * Reads {@code authMode}, {@code authTokenSecret} and {@code authTokenTtlSeconds}.
+     *
+     * @param context the servlet context
+     * @return a new authenticator
+     */
+    private static Authenticator fromContext(ServletContext context) {
+        Mode mode = "token".equalsIgnoreCase(context.getInitParameter("authMode")) ? Mode.TOKEN : Mode.SESSION;
+
+        String configuredSecret = context.getInitParameter("authTokenSecret");
+        byte[] secret;
+        if (configuredSecret != null && !configuredSecret.trim().isEmpty()) {
+            secret = configuredSecret.trim().getBytes(StandardCharsets.UTF_8);
+        } else {
+            secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            if (mode == Mode.TOKEN) {
+                LOG.warn("authTokenSecret is not set; using a random per-node secret. "
+                        + "Tokens will not be accepted by other nodes or after a restart.");
+            }
+        }
+
+        long ttlSeconds = 1800;
+        String ttl = context.getInitParameter("authTokenTtlSeconds");
+        if (ttl != null && !ttl.trim().isEmpty()) {
+            try {
+                ttlSeconds = Long.parseLong(ttl.trim());
+            } catch (NumberFormatException e) {
+                LOG.warn("Invalid value for authTokenTtlSeconds: {}", ttl);
+            }
+        }
+        return new Authenticator(mode, secret, ttlSeconds);
+    }
+
+    /**
+     * Checks whether the request belongs to a logged-in user.
+     *
+     * @param request the incoming request
+     * @return true if the request carries a valid session or token
+     */
+    boolean isAuthenticated(HttpServletRequest request) {
+        if (mode == Mode.SESSION) {
+            HttpSession session = request.getSession(false);
+            return session != null && Boolean.TRUE.equals(session.getAttribute(SESSION_ATTRIBUTE));
+        }
+        return getUser(request) != null;
+    }
+
+    /**
+     * Returns the user name carried by a valid token.
+     *
+     * @param request the incoming request
+     * @return the user name, or null if there is no valid, unexpired token
+     */
+    String getUser(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                return verify(cookie.getValue(), System.currentTimeMillis() / 1000);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Identifies the session a request belongs to, so its reads can be kept
+     * to data that includes its own writes: the HttpSession in session mode,
+     * the user in token mode.
+     *
+     * @param request the incoming, authenticated request
+     * @return the key, or null if the request has no session or valid token
+     */
+    String getSessionKey(HttpServletRequest request) {
+        if (mode == Mode.SESSION) {
+            HttpSession session = request.getSession(false);
+            return session == null ? null : "session:" + session.getId();
+        }
+        String user = getUser(request);
+        return user == null ? null : "user:" + user;
+    }
+
+    /**
+     * Tells whether the time of a write is handed to the client, which
+     * needs the response headers to wait until the write is done.
+     *
+     * @return true in token mode
+     */
+    boolean carriesWrites() {
+        return mode == Mode.TOKEN;
+    }
+
+    /**
+     * Gets the time of the user's last write carried by the client, so reads
+     * on this node can include a write made through another one. Only token
+     * mode needs it; a session stays on the node that recorded its writes.
+     *
+     * @param request the incoming, authenticated request
+     * @return the time in epoch milliseconds, or 0 if there is no valid write cookie for the user
+     */
+    long getCarriedWrite(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (mode == Mode.SESSION || cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (WRITE_COOKIE_NAME.equals(cookie.getName())) {
+                String user = getUser(request);
+                return user == null ? 0 : verifyWrite(cookie.getValue(), user);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Hands the time of a write to the client for its next requests, which
+     * in token mode may be taken by another node.
+     *
+     * @param request       the request that wrote
+     * @param response      the response, not yet committed
+     * @param writtenMillis when the write was committed, in epoch milliseconds
+     * @param pinMillis     how long reads must include the write
+     */
+    void carryWrite(HttpServletRequest request, HttpServletResponse response, long writtenMillis, long pinMillis) {
+        String user = mode == Mode.TOKEN ? getUser(request) : null;
+        if (user == null || writtenMillis <= 0 || pinMillis <= 0) {
+            return;
+        }
+        int maxAge = (int) Math.max(1, (pinMillis + 999) / 1000);
+        response.addCookie(newCookie(request, WRITE_COOKIE_NAME, issueWrite(user, writtenMillis), maxAge));
+    }
+
+    /**
+     * Records a successful login.
+     *
+     * @param request  the login request
+     * @param response the response that will carry the session or token cookie
+     * @param user     the authenticated user name
+     */
+    void login(HttpServletRequest request, HttpServletResponse response, String user) {
+        if (mode == Mode.SESSION) {
+            HttpSession session = request.getSession();
+            session.setAttribute(SESSION_ATTRIBUTE, true); // Mark session as authenticated
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() / 1000 + ttlSeconds;
+        response.addCookie(newCookie(request, COOKIE_NAME, issue(user, expiresAt), (int) ttlSeconds));
+    }
+
+    /**
+     * Ends the login: invalidates the session, or expires the token cookie.
+     * A token itself stays valid until it expires, since nothing is stored server-side.
+     *
+     * @param request  the logout request
+     * @param response the response that will clear the cookie
+     */
+    void logout(HttpServletRequest request, HttpServletResponse response) {
+        HttpSession session = request.getSession(false); // Get session without creating a new one
+        if (session != null) {
+            session.invalidate(); // Invalidate the session
+        }
+        if (mode == Mode.TOKEN) {
+            response.addCookie(newCookie(request, COOKIE_NAME, "", 0));
+            response.addCookie(newCookie(request, WRITE_COOKIE_NAME, "", 0));
+        }
+    }
+
+    /**
+     * Creates a signed token of the form {@code base64url(user|expiry).base64url(hmac)}.
+     *
+     * @param user      the user name
+     * @param expiresAt expiry time in epoch seconds
+     * @return the token
+     */
+    String issue(String user, long expiresAt) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String payload = encoder.encodeToString((user + "|" + expiresAt).getBytes(StandardCharsets.UTF_8));
+        return payload + "." + encoder.encodeToString(sign(payload));
+    }
+
+    /**
+     * Verifies a token's signature (in constant time) and expiry.
+     *
+     * @param token the token from the cookie
+     * @param now   the current time in epoch seconds
+     * @return the user name, or null if the token is malformed, forged or expired
+     */
+    String verify(String token, long now) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        String payload = token.substring(0, dot);
+        try {
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(payload), signature)) {
+                return null;
+            }
+            String claims = new String(Base64.getUrlDecoder().decode(payload), StandardCharsets.UTF_8);
+            int bar = claims.lastIndexOf('|');
+            if (bar < 0 || Long.parseLong(claims.substring(bar + 1)) <= now) {
+                return null;
+            }
+            return claims.substring(0, bar);
+        } catch (IllegalArgumentException e) {
+            // Covers bad Base64 and NumberFormatException
+            return null;
+        }
+    }
+
+    /**
+     * Creates a signed write time of the form
+     * {@code base64url(user|millis).base64url(hmac(write|payload))}.
+     *
+     * @param user          the user name
+     * @param writtenMillis when the write was committed, in epoch milliseconds
+     * @return the signed value
+     */
+    String issueWrite(String user, long writtenMillis) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String payload = encoder.encodeToString((user + "|" + writtenMillis).getBytes(StandardCharsets.UTF_8));
+        return payload + "." + encoder.encodeToString(sign(WRITE_PREFIX + payload));
+    }
+
+    /**
+     * Verifies a signed write time (in constant time) and that it belongs to the user.
+     *
+     * @param value the value from the cookie
+     * @param user  the user of the request's login token
+     * @return the time in epoch milliseconds, or 0 if the value is malformed,
+     * forged or another user's
+     */
+    long verifyWrite(String value, String user) {
+        int dot = value == null ? -1 : value.indexOf('.');
+        if (dot <= 0) {
+            return 0;
+        }
+        String payload = value.substring(0, dot);
+        try {
+            byte[] signature = Base64.getUrlDecoder().decode(value.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(WRITE_PREFIX + payload), signature)) {
+                return 0;
+            }
+            String claims = new String(Base64.getUrlDecoder().decode(payload), StandardCharsets.UTF_8);
+            int bar = claims.lastIndexOf('|');
+            if (bar < 0 || !claims.substring(0, bar).equals(user)) {
+                return 0;
+            }
+            return Math.max(0, Long.parseLong(claims.substring(bar + 1)));
+        } catch (IllegalArgumentException e) {
+            // Covers bad Base64 and NumberFormatException
+            return 0;
+        }
+    }
+
+    /**
+     * Computes the HMAC of a token payload.
+     *
+     * @param payload the Base64-encoded payload, prefixed for a write time
+     * @return the signature bytes
+     */
+    private byte[] sign(String payload) {
+        return macs.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Creates a Mac initialized with the secret key.
+     *
+     * @return a new Mac
+     */
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    /**
+     * Creates the token or write-time cookie.
+     *
+     * @param request the current request (for the context path and scheme)
+     * @param name    the cookie name
+     * @param value   the cookie value
+     * @param maxAge  the cookie lifetime in seconds; 0 deletes it
+     * @return the cookie
+     */
+    private static Cookie newCookie(HttpServletRequest request, String name, String value, int maxAge) {
+        Cookie cookie = new Cookie(name, value);
+        String path = request.getContextPath();
+        cookie.setPath(path == null || path.isEmpty() ? "/" : path);
+        cookie.setMaxAge(maxAge);
+        cookie.setHttpOnly(true);
+        cookie.setSecure(request.isSecure());
+        cookie.setAttribute("SameSite", "Strict");
+        return cookie;
+    }
+}
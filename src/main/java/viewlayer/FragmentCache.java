@@ -0,0 +1,215 @@
+package viewlayer;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*******************************************************************************
+ * FragmentCache (View Layer)
+ * Caches rendered HTML fragments as pre-encoded UTF-8 bytes, keyed by action
+ * and parameters. Each entry remembers the catalog version it was rendered
+ * against; a lookup with a newer version is treated as a miss and the stale
+ * entry is dropped, so writes invalidate the fragments that depend on them.
+ * Versions only see this node's writes, so each entry also records the time
+ * up to which its data is known to be current, and a session that wrote
+ * after that time (through any node) misses it and renders a fresh copy.
+ *
+ * The cache is bounded by a memory budget (sum of the entry sizes) and evicts
+ * the least recently used entries when the budget is exceeded. Entries also
+ * expire after a configurable time-to-live as a safety net for writes made by
+ * other nodes, which this node's version counters cannot see.
+ *
+ * @see FragmentCache
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Memory-bounded LRU cache of rendered HTML fragments.
+ ******************************************************************************/
+
+class FragmentCache {
+
+    /** Approximate per-entry bookkeeping overhead in bytes (map node, entry object, array header). */
+    private static final int ENTRY_OVERHEAD = 96;
+
+    /** A cached fragment together with the version it was rendered against. */
+    private static final class Entry {
+        final byte[] bytes;
+        final long version;
+        final long currentAsOf;
+        final long expiresAt;
+        final int size;
+
+        Entry(String key, byte[] bytes, long version, long currentAsOf, long expiresAt) {
+            this.bytes = bytes;
+            this.version = version;
+            this.currentAsOf = currentAsOf;
+            this.expiresAt = expiresAt;
+            this.size = bytes.length + key.length() * 2 + ENTRY_OVERHEAD;
+        }
+    }
+
+    /** Entries in access order; guarded by {@code this}. */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    /** Maximum total size of all entries in bytes. */
+    private final long maxBytes;
+
+    /** Fragments larger than this are never cached, so one page cannot flush the whole cache. */
+    private final long maxEntryBytes;
+
+    /** Time-to-live of an entry in milliseconds; 0 disables expiry. */
+    private final long ttlMillis;
+
+    /** Current total size of all entries in bytes; guarded by {@code this}. */
+    private long currentBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Creates a fragment cache.
+     *
+     * @param maxBytes  the memory budget in bytes; 0 disables caching
+     * @param ttlMillis the entry time-to-live in milliseconds; 0 disables expiry
+     */
+    FragmentCache(long maxBytes, long ttlMillis) {
+        this.maxBytes = Math.max(0, maxBytes);
+        this.maxEntryBytes = this.maxBytes / 8;
+        this.ttlMillis = Math.max(0, ttlMillis);
+    }
+
+    /**
+     * Returns whether the cache holds anything at all.
+     * @return false if the memory budget is zero.
+     */
+    boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * Looks up a fragment.
+     *
+     * @param key        the action and parameters identifying the fragment
+     * @param version    the current catalog version the fragment depends on
+     * @param notBefore  epoch milliseconds the fragment's data must be current
+     *                   as of, such as the caller's last write; 0 for any
+     * @return the cached bytes, or null on a miss, if the entry is stale or
+     * newer than the caller's version, or if it predates notBefore
+     */
+    byte[] get(String key, long version, long notBefore) {
+        if (!isEnabled()) {
+            return null;
+        }
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                boolean expired = ttlMillis != 0 && System.currentTimeMillis() >= entry.expiresAt;
+                if (entry.version == version && !expired) {
+                    // An entry older than the caller's write stays for everyone else
+                    if (entry.currentAsOf >= notBefore) {
+                        hits.incrementAndGet();
+                        return entry.bytes;
+                    }
+                    misses.incrementAndGet();
+                    return null;
+                }
+                // An entry newer than the caller's version is kept for the requests that see it
+                if (entry.version < version || expired) {
+                    entries.remove(key);
+                    currentBytes -= entry.size;
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Stores a fragment, evicting least recently used entries to stay within budget.
+     *
+     * @param key         the action and parameters identifying the fragment
+     * @param version     the catalog version read before the fragment was rendered
+     * @param currentAsOf epoch milliseconds up to which every write is in the fragment
+     * @param bytes       the encoded fragment
+     */
+    void put(String key, long version, long currentAsOf, byte[] bytes) {
+        if (!isEnabled() || bytes.length > maxEntryBytes) {
+            return;
+        }
+        Entry entry = new Entry(key, bytes, version, currentAsOf, System.currentTimeMillis() + ttlMillis);
+        synchronized (this) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                // Keep a newer rendering if a slower request finishes with older data
+                if (previous.version > version
+                        || previous.version == version && previous.currentAsOf > currentAsOf) {
+                    entries.put(key, previous);
+                    return;
+                }
+                currentBytes -= previous.size;
+            }
+            currentBytes += entry.size;
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while (currentBytes > maxBytes && it.hasNext()) {
+                Entry eldest = it.next().getValue();
+                it.remove();
+                currentBytes -= eldest.size;
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /** @return the number of lookups that returned a fragment. */
+    long getHits() {
+        return hits.get();
+    }
+
+    /** @return the number of lookups that found nothing usable. */
+    long getMisses() {
+        return misses.get();
+    }
+
+    /** @return the number of entries evicted to stay within the memory budget. */
+    long getEvictions() {
+        return evictions.get();
+    }
+
+    /** @return the number of entries dropped because they were stale or expired. */
+    long getInvalidations() {
+        return invalidations.get();
+    }
+
+    /** @return the fraction of lookups that were hits, or 0 if there were none. */
+    double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    /** @return the current total size of all entries in bytes. */
+    synchronized long getSizeBytes() {
+        return currentBytes;
+    }
+
+    /** @return the number of cached fragments. */
+    synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Returns a one-line summary of the cache statistics.
+     *
+     * @return the statistics as a string
+     */
+    @Override
+    public String toString() {
+        return String.format("FragmentCache{entries=%d, bytes=%d/%d, hits=%d, misses=%d, hitRate=%.3f, evictions=%d, invalidations=%d}",
+                getEntryCount(), getSizeBytes(), maxBytes, getHits(), getMisses(), getHitRate(),
+                getEvictions(), getInvalidations());
+    }
+}
@@ -1,7 +1,11 @@
 package viewlayer;
 
 import businesslayer.AuthorService;
+import businesslayer.CatalogVersion;
 import businesslayer.TitleService;
+import dataaccesslayer.DAOFactory;
+import dataaccesslayer.QueryBudget;
+import dataaccesslayer.RequestContext;
 import transferobjects.AuthorDTO;
 import transferobjects.TitleDTO;
 
@@ -10,12 +14,19 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import monitoring.Histogram;
+import monitoring.Logger;
+import monitoring.MetricsRegistry;
+import monitoring.RequestEvent;
 
 /*******************************************************************************
  * FrontController (View Layer - Front Controller Pattern)
@@ -49,6 +60,20 @@ import java.util.stream.Collectors;
 public class FrontController extends HttpServlet {
     
     private static final long serialVersionUID = 1L;
+
+    private static final Logger LOG = Logger.getLogger(FrontController.class);
+
+    /** Header carrying the request id, accepted from the client and echoed in the response. */
+    private static final String REQUEST_ID_HEADER = "X-Request-ID";
+
+    /** Request ids accepted from clients; anything else is replaced, so it cannot corrupt log lines. */
+    private static final Pattern REQUEST_ID_PATTERN = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    /** Actions handled by {@link #renderPage}; others are reported as "unknown" in metrics. */
+    private static final String[] ACTIONS = {
+        "getAllAuthors", "getAuthorById", "addAuthor", "updateAuthor", "deleteAuthor", "getTitlesByAuthor",
+        "getAllTitles", "getTitleByISBN", "addTitle", "updateTitle", "deleteTitle", "getAuthorsForTitle"
+    };
     
 /** Service class that manages business logic for Author operations. */
     private AuthorService authorService;
@@ -56,8 +81,59 @@ public class FrontController extends HttpServlet {
 /** Service class that manages business logic for Title operations. */
     private TitleService titleService;
 
+/** Checks the session or signed token of each request. */
+    private Authenticator authenticator;
+
+/** Cache of rendered author/title table fragments. */
+    private FragmentCache fragmentCache;
+
+/** Size in bytes of the container's response buffer. */
+    private int responseBufferSize;
+
+/** Whether each completed page section is flushed to the client immediately. */
+    private boolean progressiveFlush;
+
+/** Concurrency limits for each action and for read and write actions. */
+    private AdmissionController admissionController;
+
+/** Seconds a client is told to wait after being rejected with 503. */
+    private long retryAfterSeconds;
+
+/** Time budget in milliseconds for one request's database work; 0 for none. */
+    private long requestDeadlineMillis;
+
+    /** Statement limits checked for each request. */
+    private QueryBudget queryBudget;
+
+    /** When to send a Server-Timing header: "off", "request" (debug=timing parameter) or "always". */
+    private String serverTiming;
+
+/** Latency histogram of each action, created once in init(). */
+    private Map<String, Histogram> actionLatency;
+
+    /**
+     * Renders one HTML fragment for the {@link FragmentCache}.
+     */
+    private interface Fragment {
+        /**
+         * Writes the fragment.
+         *
+         * @param out HtmlWriter for writing HTML output
+         * @return true if the output may be cached, false if it reflects an empty or failed lookup
+         */
+        boolean render(HtmlWriter out);
+    }
+
     /**
      * Initializes the servlet and sets up required service instances.
+     * The fragment cache is sized by the {@code fragmentCacheMaxBytes} and
+     * {@code fragmentCacheTtlSeconds} init parameters in web.xml; response
+     * streaming is tuned by {@code responseBufferSize} and {@code progressiveFlush};
+     * load shedding by the {@code admission*} parameters; the per-request time
+     * budget by {@code requestDeadlineMillis}; the per-request statement limits
+     * by {@code queryBudget*} (the mode can also be set with the
+     * {@code queryBudgetMode} system property, e.g. to fail requests in tests);
+     * the {@code Server-Timing} header by {@code serverTiming}.
      *
      * @throws ServletException if initialization fails
      */ 
@@ -66,6 +142,102 @@ public class FrontController extends HttpServlet {
         super.init();
         authorService = new AuthorService();
         titleService = new TitleService();
+        authenticator = Authenticator.getInstance(getServletContext());
+        fragmentCache = new FragmentCache(
+                getLongInitParameter("fragmentCacheMaxBytes", 8L * 1024 * 1024),
+                getLongInitParameter("fragmentCacheTtlSeconds", 300) * 1000);
+        responseBufferSize = (int) getLongInitParameter("responseBufferSize", 8192);
+        progressiveFlush = !"false".equalsIgnoreCase(getInitParameter("progressiveFlush"));
+        admissionController = new AdmissionController(
+                (int) getLongInitParameter("admissionReadLimit", 32),
+                (int) getLongInitParameter("admissionWriteLimit", 8),
+                AdmissionController.parseActionLimits(getInitParameter("admissionActionLimits")),
+                ACTIONS,
+                (int) getLongInitParameter("admissionQueueSize", 64),
+                getLongInitParameter("admissionQueueTimeoutMillis", 1000),
+                getLongInitParameter("admissionTargetLatencyMillis", 500));
+        retryAfterSeconds = getLongInitParameter("admissionRetryAfterSeconds", 1);
+        requestDeadlineMillis = getLongInitParameter("requestDeadlineMillis", 10000);
+        queryBudget = new QueryBudget(
+                (int) getLongInitParameter("queryBudgetStatements", 25),
+                (int) getLongInitParameter("queryBudgetRepeats", 10),
+                QueryBudget.parseMode(System.getProperty("queryBudgetMode", getInitParameter("queryBudgetMode"))));
+        serverTiming = getInitParameter("serverTiming") == null ? "request" : getInitParameter("serverTiming").trim();
+        registerMetrics(MetricsRegistry.getInstance());
+    }
+
+    /**
+     * Creates the per-action latency histograms and exports the fragment cache
+     * and admission controller statistics.
+     *
+     * @param registry the metrics registry
+     */
+    private void registerMetrics(MetricsRegistry registry) {
+        String help = "Latency of front controller actions, from admission until the page is written.";
+        Map<String, Histogram> histograms = new HashMap<>();
+        for (String name : ACTIONS) {
+            histograms.put(name, registry.latency("http_request_duration_seconds", help, "action", name));
+        }
+        histograms.put("default", registry.latency("http_request_duration_seconds", help, "action", "default"));
+        histograms.put("unknown", registry.latency("http_request_duration_seconds", help, "action", "unknown"));
+        actionLatency = histograms;
+
+        registry.counter("fragment_cache_hits_total", "Fragment cache hits.", fragmentCache::getHits);
+        registry.counter("fragment_cache_misses_total", "Fragment cache misses.", fragmentCache::getMisses);
+        registry.counter("fragment_cache_evictions_total", "Fragment cache evictions.", fragmentCache::getEvictions);
+        registry.gauge("fragment_cache_bytes", "Bytes held by the fragment cache.", fragmentCache::getSizeBytes);
+        registry.gauge("fragment_cache_entries", "Entries in the fragment cache.", fragmentCache::getEntryCount);
+        for (AdmissionController.ActionClass actionClass : AdmissionController.ActionClass.values()) {
+            AdmissionController.Limiter limiter = admissionController.limiter(actionClass);
+            String label = limiter.getName();
+            registry.gauge("admission_limit", "Current concurrency limit.", limiter::getLimit, "class", label);
+            registry.gauge("admission_in_flight", "Admitted requests in progress.", limiter::getInFlight, "class", label);
+            registry.gauge("admission_waiting", "Requests waiting for admission.", limiter::getWaiting, "class", label);
+            registry.counter("admission_admitted_total", "Admitted requests.", limiter::getAdmitted, "class", label);
+            registry.counter("admission_rejected_total", "Requests rejected with 503.", limiter::getRejected,
+                    "class", label);
+        }
+        for (AdmissionController.Limiter limiter : admissionController.actionLimiters()) {
+            String label = limiter.getName();
+            registry.gauge("admission_action_limit", "Current concurrency limit of an action.", limiter::getLimit,
+                    "action", label);
+            registry.gauge("admission_action_in_flight", "Admitted requests of an action in progress.",
+                    limiter::getInFlight, "action", label);
+            registry.counter("admission_action_rejected_total", "Requests of an action rejected with 503.",
+                    limiter::getRejected, "action", label);
+        }
+    }
+
+    /**
+     * Logs the fragment cache statistics when the servlet is taken out of service
+     * and writes out the buffered log entries.
+     */
+    @Override
+    public void destroy() {
+        LOG.info("FrontController shutting down: {}", fragmentCache);
+        DAOFactory.shutdown();
+        Logger.shutdown();
+        super.destroy();
+    }
+
+    /**
+     * Reads a numeric init parameter from web.xml.
+     *
+     * @param name         the init parameter name
+     * @param defaultValue the value to use if the parameter is missing or invalid
+     * @return the configured value, or the default
+     */
+    private long getLongInitParameter(String name, long defaultValue) {
+        String value = getInitParameter(name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Invalid value for init parameter {}: {}", name, value);
+            return defaultValue;
+        }
     }
 
     /**
@@ -104,15 +276,204 @@ public class FrontController extends HttpServlet {
      * @throws IOException if an I/O error occurs
      */
     private void processRequest(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        HttpSession session = request.getSession(false);
-        if (session == null || session.getAttribute("authenticated") == null || !(Boolean)session.getAttribute("authenticated")) {
+        long received = System.nanoTime();
+        if (!authenticator.isAuthenticated(request)) {
             response.sendRedirect("login");
             return;
         }
+        long authNanos = System.nanoTime() - received;
+
+        String action = request.getParameter("action");
+
+        // Logout redirects, so it must run before anything is flushed to the client
+        if ("logout".equals(action)) {
+            logout(request, response);
+            return;
+        }
+
+        // Reuse the caller's request id (e.g. from a proxy) so log entries can be correlated across tiers
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (requestId == null || !REQUEST_ID_PATTERN.matcher(requestId).matches()) {
+            requestId = RequestContext.newRequestId();
+        }
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+
+        // The deadline covers the admission wait and all database work of this request
+        RequestContext context = RequestContext.begin(requestId, action, requestDeadlineMillis);
+        context.setQueryBudget(queryBudget);
+        context.setSessionKey(authenticator.getSessionKey(request), authenticator.getCarriedWrite(request));
+        boolean timed = isTimingRequested(request);
+        if (timed) {
+            context.enableTimings();
+        }
+        try {
+            // Shed load before doing any database work if too many requests are already in flight
+            long admitting = System.nanoTime();
+            AdmissionController.Admission admission = admissionController.admit(action, context.remainingMillis());
+            if (admission == null) {
+                rejectOverloaded(response);
+                return;
+            }
+            long started = System.nanoTime();
+            RequestEvent event = new RequestEvent();
+            event.begin();
+            try {
+                event.bytesWritten = timed
+                        ? renderTimedPage(request, response, action, authNanos, started - admitting)
+                        : renderPage(request, response, action);
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.action = action;
+                    event.status = response.getStatus();
+                    event.commit();
+                }
+                long elapsed = System.nanoTime() - started;
+                // Only database time feeds the limits: writing to a slow client says nothing about MySQL
+                admission.release(context.getDatabaseNanos(), context.getConnections());
+                Histogram latency = actionLatency.get(action == null ? "default" : action);
+                if (latency == null) {
+                    latency = actionLatency.get("unknown");
+                }
+                latency.record(elapsed);
+            }
+        } finally {
+            queryBudget.requestCompleted(context);
+            RequestContext.end();
+        }
+    }
 
-        response.setContentType("text/html");
-        PrintWriter out = response.getWriter();
+    /**
+     * Responds with HTTP 503 and a Retry-After header when admission is refused.
+     *
+     * @param response HttpServletResponse for sending the response to the client
+     * @throws IOException if an I/O error occurs
+     */
+    private void rejectOverloaded(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        response.setContentType("text/html;charset=UTF-8");
+        HtmlWriter out = new HtmlWriter(response.getOutputStream());
+        out.println("<!DOCTYPE html>");
+        out.println("<html lang=\"en\">");
+        out.println("<head><meta charset=\"UTF-8\"><title>DBMS Operations</title></head>");
+        out.println("<body><p class=\"error\">The server is busy. Please try again in a moment.</p></body>");
+        out.println("</html>");
+        out.flush();
+    }
 
+    /**
+     * Generates the HTML page: head and forms, then the output of the requested action.
+     *
+     * @param request  HttpServletRequest containing request data and parameters
+     * @param response HttpServletResponse for sending the response to the client
+     * @param action   the requested action, or null for the default view
+     * @return the number of bytes written
+     * @throws IOException if an I/O error occurs
+     */
+    private long renderPage(HttpServletRequest request, HttpServletResponse response, String action) throws IOException {
+        response.setContentType("text/html;charset=UTF-8");
+        if (authenticator.carriesWrites() && RequestContext.getWritePinMillis() > 0
+                && AdmissionController.classify(action) == AdmissionController.ActionClass.WRITE) {
+            // The write time goes in a cookie, a header, so the page waits in memory until the write is done
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(16 * 1024);
+            writePage(request, action, new HtmlWriter(buffer));
+            carryWrite(request, response);
+            buffer.writeTo(response.getOutputStream());
+            return buffer.size();
+        }
+        response.setBufferSize(responseBufferSize);
+        // Encode through our own writer so cached fragments can be copied in as bytes
+        HtmlWriter out = new HtmlWriter(response.getOutputStream());
+        out.setSectionFlushing(progressiveFlush);
+        return writePage(request, action, out);
+    }
+
+    /**
+     * Hands the time of the request's write, if it made one, to the client,
+     * so the user's next requests see it on whichever node takes them.
+     *
+     * @param request  HttpServletRequest containing request data and parameters
+     * @param response HttpServletResponse, not yet committed
+     */
+    private void carryWrite(HttpServletRequest request, HttpServletResponse response) {
+        authenticator.carryWrite(request, response, RequestContext.current().getWrittenMillis(),
+                RequestContext.getWritePinMillis());
+    }
+
+    /**
+     * Checks whether a request gets a Server-Timing header.
+     *
+     * @param request HttpServletRequest containing request data and parameters
+     * @return true if timings are enabled for all requests, or requested with debug=timing
+     */
+    private boolean isTimingRequested(HttpServletRequest request) {
+        switch (serverTiming) {
+            case "always":
+                return true;
+            case "request":
+                return "timing".equals(request.getParameter("debug"));
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Generates the HTML page with a Server-Timing header breaking down where
+     * the time went: authentication, the admission wait, each DAO method (with
+     * connection acquisition shown separately), HTML rendering, and the
+     * statements and rows of the request.
+     *
+     * Headers cannot follow the body, so the page is rendered into memory
+     * without early flushing and sent in one piece once the timings are known;
+     * the time spent sending it is therefore not part of the header.
+     *
+     * @param request        HttpServletRequest containing request data and parameters
+     * @param response       HttpServletResponse for sending the response to the client
+     * @param action         the requested action, or null for the default view
+     * @param authNanos      time spent checking authentication
+     * @param admissionNanos time spent waiting for admission
+     * @return the number of bytes written
+     * @throws IOException if an I/O error occurs
+     */
+    private long renderTimedPage(HttpServletRequest request, HttpServletResponse response, String action,
+                                 long authNanos, long admissionNanos) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(16 * 1024);
+        long started = System.nanoTime();
+        writePage(request, action, new HtmlWriter(buffer));
+        long renderNanos = System.nanoTime() - started;
+
+        RequestContext context = RequestContext.current();
+        ServerTiming timing = new ServerTiming()
+                .add("auth", authNanos, null)
+                .add("admission", admissionNanos, null);
+        long daoNanos = 0;
+        for (Map.Entry<String, long[]> phase : context.getTimings().entrySet()) {
+            long[] total = phase.getValue();
+            timing.add(phase.getKey(), total[0], total[1] + (total[1] == 1 ? " call" : " calls"));
+            if (phase.getKey().startsWith("dao.")) {
+                daoNanos += total[0]; // Connection acquisition happens inside DAO calls
+            }
+        }
+        timing.add("render", renderNanos - daoNanos, null)
+              .add("db", context.getStatements() + " statements, " + context.getRows() + " rows");
+
+        response.setContentType("text/html;charset=UTF-8");
+        response.setHeader("Server-Timing", timing.toString());
+        carryWrite(request, response);
+        buffer.writeTo(response.getOutputStream());
+        return buffer.size();
+    }
+
+    /**
+     * Writes the HTML page: head and forms, then the output of the requested action.
+     *
+     * @param request HttpServletRequest containing request data and parameters
+     * @param action  the requested action, or null for the default view
+     * @param out     HtmlWriter for writing HTML output
+     * @return the number of bytes written
+     */
+    private long writePage(HttpServletRequest request, String action, HtmlWriter out) {
         out.println("<!DOCTYPE html>");
         out.println("<html lang=\"en\">");
         out.println("<head>");
@@ -147,7 +508,11 @@ public class FrontController extends HttpServlet {
         String message = (String) request.getAttribute("message");
         String messageType = (String) request.getAttribute("messageType");
         if (message != null && messageType != null) {
-            out.println("<div class=\"message " + messageType + "\">" + message + "</div>");
+            out.print("<div class=\"message ");
+            out.escape(messageType);
+            out.print("\">");
+            out.escape(message);
+            out.println("</div>");
         }
         
         out.println("    <div style='text-align:right; margin-bottom:20px;'>");
@@ -209,8 +574,8 @@ public class FrontController extends HttpServlet {
         out.println("            </form>");
         out.println("        </div>");
 
-
-        String action = request.getParameter("action");
+        // Send the head and forms before any database work starts
+        out.flushSection();
 
         if (action != null) {
             switch (action) {
@@ -253,18 +618,29 @@ public class FrontController extends HttpServlet {
                 case "getAuthorsForTitle":
                     getAuthorsForTitle(request, out);
                     break;
-                case "logout":
-                    logout(request, response);
-                    break;
                 default:
-                    out.println("<p class=\"error\">Unknown action: " + action + "</p>");
+                    out.print("<p class=\"error\">Unknown action: ");
+                    out.escape(action);
+                    out.println("</p>");
                     break;
             }
         } else {
             out.println("<p class=\"info\">Select an operation above.</p>");
             displayAllAuthors(out);
-            displayAllTitles(out);
+            out.flushSection();
+            if (!isOutOfTime()) {
+                displayAllTitles(out);
+            }
         }
+        RequestContext context = RequestContext.current();
+        if (isOutOfTime()) {
+            out.println("<p class=\"message error\">The database took too long to answer. "
+                    + "The results above are incomplete; please try again.</p>");
+        } else if (context != null && context.isServedStale()) {
+            out.println("<p class=\"message info\">The database is currently unavailable. "
+                    + "Showing the last known data, which may be out of date.</p>");
+        }
+        out.flushSection();
 
         out.println("        <div class=\"footer\">");
         out.println("            <p>Program by: Annabel Cheng (041146557)</p>"); // Updated with your name
@@ -273,45 +649,121 @@ public class FrontController extends HttpServlet {
         out.println("    </div>");
         out.println("</body>");
         out.println("</html>");
+        out.flush();
+        return out.getBytesWritten();
+    }
+
+    /**
+     * Checks whether the current request ran out of time for its database
+     * work, after which every DAO call returns an empty result, so the rest
+     * of the page must not be rendered from them.
+     *
+     * @return true if a database call was refused because the deadline had passed
+     */
+    private static boolean isOutOfTime() {
+        RequestContext context = RequestContext.current();
+        return context != null && context.isDeadlineExceeded();
+    }
+
+    /**
+     * Writes a fragment from the fragment cache, rendering and storing it on a miss.
+     * A fragment cached before the session's last write, which may have
+     * gone through another node and so not changed this node's catalog
+     * version, is a miss for that session.
+     *
+     * @param out      HtmlWriter for writing HTML output
+     * @param key      the action and parameters identifying the fragment
+     * @param version  the catalog version the fragment depends on, read before rendering
+     * @param fragment renders the fragment on a miss
+     */
+    private void writeCached(HtmlWriter out, String key, long version, Fragment fragment) {
+        if (!fragmentCache.isEnabled()) {
+            fragment.render(out);
+            return;
+        }
+        RequestContext context = RequestContext.current();
+        byte[] bytes = fragmentCache.get(key, version, context == null ? 0 : context.getLastWriteMillis());
+        if (bytes == null) {
+            long renderedAt = System.currentTimeMillis();
+            int failuresBefore = context == null ? 0 : context.getDatabaseFailures();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+            HtmlWriter bufferOut = new HtmlWriter(buffer);
+            boolean cacheable = fragment.render(bufferOut);
+            bufferOut.flush();
+            bytes = buffer.toByteArray();
+            // A read that failed or ran out of time renders as empty, last known good data stands in
+            // for a failed read, and a replica may not have this node's last write yet; never cache
+            // any of them as current
+            if (cacheable && (context == null || context.getDatabaseFailures() == failuresBefore
+                    && !context.isExpired() && !context.isServedStale()
+                    && context.getReplicaCaughtUpMillis() >= CatalogVersion.changedAtMillis())) {
+                // Reads from replicas have the primary's writes up to the time they had caught up to
+                long currentAsOf = context == null
+                        ? renderedAt : Math.min(renderedAt, context.getReplicaCaughtUpMillis());
+                fragmentCache.put(key, version, currentAsOf, bytes);
+            }
+        }
+        out.writeEncoded(bytes);
     }
 
     // --- Helper methods for Author Operations ---
     /**
      * Displays all authors in a tabular format.
      *
-     * @param out PrintWriter for writing HTML output
+     * @param out HtmlWriter for writing HTML output
      */
 
-    private void displayAllAuthors(PrintWriter out) {
+    private void displayAllAuthors(HtmlWriter out) {
+        writeCached(out, "getAllAuthors", CatalogVersion.authors(), this::renderAllAuthors);
+    }
+
+    /**
+     * Renders the table of all authors.
+     *
+     * @param out HtmlWriter for writing HTML output
+     * @return true if any authors were rendered
+     */
+    private boolean renderAllAuthors(HtmlWriter out) {
         List<AuthorDTO> authors = authorService.getAllAuthors();
         out.println("<h3>All Authors:</h3>");
         if (authors.isEmpty()) {
             out.println("<p class=\"info\">No authors found.</p>");
         } else {
-            out.println("<table>");
-            out.println("    <thead>");
-            out.println("        <tr><th>Author ID</th><th>First Name</th><th>Last Name</th></tr>");
-            out.println("    </thead>");
-            out.println("    <tbody>");
-            for (AuthorDTO author : authors) {
-                out.println("        <tr>");
-                out.println("            <td>" + author.getId() + "</td>");
-                out.println("            <td>" + escapeHtml(author.getFirstName()) + "</td>");
-                out.println("            <td>" + escapeHtml(author.getLastName()) + "</td>");
-                out.println("        </tr>");
-            }
-            out.println("    </tbody>");
-            out.println("</table>");
+            writeAuthorsTable(out, authors);
+        }
+        return !authors.isEmpty();
+    }
+
+    /**
+     * Writes the table of all authors.
+     *
+     * @param out     HtmlWriter for writing HTML output
+     * @param authors the authors, one row each
+     */
+    static void writeAuthorsTable(HtmlWriter out, List<AuthorDTO> authors) {
+        out.println("<table>");
+        out.println("    <thead>");
+        out.println("        <tr><th>Author ID</th><th>First Name</th><th>Last Name</th></tr>");
+        out.println("    </thead>");
+        out.println("    <tbody>");
+        for (AuthorDTO author : authors) {
+            out.println("        <tr>");
+            writeCell(out, author.getId());
+            writeCell(out, author.getFirstName());
+            writeCell(out, author.getLastName());
+            out.println("        </tr>");
         }
+        out.println("    </tbody>");
+        out.println("</table>");
     }
     
     /**
      * Retrieves and displays an author by ID.
      *
      * @param request HttpServletRequest containing authorId parameter
-     * @param out     PrintWriter for writing HTML output
+     * @param out     HtmlWriter for writing HTML output
      */
-    private void getAuthorById(HttpServletRequest request, PrintWriter out) {
+    private void getAuthorById(HttpServletRequest request, HtmlWriter out) {
         try {
             int id = Integer.parseInt(request.getParameter("authorId"));
             AuthorDTO author = authorService.getAuthorById(id);
@@ -323,9 +775,9 @@ public class FrontController extends HttpServlet {
                 out.println("    </thead>");
                 out.println("    <tbody>");
                 out.println("        <tr>");
-                out.println("            <td>" + author.getId() + "</td>");
-                out.println("            <td>" + escapeHtml(author.getFirstName()) + "</td>");
-                out.println("            <td>" + escapeHtml(author.getLastName()) + "</td>");
+                writeCell(out, author.getId());
+                writeCell(out, author.getFirstName());
+                writeCell(out, author.getLastName());
                 out.println("        </tr>");
                 out.println("    </tbody>");
                 out.println("</table>");
@@ -341,9 +793,9 @@ public class FrontController extends HttpServlet {
      * Adds a new author based on user input.
      *
      * @param request HttpServletRequest containing author details
-     * @param out     PrintWriter for writing HTML output
+     * @param out     HtmlWriter for writing HTML output
      */
-    private void addAuthor(HttpServletRequest request, PrintWriter out) {
+    private void addAuthor(HttpServletRequest request, HtmlWriter out) {
         String firstName = request.getParameter("firstName");
         String lastName = request.getParameter("lastName");
 
@@ -364,9 +816,9 @@ public class FrontController extends HttpServlet {
      * Updates an existing author's details.
      *
      * @param request HttpServletRequest containing updated author details
-     * @param out     PrintWriter for writing HTML output
+     * @param out     HtmlWriter for writing HTML output
      */
-    private void updateAuthor(HttpServletRequest request, PrintWriter out) {
+    private void updateAuthor(HttpServletRequest request, HtmlWriter out) {
         try {
             int id = Integer.parseInt(request.getParameter("authorIdUpdate"));
             String firstName = request.getParameter("firstNameUpdate");
@@ -392,9 +844,9 @@ public class FrontController extends HttpServlet {
      * Deletes an author by ID.
      *
      * @param request HttpServletRequest containing authorId parameter
-     * @param out     PrintWriter for writing HTML output
+     * @param out     HtmlWriter for writing HTML output
      */
-    private void deleteAuthor(HttpServletRequest request, PrintWriter out) {
+    private void deleteAuthor(HttpServletRequest request, HtmlWriter out) {
         try {
             int id = Integer.parseInt(request.getParameter("authorId"));
             boolean success = authorService.deleteAuthor(id);
@@ -413,88 +865,128 @@ public class FrontController extends HttpServlet {
      * Retrieves and displays titles associated with a specific author.
      *
      * @param request HttpServletRequest containing authorId parameter
-     * @param out     PrintWriter for writing HTML output
+     * @param out     HtmlWriter for writing HTML output
      */
-    private void getTitlesByAuthor(HttpServletRequest request, PrintWriter out) {
+    private void getTitlesByAuthor(HttpServletRequest request, HtmlWriter out) {
         try {
             int id = Integer.parseInt(request.getParameter("authorId"));
-            AuthorDTO author = authorService.getAuthorById(id);
-            if (author == null) {
-                out.println("<p class=\"error\">Error: Author with ID " + id + " not found.</p>");
-                return;
-            }
-            List<TitleDTO> titles = authorService.getTitlesByAuthor(id);
-            out.println("<h3>Titles by Author: " + escapeHtml(author.getFirstName()) + " " + escapeHtml(author.getLastName()) + " (ID: " + id + ")</h3>");
-            if (titles.isEmpty()) {
-                out.println("<p class=\"info\">No titles found for this author.</p>");
-            } else {
-                out.println("<table>");
-                out.println("    <thead>");
-                out.println("        <tr><th>ISBN</th><th>Title</th><th>Edition #</th><th>Copyright</th></tr>");
-                out.println("    </thead>");
-                out.println("    <tbody>");
-                for (TitleDTO title : titles) {
-                    out.println("        <tr>");
-                    out.println("            <td>" + escapeHtml(title.getIsbn()) + "</td>");
-                    out.println("            <td>" + escapeHtml(title.getTitle()) + "</td>");
-                    out.println("            <td>" + title.getEditionNumber() + "</td>");
-                    out.println("            <td>" + escapeHtml(title.getCopyright()) + "</td>");
-                    out.println("        </tr>");
-                }
-                out.println("    </tbody>");
-                out.println("</table>");
-            }
+            writeCached(out, "getTitlesByAuthor:" + id, CatalogVersion.catalog(), o -> renderTitlesByAuthor(id, o));
         } catch (NumberFormatException e) {
             out.println("<p class=\"error\">Error: Invalid Author ID format for getting titles by author. Please enter a number.</p>");
         }
     }
 
-    // --- Helper methods for Title Operations ---
     /**
-     * Displays all titles along with their associated authors.
+     * Renders the table of titles written by one author.
      *
-     * @param out PrintWriter for writing HTML output
+     * @param id  the ID of the author
+     * @param out HtmlWriter for writing HTML output
+     * @return true if the author exists and has titles
      */
-    private void displayAllTitles(PrintWriter out) {
-        List<TitleDTO> titles = titleService.getAllTitles();
-        out.println("<h3>All Titles:</h3>");
+    private boolean renderTitlesByAuthor(int id, HtmlWriter out) {
+        AuthorDTO author = authorService.getAuthorById(id);
+        if (author == null) {
+            out.println("<p class=\"error\">Error: Author with ID " + id + " not found.</p>");
+            return false;
+        }
+        List<TitleDTO> titles = authorService.getTitlesByAuthor(id);
+        out.print("<h3>Titles by Author: ");
+        out.escape(author.getFirstName());
+        out.print(" ");
+        out.escape(author.getLastName());
+        out.print(" (ID: ");
+        out.print(id);
+        out.println(")</h3>");
         if (titles.isEmpty()) {
-            out.println("<p class=\"info\">No titles found.</p>");
+            out.println("<p class=\"info\">No titles found for this author.</p>");
         } else {
             out.println("<table>");
             out.println("    <thead>");
-            out.println("        <tr><th>ISBN</th><th>Title</th><th>Edition #</th><th>Copyright</th><th>Authors</th></tr>");
+            out.println("        <tr><th>ISBN</th><th>Title</th><th>Edition #</th><th>Copyright</th></tr>");
             out.println("    </thead>");
             out.println("    <tbody>");
             for (TitleDTO title : titles) {
-                List<AuthorDTO> authorsForTitle = titleService.getAuthorsForTitle(title.getIsbn());
-                String authorNames = authorsForTitle.stream()
-                                                    .map(a -> escapeHtml(a.getFirstName()) + " " + escapeHtml(a.getLastName()) + " (ID: " + a.getId() + ")")
-                                                    .collect(Collectors.joining("<br>"));
-                if (authorNames.isEmpty()) {
-                    authorNames = "N/A";
-                }
-
                 out.println("        <tr>");
-                out.println("            <td>" + escapeHtml(title.getIsbn()) + "</td>");
-                out.println("            <td>" + escapeHtml(title.getTitle()) + "</td>");
-                out.println("            <td>" + title.getEditionNumber() + "</td>");
-                out.println("            <td>" + escapeHtml(title.getCopyright()) + "</td>");
-                out.println("            <td>" + authorNames + "</td>");
+                writeCell(out, title.getIsbn());
+                writeCell(out, title.getTitle());
+                writeCell(out, title.getEditionNumber());
+                writeCell(out, title.getCopyright());
                 out.println("        </tr>");
             }
             out.println("    </tbody>");
             out.println("</table>");
         }
+        return !titles.isEmpty();
+    }
+
+    // --- Helper methods for Title Operations ---
+    /**
+     * Displays all titles along with their associated authors.
+     *
+     * @param out HtmlWriter for writing HTML output
+     */
+    private void displayAllTitles(HtmlWriter out) {
+        writeCached(out, "getAllTitles", CatalogVersion.catalog(), this::renderAllTitles);
+    }
+
+    /**
+     * Renders the table of all titles along with their associated authors.
+     *
+     * @param out HtmlWriter for writing HTML output
+     * @return true if any titles were rendered
+     */
+    private boolean renderAllTitles(HtmlWriter out) {
+        List<TitleDTO> titles = titleService.getAllTitles();
+        out.println("<h3>All Titles:</h3>");
+        if (titles.isEmpty()) {
+            out.println("<p class=\"info\">No titles found.</p>");
+        } else {
+            // One batched lookup for every row rather than one (or, sharded, two) queries per title
+            Map<String, List<AuthorDTO>> authors = titleService.getAuthorsForTitles(
+                    titles.stream().map(TitleDTO::getIsbn).collect(Collectors.toList()));
+            writeTitlesTable(out, titles, isbn -> authors.getOrDefault(isbn, List.of()));
+        }
+        return !titles.isEmpty();
+    }
+
+    /**
+     * Writes the table of all titles with their authors.
+     *
+     * @param out     HtmlWriter for writing HTML output
+     * @param titles  the titles, one row each
+     * @param authors looks up the authors of a title by ISBN
+     */
+    static void writeTitlesTable(HtmlWriter out, List<TitleDTO> titles, Function<String, List<AuthorDTO>> authors) {
+        out.println("<table>");
+        out.println("    <thead>");
+        out.println("        <tr><th>ISBN</th><th>Title</th><th>Edition #</th><th>Copyright</th><th>Authors</th></tr>");
+        out.println("    </thead>");
+        out.println("    <tbody>");
+        for (TitleDTO title : titles) {
+            List<AuthorDTO> authorsForTitle = authors.apply(title.getIsbn());
+            if (isOutOfTime()) {
+                break; // This lookup and every later one was refused; do not render them as blank
+            }
+
+            out.println("        <tr>");
+            writeCell(out, title.getIsbn());
+            writeCell(out, title.getTitle());
+            writeCell(out, title.getEditionNumber());
+            writeCell(out, title.getCopyright());
+            writeAuthorNamesCell(out, authorsForTitle);
+            out.println("        </tr>");
+        }
+        out.println("    </tbody>");
+        out.println("</table>");
     }
     
     /**
      * Retrieves and displays a title by its ISBN along with associcated authors.
      * 
      * @param request HttpServletRequest containing the parameter "titleISBN"
-     * @param out PrintWriter used to generate HTML response
+     * @param out HtmlWriter used to generate HTML response
      */ 
-    private void getTitleByISBN(HttpServletRequest request, PrintWriter out) {
+    private void getTitleByISBN(HttpServletRequest request, HtmlWriter out) {
         String isbn = request.getParameter("titleISBN");
         if (isbn == null || isbn.trim().isEmpty()) {
             out.println("<p class=\"error\">Error: Title ISBN cannot be empty.</p>");
@@ -502,15 +994,11 @@ public class FrontController extends HttpServlet {
         }
 
         TitleDTO title = titleService.getTitleByISBN(isbn);
-        out.println("<h3>Title with ISBN " + escapeHtml(isbn) + ":</h3>");
+        out.print("<h3>Title with ISBN ");
+        out.escape(isbn);
+        out.println(":</h3>");
         if (title != null) {
             List<AuthorDTO> authorsForTitle = titleService.getAuthorsForTitle(title.getIsbn());
-            String authorNames = authorsForTitle.stream()
-                                                .map(a -> escapeHtml(a.getFirstName()) + " " + escapeHtml(a.getLastName()) + " (ID: " + a.getId() + ")")
-                                                .collect(Collectors.joining("<br>"));
-            if (authorNames.isEmpty()) {
-                authorNames = "N/A";
-            }
 
             out.println("<table>");
             out.println("    <thead>");
@@ -518,16 +1006,18 @@ public class FrontController extends HttpServlet {
             out.println("    </thead>");
             out.println("    <tbody>");
             out.println("        <tr>");
-            out.println("            <td>" + escapeHtml(title.getIsbn()) + "</td>");
-            out.println("            <td>" + escapeHtml(title.getTitle()) + "</td>");
-            out.println("            <td>" + title.getEditionNumber() + "</td>");
-            out.println("            <td>" + escapeHtml(title.getCopyright()) + "</td>");
-            out.println("            <td>" + authorNames + "</td>");
+            writeCell(out, title.getIsbn());
+            writeCell(out, title.getTitle());
+            writeCell(out, title.getEditionNumber());
+            writeCell(out, title.getCopyright());
+            writeAuthorNamesCell(out, authorsForTitle);
             out.println("        </tr>");
             out.println("    </tbody>");
             out.println("</table>");
         } else {
-            out.println("<p class=\"error\">Error: Title with ISBN " + escapeHtml(isbn) + " not found.</p>");
+            out.print("<p class=\"error\">Error: Title with ISBN ");
+            out.escape(isbn);
+            out.println(" not found.</p>");
         }
     }
     
@@ -536,9 +1026,9 @@ public class FrontController extends HttpServlet {
      * and associates it with provided author IDs.
      *
      * @param request HttpServletRequest containing title details and author IDs
-     * @param out     PrintWriter used to generate HTML response
+     * @param out     HtmlWriter used to generate HTML response
      */
-    private void addTitle(HttpServletRequest request, PrintWriter out) {
+    private void addTitle(HttpServletRequest request, HtmlWriter out) {
         String isbn = request.getParameter("newTitleISBN");
         String titleName = request.getParameter("newTitleName");
         String editionNumberStr = request.getParameter("newEditionNumber");
@@ -567,7 +1057,11 @@ public class FrontController extends HttpServlet {
 
             boolean success = titleService.addTitle(isbn, titleName, editionNumber, copyright, authorIds);
             if (success) {
-                out.println("<p class=\"success\">Title '" + escapeHtml(titleName) + "' (ISBN: " + escapeHtml(isbn) + ") added successfully!</p>");
+                out.print("<p class=\"success\">Title '");
+                out.escape(titleName);
+                out.print("' (ISBN: ");
+                out.escape(isbn);
+                out.println(") added successfully!</p>");
                 displayAllTitles(out);
             } else {
                 out.println("<p class=\"error\">Error: Failed to add title. Check if ISBN already exists or if Author IDs are valid.</p>");
@@ -582,9 +1076,9 @@ public class FrontController extends HttpServlet {
      * and its associated authors.
      *
      * @param request HttpServletRequest containing updated title details
-     * @param out     PrintWriter used to generate HTML response
+     * @param out     HtmlWriter used to generate HTML response
      */
-    private void updateTitle(HttpServletRequest request, PrintWriter out) {
+    private void updateTitle(HttpServletRequest request, HtmlWriter out) {
         String isbn = request.getParameter("newTitleISBN");
         String newTitleName = request.getParameter("newTitleName");
         String newEditionNumberStr = request.getParameter("newEditionNumber");
@@ -613,10 +1107,14 @@ public class FrontController extends HttpServlet {
 
             boolean success = titleService.updateTitle(isbn, newTitleName, newEditionNumber, newCopyright, newAuthorIds);
             if (success) {
-                out.println("<p class=\"success\">Title with ISBN " + escapeHtml(isbn) + " updated successfully!</p>");
+                out.print("<p class=\"success\">Title with ISBN ");
+                out.escape(isbn);
+                out.println(" updated successfully!</p>");
                 displayAllTitles(out);
             } else {
-                out.println("<p class=\"error\">Error: Title with ISBN " + escapeHtml(isbn) + " not found or failed to update. Check if new Author IDs are valid.</p>");
+                out.print("<p class=\"error\">Error: Title with ISBN ");
+                out.escape(isbn);
+                out.println(" not found or failed to update. Check if new Author IDs are valid.</p>");
             }
         } catch (NumberFormatException e) {
             out.println("<p class=\"error\">Error: Invalid Edition Number or Author ID(s) format for update. Please enter numbers.</p>");
@@ -627,9 +1125,9 @@ public class FrontController extends HttpServlet {
      * Deletes a title by its ISBN.
      *
      * @param request HttpServletRequest containing the parameter "deleteTitleISBN"
-     * @param out     PrintWriter used to generate HTML response
+     * @param out     HtmlWriter used to generate HTML response
      */
-    private void deleteTitle(HttpServletRequest request, PrintWriter out) {
+    private void deleteTitle(HttpServletRequest request, HtmlWriter out) {
         String isbn = request.getParameter("titleISBN");
         if (isbn == null || isbn.trim().isEmpty()) {
             out.println("<p class=\"error\">Error: Title ISBN cannot be empty for deletion.</p>");
@@ -637,10 +1135,14 @@ public class FrontController extends HttpServlet {
         }
         boolean success = titleService.deleteTitle(isbn);
         if (success) {
-            out.println("<p class=\"success\">Title with ISBN " + escapeHtml(isbn) + " deleted successfully!</p>");
+            out.print("<p class=\"success\">Title with ISBN ");
+            out.escape(isbn);
+            out.println(" deleted successfully!</p>");
             displayAllTitles(out);
         } else {
-            out.println("<p class=\"error\">Error: Title with ISBN " + escapeHtml(isbn) + " not found or failed to delete.</p>");
+            out.print("<p class=\"error\">Error: Title with ISBN ");
+            out.escape(isbn);
+            out.println(" not found or failed to delete.</p>");
         }
     }
 
@@ -648,9 +1150,9 @@ public class FrontController extends HttpServlet {
      * Retrieves and displays all authors associated with a given title.
      *
      * @param request HttpServletRequest containing the parameter "titleISBNForAuthors"
-     * @param out     PrintWriter used to generate HTML response
+     * @param out     HtmlWriter used to generate HTML response
      */
-    private void getAuthorsForTitle(HttpServletRequest request, PrintWriter out) {
+    private void getAuthorsForTitle(HttpServletRequest request, HtmlWriter out) {
         String isbn = request.getParameter("titleISBN");
         if (isbn == null || isbn.trim().isEmpty()) {
             out.println("<p class=\"error\">Error: Title ISBN cannot be empty for getting authors.</p>");
@@ -659,12 +1161,18 @@ public class FrontController extends HttpServlet {
 
         TitleDTO title = titleService.getTitleByISBN(isbn);
         if (title == null) {
-            out.println("<p class=\"error\">Error: Title with ISBN " + escapeHtml(isbn) + " not found.</p>");
+            out.print("<p class=\"error\">Error: Title with ISBN ");
+            out.escape(isbn);
+            out.println(" not found.</p>");
             return;
         }
 
         List<AuthorDTO> authors = titleService.getAuthorsForTitle(isbn);
-        out.println("<h3>Authors for Title: '" + escapeHtml(title.getTitle()) + "' (ISBN: " + escapeHtml(isbn) + ")</h3>");
+        out.print("<h3>Authors for Title: '");
+        out.escape(title.getTitle());
+        out.print("' (ISBN: ");
+        out.escape(isbn);
+        out.println(")</h3>");
         if (authors.isEmpty()) {
             out.println("<p class=\"info\">No authors found for this title.</p>");
         } else {
@@ -675,9 +1183,9 @@ public class FrontController extends HttpServlet {
             out.println("    <tbody>");
             for (AuthorDTO author : authors) {
                 out.println("        <tr>");
-                out.println("            <td>" + author.getId() + "</td>");
-                out.println("            <td>" + escapeHtml(author.getFirstName()) + "</td>");
-                out.println("            <td>" + escapeHtml(author.getLastName()) + "</td>");
+                writeCell(out, author.getId());
+                writeCell(out, author.getFirstName());
+                writeCell(out, author.getLastName());
                 out.println("        </tr>");
             }
             out.println("    </tbody>");
@@ -686,41 +1194,66 @@ public class FrontController extends HttpServlet {
     }
 
     /**
-     * Escapes HTML special characters to prevent XSS attacks.
+     * Writes one table cell with HTML-escaped text.
      *
-     * @param text The text to escape
-     * @return Escaped text safe for HTML rendering
+     * @param out  HtmlWriter for writing HTML output
+     * @param text the cell text; null renders an empty cell
      */
-    private String escapeHtml(String text) {
-        if (text == null) {
-            return "";
+    private static void writeCell(HtmlWriter out, String text) {
+        out.print("            <td>");
+        out.escape(text);
+        out.println("</td>");
+    }
+
+    /**
+     * Writes one table cell holding a number.
+     *
+     * @param out   HtmlWriter for writing HTML output
+     * @param value the cell value
+     */
+    private static void writeCell(HtmlWriter out, int value) {
+        out.print("            <td>");
+        out.print(value);
+        out.println("</td>");
+    }
+
+    /**
+     * Writes a table cell listing author names and IDs separated by line breaks,
+     * or "N/A" if there are none.
+     *
+     * @param out     HtmlWriter for writing HTML output
+     * @param authors the authors to list
+     */
+    private static void writeAuthorNamesCell(HtmlWriter out, List<AuthorDTO> authors) {
+        out.print("            <td>");
+        if (authors.isEmpty()) {
+            out.print("N/A");
         }
-        StringBuilder sb = new StringBuilder();
-        for (char c : text.toCharArray()) {
-            switch (c) {
-                case '<': sb.append("&lt;"); break;
-                case '>': sb.append("&gt;"); break;
-                case '&': sb.append("&amp;"); break;
-                case '"': sb.append("&quot;"); break;
-                case '\'': sb.append("&#x27;"); break; // Apostrophe
-                case '/': sb.append("&#x2F;"); break; // Solidus
-                default: sb.append(c);
+        for (int i = 0; i < authors.size(); i++) {
+            AuthorDTO a = authors.get(i);
+            if (i > 0) {
+                out.print("<br>");
             }
+            out.escape(a.getFirstName());
+            out.print(' ');
+            out.escape(a.getLastName());
+            out.print(" (ID: ");
+            out.print(a.getId());
+            out.print(')');
         }
-        return sb.toString();
+        out.println("</td>");
     }
+
     /**
-     * Logs out the current user by invalidating the session and redirecting to the login page.
+     * Logs out the current user by invalidating the session (or expiring the token cookie)
+     * and redirecting to the login page.
      *
      * @param request  The HttpServletRequest object.
      * @param response The HttpServletResponse object.
      * @throws IOException If an input or output error occurs during the redirect.
      */
     private void logout(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        HttpSession session = request.getSession(false); // Get session without creating a new one
-        if (session != null) {
-            session.invalidate(); // Invalidate the session
-        }
+        authenticator.logout(request, response);
         response.sendRedirect("login"); // Redirect to LoginServlet
     }
 }
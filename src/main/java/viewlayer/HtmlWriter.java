@@ -0,0 +1,190 @@
+package viewlayer;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+/*******************************************************************************
+ * HtmlWriter (View Layer)
+ * A {@link PrintWriter} that encodes HTML output as UTF-8 onto an
+ * {@link OutputStream} while keeping access to that stream, so already
+ * encoded fragments (e.g. from the {@link FragmentCache}) can be copied
+ * into the response as raw bytes without being decoded and re-encoded.
+ *
+ * {@link #escape(String)} writes HTML-escaped text straight into the
+ * encoder without building an intermediate String; text that needs no
+ * escaping (the common case for catalog data) is written in a single call.
+ *
+ * {@link #flush()} only drains the encoder into the destination stream; it
+ * does not flush the stream itself, so it never commits a servlet response by
+ * accident. Sending data to the client is an explicit decision made through
+ * {@link #flushSection()}.
+ *
+ * @see HtmlWriter
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: UTF-8 PrintWriter with pass-through for pre-encoded bytes.
+ ******************************************************************************/
+
+class HtmlWriter extends PrintWriter {
+
+    /** Entity replacements indexed by character; null for characters written as-is. */
+    private static final String[] ESCAPES = new String[128];
+
+    static {
+        ESCAPES['<'] = "&lt;";
+        ESCAPES['>'] = "&gt;";
+        ESCAPES['&'] = "&amp;";
+        ESCAPES['"'] = "&quot;";
+        ESCAPES['\''] = "&#x27;"; // Apostrophe
+        ESCAPES['/'] = "&#x2F;";  // Solidus
+    }
+
+    /** The stream the encoded characters end up in. */
+    private final OutputStream stream;
+
+    /** The encoder's view of the stream, which counts the bytes written. */
+    private final NonFlushingStream encoded;
+
+    /** Whether {@link #flushSection()} pushes output to the client. */
+    private boolean sectionFlushing;
+
+    /**
+     * Creates a writer that encodes onto the given stream.
+     *
+     * @param stream the destination stream (e.g. the servlet output stream)
+     */
+    HtmlWriter(OutputStream stream) {
+        this(new NonFlushingStream(stream), stream);
+    }
+
+    /**
+     * Creates a writer that encodes onto the given stream.
+     *
+     * @param encoded the non-flushing view of the stream
+     * @param stream  the destination stream
+     */
+    private HtmlWriter(NonFlushingStream encoded, OutputStream stream) {
+        super(new OutputStreamWriter(encoded, StandardCharsets.UTF_8), false);
+        this.stream = stream;
+        this.encoded = encoded;
+    }
+
+    /**
+     * Gets the number of bytes handed to the destination stream so far.
+     * Characters still pending in the encoder are not counted until {@link #flush()}.
+     *
+     * @return the byte count
+     */
+    long getBytesWritten() {
+        return encoded.count;
+    }
+
+    /**
+     * Enables or disables early flushing at section boundaries.
+     *
+     * @param sectionFlushing true to send each completed section to the client immediately
+     */
+    void setSectionFlushing(boolean sectionFlushing) {
+        this.sectionFlushing = sectionFlushing;
+    }
+
+    /**
+     * Marks the end of a page section. Pending output is handed to the
+     * destination stream and, if section flushing is enabled, flushed so the
+     * client can start rendering while later sections are still being built.
+     */
+    void flushSection() {
+        flush();
+        if (sectionFlushing) {
+            try {
+                stream.flush();
+            } catch (IOException e) {
+                setError();
+            }
+        }
+    }
+
+    /**
+     * Writes text with HTML special characters escaped to prevent XSS attacks.
+     * Runs of safe characters are written straight from the source string.
+     *
+     * @param text the text to escape; null writes nothing
+     */
+    void escape(String text) {
+        if (text == null) {
+            return;
+        }
+        int length = text.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            String replacement = c < ESCAPES.length ? ESCAPES[c] : null;
+            if (replacement != null) {
+                if (i > start) {
+                    write(text, start, i - start);
+                }
+                write(replacement);
+                start = i + 1;
+            }
+        }
+        if (start == 0) {
+            write(text);
+        } else if (start < length) {
+            write(text, start, length - start);
+        }
+    }
+
+    /**
+     * Writes already UTF-8 encoded bytes, after flushing any pending characters
+     * so the output keeps its order.
+     *
+     * @param bytes the encoded bytes to copy
+     */
+    void writeEncoded(byte[] bytes) {
+        flush();
+        try {
+            stream.write(bytes);
+            encoded.count += bytes.length;
+        } catch (IOException e) {
+            // PrintWriter never throws; record the failure like its own methods do
+            setError();
+        }
+    }
+
+    /**
+     * Passes writes through but ignores {@code flush()}, so that flushing the
+     * encoder does not also flush (and commit) the destination stream.
+     */
+    private static final class NonFlushingStream extends FilterOutputStream {
+
+        /** Bytes written through this stream (and by writeEncoded). */
+        long count;
+
+        NonFlushingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() {
+            // Intentionally empty: see flushSection()
+        }
+    }
+}
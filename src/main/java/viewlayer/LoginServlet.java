@@ -4,9 +4,7 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 import java.io.IOException;
-import java.io.PrintWriter;
 
 /**
  * LoginServlet (View Layer)
@@ -14,19 +12,28 @@ import java.io.PrintWriter;
  * If authentication is successful, redirects to the FrontController.
  *
  * Handles user login authentication.
- * This servlet verifies user credentials and creates an HTTP session
- * for authenticated users.
+ * This servlet verifies user credentials and records the login through the
+ * {@link Authenticator}, either in an HTTP session or as a signed token cookie.
  */
 public class LoginServlet extends HttpServlet {
     private static final long serialVersionUID = 1L;
     private static final String VALID_USERNAME = "cst8288";
     private static final String VALID_PASSWORD = "cst8288";
 
+    /** Records logins as a session attribute or a signed token. */
+    private Authenticator authenticator;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        authenticator = Authenticator.getInstance(getServletContext());
+    }
+
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         // Display the login form
-        response.setContentType("text/html");
-        PrintWriter out = response.getWriter();
+        response.setContentType("text/html;charset=UTF-8");
+        HtmlWriter out = new HtmlWriter(response.getOutputStream());
 
         out.println("<!DOCTYPE html>");
         out.println("<html lang=\"en\">");
@@ -63,7 +70,9 @@ public class LoginServlet extends HttpServlet {
         // Display error message if present in request attributes
         String errorMessage = (String) request.getAttribute("errorMessage");
         if (errorMessage != null) {
-            out.println("<p class=\"error-message\">" + errorMessage + "</p>");
+            out.print("<p class=\"error-message\">");
+            out.escape(errorMessage);
+            out.println("</p>");
         }
         out.println("        </form>");
         out.println("        <div class=\"footer\">");
@@ -73,6 +82,7 @@ public class LoginServlet extends HttpServlet {
         out.println("    </div>");
         out.println("</body>");
         out.println("</html>");
+        out.flush();
     }
 
     @Override
@@ -82,8 +92,7 @@ public class LoginServlet extends HttpServlet {
 
         if (VALID_USERNAME.equals(username) && VALID_PASSWORD.equals(password)) {
             // Authentication successful
-            HttpSession session = request.getSession();
-            session.setAttribute("authenticated", true); // Mark session as authenticated
+            authenticator.login(request, response, username);
             response.sendRedirect("frontController"); // Redirect to FrontController
         } else {
             // Authentication failed
@@ -0,0 +1,45 @@
+package viewlayer;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.Writer;
+import monitoring.MetricsRegistry;
+
+/*******************************************************************************
+ * MetricsServlet (View Layer)
+ * Exports the application's metrics in the Prometheus text format for a
+ * scraper. The endpoint does not require a login, since a scraper cannot
+ * log in; restrict access to it at the network or proxy level.
+ *
+ * @see MetricsServlet
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Prometheus metrics endpoint.
+ ******************************************************************************/
+
+public class MetricsServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Writes all registered metrics.
+     *
+     * @param request  HttpServletRequest object containing client request
+     * @param response HttpServletResponse object for sending response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setContentType("text/plain; version=0.0.4; charset=UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+        Writer out = response.getWriter();
+        MetricsRegistry.getInstance().writePrometheus(out);
+        out.flush();
+    }
+}
@@ -0,0 +1,87 @@
+package viewlayer;
+
+import java.util.Locale;
+
+/*******************************************************************************
+ * ServerTiming (View Layer)
+ * Builds the value of a {@code Server-Timing} response header, which browser
+ * developer tools show in the timing breakdown of a request:
+ *
+ *   auth;dur=0.112, dao.getAllTitles;dur=14.520;desc="1 call", render;dur=3.207
+ *
+ * Durations are in milliseconds. Phase names must be HTTP tokens (letters,
+ * digits and {@code .-_} are fine); descriptions must not contain quotes.
+ *
+ * @see FrontController
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Builder for the Server-Timing response header.
+ ******************************************************************************/
+
+final class ServerTiming {
+
+    private final StringBuilder header = new StringBuilder(256);
+
+    /**
+     * Adds a phase with a duration.
+     *
+     * @param name        the phase name
+     * @param nanos       the time spent
+     * @param description shown next to the phase, or null
+     * @return this builder
+     */
+    ServerTiming add(String name, long nanos, String description) {
+        start(name);
+        header.append(";dur=").append(String.format(Locale.ROOT, "%.3f", nanos / 1e6));
+        return describe(description);
+    }
+
+    /**
+     * Adds an entry without a duration, such as a count.
+     *
+     * @param name        the entry name
+     * @param description shown next to the entry
+     * @return this builder
+     */
+    ServerTiming add(String name, String description) {
+        start(name);
+        return describe(description);
+    }
+
+    /**
+     * Starts an entry.
+     *
+     * @param name the entry name
+     */
+    private void start(String name) {
+        if (header.length() > 0) {
+            header.append(", ");
+        }
+        header.append(name);
+    }
+
+    /**
+     * Appends the description of the current entry.
+     *
+     * @param description the description, or null
+     * @return this builder
+     */
+    private ServerTiming describe(String description) {
+        if (description != null) {
+            header.append(";desc=\"").append(description).append('"');
+        }
+        return this;
+    }
+
+    /**
+     * Gets the header value.
+     *
+     * @return the entries built so far
+     */
+    @Override
+    public String toString() {
+        return header.toString();
+    }
+}
@@ -0,0 +1,27 @@
+-- Schema of a title shard (see shard.count in database.properties). Run it
+-- on each shard's MySQL instance; the Authors table stays in the main
+-- database created by books-MySQL.sql, so AuthorISBN has no foreign key to
+-- it here: TitleService checks author IDs before writing a title, and
+-- deleting an author checks every shard for its titles.
+
+DROP DATABASE IF EXISTS books;
+
+CREATE DATABASE books;
+
+USE books;
+
+CREATE TABLE Titles
+(
+   ISBN varchar(20) NOT NULL PRIMARY KEY,
+   Title varchar(100) NOT NULL,
+   EditionNumber int NOT NULL,
+   Copyright varchar(4) NOT NULL
+)             ;
+
+CREATE TABLE AuthorISBN
+(
+   AuthorID int NOT NULL,
+   ISBN varchar(20) NOT NULL,
+   INDEX (AuthorID),
+   FOREIGN KEY (ISBN) References Titles(ISBN)
+)            ;
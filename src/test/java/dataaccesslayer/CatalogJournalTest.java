@@ -0,0 +1,176 @@
+package dataaccesslayer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dataaccesslayer.InMemoryCatalog.AuthorRow;
+import dataaccesslayer.InMemoryCatalog.TitleRow;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/*******************************************************************************
+ * CatalogJournalTest
+ * Checks that a catalog is recovered from its journal: log records are
+ * replayed after a restart, a record cut short at the end of the newest
+ * segment is truncated, damage in an older segment fails recovery, and a
+ * snapshot taken by a checkpoint is loaded before the segments after it.
+ *
+ * @see CatalogJournal
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Unit tests for catalog journal replay and crash recovery.
+ ******************************************************************************/
+
+class CatalogJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysChangesAfterARestart() throws IOException {
+        InMemoryCatalog catalog = new InMemoryCatalog();
+        CatalogJournal journal = open(catalog);
+        putAuthor(journal, catalog, new AuthorRow(1, "Paul", "Deitel"));
+        putAuthor(journal, catalog, new AuthorRow(2, "Harvey", "Deitel"));
+        putAuthor(journal, catalog, new AuthorRow(3, "Abbey", "Deitel"));
+        putTitle(journal, catalog, new TitleRow("0132152134", "Visual Basic 2010", 5, "2011", new int[] {1, 2}));
+        putTitle(journal, catalog, new TitleRow("0132151421", "Visual C# 2010", 4, "2011", new int[] {2}));
+        putTitle(journal, catalog, new TitleRow("0132152134", "Visual Basic 2010", 6, "2012", new int[] {2}));
+        journal.removeTitle("0132151421");
+        catalog.applyTitleRemoval("0132151421");
+        journal.removeAuthor(3);
+        catalog.applyAuthorRemoval(3);
+        long lastLsn = journal.getLastLsn();
+        journal.close();
+
+        InMemoryCatalog recovered = new InMemoryCatalog();
+        CatalogJournal reopened = open(recovered);
+        assertEquals(lastLsn, reopened.getLastLsn());
+        assertEquals(List.of(1, 2), List.copyOf(recovered.authors.keySet()));
+        assertEquals("Harvey", recovered.authors.get(2).firstName);
+        assertEquals(3, recovered.lastAuthorId.get(), "a removed author's ID must not be handed out again");
+        assertEquals(List.of("0132152134"), List.copyOf(recovered.titles.keySet()));
+        TitleRow title = recovered.titles.get("0132152134");
+        assertEquals(6, title.editionNumber);
+        assertArrayEquals(new int[] {2}, title.authorIds);
+        assertFalse(recovered.isbnsByAuthor.getOrDefault(1, Set.of()).contains("0132152134"));
+        reopened.close();
+    }
+
+    @Test
+    void truncatesARecordCutShortAtTheEndOfTheNewestSegment() throws IOException {
+        InMemoryCatalog catalog = new InMemoryCatalog();
+        CatalogJournal journal = open(catalog);
+        for (int id = 1; id <= 3; id++) {
+            putAuthor(journal, catalog, new AuthorRow(id, "First" + id, "Last" + id));
+        }
+        journal.close();
+        Path segment = segments().get(0);
+        long intact = Files.size(segment);
+        // A header promising more bytes than were written, as a crash mid-append leaves it
+        ByteBuffer torn = ByteBuffer.allocate(12).putInt(64).putInt(0x12345678).putInt(7);
+        torn.flip();
+        Files.write(segment, torn.array(), StandardOpenOption.APPEND);
+
+        InMemoryCatalog recovered = new InMemoryCatalog();
+        CatalogJournal reopened = open(recovered);
+        assertEquals(3, recovered.authors.size());
+        assertEquals(3, reopened.getLastLsn());
+        assertEquals(intact, Files.size(segment));
+        putAuthor(reopened, recovered, new AuthorRow(4, "First4", "Last4"));
+        reopened.close();
+
+        InMemoryCatalog again = new InMemoryCatalog();
+        CatalogJournal last = open(again);
+        assertEquals(4, again.authors.size());
+        assertEquals(4, last.getLastLsn());
+        last.close();
+    }
+
+    @Test
+    void failsOnDamageBeforeTheNewestSegment() throws IOException {
+        InMemoryCatalog catalog = new InMemoryCatalog();
+        CatalogJournal journal = open(catalog);
+        putAuthor(journal, catalog, new AuthorRow(1, "Paul", "Deitel"));
+        putAuthor(journal, catalog, new AuthorRow(2, "Harvey", "Deitel"));
+        journal.close();
+        InMemoryCatalog second = new InMemoryCatalog();
+        journal = open(second);
+        putAuthor(journal, second, new AuthorRow(3, "Abbey", "Deitel"));
+        journal.close();
+
+        List<Path> segments = segments();
+        assertEquals(2, segments.size());
+        byte[] bytes = Files.readAllBytes(segments.get(0));
+        bytes[bytes.length - 1] ^= 0x5A; // Breaks the checksum of the second record
+        Files.write(segments.get(0), bytes);
+
+        assertThrows(IOException.class, () -> open(new InMemoryCatalog()));
+    }
+
+    @Test
+    void loadsTheSnapshotThenTheSegmentsAfterIt() throws IOException {
+        InMemoryCatalog catalog = new InMemoryCatalog();
+        CatalogJournal journal = open(catalog);
+        putAuthor(journal, catalog, new AuthorRow(1, "Paul", "Deitel"));
+        putAuthor(journal, catalog, new AuthorRow(2, "Harvey", "Deitel"));
+        putTitle(journal, catalog, new TitleRow("0132152134", "Visual Basic 2010", 5, "2011", new int[] {1, 2}));
+        journal.checkpoint();
+        putAuthor(journal, catalog, new AuthorRow(7, "Abbey", "Deitel"));
+        putTitle(journal, catalog, new TitleRow("0132151421", "Visual C# 2010", 4, "2011", new int[] {7}));
+        long lastLsn = journal.getLastLsn();
+        journal.close();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.filter(file -> file.toString().endsWith(".snapshot")).count());
+        }
+        assertEquals(1, segments().size(), "the checkpoint deletes the segments it replaces");
+
+        InMemoryCatalog recovered = new InMemoryCatalog();
+        CatalogJournal reopened = open(recovered);
+        assertEquals(lastLsn, reopened.getLastLsn());
+        assertEquals(List.of(1, 2, 7), List.copyOf(recovered.authors.keySet()));
+        assertEquals(7, recovered.lastAuthorId.get());
+        assertEquals(2, recovered.titles.size());
+        assertTrue(recovered.isbnsByAuthor.get(7).contains("0132151421"));
+        assertArrayEquals(new int[] {1, 2}, recovered.titles.get("0132152134").authorIds);
+        reopened.close();
+    }
+
+    private CatalogJournal open(InMemoryCatalog catalog) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("dao.wal.directory", directory.toAbsolutePath().toString());
+        props.setProperty("dao.wal.sync", "always");
+        return CatalogJournal.open(catalog, props);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".wal")).sorted().toList();
+        }
+    }
+
+    private static void putAuthor(CatalogJournal journal, InMemoryCatalog catalog, AuthorRow row) throws IOException {
+        journal.putAuthor(row);
+        catalog.applyAuthor(row);
+    }
+
+    private static void putTitle(CatalogJournal journal, InMemoryCatalog catalog, TitleRow row) throws IOException {
+        journal.putTitle(row);
+        catalog.applyTitle(row);
+    }
+}
@@ -0,0 +1,151 @@
+package dataaccesslayer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import transferobjects.AuthorDTO;
+import transferobjects.TitleDTO;
+
+/*******************************************************************************
+ * CatalogSnapshotTest
+ * Checks the binary catalog snapshot format: a written file reopens with
+ * the same authors, titles and links, lookups and keyset pages find the
+ * right rows, links to missing rows are left out, and a file whose
+ * checksum or section sizes do not match is rejected.
+ *
+ * @see CatalogSnapshot
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Unit tests for writing and reading the catalog snapshot.
+ ******************************************************************************/
+
+class CatalogSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopensWithTheSameRows() throws IOException {
+        CatalogSnapshot snapshot = CatalogSnapshot.open(write(directory.resolve("catalog.snap")));
+
+        assertEquals(List.of(1, 2, 7), ids(snapshot.getAllAuthors()));
+        assertEquals(List.of("0132151421", "0132152134", "013215213X"), isbns(snapshot.getAllTitles()));
+        AuthorDTO author = snapshot.getAuthorById(2);
+        assertEquals("Harvey", author.getFirstName());
+        assertEquals("Deitel", author.getLastName());
+        assertNull(snapshot.getAuthorById(3));
+        TitleDTO title = snapshot.getTitleByISBN("0132152134");
+        assertEquals("Visual Basic 2010", title.getTitle());
+        assertEquals(5, title.getEditionNumber());
+        assertEquals("2011", title.getCopyright());
+        assertNull(snapshot.getTitleByISBN("0000000000"));
+        assertNull(snapshot.getTitleByISBN(null));
+        assertTrue(snapshot.getCreatedMillis() > 0);
+    }
+
+    @Test
+    void followsLinksBothWaysAndLeavesOutMissingRows() throws IOException {
+        CatalogSnapshot snapshot = CatalogSnapshot.open(write(directory.resolve("catalog.snap")));
+
+        assertEquals(List.of(1, 2), ids(snapshot.getAuthorsForTitle("0132152134")));
+        assertEquals(List.of(2, 7), ids(snapshot.getAuthorsForTitle("0132151421")));
+        assertEquals(List.of(), ids(snapshot.getAuthorsForTitle("013215213X")));
+        assertEquals(List.of("0132151421", "0132152134"), isbns(snapshot.getTitlesByAuthor(2)));
+        assertEquals(List.of(), isbns(snapshot.getTitlesByAuthor(3)));
+
+        Map<Integer, AuthorDTO> byId = snapshot.getAuthorsByIds(new int[] {7, 3, 1, 7});
+        assertEquals(List.of(1, 7), List.copyOf(byId.keySet()));
+        Map<String, List<AuthorDTO>> byIsbn = snapshot.getAuthorsForTitles(
+                List.of("0132152134", "013215213X", "0000000000"));
+        assertEquals(List.of("0132152134"), List.copyOf(byIsbn.keySet()));
+        assertEquals(List.of(1, 2), ids(byIsbn.get("0132152134")));
+    }
+
+    @Test
+    void pagesTitlesByTheLastIsbnOfThePreviousPage() throws IOException {
+        CatalogSnapshot snapshot = CatalogSnapshot.open(write(directory.resolve("catalog.snap")));
+
+        assertEquals(List.of("0132151421", "0132152134"), isbns(snapshot.getTitlesPage(null, 2)));
+        assertEquals(List.of("013215213X"), isbns(snapshot.getTitlesPage("0132152134", 2)));
+        // An ISBN between two titles, such as one deleted since the previous page, starts after it
+        assertEquals(List.of("0132152134", "013215213X"), isbns(snapshot.getTitlesPage("0132151500", 5)));
+        assertEquals(List.of(), isbns(snapshot.getTitlesPage("013215213X", 2)));
+        assertEquals(List.of(), isbns(snapshot.getTitlesPage(null, 0)));
+    }
+
+    @Test
+    void rejectsAFileWhoseChecksumDoesNotMatch() throws IOException {
+        Path file = write(directory.resolve("catalog.snap"));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 0x5A; // Inside the string table
+        Files.write(file, bytes);
+
+        IOException failure = assertThrows(IOException.class, () -> CatalogSnapshot.open(file));
+        assertTrue(failure.getMessage().contains("checksum"), failure.getMessage());
+    }
+
+    @Test
+    void rejectsAFileWhoseSectionsDoNotMatchItsSize() throws IOException {
+        Path truncated = write(directory.resolve("truncated.snap"));
+        byte[] bytes = Files.readAllBytes(truncated);
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 4));
+        IOException failure = assertThrows(IOException.class, () -> CatalogSnapshot.open(truncated));
+        assertTrue(failure.getMessage().contains("sections"), failure.getMessage());
+
+        Path miscounted = write(directory.resolve("miscounted.snap"));
+        try (FileChannel channel = FileChannel.open(miscounted, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 99), 24); // The author count
+        }
+        failure = assertThrows(IOException.class, () -> CatalogSnapshot.open(miscounted));
+        assertTrue(failure.getMessage().contains("sections"), failure.getMessage());
+
+        Path other = directory.resolve("other.snap");
+        Files.write(other, new byte[100]);
+        assertThrows(IOException.class, () -> CatalogSnapshot.open(other));
+    }
+
+    /**
+     * Writes a small catalog with a link to a missing author and one to a missing title.
+     */
+    private static Path write(Path file) throws IOException {
+        new CatalogSnapshot.Builder()
+                .addAuthor(new AuthorDTO(7, "Abbey", "Deitel"))
+                .addAuthor(new AuthorDTO(1, "Paul", "Deitel"))
+                .addAuthor(new AuthorDTO(2, "Harvey", "Deitel"))
+                .addTitle(new TitleDTO("0132152134", "Visual Basic 2010", 5, "2011"))
+                .addTitle(new TitleDTO("013215213X", "Visual C++ 2010", 1, "2011"))
+                .addTitle(new TitleDTO("0132151421", "Visual C# 2010", 4, "2011"))
+                .addLink(2, "0132152134")
+                .addLink(1, "0132152134")
+                .addLink(7, "0132151421")
+                .addLink(2, "0132151421")
+                .addLink(3, "0132152134")
+                .addLink(1, "0000000000")
+                .write(file);
+        return file;
+    }
+
+    private static List<Integer> ids(List<AuthorDTO> authors) {
+        return authors.stream().map(AuthorDTO::getId).collect(Collectors.toList());
+    }
+
+    private static List<String> isbns(List<TitleDTO> titles) {
+        return titles.stream().map(TitleDTO::getIsbn).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,157 @@
+package dataaccesslayer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+/*******************************************************************************
+ * IntBitmapTest
+ * Checks the bitmap against a TreeSet: adds and removes around the 4096-value
+ * switch between array and bitmap containers, ranks and range counts that
+ * cross container boundaries, and unsigned ordering of negative values.
+ *
+ * @see IntBitmap
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Unit tests for the Roaring-style compressed bitmap.
+ ******************************************************************************/
+
+class IntBitmapTest {
+
+    @Test
+    void addsAndRemovesValues() {
+        IntBitmap bitmap = new IntBitmap();
+        assertTrue(bitmap.add(42));
+        assertFalse(bitmap.add(42), "a value already in the set is not added twice");
+        assertTrue(bitmap.add(7));
+        assertTrue(bitmap.contains(42));
+        assertFalse(bitmap.contains(43));
+        assertEquals(2, bitmap.cardinality());
+        assertTrue(bitmap.remove(42));
+        assertFalse(bitmap.remove(42));
+        assertFalse(bitmap.remove(1 << 20), "removing from a missing container changes nothing");
+        assertEquals(1, bitmap.cardinality());
+        assertEquals(7, bitmap.first());
+        assertEquals(7, bitmap.last());
+    }
+
+    @Test
+    void keepsItsValuesWhenAContainerSwitchesRepresentation() {
+        IntBitmap bitmap = new IntBitmap();
+        // Every other value, so the array container fills before the chunk does
+        for (int value = 0; value < 2 * IntBitmap.ARRAY_MAX; value += 2) {
+            bitmap.add(value);
+        }
+        assertEquals(IntBitmap.ARRAY_MAX, bitmap.cardinality());
+        assertTrue(bitmap.add(1), "the value past ARRAY_MAX switches to a bitmap container");
+        assertFalse(bitmap.add(1));
+        assertEquals(IntBitmap.ARRAY_MAX + 1, bitmap.cardinality());
+        assertEquals(8192L + 6 * 4, bitmap.sizeInBytes());
+        for (int value = 0; value < 2 * IntBitmap.ARRAY_MAX; value += 2) {
+            assertTrue(bitmap.contains(value));
+            assertFalse(bitmap.contains(value + 3));
+        }
+        assertEquals(3, bitmap.rank(2));
+
+        assertTrue(bitmap.remove(1), "dropping back to ARRAY_MAX switches to an array container");
+        assertEquals(IntBitmap.ARRAY_MAX, bitmap.cardinality());
+        assertTrue(bitmap.remove(0));
+        assertTrue(bitmap.add(1));
+        assertEquals(1, bitmap.first());
+        assertEquals(2 * IntBitmap.ARRAY_MAX - 2, bitmap.last());
+        assertEquals(IntBitmap.ARRAY_MAX, bitmap.rank(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void countsRangesAcrossContainerBoundaries() {
+        IntBitmap bitmap = new IntBitmap();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int value = 65_000; value < 140_000; value++) {
+            bitmap.add(value);
+            expected.add(value);
+        }
+        bitmap.add(5);
+        expected.add(5);
+        assertEquals(3, bitmap.containerCount());
+
+        assertEquals(2, bitmap.rangeCardinality(65_535, 65_536));
+        assertEquals(1, bitmap.rangeCardinality(65_536, 65_536));
+        assertEquals(0, bitmap.rangeCardinality(140_000, 200_000));
+        assertEquals(0, bitmap.rangeCardinality(70_000, 60_000), "an empty range counts nothing");
+        assertEquals(expected.size(), bitmap.rangeCardinality(0, -1));
+        for (int[] range : new int[][] {{0, 5}, {6, 65_000}, {65_535, 131_071}, {131_071, 131_072},
+                {100, 139_999}, {131_072, 139_998}}) {
+            assertEquals(expected.subSet(range[0], true, range[1], true).size(),
+                    bitmap.rangeCardinality(range[0], range[1]), range[0] + ".." + range[1]);
+        }
+        assertEquals(expected.headSet(65_536, false).size(), bitmap.rank(65_535));
+    }
+
+    @Test
+    void removingTheLastValueOfAChunkDropsItsContainer() {
+        IntBitmap bitmap = new IntBitmap();
+        bitmap.add(1);
+        bitmap.add(65_536);
+        bitmap.add(3 * 65_536 + 9);
+        assertEquals(3, bitmap.containerCount());
+        assertTrue(bitmap.remove(65_536));
+        assertEquals(2, bitmap.containerCount());
+        assertEquals(1, bitmap.rangeCardinality(2, 3 * 65_536 + 9));
+        assertTrue(bitmap.add(65_537));
+        assertEquals(3, bitmap.containerCount());
+        assertEquals(2, bitmap.rank(65_537));
+    }
+
+    @Test
+    void ordersValuesAsUnsignedInts() {
+        IntBitmap bitmap = new IntBitmap();
+        bitmap.add(-1);
+        bitmap.add(Integer.MIN_VALUE);
+        bitmap.add(10);
+        assertEquals(10, bitmap.first());
+        assertEquals(-1, bitmap.last());
+        assertEquals(1, bitmap.rank(Integer.MAX_VALUE));
+        assertEquals(2, bitmap.rank(Integer.MIN_VALUE));
+        assertEquals(2, bitmap.rangeCardinality(Integer.MIN_VALUE, -1));
+    }
+
+    @Test
+    void matchesATreeSetUnderRandomChanges() {
+        IntBitmap bitmap = new IntBitmap();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(8288);
+        for (int i = 0; i < 200_000; i++) {
+            // Values in three chunks, dense enough for containers to switch both ways
+            int value = random.nextInt(3 * 65_536 / 8) * 8;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), bitmap.remove(value));
+            } else {
+                assertEquals(expected.add(value), bitmap.add(value));
+            }
+        }
+        assertEquals(expected.size(), bitmap.cardinality());
+        assertEquals(expected.first(), bitmap.first());
+        assertEquals(expected.last(), bitmap.last());
+        for (int probe = 0; probe < 3 * 65_536; probe += 997) {
+            assertEquals(expected.headSet(probe, true).size(), bitmap.rank(probe));
+            assertEquals(expected.contains(probe), bitmap.contains(probe));
+        }
+    }
+
+    @Test
+    void anEmptyBitmapHasNoFirstOrLastValue() {
+        IntBitmap bitmap = new IntBitmap();
+        assertThrows(NoSuchElementException.class, bitmap::first);
+        assertThrows(NoSuchElementException.class, bitmap::last);
+        assertEquals(0, bitmap.rank(-1));
+        assertEquals(0, bitmap.rangeCardinality(0, -1));
+    }
+}
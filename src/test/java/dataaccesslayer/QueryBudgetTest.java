@@ -0,0 +1,61 @@
+package dataaccesslayer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/*******************************************************************************
+ * QueryBudgetTest
+ * Checks the repeat limit of the query budget: running one SQL text more
+ * often than allowed fails the request in FAIL mode, while the chunks of one
+ * IN-list lookup, which share their SQL text, count as a single run.
+ *
+ * @see QueryBudget
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Unit tests for the per-request repeat limit.
+ ******************************************************************************/
+
+class QueryBudgetTest {
+
+    private static final String SQL = "SELECT AuthorID, FirstName, LastName FROM Authors WHERE AuthorID IN (?, ?)";
+
+    @AfterEach
+    void endRequest() {
+        RequestContext.end();
+    }
+
+    @Test
+    void failsAStatementRunMoreOftenThanTheLimit() {
+        RequestContext context = RequestContext.begin("getAllTitles", 0);
+        context.setQueryBudget(new QueryBudget(0, 2, QueryBudget.Mode.FAIL));
+        RequestContext.recordStatement(SQL);
+        RequestContext.recordStatement(SQL);
+
+        assertThrows(QueryBudgetExceededException.class, () -> RequestContext.recordStatement(SQL));
+    }
+
+    @Test
+    void countsTheChunksOfOneLookupAsOneRun() {
+        RequestContext context = RequestContext.begin("getAllTitles", 0);
+        context.setQueryBudget(new QueryBudget(0, 2, QueryBudget.Mode.FAIL));
+        for (int lookup = 0; lookup < 2; lookup++) {
+            RequestContext.beginChunkedQuery();
+            try {
+                for (int chunk = 0; chunk < 12; chunk++) {
+                    RequestContext.recordStatement(SQL);
+                }
+            } finally {
+                RequestContext.endChunkedQuery();
+            }
+        }
+
+        assertEquals(24, context.getStatements());
+        assertEquals(2, context.getMostRepeatedCount());
+        assertThrows(QueryBudgetExceededException.class, () -> RequestContext.recordStatement(SQL));
+    }
+}
@@ -0,0 +1,114 @@
+package dataaccesslayer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dataaccesslayer.RetryPolicy.Reason;
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/*******************************************************************************
+ * RetryPolicyTest
+ * Checks which SQL failures are classified as retryable, and that retries
+ * stop when the attempts, the retry budget or the deadline run out, or when
+ * a lost commit leaves a non-idempotent write's outcome unknown.
+ *
+ * @see RetryPolicy
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Unit tests for write retry classification and budgeting.
+ ******************************************************************************/
+
+class RetryPolicyTest {
+
+    private static final SQLException DEADLOCK =
+            new SQLTransactionRollbackException("Deadlock found when trying to get lock", "40001", 1213);
+
+    @Test
+    void classifiesDeadlocks() {
+        assertEquals(Reason.DEADLOCK, RetryPolicy.classify(DEADLOCK));
+        assertEquals(Reason.DEADLOCK, RetryPolicy.classify(new SQLException("Deadlock", "HY000", 1213)));
+        assertEquals(Reason.DEADLOCK, RetryPolicy.classify(new SQLException("Serialization failure", "40001")));
+        assertEquals(Reason.DEADLOCK, RetryPolicy.classify(new SQLTransactionRollbackException("Rolled back")));
+    }
+
+    @Test
+    void classifiesLockWaitTimeoutsWhateverTheExceptionType() {
+        assertEquals(Reason.LOCK_WAIT, RetryPolicy.classify(
+                new SQLException("Lock wait timeout exceeded", "HY000", 1205)));
+        assertEquals(Reason.LOCK_WAIT, RetryPolicy.classify(
+                new SQLTransactionRollbackException("Lock wait timeout exceeded", "40001", 1205)));
+        assertEquals(Reason.LOCK_WAIT, RetryPolicy.classify(
+                new SQLTimeoutException("Lock wait timeout exceeded", "HY000", 1205)));
+    }
+
+    @Test
+    void doesNotRetryQueryTimeoutsOrConstraintViolations() {
+        assertNull(RetryPolicy.classify(new SQLTimeoutException("Statement cancelled due to timeout", "HY008")));
+        assertNull(RetryPolicy.classify(new SQLException("Duplicate entry", "23000", 1062)));
+        assertNull(RetryPolicy.classify(new SQLException("Unknown")));
+    }
+
+    @Test
+    void classifiesLostConnectionsAndLooksThroughCauses() {
+        assertEquals(Reason.CONNECTION, RetryPolicy.classify(
+                new SQLNonTransientConnectionException("Communications link failure", "08S01")));
+        assertEquals(Reason.CONNECTION, RetryPolicy.classify(new SQLException("Cannot connect", "08001")));
+        BatchUpdateException batch = new BatchUpdateException("Batch failed", null, 0, new int[0], DEADLOCK);
+        assertEquals(Reason.DEADLOCK, RetryPolicy.classify(batch));
+    }
+
+    @Test
+    void stopsWhenTheAttemptsRunOut() {
+        RetryPolicy policy = new RetryPolicy(3, 1, 1, 100, 0);
+        assertTrue(policy.retry(DEADLOCK, 1, false, false, Long.MAX_VALUE));
+        assertTrue(policy.retry(DEADLOCK, 2, false, false, Long.MAX_VALUE));
+        assertFalse(policy.retry(DEADLOCK, 3, false, false, Long.MAX_VALUE));
+        assertFalse(policy.retry(new SQLException("Duplicate entry", "23000", 1062), 1, false, false,
+                Long.MAX_VALUE));
+    }
+
+    @Test
+    void stopsWhenTheBudgetRunsOutAndRefillsItOnSuccess() {
+        RetryPolicy policy = new RetryPolicy(10, 1, 1, 2, 50);
+        assertTrue(policy.retry(DEADLOCK, 1, false, false, Long.MAX_VALUE));
+        assertTrue(policy.retry(DEADLOCK, 1, false, false, Long.MAX_VALUE));
+        assertFalse(policy.retry(DEADLOCK, 1, false, false, Long.MAX_VALUE), "the budget is spent");
+        policy.succeeded(1);
+        assertFalse(policy.retry(DEADLOCK, 1, false, false, Long.MAX_VALUE), "half a token is not a retry");
+        policy.succeeded(1);
+        assertTrue(policy.retry(DEADLOCK, 1, false, false, Long.MAX_VALUE));
+        assertFalse(policy.retry(DEADLOCK, 1, false, false, Long.MAX_VALUE));
+        for (int i = 0; i < 100; i++) {
+            policy.succeeded(1);
+        }
+        assertTrue(policy.retry(DEADLOCK, 1, false, false, Long.MAX_VALUE));
+        assertTrue(policy.retry(DEADLOCK, 1, false, false, Long.MAX_VALUE));
+        assertFalse(policy.retry(DEADLOCK, 1, false, false, Long.MAX_VALUE), "the budget holds at most 2");
+    }
+
+    @Test
+    void retriesALostCommitOnlyForIdempotentWrites() {
+        RetryPolicy policy = new RetryPolicy(4, 1, 1, 1, 0);
+        SQLException lost = new SQLNonTransientConnectionException("Communications link failure", "08S01");
+        assertFalse(policy.retry(lost, 1, true, false, Long.MAX_VALUE));
+        assertTrue(policy.retry(lost, 1, true, true, Long.MAX_VALUE), "the refusal did not use the budget");
+        assertFalse(policy.retry(lost, 1, false, false, Long.MAX_VALUE), "the budget is spent");
+    }
+
+    @Test
+    void doesNotRetryPastTheDeadline() {
+        RetryPolicy policy = new RetryPolicy(4, 1, 1, 10, 0);
+        assertFalse(policy.retry(DEADLOCK, 1, false, false, System.nanoTime() - 1));
+        assertTrue(policy.retry(DEADLOCK, 1, false, false, System.nanoTime() + TimeUnit.SECONDS.toNanos(10)));
+    }
+}
@@ -0,0 +1,141 @@
+package dataaccesslayer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/*******************************************************************************
+ * ScatterGatherTest
+ * Checks that titles are routed to shards by a CRC32 of their ISBN, and that
+ * keyset pages read from every shard and merged are exactly the pages of
+ * one table holding all the titles. The shards are data sources that are
+ * never connected; each read is answered from the titles routed to it.
+ *
+ * @see ScatterGather
+ * @see DataSource#shardIndex(String, int)
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Unit tests for shard routing and scatter-gather reads.
+ ******************************************************************************/
+
+class ScatterGatherTest {
+
+    @Test
+    void routesIsbnsByCrc32() {
+        // CRC32("0132152134") = 2319324108, CRC32("0132151421") = 4147231495
+        assertEquals(0, DataSource.shardIndex("0132152134", 3));
+        assertEquals(1, DataSource.shardIndex("0132151421", 3));
+        assertEquals(3, DataSource.shardIndex("0132151421", 4));
+        assertEquals(0, DataSource.shardIndex("0132151421", 1));
+
+        int[] counts = new int[4];
+        for (String isbn : isbns(4000)) {
+            int shard = DataSource.shardIndex(isbn, counts.length);
+            assertEquals(shard, DataSource.shardIndex(isbn, counts.length));
+            counts[shard]++;
+        }
+        for (int count : counts) {
+            assertTrue(count > 800 && count < 1200, "shards should be about even: " + count);
+        }
+    }
+
+    @Test
+    void mergedKeysetPagesMatchASingleTable() throws SQLException {
+        List<DataSource> shards = shards(3);
+        Map<DataSource, TreeSet<String>> tables = new HashMap<>();
+        TreeSet<String> all = new TreeSet<>();
+        for (String isbn : isbns(500)) {
+            tables.computeIfAbsent(shards.get(DataSource.shardIndex(isbn, shards.size())), s -> new TreeSet<>())
+                    .add(isbn);
+            all.add(isbn);
+        }
+
+        int limit = 7;
+        List<String> paged = new ArrayList<>();
+        String after = "";
+        int pages = 0;
+        while (true) {
+            String key = after;
+            // Each shard returns its first limit ISBNs after the key, as WHERE ISBN > ? ORDER BY ISBN LIMIT ? does
+            List<List<String>> parts = ScatterGather.scatter(shards,
+                    shard -> tables.get(shard).tailSet(key, false).stream().limit(limit).toList());
+            List<String> page = ScatterGather.merge(parts, Comparator.naturalOrder(), limit);
+            if (page.isEmpty()) {
+                break;
+            }
+            assertTrue(page.size() == limit || paged.size() + page.size() == all.size());
+            assertEquals(List.copyOf(all.tailSet(key, false)).subList(0, page.size()), page);
+            paged.addAll(page);
+            after = page.get(page.size() - 1);
+            pages++;
+        }
+        assertEquals(List.copyOf(all), paged);
+        assertEquals((all.size() + limit - 1) / limit, pages);
+    }
+
+    @Test
+    void mergeTakesTheFirstRowsOfAllParts() {
+        List<List<Integer>> parts = List.of(List.of(1, 4, 9), List.of(), List.of(2, 3, 10, 11), List.of(5));
+        assertEquals(List.of(1, 2, 3, 4, 5, 9, 10, 11), ScatterGather.merge(parts, Comparator.naturalOrder(), 100));
+        assertEquals(List.of(1, 2, 3), ScatterGather.merge(parts, Comparator.naturalOrder(), 3));
+        List<Integer> only = List.of(1, 2);
+        assertSame(only, ScatterGather.merge(List.of(only), Comparator.naturalOrder(), 2));
+        assertEquals(List.of(1), ScatterGather.merge(List.of(only), Comparator.naturalOrder(), 1));
+    }
+
+    @Test
+    void readsEveryShardAndReportsAFailureAfterAllHaveFinished() {
+        List<DataSource> shards = shards(4);
+        AtomicInteger finished = new AtomicInteger();
+        SQLException failure = assertThrows(SQLException.class, () -> ScatterGather.scatter(shards, shard -> {
+            if (shard == shards.get(2)) {
+                throw new SQLException("Shard 2 is down", "08S01");
+            }
+            finished.incrementAndGet();
+            return List.of(shard);
+        }));
+        assertEquals("Shard 2 is down", failure.getMessage());
+        assertEquals(3, finished.get());
+    }
+
+    @Test
+    void returnsTheRowsOfEachShardInShardOrder() throws SQLException {
+        List<DataSource> shards = shards(3);
+        List<List<Integer>> parts = ScatterGather.scatter(shards, shard -> List.of(shards.indexOf(shard)));
+        assertEquals(List.of(List.of(0), List.of(1), List.of(2)), parts);
+    }
+
+    private static List<DataSource> shards(int count) {
+        Properties props = new Properties();
+        props.setProperty("jdbc.url", "jdbc:none://localhost/books");
+        props.setProperty("jdbc.username", "test");
+        props.setProperty("jdbc.password", "test");
+        List<DataSource> shards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            shards.add(new DataSource(props));
+        }
+        return shards;
+    }
+
+    private static List<String> isbns(int count) {
+        List<String> isbns = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            isbns.add(String.format("978013%07d", i * 7919L % 10_000_000));
+        }
+        return isbns;
+    }
+}
@@ -0,0 +1,128 @@
+package monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/*******************************************************************************
+ * RingBufferTest
+ * Checks the ring buffer's capacity rounding, FIFO order, wrap-around and
+ * full/empty behaviour, and that elements published by several producers at
+ * once all reach the consumer exactly once and in each producer's order.
+ *
+ * @see RingBuffer
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Unit tests for the lock-free MPSC ring buffer.
+ ******************************************************************************/
+
+class RingBufferTest {
+
+    @Test
+    void roundsCapacityUpToAPowerOfTwo() {
+        assertEquals(2, new RingBuffer<>(1).capacity());
+        assertEquals(4, new RingBuffer<>(4).capacity());
+        assertEquals(8, new RingBuffer<>(5).capacity());
+        assertEquals(4096, new RingBuffer<>(4000).capacity());
+    }
+
+    @Test
+    void rejectsOffersWhenFullAndAcceptsThemOncePolled() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        assertTrue(buffer.isEmpty());
+        assertNull(buffer.poll());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4), "a full buffer must refuse at once");
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+        assertFalse(buffer.offer(5));
+    }
+
+    @Test
+    void keepsFifoOrderAcrossManyWrapArounds() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(8);
+        int next = 0;
+        int expected = 0;
+        for (int round = 0; round < 1000; round++) {
+            for (int i = 0; i < 5; i++) {
+                assertTrue(buffer.offer(next++));
+            }
+            for (int i = 0; i < 5; i++) {
+                assertEquals(expected++, buffer.poll());
+            }
+        }
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void drainToMovesAtMostMaxElements() {
+        RingBuffer<String> buffer = new RingBuffer<>(8);
+        for (String s : new String[] { "a", "b", "c", "d" }) {
+            buffer.offer(s);
+        }
+        List<String> drained = new ArrayList<>();
+        assertEquals(3, buffer.drainTo(drained, 3));
+        assertEquals(List.of("a", "b", "c"), drained);
+        assertEquals(1, buffer.drainTo(drained, 10));
+        assertEquals(0, buffer.drainTo(drained, 10));
+    }
+
+    @Test
+    void deliversEveryElementOfConcurrentProducersOnce() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 100_000;
+        RingBuffer<long[]> buffer = new RingBuffer<>(256);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    long[] element = { producer, i };
+                    while (!buffer.offer(element)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+
+        long[] nextByProducer = new long[producers];
+        long received = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received < (long) producers * perProducer && System.nanoTime() < deadline) {
+            long[] element = buffer.poll();
+            if (element == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int producer = (int) element[0];
+            assertEquals(nextByProducer[producer], element[1], "out of order or duplicated for producer " + producer);
+            nextByProducer[producer]++;
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals((long) producers * perProducer, received);
+        assertTrue(buffer.isEmpty());
+    }
+}
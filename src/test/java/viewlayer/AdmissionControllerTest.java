@@ -0,0 +1,139 @@
+package viewlayer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/*******************************************************************************
+ * AdmissionControllerTest
+ * Checks the AIMD limits: a request under the target latency raises the
+ * limit by 1/limit up to its maximum, one over the target cuts it by a
+ * tenth at most once per 100 ms and never below 1, and a request without
+ * database work leaves it as it is. Also checks that a full queue rejects
+ * at once and that a request's latency is its database time per connection.
+ *
+ * @see AdmissionController
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Unit tests for adaptive admission limits.
+ ******************************************************************************/
+
+class AdmissionControllerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(150);
+
+    @Test
+    void raisesTheLimitByOneOverTheLimitUpToItsMaximum() {
+        AdmissionController.Limiter limiter = new AdmissionController.Limiter("read", 10, 0, 100);
+        complete(limiter, SLOW);
+        assertEquals(9, limiter.getLimit());
+
+        // From 9, nine increases of about 1/9 are not quite enough to get back to 10
+        for (int i = 0; i < 9; i++) {
+            complete(limiter, FAST);
+        }
+        assertEquals(9, limiter.getLimit());
+        for (int i = 0; i < 100; i++) {
+            complete(limiter, FAST);
+        }
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void cutsTheLimitByATenthAtMostOnceEvery100Milliseconds() throws InterruptedException {
+        AdmissionController.Limiter limiter = new AdmissionController.Limiter("read", 10, 0, 100);
+        complete(limiter, SLOW);
+        complete(limiter, SLOW);
+        assertEquals(9, limiter.getLimit());
+
+        Thread.sleep(110);
+        complete(limiter, SLOW);
+        assertEquals(8, limiter.getLimit()); // 8.1
+
+        AdmissionController.Limiter single = new AdmissionController.Limiter("write", 1, 0, 100);
+        complete(single, SLOW);
+        assertEquals(1, single.getLimit());
+        assertTrue(single.acquire(0));
+    }
+
+    @Test
+    void keepsTheLimitWithoutDatabaseWorkOrATarget() {
+        AdmissionController.Limiter limiter = new AdmissionController.Limiter("read", 10, 0, 100);
+        complete(limiter, SLOW);
+        complete(limiter, -1);
+        assertEquals(9, limiter.getLimit());
+
+        AdmissionController.Limiter fixed = new AdmissionController.Limiter("read", 10, 0, 0);
+        complete(fixed, SLOW);
+        assertEquals(10, fixed.getLimit());
+    }
+
+    @Test
+    void rejectsAtOnceWhenTheQueueIsFull() throws InterruptedException {
+        AdmissionController.Limiter limiter = new AdmissionController.Limiter("read", 1, 0, 100);
+        assertTrue(limiter.acquire(100));
+        assertFalse(limiter.acquire(100));
+        assertEquals(1, limiter.getRejected());
+
+        AdmissionController.Limiter queued = new AdmissionController.Limiter("read", 1, 1, 100);
+        assertTrue(queued.acquire(0));
+        assertFalse(queued.acquire(20)); // Waits, then times out
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            queued.release(-1);
+        });
+        releaser.start();
+        assertTrue(queued.acquire(5000)); // Admitted when the slot is released
+        releaser.join();
+        assertEquals(2, queued.getAdmitted());
+        assertEquals(1, queued.getInFlight());
+        assertEquals(0, queued.getWaiting());
+    }
+
+    @Test
+    void measuresARequestByItsDatabaseTimePerConnection() {
+        AdmissionController admission = new AdmissionController(10, 10, Map.of(),
+                new String[] {"getAllTitles"}, 0, 100, 100);
+        AdmissionController.Limiter reads = admission.limiter(AdmissionController.ActionClass.READ);
+        AdmissionController.Limiter titles = admission.actionLimiters().iterator().next();
+
+        admit(admission).release(SLOW, 1);
+        assertEquals(9, reads.getLimit());
+        assertEquals(9, titles.getLimit());
+
+        // 250 ms over five connections is 50 ms each: under the target, so the limits grow back
+        for (int i = 0; i < 20; i++) {
+            admit(admission).release(5 * FAST, 5);
+        }
+        assertEquals(10, reads.getLimit());
+        assertEquals(10, titles.getLimit());
+
+        admit(admission).release(0, 0);
+        assertEquals(0, reads.getInFlight());
+        assertEquals(0, titles.getInFlight());
+        assertEquals(10, reads.getLimit());
+    }
+
+    private static void complete(AdmissionController.Limiter limiter, long latencyNanos) {
+        assertTrue(limiter.acquire(0));
+        limiter.release(latencyNanos);
+    }
+
+    private static AdmissionController.Admission admit(AdmissionController admission) {
+        AdmissionController.Admission admitted = admission.admit("getAllTitles", 100);
+        assertNotNull(admitted);
+        return admitted;
+    }
+}
@@ -0,0 +1,61 @@
+package viewlayer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+/*******************************************************************************
+ * AuthenticatorTest
+ * Checks the signed values of token mode: a login token is accepted until it
+ * expires, and the write time carried after a write is accepted only for the
+ * user it was issued to. Neither passes for the other, and a value signed
+ * with another secret or altered in any way is rejected.
+ *
+ * @see Authenticator
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Unit tests for signed login tokens and write-time cookies.
+ ******************************************************************************/
+
+class AuthenticatorTest {
+
+    private final Authenticator authenticator = new Authenticator(Authenticator.Mode.TOKEN,
+            "test-secret".getBytes(StandardCharsets.UTF_8), 1800);
+
+    @Test
+    void acceptsALoginTokenUntilItExpires() {
+        String token = authenticator.issue("annabel", 2000);
+        assertEquals("annabel", authenticator.verify(token, 1999));
+        assertNull(authenticator.verify(token, 2000));
+        assertNull(authenticator.verify(token.substring(0, token.length() - 2), 1999));
+        assertNull(authenticator.verify("garbage", 1999));
+    }
+
+    @Test
+    void acceptsAWriteTimeOnlyForItsUser() {
+        String value = authenticator.issueWrite("annabel", 1_700_000_000_123L);
+        assertEquals(1_700_000_000_123L, authenticator.verifyWrite(value, "annabel"));
+        assertEquals(0, authenticator.verifyWrite(value, "someone"));
+        assertEquals(0, authenticator.verifyWrite(null, "annabel"));
+        assertEquals(0, authenticator.verifyWrite("no-signature", "annabel"));
+    }
+
+    @Test
+    void rejectsValuesSignedWithAnotherSecret() {
+        Authenticator other = new Authenticator(Authenticator.Mode.TOKEN,
+                "other-secret".getBytes(StandardCharsets.UTF_8), 1800);
+        assertEquals(0, authenticator.verifyWrite(other.issueWrite("annabel", 42), "annabel"));
+        assertNull(authenticator.verify(other.issue("annabel", 2000), 1999));
+    }
+
+    @Test
+    void keepsLoginTokensAndWriteTimesApart() {
+        // Both payloads are user|time; only the signatures tell them apart
+        assertEquals(0, authenticator.verifyWrite(authenticator.issue("annabel", 42), "annabel"));
+        assertNull(authenticator.verify(authenticator.issueWrite("annabel", 4_000_000_000_000L), 1999));
+    }
+}
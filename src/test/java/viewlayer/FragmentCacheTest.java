@@ -0,0 +1,122 @@
+package viewlayer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+/*******************************************************************************
+ * FragmentCacheTest
+ * Checks the fragment cache: it evicts the least recently used fragments once
+ * their sizes exceed the budget, never caches a fragment over an eighth of
+ * the budget, lets fragments expire, drops a fragment rendered against an
+ * older catalog version while keeping one rendered against a newer one, and
+ * does not serve a fragment to a session that wrote after it was rendered.
+ *
+ * @see FragmentCache
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Unit tests for the memory-bounded fragment cache.
+ ******************************************************************************/
+
+class FragmentCacheTest {
+
+    /** Size of a 900-byte fragment with a one-letter key: bytes, key chars and overhead. */
+    private static final int ENTRY_SIZE = 900 + 2 + 96;
+
+    @Test
+    void evictsTheLeastRecentlyUsedFragmentsOnceOverBudget() {
+        FragmentCache cache = new FragmentCache(8000, 0);
+        for (char key = 'a'; key <= 'h'; key++) {
+            cache.put(String.valueOf(key), 1, 0, new byte[900]);
+        }
+        assertEquals(8, cache.getEntryCount());
+        assertEquals(8 * ENTRY_SIZE, cache.getSizeBytes());
+
+        cache.get("a", 1, 0); // Now b is the least recently used
+        cache.put("i", 1, 0, new byte[900]);
+        assertEquals(1, cache.getEvictions());
+        assertEquals(8 * ENTRY_SIZE, cache.getSizeBytes());
+        assertNull(cache.get("b", 1, 0));
+        assertEquals(900, cache.get("a", 1, 0).length);
+        assertEquals(900, cache.get("i", 1, 0).length);
+
+        byte[] replacement = new byte[100];
+        cache.put("a", 1, 0, replacement);
+        assertEquals(7 * ENTRY_SIZE + 100 + 2 + 96, cache.getSizeBytes());
+        assertSame(replacement, cache.get("a", 1, 0));
+    }
+
+    @Test
+    void neverCachesAFragmentOverAnEighthOfTheBudget() {
+        FragmentCache cache = new FragmentCache(8000, 0);
+        cache.put("large", 1, 0, new byte[1001]);
+        assertEquals(0, cache.getEntryCount());
+        cache.put("large", 1, 0, new byte[1000]);
+        assertEquals(1, cache.getEntryCount());
+
+        FragmentCache disabled = new FragmentCache(0, 0);
+        assertFalse(disabled.isEnabled());
+        disabled.put("empty", 1, 0, new byte[0]);
+        assertNull(disabled.get("empty", 1, 0));
+    }
+
+    @Test
+    void expiresFragmentsAfterTheirTimeToLive() throws InterruptedException {
+        FragmentCache cache = new FragmentCache(8000, 20);
+        byte[] fragment = new byte[10];
+        cache.put("page", 1, 0, fragment);
+        assertSame(fragment, cache.get("page", 1, 0));
+
+        Thread.sleep(40);
+        assertNull(cache.get("page", 1, 0));
+        assertEquals(1, cache.getInvalidations());
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getSizeBytes());
+    }
+
+    @Test
+    void dropsAFragmentRenderedAgainstAnOlderVersion() {
+        FragmentCache cache = new FragmentCache(8000, 0);
+        cache.put("page", 1, 0, new byte[10]);
+        assertNull(cache.get("page", 2, 0));
+        assertEquals(1, cache.getInvalidations());
+        assertEquals(0, cache.getEntryCount());
+
+        // A request that still sees version 2 misses, but leaves the version 3 rendering in place
+        byte[] newer = new byte[10];
+        cache.put("page", 3, 0, newer);
+        assertNull(cache.get("page", 2, 0));
+        assertSame(newer, cache.get("page", 3, 0));
+
+        // A slow request that rendered version 2 does not replace it either
+        cache.put("page", 2, 0, new byte[10]);
+        assertSame(newer, cache.get("page", 3, 0));
+        assertEquals(1, cache.getInvalidations());
+        assertEquals(10 + 8 + 96, cache.getSizeBytes());
+    }
+
+    @Test
+    void missesForASessionThatWroteAfterTheFragmentWasRendered() {
+        FragmentCache cache = new FragmentCache(8000, 0);
+        byte[] older = new byte[10];
+        cache.put("page", 1, 1_000, older);
+        assertSame(older, cache.get("page", 1, 0));
+        assertSame(older, cache.get("page", 1, 1_000));
+        // Written through another node, so the version has not changed; kept for everyone else
+        assertNull(cache.get("page", 1, 1_001));
+        assertSame(older, cache.get("page", 1, 0));
+        assertEquals(0, cache.getInvalidations());
+
+        byte[] fresh = new byte[10];
+        cache.put("page", 1, 2_000, fresh);
+        assertSame(fresh, cache.get("page", 1, 1_001));
+        // A slower rendering of older data does not replace it
+        cache.put("page", 1, 1_500, new byte[10]);
+        assertSame(fresh, cache.get("page", 1, 1_001));
+    }
+}
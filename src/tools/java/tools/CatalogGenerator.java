@@ -0,0 +1,293 @@
+package tools;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/*******************************************************************************
+ * CatalogGenerator
+ * Generates a synthetic catalog for the books schema at any size, for scale
+ * and load testing. The output is fully determined by the seed and the sizes.
+ *
+ * Authors get names drawn from common first and last names. Titles get
+ * computer-book style names, editions skewed towards the first few, and
+ * valid ISBNs: the ISBN of title {@code i} is {@link #isbn(int)}, a 978-
+ * prefixed ISBN-13 (or the matching ISBN-10) with a correct check digit,
+ * spread over the number space rather than sequential.
+ *
+ * Each title has at least one author; extra co-authors follow a geometric
+ * distribution with the configured mean. Authors are picked with a Zipf
+ * distribution over their rank, so a few prolific authors appear on many
+ * titles and most on only a few, as in real catalogs.
+ *
+ * Usage (or mvn -Ptools verify -Dtools.args="..."):
+ *
+ *   java tools.CatalogGenerator [--authors N] [--titles M] [--authors-per-title MEAN]
+ *        [--zipf S] [--seed SEED] [--isbn 10|13]
+ *        [--format tsv|sql|jdbc] [--out DIR]
+ *        [--jdbc-url URL --user USER --password PASSWORD] [--batch ROWS]
+ *
+ * tsv writes files for MySQL's LOAD DATA LOCAL INFILE plus a load.sql that
+ * loads them; sql writes one script of multi-row INSERTs; jdbc inserts
+ * directly with multi-row INSERTs (add rewriteBatchedStatements=true to a
+ * MySQL URL). The tables must exist and be empty.
+ *
+ * @see CatalogSink
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Deterministic, seedable catalog data generator.
+ ******************************************************************************/
+
+public final class CatalogGenerator {
+
+    private static final String[] FIRST_NAMES = {
+        "Paul", "Harvey", "Abbey", "Michael", "Eric", "Anna", "James", "Maria", "Robert", "Linda", "David",
+        "Susan", "Daniel", "Karen", "Thomas", "Nancy", "Joseph", "Lisa", "Charles", "Emily", "Brian", "Laura",
+        "Kevin", "Sarah", "Jason", "Megan", "Andrew", "Rachel", "Steven", "Grace", "Wei", "Mei", "Hiroshi",
+        "Yuki", "Ahmed", "Fatima", "Carlos", "Lucia", "Ivan", "Olga", "Pierre", "Claire", "Hans", "Ingrid",
+        "Raj", "Priya", "Kwame", "Amara", "Liam", "Chloe"
+    };
+
+    private static final String[] LAST_NAMES = {
+        "Deitel", "Morgano", "Kern", "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller",
+        "Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez", "Wilson", "Anderson", "Taylor", "Thomas",
+        "Moore", "Jackson", "Martin", "Lee", "Thompson", "White", "Harris", "Clark", "Lewis", "Robinson",
+        "Walker", "Young", "Allen", "King", "Wright", "Scott", "Nguyen", "Hill", "Green", "Adams", "Baker",
+        "Chen", "Wang", "Tanaka", "Kim", "Patel", "Singh", "Muller", "Dubois", "Rossi", "Ivanov"
+    };
+
+    private static final String[] TOPICS = {
+        "Java", "C++", "C#", "Python", "JavaScript", "Visual Basic", "SQL", "Android", "iOS", "Swift",
+        "Kotlin", "Go", "Rust", "Web", "Database", "Algorithms", "Data Structures", "Networking",
+        "Operating Systems", "Machine Learning", "Cloud", "Security", "Compilers", "Graphics", "Linux"
+    };
+
+    private static final String[] PATTERNS = {
+        "%s How to Program", "%s for Programmers", "Introduction to %s", "Advanced %s",
+        "%s: The Complete Reference", "Learning %s", "%s in Practice", "Professional %s",
+        "%s Fundamentals", "Effective %s", "%s Design Patterns", "Modern %s"
+    };
+
+    private final int authors;
+    private final int titles;
+    private final double authorsPerTitle;
+    private final long seed;
+    private final boolean isbn10;
+
+    /** Cumulative Zipf probabilities by author rank. */
+    private final double[] zipfCdf;
+
+    /** Coprime with the author count, so rank times it modulo the count permutes the ranks. */
+    private final long rankStride;
+
+    /**
+     * Creates a generator.
+     *
+     * @param authors         number of authors (IDs 1 to authors)
+     * @param titles          number of titles
+     * @param authorsPerTitle mean number of authors per title (at least 1)
+     * @param zipfExponent    skew of author popularity; 0 is uniform, 1 is classic Zipf
+     * @param seed            random seed
+     * @param isbn10          true for ISBN-10, false for ISBN-13
+     */
+    public CatalogGenerator(int authors, int titles, double authorsPerTitle, double zipfExponent, long seed,
+                            boolean isbn10) {
+        if (authors < 1 || titles < 0) {
+            throw new IllegalArgumentException("Need at least one author and no negative title count");
+        }
+        this.authors = authors;
+        this.titles = titles;
+        this.authorsPerTitle = Math.max(1, authorsPerTitle);
+        this.seed = seed;
+        this.isbn10 = isbn10;
+        zipfCdf = new double[authors];
+        double total = 0;
+        for (int rank = 0; rank < authors; rank++) {
+            total += 1 / Math.pow(rank + 1, zipfExponent);
+            zipfCdf[rank] = total;
+        }
+        for (int rank = 0; rank < authors; rank++) {
+            zipfCdf[rank] /= total;
+        }
+        long stride = 7919;
+        while (BigInteger.valueOf(stride).gcd(BigInteger.valueOf(authors)).intValue() != 1) {
+            stride += 2;
+        }
+        rankStride = stride;
+    }
+
+    /**
+     * Sends the whole catalog to a sink and closes it.
+     *
+     * @param sink where the rows go
+     * @return the number of AuthorISBN rows generated
+     * @throws IOException if the sink fails
+     */
+    public long generate(CatalogSink sink) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        long links = 0;
+        try (CatalogSink out = sink) {
+            for (int id = 1; id <= authors; id++) {
+                out.author(id, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                        LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+            }
+            // Extra co-authors are geometric with mean authorsPerTitle - 1
+            double extraProbability = 1 - 1 / authorsPerTitle;
+            int maxAuthors = Math.min(authors, 20);
+            int[] chosen = new int[maxAuthors];
+            for (int i = 0; i < titles; i++) {
+                String isbn = isbn(i, isbn10);
+                String topic = TOPICS[random.nextInt(TOPICS.length)];
+                String name = String.format(PATTERNS[random.nextInt(PATTERNS.length)], topic);
+                // Editions: most books have one or two, a few long-running ones many more
+                int edition = 1 + (int) Math.min(11, -Math.log(1 - random.nextDouble()) * 1.5);
+                out.title(isbn, name, edition, Integer.toString(1975 + random.nextInt(51)));
+
+                int count = 1;
+                while (count < maxAuthors && random.nextDouble() < extraProbability) {
+                    count++;
+                }
+                for (int a = 0; a < count; a++) {
+                    int author;
+                    boolean duplicate;
+                    do {
+                        author = zipfAuthor(random);
+                        duplicate = false;
+                        for (int b = 0; b < a; b++) {
+                            duplicate |= chosen[b] == author;
+                        }
+                    } while (duplicate);
+                    chosen[a] = author;
+                    out.authorIsbn(author, isbn);
+                }
+                links += count;
+            }
+        }
+        return links;
+    }
+
+    /**
+     * Picks an author ID with Zipf-distributed popularity.
+     *
+     * @param random the random source
+     * @return the AuthorID
+     */
+    private int zipfAuthor(SplittableRandom random) {
+        int index = Arrays.binarySearch(zipfCdf, random.nextDouble());
+        int rank = index >= 0 ? index : Math.min(-index - 1, authors - 1);
+        // Spread popular ranks over the ID range so prolific authors are not just the first IDs
+        return (int) ((rank * rankStride) % authors) + 1;
+    }
+
+    /**
+     * Gets the ISBN-13 of a generated title.
+     *
+     * @param index the title number, from 0
+     * @return the ISBN
+     */
+    public static String isbn(int index) {
+        return isbn(index, false);
+    }
+
+    /**
+     * Gets the ISBN of a generated title. Titles are numbered through a
+     * permutation of the 9-digit ISBN body, so consecutive titles get
+     * unrelated ISBNs while staying unique.
+     *
+     * @param index  the title number, from 0 (below one billion)
+     * @param isbn10 true for ISBN-10, false for ISBN-13
+     * @return the ISBN with its check digit
+     */
+    public static String isbn(int index, boolean isbn10) {
+        // 3^18 has no factor 2 or 5, so multiplying by it permutes 0..10^9-1
+        long body = (index * 387_420_489L + 123_456_789L) % 1_000_000_000L;
+        String digits = String.format("%09d", body);
+        return isbn10 ? digits + isbn10CheckDigit(digits) : "978" + digits + isbn13CheckDigit("978" + digits);
+    }
+
+    /**
+     * Computes an ISBN-10 check digit.
+     *
+     * @param digits the first nine digits
+     * @return the check character, 0-9 or X
+     */
+    static char isbn10CheckDigit(String digits) {
+        int sum = 0;
+        for (int i = 0; i < 9; i++) {
+            sum += (10 - i) * (digits.charAt(i) - '0');
+        }
+        int check = (11 - sum % 11) % 11;
+        return check == 10 ? 'X' : (char) ('0' + check);
+    }
+
+    /**
+     * Computes an ISBN-13 check digit.
+     *
+     * @param digits the first twelve digits
+     * @return the check digit
+     */
+    static char isbn13CheckDigit(String digits) {
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (i % 2 == 0 ? 1 : 3) * (digits.charAt(i) - '0');
+        }
+        return (char) ('0' + (10 - sum % 10) % 10);
+    }
+
+    /**
+     * Command line entry point; see the class comment for the options.
+     *
+     * @param args the options
+     * @throws Exception if the catalog cannot be written
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected an option, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        int authors = Integer.parseInt(options.getOrDefault("authors", "1000"));
+        int titles = Integer.parseInt(options.getOrDefault("titles", "10000"));
+        CatalogGenerator generator = new CatalogGenerator(authors, titles,
+                Double.parseDouble(options.getOrDefault("authors-per-title", "3")),
+                Double.parseDouble(options.getOrDefault("zipf", "1.0")),
+                Long.parseLong(options.getOrDefault("seed", "42")),
+                "10".equals(options.get("isbn")));
+        String format = options.getOrDefault("format", "tsv");
+        int batch = Integer.parseInt(options.getOrDefault("batch", "1000"));
+        Path out = Paths.get(options.getOrDefault("out", "target/catalog"));
+
+        long started = System.nanoTime();
+        long links;
+        switch (format) {
+            case "tsv":
+                links = generator.generate(new TsvCatalogSink(out));
+                break;
+            case "sql":
+                links = generator.generate(new SqlCatalogSink(out, batch));
+                break;
+            case "jdbc":
+                Connection connection = DriverManager.getConnection(options.get("jdbc-url"),
+                        options.get("user"), options.getOrDefault("password", ""));
+                links = generator.generate(new JdbcCatalogSink(connection, batch));
+                connection.close();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown format " + format + " (tsv, sql or jdbc)");
+        }
+        System.out.printf("Generated %d authors, %d titles and %d AuthorISBN rows (%s) in %.1f s%n",
+                authors, titles, links, "jdbc".equals(format) ? "loaded" : out.toAbsolutePath(),
+                (System.nanoTime() - started) / 1e9);
+    }
+}
@@ -0,0 +1,58 @@
+package tools;
+
+import java.io.IOException;
+
+/*******************************************************************************
+ * CatalogSink
+ * Receives the rows produced by {@link CatalogGenerator}: all authors first,
+ * then each title followed by its AuthorISBN rows. Implementations write them
+ * to files or straight into a database.
+ *
+ * @see CatalogGenerator
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Destination of generated catalog rows.
+ ******************************************************************************/
+
+public interface CatalogSink extends AutoCloseable {
+
+    /**
+     * Receives an Authors row.
+     *
+     * @param id        the AuthorID
+     * @param firstName the first name
+     * @param lastName  the last name
+     * @throws IOException if the row cannot be written
+     */
+    void author(int id, String firstName, String lastName) throws IOException;
+
+    /**
+     * Receives a Titles row.
+     *
+     * @param isbn          the ISBN
+     * @param title         the title
+     * @param editionNumber the edition number
+     * @param copyright     the copyright year
+     * @throws IOException if the row cannot be written
+     */
+    void title(String isbn, String title, int editionNumber, String copyright) throws IOException;
+
+    /**
+     * Receives an AuthorISBN row. Its title has already been received.
+     *
+     * @param authorId the AuthorID
+     * @param isbn     the ISBN
+     * @throws IOException if the row cannot be written
+     */
+    void authorIsbn(int authorId, String isbn) throws IOException;
+
+    /**
+     * Writes out everything received.
+     *
+     * @throws IOException if the rows cannot be written
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,151 @@
+package tools;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*******************************************************************************
+ * JdbcCatalogSink
+ * Inserts the catalog straight into a database with multi-row INSERTs of a
+ * batch of rows each, committing per batch. Before a batch is written, the
+ * pending rows of the tables it references are, so foreign keys hold
+ * throughout. The connection is left open.
+ *
+ * @see CatalogGenerator
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Catalog sink loading through JDBC.
+ ******************************************************************************/
+
+public final class JdbcCatalogSink implements CatalogSink {
+
+    private final Connection connection;
+    private final int batchSize;
+    private final boolean autoCommit;
+
+    private final Batch authors;
+    private final Batch titles;
+    private final Batch authorIsbn;
+
+    /**
+     * Creates a sink on a connection.
+     *
+     * @param connection the connection; its auto-commit is restored on close
+     * @param batchSize  rows per INSERT statement
+     * @throws IOException if the connection cannot be prepared
+     */
+    public JdbcCatalogSink(Connection connection, int batchSize) throws IOException {
+        this.connection = connection;
+        this.batchSize = Math.max(1, batchSize);
+        authors = new Batch("Authors (AuthorID, FirstName, LastName)", 3);
+        titles = new Batch("Titles (ISBN, Title, EditionNumber, Copyright)", 4, authors);
+        authorIsbn = new Batch("AuthorISBN (AuthorID, ISBN)", 2, authors, titles);
+        try {
+            autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            throw new IOException("Cannot start loading the catalog", e);
+        }
+    }
+
+    @Override
+    public void author(int id, String firstName, String lastName) throws IOException {
+        authors.add(id, firstName, lastName);
+    }
+
+    @Override
+    public void title(String isbn, String title, int editionNumber, String copyright) throws IOException {
+        titles.add(isbn, title, editionNumber, copyright);
+    }
+
+    @Override
+    public void authorIsbn(int authorId, String isbn) throws IOException {
+        authorIsbn.add(authorId, isbn);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Each table on its own too: a sink may not receive rows of every table
+        authors.flush();
+        titles.flush();
+        authorIsbn.flush();
+        try {
+            for (Batch batch : List.of(authors, titles, authorIsbn)) {
+                if (batch.full != null) {
+                    batch.full.close();
+                }
+            }
+            connection.setAutoCommit(autoCommit);
+        } catch (SQLException e) {
+            throw new IOException("Cannot restore auto-commit", e);
+        }
+    }
+
+    /**
+     * Rows of one table waiting to be inserted by a single statement.
+     */
+    private final class Batch {
+
+        private final String table;
+        private final int columns;
+        private final Batch[] references;
+        private final List<Object> values = new ArrayList<>();
+        private PreparedStatement full;
+        private int rows;
+
+        Batch(String table, int columns, Batch... references) {
+            this.table = table;
+            this.columns = columns;
+            this.references = references;
+        }
+
+        void add(Object... row) throws IOException {
+            values.addAll(List.of(row));
+            if (++rows == batchSize) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            if (rows == 0) {
+                return;
+            }
+            for (Batch referenced : references) {
+                referenced.flush();
+            }
+            try {
+                // Full batches reuse one prepared statement; only the last, partial one gets its own
+                if (rows == batchSize && full == null) {
+                    full = connection.prepareStatement(insert(rows));
+                }
+                PreparedStatement statement = rows == batchSize ? full : connection.prepareStatement(insert(rows));
+                for (int i = 0; i < values.size(); i++) {
+                    statement.setObject(i + 1, values.get(i));
+                }
+                statement.executeUpdate();
+                connection.commit();
+                if (statement != full) {
+                    statement.close();
+                }
+            } catch (SQLException e) {
+                throw new IOException("Error inserting into " + table, e);
+            }
+            values.clear();
+            rows = 0;
+        }
+
+        private String insert(int count) {
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" VALUES ");
+            String row = "(?" + ",?".repeat(columns - 1) + ")";
+            for (int i = 0; i < count; i++) {
+                sql.append(i == 0 ? "" : ",").append(row);
+            }
+            return sql.toString();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package tools;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/*******************************************************************************
+ * ShardedCatalogSink
+ * Spreads a catalog over title shards the way the application reads it:
+ * authors go to the main sink, and each title goes, with its AuthorISBN
+ * rows, to the sink of the shard its ISBN maps to.
+ *
+ * @see CatalogGenerator
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Catalog sink routing titles to shards.
+ ******************************************************************************/
+
+public final class ShardedCatalogSink implements CatalogSink {
+
+    private final CatalogSink main;
+    private final List<CatalogSink> shards;
+    private final ToIntFunction<String> shardOf;
+
+    /**
+     * Creates a sink over other sinks.
+     *
+     * @param main    receives the Authors rows
+     * @param shards  receive the Titles and AuthorISBN rows, by shard index
+     * @param shardOf maps an ISBN to its shard index
+     */
+    public ShardedCatalogSink(CatalogSink main, List<CatalogSink> shards, ToIntFunction<String> shardOf) {
+        this.main = main;
+        this.shards = List.copyOf(shards);
+        this.shardOf = shardOf;
+    }
+
+    @Override
+    public void author(int id, String firstName, String lastName) throws IOException {
+        main.author(id, firstName, lastName);
+    }
+
+    @Override
+    public void title(String isbn, String title, int editionNumber, String copyright) throws IOException {
+        shards.get(shardOf.applyAsInt(isbn)).title(isbn, title, editionNumber, copyright);
+    }
+
+    @Override
+    public void authorIsbn(int authorId, String isbn) throws IOException {
+        shards.get(shardOf.applyAsInt(isbn)).authorIsbn(authorId, isbn);
+    }
+
+    @Override
+    public void close() throws IOException {
+        main.close();
+        for (CatalogSink shard : shards) {
+            shard.close();
+        }
+    }
+}
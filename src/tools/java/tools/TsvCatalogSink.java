@@ -0,0 +1,93 @@
+package tools;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/*******************************************************************************
+ * TsvCatalogSink
+ * Writes the catalog as tab-separated files in the format MySQL's
+ * {@code LOAD DATA LOCAL INFILE} reads by default (tab fields, newline rows),
+ * plus a load.sql script that loads them in foreign key order:
+ *
+ *   mysql --local-infile=1 -u USER -p books &lt; load.sql   (run from the output directory)
+ *
+ * Generated values never contain tabs, newlines or backslashes, so no
+ * escaping is needed.
+ *
+ * @see CatalogGenerator
+ * @since Java 21.0.7
+ * @author Annabel Cheng
+ * @version 1.0
+ * Course: CST8288 Lab013 Assignment 2
+ * Description: Catalog sink writing LOAD DATA files.
+ ******************************************************************************/
+
+public final class TsvCatalogSink implements CatalogSink {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path directory;
+    private final Writer authors;
+    private final Writer titles;
+    private final Writer authorIsbn;
+
+    /**
+     * Creates the files in a directory, replacing earlier ones.
+     *
+     * @param directory the output directory (created if missing)
+     * @throws IOException if the files cannot be created
+     */
+    public TsvCatalogSink(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        authors = open("authors.tsv");
+        titles = open("titles.tsv");
+        authorIsbn = open("authorisbn.tsv");
+    }
+
+    /**
+     * Opens one output file.
+     *
+     * @param name the file name
+     * @return the writer
+     * @throws IOException if the file cannot be created
+     */
+    private Writer open(String name) throws IOException {
+        return new BufferedWriter(Files.newBufferedWriter(directory.resolve(name), StandardCharsets.UTF_8),
+                BUFFER_SIZE);
+    }
+
+    @Override
+    public void author(int id, String firstName, String lastName) throws IOException {
+        authors.write(id + "\t" + firstName + "\t" + lastName + "\n");
+    }
+
+    @Override
+    public void title(String isbn, String title, int editionNumber, String copyright) throws IOException {
+        titles.write(isbn + "\t" + title + "\t" + editionNumber + "\t" + copyright + "\n");
+    }
+
+    @Override
+    public void authorIsbn(int authorId, String isbn) throws IOException {
+        authorIsbn.write(authorId + "\t" + isbn + "\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        authors.close();
+        titles.close();
+        authorIsbn.close();
+        Files.writeString(directory.resolve("load.sql"), String.join("\n",
+                "SET foreign_key_checks = 0;",
+                "SET unique_checks = 0;",
+                "LOAD DATA LOCAL INFILE 'authors.tsv' INTO TABLE Authors (AuthorID, FirstName, LastName);",
+                "LOAD DATA LOCAL INFILE 'titles.tsv' INTO TABLE Titles (ISBN, Title, EditionNumber, Copyright);",
+                "LOAD DATA LOCAL INFILE 'authorisbn.tsv' INTO TABLE AuthorISBN (AuthorID, ISBN);",
+                "SET unique_checks = 1;",
+                "SET foreign_key_checks = 1;",
+                ""), StandardCharsets.UTF_8);
+    }
+}